@@ -0,0 +1,98 @@
+package com.dp1.backend.benchmarks;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.models.ProgramacionVuelo;
+import com.dp1.backend.utils.ACO;
+import com.dp1.backend.utils.AirportGeoIndex;
+import com.dp1.backend.utils.HorizonteVuelos;
+import com.dp1.backend.utils.IndiceSalidas;
+import com.dp1.backend.utils.Normalizacion;
+
+// Costo de un vuelo candidato (ACO.costo) para pares (paquete, primer vuelo que puede tomar)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CostoBenchmark {
+    private static final int MUESTRAS = 1000;
+
+    private FixturePlanificacion fixture;
+    private HorizonteVuelos horizonte;
+    private AirportGeoIndex geo;
+    private long[] minutos;
+    private int[] idsProgramados;
+    private Paquete[] paquetes;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        fixture = FixturePlanificacion.generar(MUESTRAS);
+        geo = AirportGeoIndex.construir(fixture.getAeropuertos());
+        horizonte = new HorizonteVuelos(geo);
+        horizonte.asegurarDias(FixturePlanificacion.INICIO.toLocalDate().minusDays(1), 5, fixture.getVuelos());
+
+        ACO.minYMaxTiempoVuelo = Normalizacion.obtenerMinMaxTiempoVuelo(fixture.getVuelos());
+        ACO.minYMaxTiempoVuelo[0] = 0;
+        ACO.minYMaxDistanciaAeropuertos = new double[] { 0, geo.getDistanciaMaxima() };
+
+        // Cada muestra es un paquete con el primer vuelo que sale de su origen después de su envío
+        IndiceSalidas indice = horizonte.getIndiceSalidas();
+        minutos = new long[MUESTRAS];
+        idsProgramados = new int[MUESTRAS];
+        paquetes = new Paquete[MUESTRAS];
+        int k = 0;
+        for (Paquete paq : fixture.getPaquetes()) {
+            Envio envio = fixture.getEnvios().get(paq.getCodigoEnvio());
+            int origen = indice.ordinal(envio.getOrigen());
+            int posicion = indice.primeraSalidaDespuesDe(origen, envio.getMinutoSalida());
+            if (posicion >= indice.cantidadSalidas(origen)) {
+                continue;
+            }
+            minutos[k] = envio.getMinutoSalida();
+            idsProgramados[k] = indice.idEn(origen, posicion);
+            paquetes[k] = paq;
+            if (++k == MUESTRAS) {
+                break;
+            }
+        }
+        // Si faltaron muestras, repetimos las primeras
+        for (int i = k; i < MUESTRAS; i++) {
+            minutos[i] = minutos[i % k];
+            idsProgramados[i] = idsProgramados[i % k];
+            paquetes[i] = paquetes[i % k];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MUESTRAS)
+    public double costo() {
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        HashMap<String, Envio> envios = fixture.getEnvios();
+        double suma = 0;
+        for (int i = 0; i < MUESTRAS; i++) {
+            int id = idsProgramados[i];
+            suma += ACO.costo(minutos[i], vuelosProgramados.get(id), horizonte.getEstado(), id, paquetes[i], envios,
+                    geo, fixture.getVuelos());
+        }
+        return suma;
+    }
+}
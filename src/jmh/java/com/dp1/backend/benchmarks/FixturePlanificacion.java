@@ -0,0 +1,152 @@
+package com.dp1.backend.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.models.Vuelo;
+import com.dp1.backend.utils.FuncionesLectura;
+import com.dp1.backend.utils.LectorEnvios;
+
+/*
+ * Datos de entrada de los benchmarks, generados a partir de los archivos de data/ (se puede cambiar la
+ * carpeta con -Dbenchmark.datos=...). Para un volumen de paquetes dado se toman los envíos de todos los
+ * archivos pack_enviado_*, en orden de salida desde INICIO, hasta juntar esa cantidad de paquetes. Así,
+ * los mismos parámetros generan siempre la misma entrada.
+ */
+public class FixturePlanificacion {
+    public static final ZonedDateTime INICIO = ZonedDateTime.of(2025, 1, 2, 0, 0, 0, 0, ZoneId.of("UTC"));
+    // Paquetes por día en los datos (aproximado), para no leer más días de los necesarios
+    private static final int PAQUETES_POR_DIA = 150;
+
+    private final HashMap<String, Aeropuerto> aeropuertos;
+    private final HashMap<Integer, Vuelo> vuelos;
+    private final HashMap<String, Envio> envios;
+    private final ArrayList<Paquete> paquetes;
+    private final List<Path> archivosEnvios;
+    private final ZonedDateTime fin;
+
+    private FixturePlanificacion(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, List<Path> archivosEnvios,
+            ZonedDateTime fin) {
+        this.aeropuertos = aeropuertos;
+        this.vuelos = vuelos;
+        this.envios = envios;
+        this.paquetes = paquetes;
+        this.archivosEnvios = archivosEnvios;
+        this.fin = fin;
+    }
+
+    public static String carpetaDatos() {
+        return System.getProperty("benchmark.datos", "data");
+    }
+
+    // Carga aeropuertos, vuelos y los envíos necesarios para tener cantidadPaquetes paquetes
+    public static FixturePlanificacion generar(int cantidadPaquetes) throws IOException {
+        String carpeta = carpetaDatos();
+        HashMap<String, Aeropuerto> aeropuertos = FuncionesLectura
+                .leerAeropuertos(carpeta + "/Aeropuerto.husos.v1.20250818.txt");
+        HashMap<Integer, Vuelo> vuelos = FuncionesLectura.leerVuelos(carpeta + "/planes_vuelo.v4.20250818.txt",
+                aeropuertos);
+        // Sin los índices .idx que LectorEnvios deja junto a cada archivo
+        List<Path> archivos = LectorEnvios.listarArchivos(Paths.get(carpeta, "envios"));
+
+        // Leemos una ventana holgada y luego cortamos en el paquete número cantidadPaquetes
+        long dias = Math.max(2, (long) (cantidadPaquetes * 1.5 / PAQUETES_POR_DIA));
+        ArrayList<Envio> leidos = new ArrayList<>();
+        while (true) {
+            leidos.clear();
+            ZonedDateTime finVentana = INICIO.plusDays(dias);
+            for (Path archivo : archivos) {
+                leidos.addAll(FuncionesLectura
+                        .leerEnviosDesdeHasta(archivo.toString(), aeropuertos, INICIO, finVentana).values());
+            }
+            int total = 0;
+            for (Envio e : leidos) {
+                total += e.getPaquetes().size();
+            }
+            if (total >= cantidadPaquetes || dias > 4000) {
+                break;
+            }
+            dias *= 2;
+        }
+        leidos.sort(Comparator.comparing(Envio::getFechaHoraSalida).thenComparing(Envio::getCodigoEnvio));
+
+        HashMap<String, Envio> envios = new HashMap<>();
+        ArrayList<Paquete> paquetes = new ArrayList<>();
+        ZonedDateTime fin = INICIO;
+        for (Envio e : leidos) {
+            if (paquetes.size() >= cantidadPaquetes) {
+                break;
+            }
+            // Si dos archivos repiten un código, nos quedamos con el primero
+            if (envios.containsKey(e.getCodigoEnvio())) {
+                continue;
+            }
+            envios.put(e.getCodigoEnvio(), e);
+            paquetes.addAll(e.getPaquetes());
+            fin = e.getFechaHoraSalida();
+        }
+        return new FixturePlanificacion(aeropuertos, vuelos, envios, paquetes, archivos, fin);
+    }
+
+    public HashMap<String, Aeropuerto> getAeropuertos() {
+        return this.aeropuertos;
+    }
+
+    public HashMap<Integer, Vuelo> getVuelos() {
+        return this.vuelos;
+    }
+
+    public HashMap<String, Envio> getEnvios() {
+        return this.envios;
+    }
+
+    public ArrayList<Paquete> getPaquetes() {
+        return this.paquetes;
+    }
+
+    public List<Path> getArchivosEnvios() {
+        return this.archivosEnvios;
+    }
+
+    // Salida del último envío incluido
+    public ZonedDateTime getFin() {
+        return this.fin;
+    }
+
+    // Rutas actuales de los paquetes, para poder volver a ellas entre invocaciones
+    public ArrayList<ArrayList<Integer>> copiarRutas() {
+        ArrayList<ArrayList<Integer>> rutas = new ArrayList<>(paquetes.size());
+        for (Paquete p : paquetes) {
+            rutas.add(new ArrayList<>(p.getRuta()));
+        }
+        return rutas;
+    }
+
+    public void restaurarRutas(ArrayList<ArrayList<Integer>> rutas) {
+        for (int i = 0; i < paquetes.size(); i++) {
+            paquetes.get(i).setRuta(new ArrayList<>(rutas.get(i)));
+            paquetes.get(i).setLlegoDestino(false);
+        }
+    }
+
+    // Deja sin carga los vuelos y los almacenes (lo que acumulan las verificaciones)
+    public void limpiarCargas() {
+        for (Vuelo v : vuelos.values()) {
+            v.setCargaPorDia(new HashMap<>());
+        }
+        for (Aeropuerto a : aeropuertos.values()) {
+            a.reiniciarPlanificacion();
+        }
+    }
+}
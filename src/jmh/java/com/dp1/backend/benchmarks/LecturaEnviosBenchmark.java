@@ -0,0 +1,50 @@
+package com.dp1.backend.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dp1.backend.utils.FuncionesLectura;
+
+// Lectura de los archivos pack_enviado_* (FuncionesLectura.leerEnviosDesdeHasta) para la ventana de
+// tiempo que contiene la cantidad de paquetes indicada
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class LecturaEnviosBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int paquetes;
+
+    private FixturePlanificacion fixture;
+
+    @Setup(Level.Trial)
+    public void cargarDatos() throws IOException {
+        fixture = FixturePlanificacion.generar(paquetes);
+    }
+
+    @Benchmark
+    public int leerEnviosDesdeHasta() {
+        int envios = 0;
+        for (Path archivo : fixture.getArchivosEnvios()) {
+            envios += FuncionesLectura.leerEnviosDesdeHasta(archivo.toString(), fixture.getAeropuertos(),
+                    FixturePlanificacion.INICIO, fixture.getFin()).size();
+        }
+        return envios;
+    }
+}
@@ -0,0 +1,66 @@
+package com.dp1.backend.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.utils.ACO;
+import com.dp1.backend.utils.MPAv2;
+
+// Planificación completa: ACO.run_v2 y el algoritmo de depredadores marinos (MPAv2.run)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class PlanificacionBenchmark {
+    // Parámetros del MPA: pocos, para que 100k paquetes termine en un tiempo razonable
+    private static final int ITERACIONES_MPA = 5;
+    private static final int POBLACION_MPA = 10;
+    private static final int VUELOS_POR_PAQUETE_MPA = 3;
+
+    @Param({ "1000", "10000", "100000" })
+    public int paquetes;
+
+    private FixturePlanificacion fixture;
+    private ACO aco;
+
+    @Setup(Level.Trial)
+    public void cargarDatos() throws IOException {
+        fixture = FixturePlanificacion.generar(paquetes);
+        aco = new ACO();
+    }
+
+    // La planificación deja carga en los almacenes; cada invocación parte de cero
+    @Setup(Level.Invocation)
+    public void limpiar() {
+        fixture.limpiarCargas();
+    }
+
+    @Benchmark
+    public ArrayList<Paquete> acoRunV2() {
+        return aco.run_v2(fixture.getAeropuertos(), fixture.getVuelos(), fixture.getEnvios(),
+                fixture.getPaquetes(), 20);
+    }
+
+    @Benchmark
+    public int[] mpaRun() {
+        return MPAv2.run(fixture.getAeropuertos(), fixture.getVuelos(), fixture.getEnvios(), fixture.getPaquetes(),
+                ITERACIONES_MPA, POBLACION_MPA, VUELOS_POR_PAQUETE_MPA);
+    }
+}
@@ -0,0 +1,109 @@
+package com.dp1.backend.benchmarks;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.dp1.backend.models.ColeccionRuta;
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.models.RutaPosible;
+import com.dp1.backend.services.AlmacenRutasService;
+import com.dp1.backend.services.ColeccionRutaService;
+import com.dp1.backend.services.DatosEnMemoriaService;
+import com.dp1.backend.utils.ACO;
+import com.dp1.backend.utils.Auxiliares;
+
+// Verificación de las rutas planificadas: Auxiliares.solucionValidav2 (paquete por paquete) y
+// Auxiliares.verificacionTotalPaquetes (que además busca rutas alternativas)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+@Fork(1)
+public class VerificacionBenchmark {
+    @Param({ "1000", "10000", "100000" })
+    public int paquetes;
+
+    private FixturePlanificacion fixture;
+    private DatosEnMemoriaService datosEnMemoriaService;
+    private ArrayList<ArrayList<Integer>> rutasPlanificadas;
+
+    @Setup(Level.Trial)
+    public void planificar() throws IOException, ReflectiveOperationException {
+        fixture = FixturePlanificacion.generar(paquetes);
+        new ACO().run_v2(fixture.getAeropuertos(), fixture.getVuelos(), fixture.getEnvios(), fixture.getPaquetes(),
+                20);
+        rutasPlanificadas = fixture.copiarRutas();
+
+        // Sin Spring: las rutas nuevas solo se guardan en memoria (ids de un contador, sin JDBC)
+        datosEnMemoriaService = new DatosEnMemoriaService();
+        inyectar("coleccionRutaService", new ColeccionRutaService() {
+            @Override
+            public ColeccionRuta createColeccionRuta(ColeccionRuta ruta) {
+                return ruta;
+            }
+        });
+        inyectar("almacenRutasService", new AlmacenRutasService() {
+            private final AtomicInteger siguienteId = new AtomicInteger(1);
+
+            @Override
+            public ColeccionRuta guardarColeccion(ColeccionRuta coleccion) {
+                coleccion.setId(siguienteId.getAndIncrement());
+                return coleccion;
+            }
+
+            @Override
+            public RutaPosible guardarRuta(RutaPosible ruta) {
+                ruta.setId(siguienteId.getAndIncrement());
+                return ruta;
+            }
+        });
+    }
+
+    private void inyectar(String campo, Object servicio) throws ReflectiveOperationException {
+        Field field = DatosEnMemoriaService.class.getDeclaredField(campo);
+        field.setAccessible(true);
+        field.set(datosEnMemoriaService, servicio);
+    }
+
+    // Las verificaciones modifican cargas y rutas; cada invocación parte de las rutas del ACO
+    @Setup(Level.Invocation)
+    public void restaurar() {
+        fixture.restaurarRutas(rutasPlanificadas);
+        fixture.limpiarCargas();
+    }
+
+    @Benchmark
+    public int solucionValidav2() {
+        int validas = 0;
+        for (Paquete paquete : fixture.getPaquetes()) {
+            if (Auxiliares.solucionValidav2(fixture.getAeropuertos(), fixture.getVuelos(), fixture.getEnvios(),
+                    paquete, false)) {
+                validas++;
+            }
+        }
+        return validas;
+    }
+
+    @Benchmark
+    public int verificacionTotalPaquetes() {
+        return Auxiliares.verificacionTotalPaquetes(fixture.getAeropuertos(), fixture.getVuelos(),
+                fixture.getEnvios(), fixture.getPaquetes(), datosEnMemoriaService);
+    }
+}
@@ -0,0 +1,44 @@
+package com.dp1.backend.config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import com.dp1.backend.utils.TrazaPlanificacion;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+// Instala la traza del planificador según las propiedades aco.traza.*
+@Configuration
+public class TrazaPlanificacionConfig {
+
+    // NINGUNO, RESUMEN, PASOS o TABLAS
+    @Value("${aco.traza.nivel:RESUMEN}")
+    private String nivel;
+    // Fracción de paquetes (0 a 1) cuyos pasos se trazan en PASOS y TABLAS
+    @Value("${aco.traza.muestreo:0}")
+    private double muestreo;
+    // Códigos de envío cuyos paquetes se trazan siempre, separados por comas
+    @Value("${aco.traza.envios:}")
+    private String envios;
+    @Value("${aco.traza.capacidad:8192}")
+    private int capacidad;
+
+    @PostConstruct
+    public void instalar() {
+        List<String> codigos = Arrays.stream(envios.split(","))
+                .map(String::trim)
+                .filter(c -> !c.isEmpty())
+                .toList();
+        TrazaPlanificacion.Nivel nivelTraza = TrazaPlanificacion.Nivel.valueOf(nivel.trim().toUpperCase());
+        TrazaPlanificacion.instalar(new TrazaPlanificacion(nivelTraza, muestreo, codigos, capacidad));
+    }
+
+    @PreDestroy
+    public void detener() {
+        TrazaPlanificacion.actual().detener();
+    }
+}
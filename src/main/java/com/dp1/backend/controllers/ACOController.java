@@ -10,7 +10,9 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.dp1.backend.services.ACOService;
@@ -35,6 +37,17 @@ public class ACOController {
         return acoService.ejecutarAcoAntiguo(codigo);
     }
 
+    // Cancela un vuelo en la simulación; fecha: día de salida (local del origen), p. ej. 2025-01-03
+    @PostMapping("/cancelarVuelo/{idVuelo}")
+    public ResponseEntity<String> cancelarVuelo(@PathVariable(name = "idVuelo", required = true) int idVuelo,
+            @RequestParam(name = "fecha", required = true) String fechaSalida) {
+        LocalDate fecha = LocalDate.parse(fechaSalida);
+        if (!acoService.cancelarVuelo(idVuelo, fecha)) {
+            return ResponseEntity.status(404).body("El vuelo " + idVuelo + " del " + fecha + " no está planificado");
+        }
+        return ResponseEntity.ok("Vuelo " + idVuelo + " del " + fecha + " cancelado");
+    }
+
     @CrossOrigin(origins = "*")
     @GetMapping("/ejecutar/todaCiudad")
     public ResponseEntity<String> ejecutarAcoTodo() {
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/archivo")
@@ -28,6 +29,12 @@ public class ArchivoController {
         }
     }
 
+    // Avance de la carga de envíos en curso (o de la última)
+    @GetMapping("/progreso")
+    public ResponseEntity<Map<String, Object>> getProgreso() {
+        return ResponseEntity.ok(archivoService.getProgresoCarga());
+    }
+
     @GetMapping("/{id}")
     public ResponseEntity<byte[]> getFile(@PathVariable Long id) {
         Archivo archivo = archivoService.getFile(id);
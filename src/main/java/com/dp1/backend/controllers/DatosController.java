@@ -0,0 +1,37 @@
+package com.dp1.backend.controllers;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.dp1.backend.services.DatosEnMemoriaService;
+import com.dp1.backend.utils.InstantaneaDatos;
+
+@RestController
+@RequestMapping("/datos")
+public class DatosController {
+    @Autowired
+    private DatosEnMemoriaService datosEnMemoriaService;
+
+    public DatosController(DatosEnMemoriaService datosEnMemoriaService) {
+        this.datosEnMemoriaService = datosEnMemoriaService;
+    }
+
+    // Regenera data/modelo.snap desde los archivos de texto (después de cambiar aeropuertos, vuelos o envíos)
+    @PostMapping("/instantanea")
+    public ResponseEntity<String> regenerarInstantanea() {
+        try {
+            long inicio = System.nanoTime();
+            InstantaneaDatos instantanea = datosEnMemoriaService.regenerarInstantanea();
+            return ResponseEntity.ok("Instantánea regenerada en " + (System.nanoTime() - inicio) / 1000000 + " ms: "
+                    + instantanea.getCantidadAeropuertos() + " aeropuertos, " + instantanea.getCantidadVuelos()
+                    + " vuelos, " + instantanea.getCantidadEnvios() + " envíos, " + instantanea.getTamanio()
+                    + " bytes");
+        } catch (Exception e) {
+            e.printStackTrace();
+            return ResponseEntity.status(500).body("No se pudo regenerar la instantánea: " + e.getMessage());
+        }
+    }
+}
@@ -5,7 +5,9 @@ import org.springframework.web.bind.annotation.RestController;
 import com.dp1.backend.models.Envio;
 import com.dp1.backend.services.EnvioService;
 
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Map;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -46,6 +48,16 @@ public class EnvioController {
         return envioService.getEnvios();
     }
 
+    // Ejemplo: /envio/cotizacion?origen=SKBO&destino=EDDI&fechaHoraSalida=2025-01-05T10:00:00Z
+    @GetMapping("/cotizacion")
+    public Map<String, Object> cotizarEnvio(@RequestParam(name = "origen") String origen,
+            @RequestParam(name = "destino") String destino,
+            @RequestParam(name = "fechaHoraSalida", required = false) String fechaHoraSalida,
+            @RequestParam(name = "capacidad", defaultValue = "false") boolean capacidad) {
+        ZonedDateTime salida = fechaHoraSalida == null ? null : ZonedDateTime.parse(fechaHoraSalida);
+        return envioService.cotizarEnvio(origen, destino, salida, capacidad);
+    }
+
     @PostMapping
     public String createEnvio(@RequestBody Envio envio) {
         return envioService.createEnvio(envio);
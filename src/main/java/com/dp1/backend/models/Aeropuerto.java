@@ -4,17 +4,20 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
 import java.util.Map;
-import java.util.SortedMap;
 import java.util.TimeZone;
 import java.util.TreeMap;
 
 import org.hibernate.annotations.SQLDelete;
 import org.hibernate.annotations.SQLRestriction;
 
+import com.dp1.backend.utils.LineaTiempoOcupacion;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Index;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 @Entity
 @Table(name = "aeropuerto", indexes = {
@@ -52,8 +55,11 @@ public class Aeropuerto extends BaseModel {
 
     @Column(name = "longitud")
     private double longitud;
-    //Estos tienen la zona horaria del aeropuerto
-    private TreeMap<LocalDateTime, Integer> cantPaqParaPlanificacion;
+    // Ocupación del almacén durante la planificación, por minuto epoch (UTC)
+    @Transient
+    @JsonIgnore
+    private LineaTiempoOcupacion ocupacionPlanificacion = new LineaTiempoOcupacion();
+    //Este tiene la zona horaria del aeropuerto
     private TreeMap<LocalDateTime, Integer> cantPaqReal;
 
 
@@ -66,12 +72,18 @@ public class Aeropuerto extends BaseModel {
     }
 
 
-    public TreeMap<LocalDateTime,Integer> getCantPaqParaPlanificacion() {
-        return this.cantPaqParaPlanificacion;
+    public LineaTiempoOcupacion getOcupacionPlanificacion() {
+        return this.ocupacionPlanificacion;
+    }
+
+    // Olvida la ocupación planificada (antes de una nueva planificación)
+    public void reiniciarPlanificacion() {
+        this.ocupacionPlanificacion.reiniciar();
     }
 
-    public void setCantPaqParaPlanificacion(TreeMap<LocalDateTime,Integer> estadoAlmacen) {
-        this.cantPaqParaPlanificacion = estadoAlmacen;
+    // Olvida la ocupación planificada anterior al minuto dado (la planificación ya no mira tan atrás)
+    public void descartarPlanificacionAntesDe(long minuto) {
+        this.ocupacionPlanificacion.descartarAntesDe(minuto);
     }
 
     public double getLatitud() {
@@ -106,7 +118,6 @@ public class Aeropuerto extends BaseModel {
         this.gmt = gmt;
         this.capacidadMaxima = capacidad;
         super.setId(idAeropuerto);
-        this.cantPaqParaPlanificacion = new TreeMap<LocalDateTime, Integer>();
         this.cantPaqReal = new TreeMap<LocalDateTime, Integer>();
 
 
@@ -195,33 +206,67 @@ public class Aeropuerto extends BaseModel {
         this.capacidadMaxima = capacidad;
     }
 
-    public void paqueteEntraPlanificacion(LocalDateTime time) {
-        Map.Entry<LocalDateTime, Integer> entry = cantPaqParaPlanificacion.floorEntry(time);
-        int lastValue = (entry != null) ? entry.getValue() : paquetesAEstaHoraReal(time);;
-
-        cantPaqParaPlanificacion.put(time, lastValue + 1);
-        updateFutureCounts(time, 1);
-    }
-
-    public void paqueteSalePlanificacion(LocalDateTime time) {
-        Map.Entry<LocalDateTime, Integer> entry = cantPaqParaPlanificacion.floorEntry(time);
-        int lastValue = (entry != null) ? entry.getValue() : paquetesAEstaHoraReal(time);
-
-        cantPaqParaPlanificacion.put(time, lastValue - 1);
-        updateFutureCounts(time, -1);
-    }
-
-    public int paquetesAEstaHoraPlanificacion(LocalDateTime time) {
-        Map.Entry<LocalDateTime, Integer> entry = cantPaqParaPlanificacion.floorEntry(time);
-        int lastValue = (entry != null) ? entry.getValue() : paquetesAEstaHoraReal(time);
-        return lastValue;
-    }
-
-    private void updateFutureCounts(LocalDateTime time, int delta) {
-        SortedMap<LocalDateTime, Integer> tailMap = cantPaqParaPlanificacion.tailMap(time);
-        for (Map.Entry<LocalDateTime, Integer> entry : tailMap.entrySet()) {
-            cantPaqParaPlanificacion.put(entry.getKey(), entry.getValue() + delta);
+    // Copia para planificar sin tocar este aeropuerto: la ocupación de planificación se copia y la
+    // ocupación real se comparte (durante la planificación solo se lee)
+    public Aeropuerto copiaParaPlanificacion() {
+        Aeropuerto copia = new Aeropuerto();
+        copia.setIdAeropuerto(this.getIdAeropuerto());
+        copia.codigoOACI = this.codigoOACI;
+        copia.ciudad = this.ciudad;
+        copia.pais = this.pais;
+        copia.paisCorto = this.paisCorto;
+        copia.continente = this.continente;
+        copia.gmt = this.gmt;
+        copia.zoneId = this.zoneId;
+        copia.zonaHoraria = this.zonaHoraria;
+        copia.capacidadMaxima = this.capacidadMaxima;
+        copia.latitud = this.latitud;
+        copia.longitud = this.longitud;
+        copia.ocupacionPlanificacion = this.ocupacionPlanificacion.copia();
+        copia.cantPaqReal = this.cantPaqReal;
+        return copia;
+    }
+
+    // El paquete ocupa el almacén desde el minuto de llegada en adelante
+    public void paqueteEntraPlanificacion(long minuto) {
+        paquetesEntranPlanificacion(minuto, 1);
+    }
+
+    // Varios paquetes de un mismo envío que llegan juntos en un vuelo
+    public void paquetesEntranPlanificacion(long minuto, int cantidad) {
+        ocupacionPlanificacion.sumarDesde(minuto, cantidad);
+    }
+
+    // El paquete deja de ocupar el almacén desde el minuto de salida en adelante
+    public void paqueteSalePlanificacion(long minuto) {
+        paquetesSalenPlanificacion(minuto, 1);
+    }
+
+    public void paquetesSalenPlanificacion(long minuto, int cantidad) {
+        ocupacionPlanificacion.sumarDesde(minuto, -cantidad);
+    }
+
+    // Paquetes en el almacén en ese minuto: lo planificado sobre lo que ya hay realmente
+    public int paquetesAEstaHoraPlanificacion(long minuto) {
+        return ocupacionPlanificacion.valorEn(minuto) + paquetesAEstaHoraReal(minuto);
+    }
+
+    // Máximo de paquetes planificados en el almacén entre los dos minutos (incluidos; hasta = Long.MAX_VALUE:
+    // desde en adelante). Si además hay ocupación real registrada se suma su máximo en el rango, así que el
+    // resultado es una cota superior
+    public int maximoPaquetesPlanificacion(long desde, long hasta) {
+        int maximoReal = 0;
+        if (cantPaqReal != null && !cantPaqReal.isEmpty()) {
+            ZoneOffset offset = ZoneOffset.ofHours(gmt);
+            LocalDateTime inicio = LocalDateTime.ofEpochSecond(desde * 60, 0, offset);
+            maximoReal = paquetesAEstaHoraReal(inicio);
+            Map<LocalDateTime, Integer> rango = hasta == Long.MAX_VALUE ? cantPaqReal.tailMap(inicio, false)
+                    : cantPaqReal.subMap(inicio, false, LocalDateTime.ofEpochSecond(hasta * 60, 0, offset), true);
+            for (int valor : rango.values()) {
+                maximoReal = Math.max(maximoReal, valor);
+            }
         }
+        return ocupacionPlanificacion.maximoEnRango(desde, hasta) + maximoReal;
     }
 
     public void paqueteEntraReal(LocalDateTime time) {
@@ -243,5 +288,12 @@ public class Aeropuerto extends BaseModel {
         return (entry != null) ? entry.getValue() : 0;
     }
 
+    public int paquetesAEstaHoraReal(long minuto) {
+        if (cantPaqReal == null || cantPaqReal.isEmpty()) {
+            return 0;
+        }
+        return paquetesAEstaHoraReal(LocalDateTime.ofEpochSecond(minuto * 60, 0, ZoneOffset.ofHours(gmt)));
+    }
+
 
 }
\ No newline at end of file
@@ -1,6 +1,7 @@
 package com.dp1.backend.models;
 
 import com.dp1.backend.models.Aeropuerto;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 
 import jakarta.persistence.CascadeType;
@@ -10,8 +11,11 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 
 import org.hibernate.annotations.SQLRestriction;
@@ -33,6 +37,23 @@ public class ColeccionRuta extends BaseModel  {
     @OneToMany(mappedBy = "coleccionRuta",  cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.EAGER)
     private List<RutaPosible>  rutasPosibles;
 
+    /*
+     * Forma compacta de las rutas, en el mismo orden que rutasPosibles: para cada ruta sus vuelos ordenados
+     * por día relativo, y su capacidad de cuello de botella (la menor capacidad de sus vuelos).
+     * Las rutas solo se agregan al final, así que compactar() solo procesa las que falten.
+     */
+    @JsonIgnore
+    @Transient
+    private int compactadas = 0;
+
+    @JsonIgnore
+    @Transient
+    private int[][] vuelosCompactos = new int[0][];
+
+    @JsonIgnore
+    @Transient
+    private int[] capacidadCuello = new int[0];
+
 
     public String getCodigoRuta() {
         return this.codigoRuta;
@@ -49,4 +70,65 @@ public class ColeccionRuta extends BaseModel  {
     public void setRutasPosibles(List<RutaPosible> rutasPosibles) {
         this.rutasPosibles = rutasPosibles;
     }
+
+    public synchronized void compactar(HashMap<Integer, Vuelo> vuelos) {
+        int total = rutasPosibles == null ? 0 : rutasPosibles.size();
+        if (total <= compactadas) {
+            return;
+        }
+        vuelosCompactos = Arrays.copyOf(vuelosCompactos, total);
+        capacidadCuello = Arrays.copyOf(capacidadCuello, total);
+        for (int r = compactadas; r < total; r++) {
+            List<ItemRutaPosible> items = rutasPosibles.get(r).getFlights();
+            int largo = items == null ? 0 : items.size();
+            // (día << 32) | posición: ordenar los long ordena por día sin perder el orden de viaje
+            long[] llaves = new long[largo];
+            for (int i = 0; i < largo; i++) {
+                llaves[i] = ((long) items.get(i).getDiaRelativo() << 32) | i;
+            }
+            Arrays.sort(llaves);
+            int[] idVuelos = new int[largo];
+            int cuello = Integer.MAX_VALUE;
+            for (int i = 0; i < largo; i++) {
+                ItemRutaPosible item = items.get((int) llaves[i]);
+                idVuelos[i] = item.getIdVuelo();
+                Vuelo vuelo = vuelos.get(item.getIdVuelo());
+                cuello = Math.min(cuello, vuelo == null ? 0 : vuelo.getCapacidad());
+            }
+            vuelosCompactos[r] = idVuelos;
+            capacidadCuello[r] = largo == 0 ? 0 : cuello;
+        }
+        compactadas = total;
+    }
+
+    // Cantidad de rutas en forma compacta (las de índice menor ya se pueden consultar)
+    public int getCantidadCompactas() {
+        return this.compactadas;
+    }
+
+    public int[] vuelosDe(int ruta) {
+        return this.vuelosCompactos[ruta];
+    }
+
+    public int capacidadCuelloDe(int ruta) {
+        return this.capacidadCuello[ruta];
+    }
+
+    // Índice de la ruta con esos vuelos (en orden de viaje), o -1 si no está entre las compactadas
+    public int indiceDe(List<Integer> idVuelos) {
+        for (int r = 0; r < compactadas; r++) {
+            int[] ruta = vuelosCompactos[r];
+            if (ruta.length != idVuelos.size()) {
+                continue;
+            }
+            int i = 0;
+            while (i < ruta.length && ruta[i] == idVuelos.get(i)) {
+                i++;
+            }
+            if (i == ruta.length) {
+                return r;
+            }
+        }
+        return -1;
+    }
 }
@@ -16,6 +16,10 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+import com.dp1.backend.utils.aco_auxiliares;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Table(name = "envio", indexes = {
@@ -64,6 +68,15 @@ public class Envio extends BaseModel {
     @Column(name = "receptor_id")
     private int receptorID;
 
+    // Salida y llegada prevista en minutos epoch (UTC), para la planificación
+    @Transient
+    @JsonIgnore
+    private long minutoSalida = aco_auxiliares.SIN_MINUTO;
+
+    @Transient
+    @JsonIgnore
+    private long minutoLlegadaPrevista = aco_auxiliares.SIN_MINUTO;
+
 
     public int getEmisorID() {
         return this.emisorID;
@@ -111,6 +124,7 @@ public class Envio extends BaseModel {
         this.origen = origen;
         this.destino = destino;
         this.fechaHoraSalida = fechaHoraSalida;
+        this.minutoSalida = aco_auxiliares.minutoEpoch(fechaHoraSalida);
         this.cantidadPaquetes = cantidadPaquetes;
         this.paquetes = paquetes;
         this.emisor = new Cliente();
@@ -167,6 +181,7 @@ public class Envio extends BaseModel {
 
     public void setFechaHoraSalida(ZonedDateTime fechaHoraSalida) {
         this.fechaHoraSalida = fechaHoraSalida;
+        this.minutoSalida = aco_auxiliares.minutoEpoch(fechaHoraSalida);
     }
 
     public ZonedDateTime getFechaHoraLlegadaPrevista() {
@@ -175,6 +190,22 @@ public class Envio extends BaseModel {
 
     public void setFechaHoraLlegadaPrevista(ZonedDateTime fechaHoraLlegada) {
         this.fechaHoraLlegadaPrevista = fechaHoraLlegada;
+        this.minutoLlegadaPrevista = aco_auxiliares.minutoEpoch(fechaHoraLlegada);
+    }
+
+    // Si el envío vino de la base de datos (sin pasar por los setters) se calculan al pedirlos
+    public long getMinutoSalida() {
+        if (this.minutoSalida == aco_auxiliares.SIN_MINUTO) {
+            this.minutoSalida = aco_auxiliares.minutoEpoch(this.fechaHoraSalida);
+        }
+        return this.minutoSalida;
+    }
+
+    public long getMinutoLlegadaPrevista() {
+        if (this.minutoLlegadaPrevista == aco_auxiliares.SIN_MINUTO) {
+            this.minutoLlegadaPrevista = aco_auxiliares.minutoEpoch(this.fechaHoraLlegadaPrevista);
+        }
+        return this.minutoLlegadaPrevista;
     }
 
     public int getCantidadPaquetes() {
@@ -17,6 +17,10 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+import com.dp1.backend.utils.aco_auxiliares;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Table(name = "paquete")
@@ -63,6 +67,11 @@ public class Paquete extends BaseModel{
     private Duration tiempoRestanteDinamico;
     private Duration tiempoRestante;
 
+    // Plazo total del paquete (tiempoRestante) en minutos, para no convertir la Duration en la planificación
+    @Transient
+    @JsonIgnore
+    private long minutosPlazo = aco_auxiliares.SIN_MINUTO;
+
 
     public ArrayList<Double> getcostosRuta() {
         return this.costosRuta;
@@ -134,6 +143,19 @@ public class Paquete extends BaseModel{
 
     public void setTiempoRestante(Duration tiempoRestante) {
         this.tiempoRestante = tiempoRestante;
+        this.minutosPlazo = tiempoRestante == null ? aco_auxiliares.SIN_MINUTO : tiempoRestante.toMinutes();
+    }
+
+    public long getMinutosPlazo() {
+        if (this.minutosPlazo == aco_auxiliares.SIN_MINUTO && this.tiempoRestante != null) {
+            this.minutosPlazo = this.tiempoRestante.toMinutes();
+        }
+        return this.minutosPlazo;
+    }
+
+    // Minuto epoch (UTC) límite para que el paquete llegue a su destino
+    public long minutoLimite(Envio envio) {
+        return envio.getMinutoSalida() + getMinutosPlazo();
     }
     public Duration getTiempoRestanteDinamico() {
         return this.tiempoRestanteDinamico;
@@ -12,8 +12,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 
-import java.time.ZonedDateTime;
+import com.dp1.backend.utils.aco_auxiliares;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
 @Table(name = "vuelo")
@@ -38,6 +40,15 @@ public class ProgramacionVuelo extends BaseModel{ //guarda el vuelo y la fecha d
     @Column(name = "cantidad_paquetes")
     private int cantidadPaquetes;
 
+    // Salida y llegada en minutos epoch (UTC): la planificación compara y resta enteros en lugar de fechas
+    @Transient
+    @JsonIgnore
+    private long minutoSalida = aco_auxiliares.SIN_MINUTO;
+
+    @Transient
+    @JsonIgnore
+    private long minutoLlegada = aco_auxiliares.SIN_MINUTO;
+
     // No-argument constructor required by JPA/Hibernate
     public ProgramacionVuelo() {
         // No initialization, required for Hibernate
@@ -49,6 +60,8 @@ public class ProgramacionVuelo extends BaseModel{ //guarda el vuelo y la fecha d
         this.idVuelo = idVuelo;
         this.fechaHoraSalida = fechaHoraSalida;
         this.fechaHoraLlegada = fechaHoraLlegada;
+        this.minutoSalida = aco_auxiliares.minutoEpoch(fechaHoraSalida);
+        this.minutoLlegada = aco_auxiliares.minutoEpoch(fechaHoraLlegada);
         this.codigoProgramacionVuelo = idVuelo + "-" + fechaHoraSalida.getYear() + "-" + fechaHoraSalida.getMonthValue() + "-" + fechaHoraSalida.getDayOfMonth();
         this.cargaActualReal = 0;
         this.cargaActualPlanificacion = this.cargaActualReal;
@@ -113,6 +126,7 @@ public class ProgramacionVuelo extends BaseModel{ //guarda el vuelo y la fecha d
 
     public void setFechaHoraSalida(ZonedDateTime fechaHoraSalida) {
         this.fechaHoraSalida = fechaHoraSalida;
+        this.minutoSalida = aco_auxiliares.minutoEpoch(fechaHoraSalida);
     }
     public ZonedDateTime getFechaHoraLlegada() {
         return this.fechaHoraLlegada;
@@ -120,6 +134,22 @@ public class ProgramacionVuelo extends BaseModel{ //guarda el vuelo y la fecha d
 
     public void setFechaHoraLlegada(ZonedDateTime fechaHoraLlegada) {
         this.fechaHoraLlegada = fechaHoraLlegada;
+        this.minutoLlegada = aco_auxiliares.minutoEpoch(fechaHoraLlegada);
+    }
+
+    // Si la programación vino de la base de datos (sin pasar por los setters) se calculan al pedirlos
+    public long getMinutoSalida() {
+        if (this.minutoSalida == aco_auxiliares.SIN_MINUTO) {
+            this.minutoSalida = aco_auxiliares.minutoEpoch(this.fechaHoraSalida);
+        }
+        return this.minutoSalida;
+    }
+
+    public long getMinutoLlegada() {
+        if (this.minutoLlegada == aco_auxiliares.SIN_MINUTO) {
+            this.minutoLlegada = aco_auxiliares.minutoEpoch(this.fechaHoraLlegada);
+        }
+        return this.minutoLlegada;
     }
 }
 
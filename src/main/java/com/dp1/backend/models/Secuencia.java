@@ -0,0 +1,35 @@
+package com.dp1.backend.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Siguiente id libre de una tabla cuyos ids reparte AlmacenRutasService por bloques (una fila por tabla)
+@Entity
+@Table(name = "secuencia")
+public class Secuencia {
+
+    @Id
+    @Column(name = "tabla", length = 64)
+    private String tabla;
+
+    @Column(name = "siguiente", nullable = false)
+    private int siguiente;
+
+    public String getTabla() {
+        return tabla;
+    }
+
+    public void setTabla(String tabla) {
+        this.tabla = tabla;
+    }
+
+    public int getSiguiente() {
+        return siguiente;
+    }
+
+    public void setSiguiente(int siguiente) {
+        this.siguiente = siguiente;
+    }
+}
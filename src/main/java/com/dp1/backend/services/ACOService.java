@@ -9,20 +9,24 @@ import java.util.Map;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.dp1.backend.models.Aeropuerto;
 import com.dp1.backend.models.Envio;
 import com.dp1.backend.models.Paquete;
-import com.dp1.backend.models.ProgramacionVuelo;
 import com.dp1.backend.models.Vuelo;
 import com.dp1.backend.models.ColeccionRuta;
 import com.dp1.backend.utils.ACO;
 import com.dp1.backend.utils.Auxiliares;
 import com.dp1.backend.utils.FuncionesLectura;
+import com.dp1.backend.utils.HorizonteVuelos;
+import com.dp1.backend.utils.PlanIncremental;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
+import io.micrometer.core.instrument.Timer;
+
 @Service
 public class ACOService {
     private ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
@@ -38,10 +42,35 @@ public class ACOService {
     private EnvioService envioService;
     @Autowired
     private PaqueteService paqueteService;
+    @Autowired
+    private MetricasPlanificacionService metricas;
+
+    // Versión paralela del ACO (la simulación la usa con o sin planificación incremental): hormigas por
+    // iteración (0 = una por procesador, 1 = una sola hormiga sobre el estado real), iteraciones y semilla
+    // (negativa = aleatoria)
+    @Value("${aco.paralelo.hormigas:0}")
+    private int numeroHormigas;
+    @Value("${aco.paralelo.iteraciones:1}")
+    private int iteracionesParalelas;
+    @Value("${aco.paralelo.semilla:-1}")
+    private long semillaParalela;
+    // Planificar con el catálogo de rutas precalculado en lugar de las caminatas de las hormigas
+    @Value("${aco.catalogo.usar:false}")
+    private boolean usarCatalogo;
+    // En la simulación, conservar las rutas entre ejecuciones y planificar solo los paquetes que cambian
+    @Value("${aco.incremental.usar:true}")
+    private boolean usarIncremental;
+    // Verificación de las rutas: hilos (0 = uno por procesador, 1 = secuencial) y semilla (>= 0 = resultado
+    // reproducible)
+    @Value("${aco.verificacion.hilos:1}")
+    private int numeroHilosVerificacion;
+    @Value("${aco.verificacion.semilla:-1}")
+    private long semillaVerificacion;
 
     public String ejecutarAco(ZonedDateTime horaActual) {
         System.out.println("SIMULACIÓN SIGUIENTE START");
         System.out.println("Hora actual: " + horaActual);
+        Timer.Sample inicioFase = metricas.iniciarFase();
         paquetes.clear();
 
         HashMap<String, Aeropuerto> aeropuertos = datosEnMemoriaService.getAeropuertos();
@@ -52,6 +81,7 @@ public class ACOService {
         for (Envio e : envios.values()) {
             paquetes.addAll(e.getPaquetes());
         }
+        metricas.registrarFase(inicioFase, "ejecutarAco", MetricasPlanificacionService.FASE_CARGA_DATOS);
         // Imprimir datos
         logger.info("Ejecutando ACO para: ");
         logger.info("Aeropuertos: " + aeropuertos.size());
@@ -60,16 +90,18 @@ public class ACOService {
         logger.info("Paquetes: " + paquetes.size());
 
         try {
-            // Medit tiempo de ejecución
-            Long startTime = System.currentTimeMillis();
-            paquetes = aco.run_v2(aeropuertos, vuelos, envios, paquetes, 20);
-            Long endTime = System.currentTimeMillis();
-            Long totalTime = endTime - startTime;
+            inicioFase = metricas.iniciarFase();
+            paquetes = planificar(aeropuertos, vuelos, envios, paquetes);
+            long totalTime = metricas.registrarFase(inicioFase, "ejecutarAco",
+                    MetricasPlanificacionService.FASE_ALGORITMO);
             logger.info("Tiempo de ejecución: " + totalTime + " ms");
-            int rutasAntes = datosEnMemoriaService.getRutasPosiblesSet().size();
+            int rutasAntes = datosEnMemoriaService.getCacheRutas().size();
+            inicioFase = metricas.iniciarFase();
             int paquetesEntregados = Auxiliares.verificacionTotalPaquetes(aeropuertos, vuelos, envios, paquetes,
-                    datosEnMemoriaService);
-            int rutasDespues = datosEnMemoriaService.getRutasPosiblesSet().size();
+                    datosEnMemoriaService, hilosVerificacion(), semillaVerificacion);
+            metricas.registrarFase(inicioFase, "ejecutarAco", MetricasPlanificacionService.FASE_VERIFICACION);
+            metricas.registrarEntregados(paquetesEntregados);
+            int rutasDespues = datosEnMemoriaService.getCacheRutas().size();
             // logger.info("Rutas antes: " + rutasAntes);
             // logger.info("Rutas después: " + rutasDespues);
             logger.info("Paquetes entregados con función André: " + paquetesEntregados);
@@ -83,10 +115,12 @@ public class ACOService {
             // ArrayList<Vuelo> auxVuelos = new ArrayList<>();
             // for(Vuelo v: vuelos.values())
             // auxVuelos.add(v);
+            inicioFase = metricas.iniciarFase();
             Map<String, Object> messageMap = new HashMap<>();
             messageMap.put("metadata", "correrAlgoritmo");
             messageMap.put("data", envios);
             String paquetesRutasJSON = objectMapper.writeValueAsString(messageMap);
+            metricas.registrarFase(inicioFase, "ejecutarAco", MetricasPlanificacionService.FASE_SERIALIZACION);
             System.out.println("SIMULACIÓN SIGUIENTE FIN");
             return paquetesRutasJSON;
         } catch (Exception e) {
@@ -99,6 +133,7 @@ public class ACOService {
     public String ejecutarAcoSimulacion(ZonedDateTime horaActual) {
         System.out.println("SIMULACIÓN SIGUIENTE START");
         System.out.println("Hora actual: " + horaActual);
+        Timer.Sample inicioFase = metricas.iniciarFase();
         paquetes.clear();
 
         HashMap<String, Aeropuerto> aeropuertos = datosEnMemoriaService.getAeropuertos();
@@ -109,6 +144,7 @@ public class ACOService {
         for (Envio e : envios.values()) {
             paquetes.addAll(e.getPaquetes());
         }
+        metricas.registrarFase(inicioFase, "ejecutarAcoSimulacion", MetricasPlanificacionService.FASE_CARGA_DATOS);
         // Imprimir datos
         logger.info("Ejecutando ACO para: ");
         logger.info("Aeropuertos: " + aeropuertos.size());
@@ -117,16 +153,30 @@ public class ACOService {
         logger.info("Paquetes: " + paquetes.size());
 
         try {
-            // Medit tiempo de ejecución
-            Long startTime = System.currentTimeMillis();
-            paquetes = aco.run_v2(aeropuertos, vuelos, envios, paquetes, 20);
-            Long endTime = System.currentTimeMillis();
-            Long totalTime = endTime - startTime;
+            inicioFase = metricas.iniciarFase();
+            int hormigas = numeroHormigas > 0 ? numeroHormigas : Runtime.getRuntime().availableProcessors();
+            long semilla = semillaParalela >= 0 ? semillaParalela : System.nanoTime();
+            if (usarIncremental) {
+                paquetes = aco.run_incremental(aeropuertos, vuelos, envios, paquetes,
+                        datosEnMemoriaService.getPlanIncremental(), horaActual, iteracionesParalelas, hormigas,
+                        semilla);
+            } else if (usarCatalogo) {
+                paquetes = aco.run_catalogo(aeropuertos, vuelos, envios, paquetes,
+                        datosEnMemoriaService.getCatalogoRutas());
+            } else {
+                paquetes = aco.run_v2Paralelo(aeropuertos, vuelos, envios, paquetes, iteracionesParalelas, hormigas,
+                        semilla);
+            }
+            long totalTime = metricas.registrarFase(inicioFase, "ejecutarAcoSimulacion",
+                    MetricasPlanificacionService.FASE_ALGORITMO);
             logger.info("Tiempo de ejecución: " + totalTime + " ms");
-            int rutasAntes = datosEnMemoriaService.getRutasPosiblesSet().size();
+            int rutasAntes = datosEnMemoriaService.getCacheRutas().size();
+            inicioFase = metricas.iniciarFase();
             int paquetesEntregados = Auxiliares.verificacionTotalPaquetesSimulacion(aeropuertos, vuelos, envios, paquetes,
-                    datosEnMemoriaService);
-            int rutasDespues = datosEnMemoriaService.getRutasPosiblesSet().size();
+                    datosEnMemoriaService, hilosVerificacion(), semillaVerificacion);
+            metricas.registrarFase(inicioFase, "ejecutarAcoSimulacion", MetricasPlanificacionService.FASE_VERIFICACION);
+            metricas.registrarEntregados(paquetesEntregados);
+            int rutasDespues = datosEnMemoriaService.getCacheRutas().size();
             // logger.info("Rutas antes: " + rutasAntes);
             // logger.info("Rutas después: " + rutasDespues);
             logger.info("Paquetes entregados con función André: " + paquetesEntregados);
@@ -140,10 +190,13 @@ public class ACOService {
             // ArrayList<Vuelo> auxVuelos = new ArrayList<>();
             // for(Vuelo v: vuelos.values())
             // auxVuelos.add(v);
+            inicioFase = metricas.iniciarFase();
             Map<String, Object> messageMap = new HashMap<>();
             messageMap.put("metadata", "correrAlgoritmo");
             messageMap.put("data", envios);
             String paquetesRutasJSON = objectMapper.writeValueAsString(messageMap);
+            metricas.registrarFase(inicioFase, "ejecutarAcoSimulacion",
+                    MetricasPlanificacionService.FASE_SERIALIZACION);
             System.out.println("SIMULACIÓN SIGUIENTE FIN");
             return paquetesRutasJSON;
         } catch (Exception e) {
@@ -153,10 +206,23 @@ public class ACOService {
 
     }
 
+    // Cancela un vuelo de la simulación: sus paquetes se replanifican en la siguiente ejecución, desde el
+    // aeropuerto donde quedan. Devuelve false si ese día aún no se planificó
+    public boolean cancelarVuelo(int idVuelo, LocalDate fechaSalida) {
+        PlanIncremental plan = datosEnMemoriaService.getPlanIncremental();
+        synchronized (plan) {
+            int id = plan.cancelarVuelo(idVuelo, fechaSalida);
+            logger.info("Cancelación del vuelo " + idVuelo + " del " + fechaSalida
+                    + (id < 0 ? ": el día no está en el horizonte" : ""));
+            return id >= 0;
+        }
+    }
+
     public String ejecutarAcoInicial(ZonedDateTime horaInicio, ZonedDateTime horaFin) {
         System.out.println("SIMULACIÓN INICIAL START");
         System.out.println("Hora de inicio: " + horaInicio);
         System.out.println("Hora de fin: " + horaFin);
+        Timer.Sample inicioFase = metricas.iniciarFase();
         paquetes.clear();
 
         HashMap<String, Aeropuerto> aeropuertos = datosEnMemoriaService.getAeropuertos();
@@ -165,6 +231,7 @@ public class ACOService {
         for (Envio e : envios.values()) {
             paquetes.addAll(e.getPaquetes());
         }
+        metricas.registrarFase(inicioFase, "ejecutarAcoInicial", MetricasPlanificacionService.FASE_CARGA_DATOS);
         // Imprimir datos
         logger.info("Ejecutando ACO para: ");
         logger.info("Aeropuertos: " + aeropuertos.size());
@@ -173,16 +240,18 @@ public class ACOService {
         logger.info("Paquetes: " + paquetes.size());
 
         try {
-            // Medit tiempo de ejecución
-            Long startTime = System.currentTimeMillis();
-            paquetes = aco.run_v2(aeropuertos, vuelos, envios, paquetes, 20);
-            Long endTime = System.currentTimeMillis();
-            Long totalTime = endTime - startTime;
+            inicioFase = metricas.iniciarFase();
+            paquetes = planificar(aeropuertos, vuelos, envios, paquetes);
+            long totalTime = metricas.registrarFase(inicioFase, "ejecutarAcoInicial",
+                    MetricasPlanificacionService.FASE_ALGORITMO);
             logger.info("Tiempo de ejecución: " + totalTime + " ms");
-            int rutasAntes = datosEnMemoriaService.getRutasPosiblesSet().size();
+            int rutasAntes = datosEnMemoriaService.getCacheRutas().size();
+            inicioFase = metricas.iniciarFase();
             int paquetesEntregados = Auxiliares.verificacionTotalPaquetesSimulacion(aeropuertos, vuelos, envios, paquetes,
-                    datosEnMemoriaService);
-            int rutasDespues = datosEnMemoriaService.getRutasPosiblesSet().size();
+                    datosEnMemoriaService, hilosVerificacion(), semillaVerificacion);
+            metricas.registrarFase(inicioFase, "ejecutarAcoInicial", MetricasPlanificacionService.FASE_VERIFICACION);
+            metricas.registrarEntregados(paquetesEntregados);
+            int rutasDespues = datosEnMemoriaService.getCacheRutas().size();
             // logger.info("Rutas antes: " + rutasAntes);
             // logger.info("Rutas después: " + rutasDespues);
             logger.info("Paquetes entregados con función André: " + paquetesEntregados);
@@ -196,10 +265,12 @@ public class ACOService {
             // ArrayList<Vuelo> auxVuelos = new ArrayList<>();
             // for(Vuelo v: vuelos.values())
             // auxVuelos.add(v);
+            inicioFase = metricas.iniciarFase();
             Map<String, Object> messageMap = new HashMap<>();
             messageMap.put("metadata", "primeraCarga");
             messageMap.put("data", envios);
             String paquetesRutasJSON = objectMapper.writeValueAsString(messageMap);
+            metricas.registrarFase(inicioFase, "ejecutarAcoInicial", MetricasPlanificacionService.FASE_SERIALIZACION);
             System.out.println("SIMULACIÓN INICIAL FIN");
             return paquetesRutasJSON;
         } catch (Exception e) {
@@ -210,6 +281,7 @@ public class ACOService {
     }
 
     public String ejecutarAcoAntiguo() {
+        Timer.Sample inicioFase = metricas.iniciarFase();
         paquetes.clear();
 
         HashMap<String, Aeropuerto> aeropuertos = datosEnMemoriaService.getAeropuertos();
@@ -224,6 +296,7 @@ public class ACOService {
         // for (Envio e : envios.values()) {
         // paquetes.addAll(e.getPaquetes());
         // }
+        metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo", MetricasPlanificacionService.FASE_CARGA_DATOS);
         // Imprimir datos
         logger.info("Ejecutando ACO para: ");
         logger.info("Aeropuertos: " + aeropuertos.size());
@@ -232,17 +305,19 @@ public class ACOService {
         logger.info("Paquetes: " + paquetes.size());
 
         try {
-            // Medit tiempo de ejecución
-            Long startTime = System.currentTimeMillis();
+            inicioFase = metricas.iniciarFase();
             paquetes = aco.run_v2(aeropuertos, vuelos, envios, paquetes, 20);
             System.out.println("Numero de paquetes: " + paquetes.size());
-            Long endTime = System.currentTimeMillis();
-            Long totalTime = endTime - startTime;
+            long totalTime = metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo",
+                    MetricasPlanificacionService.FASE_ALGORITMO);
             logger.info("Tiempo de ejecución: " + totalTime + " ms");
-            int rutasAntes = datosEnMemoriaService.getRutasPosiblesSet().size();
+            int rutasAntes = datosEnMemoriaService.getCacheRutas().size();
+            inicioFase = metricas.iniciarFase();
             int paquetesEntregados = Auxiliares.verificacionTotalPaquetes(aeropuertos, vuelos, envios, paquetes,
-                    datosEnMemoriaService);
-            int rutasDespues = datosEnMemoriaService.getRutasPosiblesSet().size();
+                    datosEnMemoriaService, hilosVerificacion(), semillaVerificacion);
+            metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo", MetricasPlanificacionService.FASE_VERIFICACION);
+            metricas.registrarEntregados(paquetesEntregados);
+            int rutasDespues = datosEnMemoriaService.getCacheRutas().size();
             // logger.info("Rutas antes: " + rutasAntes);
             // logger.info("Rutas después: " + rutasDespues);
             logger.info("Paquetes entregados con función André: " + paquetesEntregados);
@@ -283,10 +358,12 @@ public class ACOService {
             // ArrayList<Vuelo> auxVuelos = new ArrayList<>();
             // for(Vuelo v: vuelos.values())
             // auxVuelos.add(v);
+            inicioFase = metricas.iniciarFase();
             Map<String, Object> messageMap = new HashMap<>();
             messageMap.put("metadata", "correrAlgoritmo");
             messageMap.put("data", envios);
             String paquetesRutasJSON = objectMapper.writeValueAsString(messageMap);
+            metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo", MetricasPlanificacionService.FASE_SERIALIZACION);
 
             return paquetesRutasJSON;
         } catch (Exception e) {
@@ -296,6 +373,18 @@ public class ACOService {
 
     }
 
+    private ArrayList<Paquete> planificar(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes) {
+        if (usarCatalogo) {
+            return aco.run_catalogo(aeropuertos, vuelos, envios, paquetes, datosEnMemoriaService.getCatalogoRutas());
+        }
+        return aco.run_v2(aeropuertos, vuelos, envios, paquetes, 20);
+    }
+
+    private int hilosVerificacion() {
+        return numeroHilosVerificacion > 0 ? numeroHilosVerificacion : Runtime.getRuntime().availableProcessors();
+    }
+
     public boolean guardarRutas() {
         HashMap<String, ColeccionRuta> rutas = new HashMap<String, ColeccionRuta>();
         try {
@@ -308,6 +397,7 @@ public class ACOService {
     }
 
     public String ejecutarAcoAntiguo(String codigo) {
+        Timer.Sample inicioFase = metricas.iniciarFase();
         paquetes.clear();
 
         HashMap<String, Aeropuerto> aeropuertos = datosEnMemoriaService.getAeropuertos();
@@ -318,6 +408,7 @@ public class ACOService {
         for (Envio e : envios.values()) {
             paquetes.addAll(e.getPaquetes());
         }
+        metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo", MetricasPlanificacionService.FASE_CARGA_DATOS);
         // Imprimir datos
         logger.info("Ejecutando ACO para: ");
         logger.info("Aeropuertos: " + aeropuertos.size());
@@ -326,16 +417,18 @@ public class ACOService {
         logger.info("Paquetes: " + paquetes.size());
 
         try {
-            // Medit tiempo de ejecución
-            Long startTime = System.currentTimeMillis();
+            inicioFase = metricas.iniciarFase();
             paquetes = aco.run_v2(aeropuertos, vuelos, envios, paquetes, 20);
-            Long endTime = System.currentTimeMillis();
-            Long totalTime = endTime - startTime;
+            long totalTime = metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo",
+                    MetricasPlanificacionService.FASE_ALGORITMO);
             logger.info("Tiempo de ejecución: " + totalTime + " ms");
-            int rutasAntes = datosEnMemoriaService.getRutasPosiblesSet().size();
+            int rutasAntes = datosEnMemoriaService.getCacheRutas().size();
+            inicioFase = metricas.iniciarFase();
             int paquetesEntregados = Auxiliares.verificacionTotalPaquetes(aeropuertos, vuelos, envios, paquetes,
-                    datosEnMemoriaService);
-            int rutasDespues = datosEnMemoriaService.getRutasPosiblesSet().size();
+                    datosEnMemoriaService, hilosVerificacion(), semillaVerificacion);
+            metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo", MetricasPlanificacionService.FASE_VERIFICACION);
+            metricas.registrarEntregados(paquetesEntregados);
+            int rutasDespues = datosEnMemoriaService.getCacheRutas().size();
             // logger.info("Rutas antes: " + rutasAntes);
             // logger.info("Rutas después: " + rutasDespues);
             logger.info("Paquetes entregados con función André: " + paquetesEntregados);
@@ -349,10 +442,12 @@ public class ACOService {
             // ArrayList<Vuelo> auxVuelos = new ArrayList<>();
             // for(Vuelo v: vuelos.values())
             // auxVuelos.add(v);
+            inicioFase = metricas.iniciarFase();
             Map<String, Object> messageMap = new HashMap<>();
             messageMap.put("metadata", "correrAlgoritmo");
             messageMap.put("data", envios);
             String paquetesRutasJSON = objectMapper.writeValueAsString(messageMap);
+            metricas.registrarFase(inicioFase, "ejecutarAcoAntiguo", MetricasPlanificacionService.FASE_SERIALIZACION);
 
             return paquetesRutasJSON;
         } catch (Exception e) {
@@ -363,15 +458,14 @@ public class ACOService {
     }
 
     public String ejecutarAcoTodo(ZonedDateTime fechaHoraInicio, ZonedDateTime fechaHoraFin) {
+        Timer.Sample inicioFase = metricas.iniciarFase();
         paquetes.clear();
 
         HashMap<String, Aeropuerto> aeropuertos = datosEnMemoriaService.getAeropuertos();
         HashMap<Integer, Vuelo> vuelos = datosEnMemoriaService.getVuelos();
         HashMap<String, Envio> envios = new HashMap<String, Envio>();
 
-        HashMap<Integer, Double[]> tabla = datosEnMemoriaService.getTabla();
-        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = datosEnMemoriaService.getVuelosProgramados();
-        ArrayList<LocalDate> fechasVuelos = datosEnMemoriaService.getFechasVuelos();
+        HorizonteVuelos horizonteVuelos = datosEnMemoriaService.getHorizonteVuelos();
         String[] ciudades = new String[] {
                 "SKBO", "SEQM", "SVMI", "SBBR", "SPIM", "SLLP", "SCEL", "SABE", "SGAS", "SUAA", "LATI", "EDDI", "LOWW",
                 "EBCI", "UMMS", "LBSF", "LKPR", "LDZA", "EKCH", "EHAM", "VIDP", "OSDI", "OERK", "OMDB", "OAKB", "OOMS",
@@ -382,6 +476,7 @@ public class ACOService {
         // for (Envio e : envios.values()) {
         // paquetes.addAll(e.getPaquetes());
         // }
+        metricas.registrarFase(inicioFase, "ejecutarAcoTodo", MetricasPlanificacionService.FASE_CARGA_DATOS);
         // Imprimir datos
         logger.info("Ejecutando ACO para: ");
         logger.info("Aeropuertos: " + aeropuertos.size());
@@ -390,18 +485,19 @@ public class ACOService {
         logger.info("Paquetes: " + paquetes.size());
 
         try {
-            // Medit tiempo de ejecución
-            Long startTime = System.currentTimeMillis();
-            paquetes = aco.run_v3(aeropuertos, vuelos, envios, paquetes, 20, tabla,
-                    vuelosProgramados, fechasVuelos);
-            Long endTime = System.currentTimeMillis();
-            Long totalTime = endTime - startTime;
+            inicioFase = metricas.iniciarFase();
+            paquetes = aco.run_v3(aeropuertos, vuelos, envios, paquetes, 20, horizonteVuelos);
+            long totalTime = metricas.registrarFase(inicioFase, "ejecutarAcoTodo",
+                    MetricasPlanificacionService.FASE_ALGORITMO);
             logger.info("Tiempo de ejecución: " + totalTime + " ms");
-            int rutasAntes = datosEnMemoriaService.getRutasPosiblesSet().size();
+            int rutasAntes = datosEnMemoriaService.getCacheRutas().size();
+            inicioFase = metricas.iniciarFase();
             int paquetesEntregados = Auxiliares.verificacionTotalPaquetes(aeropuertos,
                     vuelos, envios, paquetes,
-                    datosEnMemoriaService);
-            int rutasDespues = datosEnMemoriaService.getRutasPosiblesSet().size();
+                    datosEnMemoriaService, hilosVerificacion(), semillaVerificacion);
+            metricas.registrarFase(inicioFase, "ejecutarAcoTodo", MetricasPlanificacionService.FASE_VERIFICACION);
+            metricas.registrarEntregados(paquetesEntregados);
+            int rutasDespues = datosEnMemoriaService.getCacheRutas().size();
             // logger.info("Rutas antes: " + rutasAntes);
             // logger.info("Rutas después: " + rutasDespues);
             logger.info("Paquetes entregados con función André: " + paquetesEntregados);
@@ -0,0 +1,310 @@
+package com.dp1.backend.services;
+
+import java.sql.Timestamp;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.dp1.backend.models.BaseModel;
+import com.dp1.backend.models.ColeccionRuta;
+import com.dp1.backend.models.ItemRutaPosible;
+import com.dp1.backend.models.RutaPosible;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Escritura diferida de las rutas nuevas que descubre la planificación (DatosEnMemoriaService.insertarRuta).
+ * Antes cada ruta era un save de JPA dentro del bucle de verificación; ahora:
+ * - Al guardar, la colección o ruta recibe en el momento su id definitivo, así que el planificador la puede
+ *   usar de inmediato. Los ids salen de bloques que se toman de una fila contadora por tabla (tabla
+ *   secuencia, entidad Secuencia): la fila se bloquea y se avanza en una transacción propia, así dos
+ *   instancias nunca reciben el mismo bloque. La fila arranca después del MAX(id) de la tabla. Las altas de
+ *   los controladores (ColeccionRutaService, RutaPosibleService) también pasan por este servicio; un insert
+ *   que use el AUTO_INCREMENT de la tabla sí podría chocar con un id ya repartido.
+ * - Las filas se copian a una cola y un hilo aparte las escribe en lotes JDBC (una transacción por lote),
+ *   cada cierto intervalo o cuando se juntan suficientes filas.
+ * - Si un lote falla, sus filas vuelven al frente de la cola y se reintentan (en orden, para no escribir una
+ *   ruta antes que su colección); solo se descartan tras MAX_INTENTOS fallos seguidos.
+ * - escribirPendientes() espera a que se escriba todo lo encolado hasta ese momento (también se llama al
+ *   apagar la aplicación).
+ */
+@Service
+public class AlmacenRutasService {
+    private static final Logger logger = LogManager.getLogger(AlmacenRutasService.class);
+
+    private static final String INSERTAR_COLECCION = "INSERT INTO coleccion_rutas "
+            + "(id, creation_date, update_date, active, codigo_ruta) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERTAR_RUTA = "INSERT INTO ruta_posible "
+            + "(id, creation_date, update_date, active, id_coleccion_ruta) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERTAR_VUELO = "INSERT INTO ruta_vuelos "
+            + "(ruta_posible_id, vuelo_index, id_vuelo, dia_relativo) VALUES (?, ?, ?, ?)";
+    // Fallos seguidos de un lote antes de descartar sus filas
+    private static final int MAX_INTENTOS = 5;
+    private static final String CREAR_SECUENCIA = "INSERT IGNORE INTO secuencia (tabla, siguiente) "
+            + "SELECT ?, COALESCE(MAX(id), 0) + 1 FROM ";
+    private static final String LEER_SECUENCIA = "SELECT siguiente FROM secuencia WHERE tabla = ? FOR UPDATE";
+    private static final String AVANZAR_SECUENCIA = "UPDATE secuencia SET siguiente = siguiente + ? WHERE tabla = ?";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${rutas.escritura.lote:500}")
+    private int tamanioLote;
+
+    @Value("${rutas.escritura.intervalo:1000}")
+    private long intervaloMs;
+
+    @Value("${rutas.escritura.bloqueIds:1000}")
+    private int tamanioBloqueIds;
+
+    private TransactionTemplate transaccion;
+    private TransactionTemplate transaccionReserva;
+    private ScheduledExecutorService escritor;
+
+    // Una sola cola, en orden de llegada: una ruta nunca se escribe en un lote anterior al de su colección
+    private final ConcurrentLinkedQueue<Fila> pendientes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger cantidadPendientes = new AtomicInteger();
+    private final AtomicLong filasEscritas = new AtomicLong();
+    private final AtomicLong filasFallidas = new AtomicLong();
+    // Filas de un lote que falló, se escriben antes que las de la cola. Solo las usa el hilo escritor
+    private final ArrayDeque<Fila> reintentos = new ArrayDeque<>();
+    private int intentosFallidos = 0;
+
+    private final BloqueIds idsColeccion = new BloqueIds("coleccion_rutas");
+    private final BloqueIds idsRuta = new BloqueIds("ruta_posible");
+
+    @PostConstruct
+    public void iniciar() {
+        tamanioLote = Math.max(1, tamanioLote);
+        tamanioBloqueIds = Math.max(1, tamanioBloqueIds);
+        transaccion = new TransactionTemplate(transactionManager);
+        // La reserva se confirma de inmediato, en su propia conexión: el bloqueo de la fila contadora no dura
+        // lo que la transacción de quien esté guardando la ruta, y un rollback de esta no devuelve el bloque
+        transaccionReserva = new TransactionTemplate(transactionManager);
+        transaccionReserva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        escritor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread hilo = new Thread(r, "escritura-rutas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        escritor.scheduleWithFixedDelay(this::escribirLote, intervaloMs, intervaloMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Asigna el id a la colección y encola su fila (sin sus rutas: cada ruta se guarda con guardarRuta)
+    public ColeccionRuta guardarColeccion(ColeccionRuta coleccion) {
+        coleccion.setId(idsColeccion.siguiente());
+        Timestamp fecha = marcarCreacion(coleccion);
+        encolar(new Fila(INSERTAR_COLECCION, new Object[] { coleccion.getId(), fecha, fecha, true,
+                coleccion.getCodigoRuta() }));
+        return coleccion;
+    }
+
+    // Asigna el id a la ruta y encola su fila y la de cada vuelo. Su colección, si tiene, ya debe estar guardada
+    public RutaPosible guardarRuta(RutaPosible ruta) {
+        ruta.setId(idsRuta.siguiente());
+        Timestamp fecha = marcarCreacion(ruta);
+        Object[][] vuelos = new Object[ruta.getFlights() == null ? 0 : ruta.getFlights().size()][];
+        for (int i = 0; i < vuelos.length; i++) {
+            ItemRutaPosible item = ruta.getFlights().get(i);
+            vuelos[i] = new Object[] { ruta.getId(), i, item.getIdVuelo(), item.getDiaRelativo() };
+        }
+        encolar(new Fila(INSERTAR_RUTA, new Object[] { ruta.getId(), fecha, fecha, true,
+                ruta.getColeccionRuta() == null ? null : ruta.getColeccionRuta().getId() }, vuelos));
+        return ruta;
+    }
+
+    // Escribe todo lo encolado hasta ahora y espera a que termine
+    public void escribirPendientes() {
+        try {
+            escritor.submit(this::escribirTodo).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            logger.error("Error al escribir las rutas pendientes: " + e.getCause().getLocalizedMessage());
+        }
+    }
+
+    public int getPendientes() {
+        return this.cantidadPendientes.get();
+    }
+
+    public long getFilasEscritas() {
+        return this.filasEscritas.get();
+    }
+
+    public long getFilasFallidas() {
+        return this.filasFallidas.get();
+    }
+
+    @PreDestroy
+    public void detener() {
+        escribirPendientes();
+        escritor.shutdown();
+    }
+
+    // Lo que haría el @PrePersist de BaseModel (hora de Lima)
+    private static Timestamp marcarCreacion(BaseModel entidad) {
+        Date ahora = entidad.addHoursToJavaUtilDate(new Date(), -5);
+        entidad.setCreationDate(ahora);
+        entidad.setUpdateDate(ahora);
+        return new Timestamp(ahora.getTime());
+    }
+
+    private void encolar(Fila fila) {
+        pendientes.add(fila);
+        if (cantidadPendientes.incrementAndGet() == tamanioLote) {
+            escritor.execute(this::escribirLote);
+        }
+    }
+
+    private void escribirTodo() {
+        while (escribirLote() > 0) {
+        }
+    }
+
+    // Escribe hasta tamanioLote filas (primero las de un lote fallido, luego las encoladas) en una transacción.
+    // Devuelve cuántas filas se tomaron
+    private int escribirLote() {
+        List<Fila> lote = new ArrayList<>();
+        List<Object[]> colecciones = new ArrayList<>();
+        List<Object[]> rutas = new ArrayList<>();
+        List<Object[]> vuelos = new ArrayList<>();
+        int deCola = 0;
+        Fila fila;
+        while (lote.size() < tamanioLote && (fila = reintentos.poll()) != null) {
+            lote.add(fila);
+        }
+        while (lote.size() < tamanioLote && (fila = pendientes.poll()) != null) {
+            lote.add(fila);
+            deCola++;
+        }
+        for (Fila f : lote) {
+            if (f.sql == INSERTAR_COLECCION) {
+                colecciones.add(f.valores);
+            } else {
+                rutas.add(f.valores);
+                for (Object[] vuelo : f.vuelos) {
+                    vuelos.add(vuelo);
+                }
+            }
+        }
+        if (lote.isEmpty()) {
+            return 0;
+        }
+        cantidadPendientes.addAndGet(-deCola);
+        try {
+            // Primero las colecciones, luego las rutas y al final sus vuelos, por las llaves foráneas
+            transaccion.executeWithoutResult(estado -> {
+                if (!colecciones.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERTAR_COLECCION, colecciones);
+                }
+                if (!rutas.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERTAR_RUTA, rutas);
+                }
+                if (!vuelos.isEmpty()) {
+                    jdbcTemplate.batchUpdate(INSERTAR_VUELO, vuelos);
+                }
+            });
+            filasEscritas.addAndGet(colecciones.size() + rutas.size() + vuelos.size());
+            intentosFallidos = 0;
+        } catch (Exception e) {
+            intentosFallidos++;
+            if (intentosFallidos < MAX_INTENTOS) {
+                // Al frente y en el mismo orden, para que el siguiente intento repita el lote
+                for (int i = lote.size() - 1; i >= 0; i--) {
+                    reintentos.addFirst(lote.get(i));
+                }
+                logger.warn("Error al escribir un lote de rutas (" + colecciones.size() + " colecciones, "
+                        + rutas.size() + " rutas), intento " + intentosFallidos + " de " + MAX_INTENTOS + ": "
+                        + e.getLocalizedMessage());
+                // escribirTodo no debe repetir el lote sin pausa
+                try {
+                    Thread.sleep(intervaloMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return 0;
+                }
+            } else {
+                intentosFallidos = 0;
+                filasFallidas.addAndGet(colecciones.size() + rutas.size() + vuelos.size());
+                logger.error("Se descarta un lote de rutas (" + colecciones.size() + " colecciones, "
+                        + rutas.size() + " rutas) tras " + MAX_INTENTOS + " intentos: " + e.getLocalizedMessage());
+            }
+        }
+        return lote.size();
+    }
+
+    /*
+     * Ids de una tabla que este servicio puede asignar sin pasar por la base: [siguiente, limite). Al acabarse
+     * el bloque se reserva otro.
+     */
+    private class BloqueIds {
+        private final String tabla;
+        private int siguiente = 0;
+        private int limite = 0;
+
+        BloqueIds(String tabla) {
+            this.tabla = tabla;
+        }
+
+        synchronized int siguiente() {
+            if (siguiente >= limite) {
+                transaccionReserva.executeWithoutResult(estado -> reservar());
+            }
+            return siguiente++;
+        }
+
+        // Toma el bloque [siguiente, siguiente + tamanioBloqueIds) de la fila contadora, bloqueada hasta el
+        // commit. La primera vez crea la fila después del mayor id de la tabla
+        private void reservar() {
+            jdbcTemplate.update(CREAR_SECUENCIA + tabla, tabla);
+            List<Integer> fila = jdbcTemplate.queryForList(LEER_SECUENCIA, Integer.class, tabla);
+            if (fila.isEmpty() || fila.get(0) == null) {
+                throw new IllegalStateException("No se pudo reservar un bloque de ids en " + tabla);
+            }
+            jdbcTemplate.update(AVANZAR_SECUENCIA, tamanioBloqueIds, tabla);
+            siguiente = fila.get(0);
+            limite = siguiente + tamanioBloqueIds;
+        }
+    }
+
+    private static class Fila {
+        private static final Object[][] SIN_VUELOS = new Object[0][];
+
+        private final String sql;
+        private final Object[] valores;
+        private final Object[][] vuelos;
+
+        Fila(String sql, Object[] valores) {
+            this(sql, valores, SIN_VUELOS);
+        }
+
+        Fila(String sql, Object[] valores, Object[][] vuelos) {
+            this.sql = sql;
+            this.valores = valores;
+            this.vuelos = vuelos;
+        }
+    }
+}
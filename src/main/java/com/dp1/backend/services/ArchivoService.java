@@ -5,7 +5,6 @@ import com.dp1.backend.models.Envio;
 import com.dp1.backend.models.Aeropuerto;
 import com.dp1.backend.repository.ArchivoRepository;
 import com.dp1.backend.repository.EnvioRepository;
-import com.dp1.backend.utils.FuncionesLectura;
 import com.dp1.backend.services.DatosEnMemoriaService;
 
 import org.apache.logging.log4j.LogManager;
@@ -18,6 +17,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.HashMap;
+import java.util.Map;
 import java.nio.file.Path;
 
 @Service
@@ -38,6 +38,9 @@ public class ArchivoService {
     @Autowired
     private DatosEnMemoriaService datosenmemoriaService;
 
+    @Autowired
+    private CargaEnviosService cargaEnviosService;
+
     private final static Logger logger = LogManager.getLogger(ArchivoService.class);
 
     private String workingDirectory = System.getProperty("user.dir");
@@ -69,10 +72,10 @@ public class ArchivoService {
             filePath = uploadPath.resolve(fileName);
             Files.write(filePath, file.getBytes());
             logger.info("Archivo guardado en: " + filePath);
-            // 2. Pasar la ruta del archivo a FuncionesLectura.leerEnviosGuardarBD
-            // 2. Pasar la ruta del archivo a FuncionesLectura.leerEnviosGuardarBD
+            // 2. Guardar los envíos del archivo (antes FuncionesLectura.leerEnviosGuardarBD)
             HashMap<String, Aeropuerto> aeropuertos = datosenmemoriaService.getAeropuertos();
-            String codigosPaquetes=FuncionesLectura.leerEnviosGuardarBD(filePath.toString(), aeropuertos, 10000, envioRepository, paqueteService);
+            // Envíos y paquetes en lotes JDBC, por tramos con su propia transacción
+            String codigosPaquetes = cargaEnviosService.cargarArchivo(filePath, aeropuertos, 10000);
             // FuncionesLectura.leerEnviosGuardarBD(filePath.toString(), envioService,
             // paqueteService);
 
@@ -97,6 +100,11 @@ public class ArchivoService {
         // return archivoRepository.save(archivo);
     }
 
+    // Avance de la última carga de archivo de envíos
+    public Map<String, Object> getProgresoCarga() {
+        return cargaEnviosService.getProgreso();
+    }
+
     public Archivo getFile(Long id) {
         return archivoRepository.findById(id).orElse(null);
     }
@@ -0,0 +1,287 @@
+package com.dp1.backend.services;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+
+import jakarta.annotation.PostConstruct;
+
+/*
+ * Carga masiva de envíos y paquetes con JDBC, para ArchivoService.saveFile (antes
+ * FuncionesLectura.leerEnviosGuardarBD) y EnvioService.createEnvio. Antes cada envío se guardaba dos veces
+ * con JPA (una para obtener el id y otra para poner el codigoEnvio) y cada paquete con su propio save.
+ *
+ * Ahora los envíos se escriben por tramos de tamanioTramo, cada tramo en una transacción:
+ * - Se reserva un rango de ids contiguo para los envíos y otro para los paquetes del tramo (MAX(id) con
+ *   FOR UPDATE, que bloquea el final del índice hasta el commit), así que el codigoEnvio (origen + id) y los
+ *   ids de los paquetes se arman antes de insertar.
+ * - Los envíos y luego los paquetes van en un batchUpdate cada uno (con rewriteBatchedStatements, un INSERT
+ *   de varias filas).
+ * El avance de la carga en curso queda en getProgreso() y en el log.
+ *
+ * Las columnas de ruta de los paquetes quedan como las dejaba el save de JPA de un new Paquete(): ruta y
+ * costos_ruta con la lista vacía serializada (VARBINARY) y fechas_ruta en NULL (el convertidor guarda así la
+ * lista vacía). Así quien lee los paquetes de la base recibe listas vacías y no null.
+ */
+@Service
+public class CargaEnviosService {
+    private static final Logger logger = LogManager.getLogger(CargaEnviosService.class);
+
+    private static final String INSERTAR_ENVIO = "INSERT INTO envio (id, creation_date, update_date, active, "
+            + "codigo_envio, origen, destino, hora_salida, hora_llegada_prevista, cantidad_paquetes, emisor_id, "
+            + "receptor_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERTAR_PAQUETE = "INSERT INTO paquete (id, creation_date, update_date, active, "
+            + "codigo_envio, llego_destino, tiempo_restante, tiempo_restante_dinamico, ruta, costos_ruta) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    // ArrayList vacía serializada, como guarda Hibernate las columnas ruta y costos_ruta de Paquete
+    private static final byte[] LISTA_VACIA = serializar(new ArrayList<>());
+    private static final DateTimeFormatter FORMATO_FECHA = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${envios.carga.tramo:1000}")
+    private int tamanioTramo;
+
+    private TransactionTemplate transaccion;
+
+    // Avance de la última carga
+    private volatile String archivoEnCurso = "";
+    private volatile int totalEnCurso = 0;
+    private volatile int procesadosEnCurso = 0;
+    private volatile int insertadosEnCurso = 0;
+    private volatile boolean enCurso = false;
+
+    @PostConstruct
+    public void iniciar() {
+        tamanioTramo = Math.max(1, tamanioTramo);
+        transaccion = new TransactionTemplate(transactionManager);
+    }
+
+    /*
+     * Lee las líneas ORIG-id-yyyyMMdd-HH:mm-DEST:n del archivo y guarda hasta maxEnvios envíos con sus paquetes.
+     * Como leerEnviosGuardarBD: se saltan las líneas cuyo código (origen + id del archivo) ya existe como
+     * codigoEnvio, los envíos quedan con emisor y receptor 23 y se devuelven los ids de los paquetes
+     * separados por espacios.
+     */
+    public String cargarArchivo(Path archivo, HashMap<String, Aeropuerto> aeropuertos, int maxEnvios)
+            throws IOException {
+        ArrayList<Envio> envios = new ArrayList<>();
+        ArrayList<String> codigosArchivo = new ArrayList<>();
+        try (BufferedReader br = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                Envio envio = leerLinea(line.trim(), aeropuertos);
+                codigosArchivo.add(envio.getOrigen() + envio.getIdEnvio());
+                envios.add(envio);
+            }
+        }
+        logger.info("Carga de " + archivo.getFileName() + ": " + envios.size() + " envíos leídos");
+
+        StringBuilder codigosPaquete = new StringBuilder();
+        synchronized (this) {
+            archivoEnCurso = archivo.getFileName().toString();
+            totalEnCurso = envios.size();
+            procesadosEnCurso = 0;
+            insertadosEnCurso = 0;
+            enCurso = true;
+            try {
+                int i = 0;
+                while (i < envios.size() && insertadosEnCurso < maxEnvios) {
+                    int fin = Math.min(envios.size(), i + tamanioTramo);
+                    // Los que ya existen no cuentan para maxEnvios
+                    HashSet<String> existentes = existentes(codigosArchivo.subList(i, fin));
+                    ArrayList<Envio> tramo = new ArrayList<>();
+                    for (int k = i; k < fin && insertadosEnCurso + tramo.size() < maxEnvios; k++, i++) {
+                        if (!existentes.contains(codigosArchivo.get(k))) {
+                            tramo.add(envios.get(k));
+                        }
+                    }
+                    for (List<Integer> ids : guardarTramo(tramo, aeropuertos, true)) {
+                        for (int id : ids) {
+                            codigosPaquete.append(id).append(' ');
+                        }
+                    }
+                    insertadosEnCurso += tramo.size();
+                    procesadosEnCurso = i;
+                    logger.info("Carga de " + archivoEnCurso + ": " + procesadosEnCurso + "/" + envios.size()
+                            + " líneas, " + insertadosEnCurso + " envíos insertados");
+                }
+            } finally {
+                enCurso = false;
+            }
+        }
+        return codigosPaquete.toString();
+    }
+
+    // Guarda un envío ya armado (fechas, origen, destino y cantidad) con sus paquetes, que quedan con plazo
+    // cero como los de createEnvio. Devuelve los ids de los paquetes separados por espacios
+    public String guardarEnvio(Envio envio) {
+        StringBuilder codigosPaquete = new StringBuilder();
+        for (int id : guardarTramo(Collections.singletonList(envio), null, false).get(0)) {
+            codigosPaquete.append(id).append(' ');
+        }
+        return codigosPaquete.toString();
+    }
+
+    public Map<String, Object> getProgreso() {
+        Map<String, Object> progreso = new HashMap<>();
+        progreso.put("archivo", archivoEnCurso);
+        progreso.put("enCurso", enCurso);
+        progreso.put("total", totalEnCurso);
+        progreso.put("procesados", procesadosEnCurso);
+        progreso.put("insertados", insertadosEnCurso);
+        return progreso;
+    }
+
+    /*
+     * Inserta los envíos y sus paquetes en una transacción con ids reservados. Deja en cada envío su id y
+     * codigoEnvio, y devuelve los ids de los paquetes de cada envío. Sin conPlazo, el plazo de los paquetes es 0.
+     */
+    private List<List<Integer>> guardarTramo(List<Envio> envios, HashMap<String, Aeropuerto> aeropuertos,
+            boolean conPlazo) {
+        List<List<Integer>> idsPaquetes = new ArrayList<>();
+        if (envios.isEmpty()) {
+            return idsPaquetes;
+        }
+        transaccion.executeWithoutResult(estado -> {
+            idsPaquetes.clear();
+            int siguienteEnvio = maximoId("envio") + 1;
+            int siguientePaquete = maximoId("paquete") + 1;
+            // Lo que haría el @PrePersist de BaseModel (hora de Lima)
+            Timestamp fecha = new Timestamp(System.currentTimeMillis() - Duration.ofHours(5).toMillis());
+            List<Object[]> filasEnvio = new ArrayList<>(envios.size());
+            List<Object[]> filasPaquete = new ArrayList<>();
+            for (Envio envio : envios) {
+                envio.setId(siguienteEnvio++);
+                envio.setCodigoEnvio(envio.getOrigen() + envio.getId());
+                filasEnvio.add(new Object[] { envio.getId(), fecha, fecha, true, envio.getCodigoEnvio(),
+                        envio.getOrigen(), envio.getDestino(), marca(envio.getFechaHoraSalida()),
+                        marca(envio.getFechaHoraLlegadaPrevista()), envio.getCantidadPaquetes(),
+                        envio.getEmisorID(), envio.getReceptorID() });
+                BigDecimal plazo = conPlazo ? plazo(envio, aeropuertos) : BigDecimal.ZERO;
+                List<Integer> ids = new ArrayList<>(envio.getCantidadPaquetes());
+                for (int i = 0; i < envio.getCantidadPaquetes(); i++) {
+                    ids.add(siguientePaquete);
+                    filasPaquete.add(new Object[] { siguientePaquete++, fecha, fecha, true, envio.getCodigoEnvio(),
+                            false, plazo, plazo, LISTA_VACIA, LISTA_VACIA });
+                }
+                idsPaquetes.add(ids);
+            }
+            jdbcTemplate.batchUpdate(INSERTAR_ENVIO, filasEnvio);
+            if (!filasPaquete.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERTAR_PAQUETE, filasPaquete);
+            }
+        });
+        return idsPaquetes;
+    }
+
+    private static byte[] serializar(Serializable valor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(valor);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // FOR UPDATE: bloquea el final del índice de ids hasta el commit, así nadie más inserta en el rango
+    // reservado (ni con ids propios ni con AUTO_INCREMENT)
+    private int maximoId(String tabla) {
+        Integer maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla + " FOR UPDATE",
+                Integer.class);
+        return maximo == null ? 0 : maximo;
+    }
+
+    // Códigos de la lista que ya están como codigoEnvio
+    private HashSet<String> existentes(List<String> codigos) {
+        if (codigos.isEmpty()) {
+            return new HashSet<>();
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT codigo_envio FROM envio WHERE active = true AND codigo_envio IN (");
+        for (int i = 0; i < codigos.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(')');
+        return new HashSet<>(jdbcTemplate.queryForList(sql.toString(), String.class, codigos.toArray()));
+    }
+
+    // Mismo envío que arma leerEnviosGuardarBD (plazo de 1 día en el mismo continente y 2 entre continentes)
+    private static Envio leerLinea(String line, HashMap<String, Aeropuerto> aeropuertos) {
+        String[] parts = line.split("-");
+        String ciudadOrigenEnvio = parts[0];
+        int envioId = Integer.parseInt(parts[1]);
+        LocalDate fechaOrigen = LocalDate.parse(parts[2], FORMATO_FECHA);
+        LocalTime horaOrigen = LocalTime.parse(parts[3]);
+        String[] destinoParts = parts[4].split(":");
+        String ciudadDestino = destinoParts[0];
+        int cantidadPaquetes = Integer.parseInt(destinoParts[1]);
+
+        Aeropuerto origen = aeropuertos.getOrDefault(ciudadOrigenEnvio, aeropuertos.get("EKCH"));
+        Aeropuerto destino = aeropuertos.getOrDefault(ciudadDestino, aeropuertos.get("EKCH"));
+        ZonedDateTime horaOrigenZoned = ZonedDateTime.of(fechaOrigen, horaOrigen, origen.getZoneId());
+        int diasPlazo = origen.getContinente().equals(destino.getContinente()) ? 1 : 2;
+
+        Envio envio = new Envio(ciudadOrigenEnvio, ciudadDestino, horaOrigenZoned, cantidadPaquetes, null);
+        envio.setIdEnvio(envioId);
+        envio.setFechaHoraLlegadaPrevista(
+                horaOrigenZoned.plusDays(diasPlazo).withZoneSameInstant(destino.getZoneId()));
+        envio.setEmisorID(23);
+        envio.setReceptorID(23);
+        return envio;
+    }
+
+    // Plazo de los paquetes en nanosegundos, como guarda Hibernate un Duration en MySQL (NUMERIC)
+    private static BigDecimal plazo(Envio envio, HashMap<String, Aeropuerto> aeropuertos) {
+        Aeropuerto origen = aeropuertos.get(envio.getOrigen());
+        Aeropuerto destino = aeropuertos.get(envio.getDestino());
+        if (origen == null || destino == null) {
+            return null;
+        }
+        int diasPlazo = origen.getContinente().equals(destino.getContinente()) ? 1 : 2;
+        return BigDecimal.valueOf(Duration.ofDays(diasPlazo).toNanos());
+    }
+
+    private static Timestamp marca(ZonedDateTime fecha) {
+        return fecha == null ? null : Timestamp.from(fecha.toInstant());
+    }
+}
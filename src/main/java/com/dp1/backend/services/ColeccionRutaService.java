@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import com.dp1.backend.models.ColeccionRuta;
+import com.dp1.backend.models.RutaPosible;
 import com.dp1.backend.repository.ColeccionRutaRepository;
 
 @Service
@@ -17,11 +18,22 @@ public class ColeccionRutaService {
     @Autowired
     private ColeccionRutaRepository rutaRepository;
 
+    @Autowired
+    private AlmacenRutasService almacenRutasService;
+
+    // Los ids de coleccion_rutas y ruta_posible los reparte AlmacenRutasService
     public ColeccionRuta createColeccionRuta(ColeccionRuta ruta)
     {
         try {
-
-            return rutaRepository.save(ruta);
+            almacenRutasService.guardarColeccion(ruta);
+            if (ruta.getRutasPosibles() != null) {
+                for (RutaPosible rutaPosible : ruta.getRutasPosibles()) {
+                    rutaPosible.setColeccionRuta(ruta);
+                    almacenRutasService.guardarRuta(rutaPosible);
+                }
+            }
+            almacenRutasService.escribirPendientes();
+            return ruta;
         } catch (Exception e) {
             logger.error(e.getLocalizedMessage());
             return null;
@@ -1,21 +1,24 @@
 package com.dp1.backend.services;
 
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.TreeMap;
-import java.util.stream.Stream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.dp1.backend.models.Aeropuerto;
@@ -26,7 +29,20 @@ import com.dp1.backend.models.Paquete;
 import com.dp1.backend.models.ProgramacionVuelo;
 import com.dp1.backend.models.RutaPosible;
 import com.dp1.backend.models.Vuelo;
+import com.dp1.backend.utils.AirportGeoIndex;
+import com.dp1.backend.utils.CacheRutas;
+import com.dp1.backend.utils.CatalogoRutas;
+import com.dp1.backend.utils.CsaRouter;
 import com.dp1.backend.utils.FuncionesLectura;
+import com.dp1.backend.utils.HorizonteVuelos;
+import com.dp1.backend.utils.IndiceEnvios;
+import com.dp1.backend.utils.IndiceSalidas;
+import com.dp1.backend.utils.InstantaneaDatos;
+import com.dp1.backend.utils.LectorEnvios;
+import com.dp1.backend.utils.PlanIncremental;
+import com.dp1.backend.utils.PlanningState;
+import com.dp1.backend.utils.ValidadorRutas;
+import com.dp1.backend.utils.aco_auxiliares;
 
 import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
@@ -36,17 +52,46 @@ public class DatosEnMemoriaService {
     private HashMap<String, Aeropuerto> aeropuertos = new HashMap<>();
     private HashMap<Integer, Vuelo> vuelos = new HashMap<>();
     private HashMap<String, Envio> envios = new HashMap<>();
+    // Instantánea binaria de data/ leída al arrancar (null si no hay una vigente)
+    private volatile InstantaneaDatos instantanea;
+    // Envíos ordenados por salida, para sacar ventanas sin recorrer todo el mapa
+    private IndiceEnvios indiceEnvios;
+    // Ordinales y distancias entre aeropuertos, calculados una vez al cargar los aeropuertos
+    private AirportGeoIndex geoIndex;
 
     // Mapas para rutas
     private HashMap<String, ColeccionRuta> rutasPosibles = new HashMap<>();
-    private HashSet<String> rutasPosiblesSet = new HashSet<>();
+    // Rutas conocidas (origen, destino y vuelos) con su RutaPosible, para saber sin armar llaves String si
+    // una ruta ya está guardada
+    private CacheRutas<RutaPosible> cacheRutas;
 
     // Services para ColeccionRuta y RutaPosible
     // Estructuras que se usarán en la planificación (ejecución del algoritmo)
-    //HashMap<Integer, Double[]>tabla, HashMap<Integer, ProgramacionVuelo> vuelosProgramados, ArrayList<LocalDate>fechasVuelos)
-    private HashMap<Integer, Double[]> tabla = new HashMap<>();
-    private HashMap<Integer, ProgramacionVuelo> vuelosProgramados = new HashMap<>();
-    private ArrayList<LocalDate>fechasVuelos = new ArrayList<>();
+    // Vuelos programados de los días que se pueden planificar, con su estado (capacidad, feromonas) y el
+    // índice de salidas por aeropuerto; descarta los días que ya pasaron
+    private HorizonteVuelos horizonteVuelos;
+    // Itinerarios precalculados por par origen-destino sobre el plan de vuelos diario; se construye la
+    // primera vez que se pide
+    private CatalogoRutas catalogoRutas;
+    // Horizontes para cotizar envíos, por fecha UTC de salida, cada uno con su Connection Scan. Son propios:
+    // cotizar no agrega días al horizonte de la planificación. Se guardan las COTIZACIONES_EN_CACHE fechas
+    // usadas más recientemente
+    private static final int COTIZACIONES_EN_CACHE = 8;
+    private final LinkedHashMap<LocalDate, HorizonteCotizacion> horizontesCotizacion = new LinkedHashMap<>(16,
+            0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<LocalDate, HorizonteCotizacion> mayor) {
+            return size() > COTIZACIONES_EN_CACHE;
+        }
+    };
+    // Rutas y reservas que la simulación conserva entre ejecuciones (planificación incremental); se reinicia
+    // al limpiar la memoria
+    private PlanIncremental planIncremental;
+    // Validador de la verificación, armado sobre los aeropuertos y vuelos con que se pidió por última vez. Se
+    // reutiliza entre verificaciones: cada una lo reinicia con sus envíos
+    private ValidadorRutas validadorRutas;
+    @Value("${aco.catalogo.k:" + CatalogoRutas.K_POR_DEFECTO + "}")
+    private int itinerariosPorPar = CatalogoRutas.K_POR_DEFECTO;
 
 
     //Services para ColeccionRuta y RutaPosible
@@ -54,7 +99,7 @@ public class DatosEnMemoriaService {
     private ColeccionRutaService coleccionRutaService;
 
     @Autowired
-    private RutaPosibleService rutaPosibleService;
+    private AlmacenRutasService almacenRutasService;
 
     private final static Logger logger = LogManager.getLogger(DatosEnMemoriaService.class);
     private String workingDirectory = System.getProperty("user.dir");
@@ -67,15 +112,26 @@ public class DatosEnMemoriaService {
             workingDirectory = "";
         }
         try{
-            aeropuertos.putAll(FuncionesLectura.leerAeropuertos(workingDirectory + "data/Aeropuerto.husos.v1.20250818.txt"));
+            // Si hay una instantánea binaria vigente se usa en lugar de los archivos de texto
+            instantanea = InstantaneaDatos.leerSiVigente(Paths.get(workingDirectory + "data"));
+            if (instantanea != null) {
+                aeropuertos.putAll(instantanea.aeropuertos());
+                vuelos.putAll(instantanea.vuelos(aeropuertos));
+                logger.info("Aeropuertos y vuelos cargados de la instantánea de datos");
+            } else {
+                aeropuertos.putAll(FuncionesLectura.leerAeropuertos(workingDirectory + "data/" + InstantaneaDatos.ARCHIVO_AEROPUERTOS));
+                vuelos.putAll(FuncionesLectura.leerVuelos(workingDirectory + "data/" + InstantaneaDatos.ARCHIVO_VUELOS, aeropuertos));
+            }
             logger.info("Aeropuertos cargados: " + aeropuertos.size());
-            vuelos.putAll(FuncionesLectura.leerVuelos(workingDirectory + "data/planes_vuelo.v4.20250818.txt", aeropuertos));
             logger.info("Vuelos cargados: " + vuelos.size());
         }
         catch (Exception e){
             logger.error("Error al cargar aeropuertos y vuelos: " + e.getLocalizedMessage());
             e.printStackTrace();
         }
+        geoIndex = AirportGeoIndex.construir(aeropuertos);
+        horizonteVuelos = new HorizonteVuelos(geoIndex);
+        cacheRutas = new CacheRutas<>(geoIndex);
     }
 
     @PostConstruct
@@ -87,19 +143,14 @@ public class DatosEnMemoriaService {
             coleccionRutaService.getAllColeccionRutas().forEach(cr -> {
                 // logger.info("Coleccion ruta: " + cr.getCodigoRuta());
                 rutasPosibles.put(cr.getCodigoRuta(), cr);
-                String ruta = cr.getCodigoRuta();
+                // El código de la colección es origen + destino (códigos OACI de 4 letras)
+                if (cr.getCodigoRuta() == null || cr.getCodigoRuta().length() != 8) {
+                    return;
+                }
+                String origen = cr.getCodigoRuta().substring(0, 4);
+                String destino = cr.getCodigoRuta().substring(4);
                 for (RutaPosible rp : cr.getRutasPosibles()) {
-
-                    String sucesionVuelos = "";
-                    for (ItemRutaPosible itemVuelo : rp.getFlights()) {
-                        int vueloId = itemVuelo.getIdVuelo();
-                        sucesionVuelos += ("-" + vueloId);
-                    }
-                    // logger.info("Ruta posible: " + sucesionVuelos);
-                    ruta += sucesionVuelos;
-                    if (!rutasPosiblesSet.contains(ruta)) {
-                        rutasPosiblesSet.add(ruta);
-                    }
+                    cacheRutas.agregar(origen, destino, vuelosEnOrden(rp), rp);
                 }
             });
         } catch (Exception e) {
@@ -107,33 +158,76 @@ public class DatosEnMemoriaService {
         }
 
         logger.info("Colecciones rutas: " + rutasPosibles.size());
-        logger.info("Rutas posibles set: " + rutasPosiblesSet.size());
+        logger.info("Rutas posibles en caché: " + cacheRutas.size());
     }
 
-    public HashMap<Integer, Double[]> getTabla() {
-        return this.tabla;
+    public HorizonteVuelos getHorizonteVuelos() {
+        return this.horizonteVuelos;
     }
-    public void setTabla(HashMap<Integer, Double[]> tabla) {
-        this.tabla = tabla;
+    public PlanningState getEstadoPlanificacion() {
+        return this.horizonteVuelos.getEstado();
     }
     public HashMap<Integer, ProgramacionVuelo> getVuelosProgramados() {
-        return this.vuelosProgramados;
+        return this.horizonteVuelos.getVuelosProgramados();
+    }
+    public synchronized PlanIncremental getPlanIncremental() {
+        if (planIncremental == null) {
+            planIncremental = new PlanIncremental(aeropuertos, vuelos);
+        }
+        return this.planIncremental;
+    }
+
+    // Validador para verificar rutas sobre estos aeropuertos y vuelos. Se vuelve a armar solo si son otros
+    // mapas o cambió la cantidad de vuelos o aeropuertos
+    public synchronized ValidadorRutas getValidadorRutas(HashMap<String, Aeropuerto> aeropuertos,
+            HashMap<Integer, Vuelo> vuelos) {
+        if (validadorRutas == null || !validadorRutas.construidoSobre(aeropuertos, vuelos)) {
+            validadorRutas = new ValidadorRutas(aeropuertos, vuelos);
+        }
+        return this.validadorRutas;
     }
-    public void setVuelosProgramados(HashMap<Integer, ProgramacionVuelo> vuelosProgramados) {
-        this.vuelosProgramados = vuelosProgramados;
+
+    public synchronized CatalogoRutas getCatalogoRutas() {
+        if (catalogoRutas == null) {
+            catalogoRutas = CatalogoRutas.construir(aeropuertos, vuelos, itinerariosPorPar);
+        }
+        return this.catalogoRutas;
     }
-    public ArrayList<LocalDate> getFechasVuelos() {
-        return this.fechasVuelos;
+    /*
+     * Llegada más temprana de origen a destino saliendo después de la hora dada, sobre los días que puede tomar
+     * el envío. Con conCapacidad se saltan los vuelos llenos según las reservas de la simulación (el plan
+     * incremental): se copian, con el plan bloqueado, a un snapshot del estado del horizonte de cotización.
+     */
+    public CsaRouter.Itinerario cotizarItinerario(String origen, ZonedDateTime fechaHoraSalida, String destino,
+            boolean conCapacidad) {
+        LocalDate fecha = fechaHoraSalida.withZoneSameInstant(ZoneOffset.UTC).toLocalDate();
+        HorizonteCotizacion cotizacion;
+        synchronized (horizontesCotizacion) {
+            cotizacion = horizontesCotizacion.get(fecha);
+            if (cotizacion == null) {
+                cotizacion = new HorizonteCotizacion(fecha);
+                horizontesCotizacion.put(fecha, cotizacion);
+            }
+        }
+        PlanningState estado = null;
+        if (conCapacidad) {
+            PlanIncremental plan = getPlanIncremental();
+            synchronized (plan) {
+                estado = plan.getHorizonte().estadoSobre(cotizacion.horizonte);
+            }
+        }
+        CsaRouter router = cotizacion.router;
+        return router.llegadaMasTemprana(router.ordinal(origen), aco_auxiliares.minutoEpoch(fechaHoraSalida),
+                router.ordinal(destino), estado);
     }
-    public void setFechasVuelos(ArrayList<LocalDate> fechasVuelos) {
-        this.fechasVuelos = fechasVuelos;
+    public AirportGeoIndex getGeoIndex() {
+        return this.geoIndex;
     }
-    public HashSet<String> getRutasPosiblesSet() {
-        return this.rutasPosiblesSet;
+    public IndiceSalidas getIndiceSalidas() {
+        return this.horizonteVuelos.getIndiceSalidas();
     }
-
-    public void setRutasPosiblesSet(HashSet<String> rutasPosiblesSet) {
-        this.rutasPosiblesSet = rutasPosiblesSet;
+    public CacheRutas<RutaPosible> getCacheRutas() {
+        return this.cacheRutas;
     }
 
     public String getWorkingDirectory() {
@@ -239,8 +333,24 @@ public class DatosEnMemoriaService {
         this.rutasPosibles = rutasPosibles;
     }
 
-    public boolean seTieneruta(String ruta) {
-        return rutasPosiblesSet.contains(ruta);
+    public boolean seTieneRuta(Envio envio, Paquete paquete) {
+        return cacheRutas.contiene(envio.getOrigen(), envio.getDestino(), paquete.getRuta());
+    }
+
+    // RutaPosible guardada con la misma ruta que el paquete, o null si no hay
+    public RutaPosible buscarRuta(Envio envio, Paquete paquete) {
+        return cacheRutas.buscar(envio.getOrigen(), envio.getDestino(), paquete.getRuta());
+    }
+
+    // Vuelos de la ruta posible en orden de viaje (por día relativo)
+    private static ArrayList<Integer> vuelosEnOrden(RutaPosible rp) {
+        ArrayList<ItemRutaPosible> items = new ArrayList<>(rp.getFlights());
+        items.sort(Comparator.comparingInt(ItemRutaPosible::getDiaRelativo));
+        ArrayList<Integer> idVuelos = new ArrayList<>(items.size());
+        for (ItemRutaPosible item : items) {
+            idVuelos.add(item.getIdVuelo());
+        }
+        return idVuelos;
     }
 
     public void insertarRuta(Envio envio, Paquete paquete) {
@@ -250,28 +360,19 @@ public class DatosEnMemoriaService {
             cr = new ColeccionRuta();
             cr.setCodigoRuta(llave);
             cr.setRutasPosibles(new ArrayList<RutaPosible>());
-            RutaPosible rp = new RutaPosible();
-            rp.setColeccionRuta(cr);
-
-            rp.setFlights(cargarVuelosARutaPosible(paquete));
-            cr.getRutasPosibles().add(rp);
             rutasPosibles.put(llave, cr);
             // logger.info("Ruta creada: " + llave);
-            // Guardar cr en bd
-            coleccionRutaService.createColeccionRuta(cr);
+            // Guardar cr en bd (escritura diferida: el id queda asignado de inmediato)
+            almacenRutasService.guardarColeccion(cr);
         }
         RutaPosible rp = new RutaPosible();
         rp.setColeccionRuta(cr);
         rp.setFlights(cargarVuelosARutaPosible(paquete));
         cr.getRutasPosibles().add(rp);
 
-        String llave2 = envio.getOrigen() + envio.getDestino();
-        for (int i : paquete.getRuta()) {
-            llave2 += "-" + i;
-        }
-        rutasPosiblesSet.add(llave2);
-        // Guardar llave2 en bd
-        rp = rutaPosibleService.createRutaPosible(rp);
+        // Guardar la ruta en bd
+        almacenRutasService.guardarRuta(rp);
+        cacheRutas.agregar(envio.getOrigen(), envio.getDestino(), paquete.getRuta(), rp);
         // System.out.println("Funcion insertar ruta. rp inf: " + rp.getId() + " " + rp.getFlights());
         paquete.setRutaPosible(rp);
         // logger.info("Ruta agregada en set: " + llave2);
@@ -305,45 +406,92 @@ public class DatosEnMemoriaService {
         // como máximo de 3 dias antes de la fecha de simulación.
         ZonedDateTime horaActualMenos3Dias = horaActual.minusDays(3);
         ZonedDateTime horaFin = horaActual.plusDays(7);
-        try (Stream<Path> paths = Files.walk(Paths.get(workingDirectory + "data/envios/"))) {
-            paths
-                    .filter(Files::isRegularFile)
-                    .filter(p -> p.getFileName().toString().matches("pack_enviado_[A-Z]+_.*"))
-                    .forEach(p -> {
-                        logger.info("Leyendo archivo: " + p.toString());
-                        envios.putAll(
-                                FuncionesLectura.leerEnviosDesdeHasta(p.toString(), aeropuertos, horaActualMenos3Dias,
-                                        horaFin));
-                    });
+        try {
+            List<Path> archivos = InstantaneaDatos.listarEnvios(Paths.get(workingDirectory + "data"));
+            InstantaneaDatos instantanea = this.instantanea;
+            if (instantanea != null && instantanea.enviosVigentes(archivos)) {
+                envios.putAll(instantanea.enviosDesdeHasta(aeropuertos, horaActualMenos3Dias, horaFin));
+                logger.info("Envíos cargados de la instantánea de datos: " + envios.size());
+            } else {
+                archivos.forEach(p -> logger.info("Leyendo archivo: " + p.toString()));
+                // Los archivos se mapean en memoria y se leen en paralelo
+                envios.putAll(new LectorEnvios(aeropuertos).leerEnviosDesdeHasta(archivos, horaActualMenos3Dias,
+                        horaFin));
+            }
+            synchronized (this) {
+                indiceEnvios = IndiceEnvios.de(envios.values());
+            }
         } catch (IOException e) {
             e.printStackTrace();
         }
         logger.info("Envios cargados: " + envios.size());
     }
 
+    /*
+     * Vuelve a generar la instantánea binaria desde los archivos de texto de data/. Los aeropuertos y vuelos en
+     * memoria no cambian (se toman de la instantánea al reiniciar); los envíos sí se leen de la nueva desde la
+     * próxima carga.
+     */
+    public InstantaneaDatos regenerarInstantanea() throws IOException {
+        Path directorioDatos = Paths.get(workingDirectory + "data");
+        InstantaneaDatos nueva = InstantaneaDatos.generar(directorioDatos,
+                directorioDatos.resolve(InstantaneaDatos.ARCHIVO_INSTANTANEA));
+        this.instantanea = nueva;
+        logger.info("Instantánea de datos regenerada: " + nueva.getCantidadAeropuertos() + " aeropuertos, "
+                + nueva.getCantidadVuelos() + " vuelos, " + nueva.getCantidadEnvios() + " envíos, "
+                + nueva.getTamanio() + " bytes");
+        return nueva;
+    }
+
     public HashMap<String, Envio> devolverEnviosDesdeHasta(ZonedDateTime horaInicio, ZonedDateTime horaFin) {
-        HashMap<String, Envio> enviosDesdeHasta = new HashMap<>();
-        for (Envio envio : envios.values()) {
-            if (envio.getFechaHoraSalida().isAfter(horaInicio) && envio.getFechaHoraSalida().isBefore(horaFin)) {
-                enviosDesdeHasta.put(envio.getCodigoEnvio(), envio);
-            }
+        return indiceEnvios().desdeHasta(horaInicio, horaFin);
+    }
+
+    public HashMap<String, Envio> devolverEnviosDesdeHasta(String origen, ZonedDateTime horaInicio,
+            ZonedDateTime horaFin) {
+        return indiceEnvios().desdeHasta(origen, horaInicio, horaFin);
+    }
+
+    // El índice se arma al cargar los envíos; si el mapa cambió por otro lado (setEnvios, limpiarMemoria) se
+    // vuelve a armar
+    private synchronized IndiceEnvios indiceEnvios() {
+        if (indiceEnvios == null || indiceEnvios.size() != envios.size()) {
+            indiceEnvios = IndiceEnvios.de(envios.values());
         }
-        return enviosDesdeHasta;
+        return indiceEnvios;
     }
 
     public HashMap<String, Envio> getEnvios() {
         return this.envios;
     }
 
-    public void setEnvios(HashMap<String, Envio> envios) {
+    public synchronized void setEnvios(HashMap<String, Envio> envios) {
         this.envios = envios;
+        this.indiceEnvios = null;
     }
 
     public void limpiarMemoria() {
         envios.clear();
+        synchronized (this) {
+            indiceEnvios = null;
+            planIncremental = null;
+        }
         for (Aeropuerto a : aeropuertos.values()) {
             a.setCantPaqReal(new TreeMap<LocalDateTime, Integer>());
-            a.setCantPaqParaPlanificacion(new TreeMap<LocalDateTime, Integer>());
+            a.reiniciarPlanificacion();
+        }
+    }
+
+    // Vuelos de los días que puede tomar un envío que sale en la fecha (UTC) y su router. No se modifican
+    // después de construirse, así que se consultan sin bloqueo
+    private class HorizonteCotizacion {
+        private final HorizonteVuelos horizonte;
+        private final CsaRouter router;
+
+        HorizonteCotizacion(LocalDate fecha) {
+            horizonte = new HorizonteVuelos(geoIndex);
+            horizonte.asegurarDias(fecha.minusDays(1), 5, vuelos);
+            router = CsaRouter.construir(horizonte, vuelos);
         }
     }
 
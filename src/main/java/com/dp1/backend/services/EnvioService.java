@@ -4,6 +4,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -16,6 +17,8 @@ import com.dp1.backend.models.Aeropuerto;
 import com.dp1.backend.models.Envio;
 import com.dp1.backend.models.Paquete;
 import com.dp1.backend.repository.EnvioRepository;
+import com.dp1.backend.utils.CsaRouter;
+import com.dp1.backend.utils.aco_auxiliares;
 
 import jakarta.transaction.Transactional;
 
@@ -30,8 +33,67 @@ public class EnvioService {
     @Autowired
     private PaqueteService paqueteService;
 
+    @Autowired
+    private CargaEnviosService cargaEnviosService;
+
     private final static Logger logger = LogManager.getLogger(EnvioService.class);
 
+    // Cotización de un envío con el Connection Scan sobre el horizonte de vuelos: itinerario de llegada más
+    // temprana saliendo a la hora dada y si cumple el plazo (1 día en el mismo continente, 2 entre
+    // continentes). Con capacidad, solo usa vuelos que aún tienen espacio en la planificación.
+    public Map<String, Object> cotizarEnvio(String codigoOrigen, String codigoDestino, ZonedDateTime fechaHoraSalida,
+            boolean conCapacidad) {
+        try {
+            Aeropuerto origen = datosEnMemoriaService.getAeropuertos().get(codigoOrigen);
+            Aeropuerto destino = datosEnMemoriaService.getAeropuertos().get(codigoDestino);
+            if (origen == null || destino == null) {
+                logger.error("Cotización: aeropuerto no encontrado " + codigoOrigen + " - " + codigoDestino);
+                return null;
+            }
+            if (fechaHoraSalida == null) {
+                fechaHoraSalida = ZonedDateTime.now(origen.getZoneId());
+            }
+            boolean mismoContinente = origen.getContinente().equals(destino.getContinente());
+            ZonedDateTime fechaHoraLimite = fechaHoraSalida.plusDays(mismoContinente ? 1 : 2);
+            CsaRouter.Itinerario itinerario = datosEnMemoriaService.cotizarItinerario(codigoOrigen, fechaHoraSalida,
+                    codigoDestino, conCapacidad);
+
+            Map<String, Object> cotizacion = new HashMap<>();
+            cotizacion.put("origen", codigoOrigen);
+            cotizacion.put("destino", codigoDestino);
+            cotizacion.put("fechaHoraSalida", fechaHoraSalida);
+            cotizacion.put("fechaHoraLlegadaPrevista", fechaHoraLimite.withZoneSameInstant(destino.getZoneId()));
+            if (itinerario == null) {
+                cotizacion.put("cumplePlazo", false);
+                cotizacion.put("vuelos", new ArrayList<>());
+                return cotizacion;
+            }
+            ArrayList<Map<String, Object>> tramos = new ArrayList<>();
+            for (int t = 0; t < itinerario.getCantidadTramos(); t++) {
+                Map<String, Object> tramo = new HashMap<>();
+                Aeropuerto aOrigen = datosEnMemoriaService.getAeropuertos().get(itinerario.origenEn(t));
+                Aeropuerto aDestino = datosEnMemoriaService.getAeropuertos().get(itinerario.destinoEn(t));
+                tramo.put("idVuelo", itinerario.idVueloEn(t));
+                tramo.put("origen", itinerario.origenEn(t));
+                tramo.put("destino", itinerario.destinoEn(t));
+                tramo.put("fechaHoraSalida",
+                        aco_auxiliares.fechaDeMinuto(itinerario.salidaEn(t), aOrigen.getZoneId()));
+                tramo.put("fechaHoraLlegada",
+                        aco_auxiliares.fechaDeMinuto(itinerario.llegadaEn(t), aDestino.getZoneId()));
+                tramos.add(tramo);
+            }
+            cotizacion.put("vuelos", tramos);
+            cotizacion.put("fechaHoraLlegada",
+                    aco_auxiliares.fechaDeMinuto(itinerario.getMinutoLlegada(), destino.getZoneId()));
+            cotizacion.put("cumplePlazo",
+                    itinerario.getMinutoLlegada() <= aco_auxiliares.minutoEpoch(fechaHoraLimite));
+            return cotizacion;
+        } catch (Exception e) {
+            logger.error("Error al cotizar envío: " + e.getMessage());
+            return null;
+        }
+    }
+
     public String createEnvio(Envio envio) {
         try {
             Aeropuerto origen = datosEnMemoriaService.getAeropuertos().get(envio.getOrigen());
@@ -66,27 +128,9 @@ public class EnvioService {
             envio.setReceptor(null);
             envio.setEmisor(null);
             envio.setPaquetes(null);
-            envio = envioRepository.save(envio);
-            logger.info("Todo bien hasta primer guardado");
-            envio.setCodigoEnvio(envio.getOrigen() + envio.getId());
-            envio.setPaquetes(null);
-            envioRepository.save(envio);
-            logger.info("Todo bien hasta segundo guardado");
-
-            String codigosPaquetes = "";
-            for (int i = 0; i < envio.getCantidadPaquetes(); i++) {
-                // Guardar paquetes
-                Paquete paquete = new Paquete();
-                paquete.setCodigoEnvio(envio.getCodigoEnvio());
-                int codigoPaquete = 1000000 * origen.getIdAeropuerto() + 100 * envio.getId() + (i + 1);
-                paquete.setIdPaquete(codigoPaquete);
-                paquete.setCostosRuta(null);
-                paquete.setFechasRuta(null);
-                paquete.setRuta(null);
-                paquete.setRutaPosible(null);
-                Paquete paqueteNuevo= paqueteService.createPaquete(paquete);
-                codigosPaquetes += paqueteNuevo.getId() + " ";
-            }
+            // Envío y paquetes en una transacción, con los ids reservados de antemano: el codigoEnvio (origen + id)
+            // se arma antes de insertar
+            String codigosPaquetes = cargaEnviosService.guardarEnvio(envio);
             logger.info("Todo bien hasta guardado de paquetes");
             return codigosPaquetes;
         } catch (Exception e) {
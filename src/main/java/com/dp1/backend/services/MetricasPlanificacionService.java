@@ -0,0 +1,108 @@
+package com.dp1.backend.services;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+
+import com.dp1.backend.utils.Hormiga;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Métricas de las ejecuciones de planificación (Micrometer). Se exponen por Actuator en /actuator/metrics y
+ * /actuator/prometheus:
+ * - planificacion.fase: tiempo de cada fase (carga de datos, algoritmo, verificación, serialización JSON),
+ *   con la operación de ACOService que la ejecutó.
+ * - planificacion.paquetes.planificados / .entregados: resultado de la última ejecución.
+ * - planificacion.candidatos: vuelos candidatos en cada paso de la búsqueda de una hormiga.
+ * - planificacion.ruta.vuelos: vuelos de la ruta de cada paquete de la solución aplicada.
+ * - planificacion.rechazos: vuelos descartados por capacidad, del vuelo o del almacén de destino.
+ */
+@Service
+public class MetricasPlanificacionService {
+    public static final String FASE_CARGA_DATOS = "carga_datos";
+    public static final String FASE_ALGORITMO = "algoritmo";
+    public static final String FASE_VERIFICACION = "verificacion";
+    public static final String FASE_SERIALIZACION = "serializacion_json";
+
+    private final MeterRegistry registro;
+    private final AtomicInteger paquetesPlanificados = new AtomicInteger();
+    private final AtomicInteger paquetesEntregados = new AtomicInteger();
+    private final DistributionSummary candidatosPorPaso;
+    private final DistributionSummary vuelosPorRuta;
+    private final Counter rechazosVuelo;
+    private final Counter rechazosAlmacen;
+
+    public MetricasPlanificacionService(MeterRegistry registro) {
+        this.registro = registro;
+        Gauge.builder("planificacion.paquetes.planificados", paquetesPlanificados, AtomicInteger::get)
+                .description("Paquetes de la última ejecución de planificación")
+                .register(registro);
+        Gauge.builder("planificacion.paquetes.entregados", paquetesEntregados, AtomicInteger::get)
+                .description("Paquetes que llegan a destino en la última ejecución, según la verificación")
+                .register(registro);
+        candidatosPorPaso = DistributionSummary.builder("planificacion.candidatos")
+                .description("Vuelos candidatos en cada paso de la construcción de rutas")
+                .baseUnit("vuelos")
+                .publishPercentileHistogram()
+                .register(registro);
+        vuelosPorRuta = DistributionSummary.builder("planificacion.ruta.vuelos")
+                .description("Vuelos de la ruta de cada paquete planificado")
+                .baseUnit("vuelos")
+                .serviceLevelObjectives(1, 2, 3, 4, 5)
+                .register(registro);
+        rechazosVuelo = Counter.builder("planificacion.rechazos")
+                .description("Vuelos descartados como candidatos por falta de capacidad")
+                .tag("capacidad", "vuelo")
+                .register(registro);
+        rechazosAlmacen = Counter.builder("planificacion.rechazos")
+                .description("Vuelos descartados como candidatos por falta de capacidad")
+                .tag("capacidad", "almacen")
+                .register(registro);
+    }
+
+    // Momento de inicio de una fase; se cierra con registrarFase
+    public Timer.Sample iniciarFase() {
+        return Timer.start(registro);
+    }
+
+    // Registra la duración de la fase y la devuelve en milisegundos
+    public long registrarFase(Timer.Sample inicio, String operacion, String fase) {
+        Timer timer = Timer.builder("planificacion.fase")
+                .description("Duración de cada fase de una ejecución de planificación")
+                .tag("operacion", operacion)
+                .tag("fase", fase)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registro);
+        return TimeUnit.NANOSECONDS.toMillis(inicio.stop(timer));
+    }
+
+    // Estadísticas de la búsqueda de una hormiga (se llama al terminar cada hormiga, no en cada paso)
+    public void registrarBusqueda(Hormiga hormiga) {
+        for (int k = 0; k <= hormiga.getMaximoCandidatos(); k++) {
+            int pasos = hormiga.pasosConCandidatos(k);
+            for (int i = 0; i < pasos; i++) {
+                candidatosPorPaso.record(k);
+            }
+        }
+        rechazosVuelo.increment(hormiga.getRechazosCapacidadVuelo());
+        rechazosAlmacen.increment(hormiga.getRechazosCapacidadAlmacen());
+    }
+
+    // Rutas de la solución que se aplica a los paquetes
+    public void registrarSolucion(Hormiga hormiga) {
+        for (int i = 0; i < hormiga.getNumeroPaquetes(); i++) {
+            vuelosPorRuta.record(hormiga.finRuta(i) - hormiga.inicioRuta(i));
+        }
+        paquetesPlanificados.set(hormiga.getNumeroPaquetes());
+    }
+
+    public void registrarEntregados(int entregados) {
+        paquetesEntregados.set(entregados);
+    }
+}
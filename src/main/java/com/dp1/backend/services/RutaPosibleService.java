@@ -13,10 +13,16 @@ public class RutaPosibleService {
     @Autowired
     private RutaPosibleRepository rutaPosibleRepository;
 
+    @Autowired
+    private AlmacenRutasService almacenRutasService;
+
+    // El id lo reparte AlmacenRutasService; su colección, si tiene, ya debe estar guardada
     public RutaPosible createRutaPosible(RutaPosible rutaPosible)
     {
         try {
-            return rutaPosibleRepository.save(rutaPosible);
+            almacenRutasService.guardarRuta(rutaPosible);
+            almacenRutasService.escribirPendientes();
+            return rutaPosible;
         } catch (Exception e) {
             return null;
         }
@@ -1,17 +1,20 @@
 package com.dp1.backend.utils;
 
-import java.io.FileWriter;
-import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import com.dp1.backend.models.Aeropuerto;
@@ -19,6 +22,7 @@ import com.dp1.backend.models.Envio;
 import com.dp1.backend.models.Paquete;
 import com.dp1.backend.models.ProgramacionVuelo;
 import com.dp1.backend.models.Vuelo;
+import com.dp1.backend.services.MetricasPlanificacionService;
 import com.dp1.backend.services.PaqueteService;
 
 @Component
@@ -26,6 +30,21 @@ public class ACO {
 
     @Autowired
     PaqueteService paqueteService;
+    @Autowired
+    MetricasPlanificacionService metricas;
+
+    // Sembrar feromonas en los vuelos de la ruta de llegada más temprana (CSA) de cada envío antes de las
+    // hormigas
+    @Value("${aco.csa.semilla:true}")
+    boolean sembrarConCsa = true;
+    private static final double FEROMONA_CSA = 0.3;
+
+    // Parámetros de la actualización de feromonas en la versión paralela
+    private static final double TASA_EVAPORACION = 0.1;
+    private static final double APRENDIZAJE = 0.1;
+
+    // Pool donde se ejecutan las hormigas de run_v2Paralelo y de run_incremental
+    private final ForkJoinPool poolHormigas = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
 
     public static double[] minYMaxTiempoVuelo;
     public static double[] minYMaxDistanciaAeropuertos;
@@ -61,7 +80,8 @@ public class ACO {
                                                                                               // iteraciones
 
         }
-        System.out.println("Numero de paquetes: " + paquetes.size());
+        TrazaPlanificacion traza = TrazaPlanificacion.actual();
+        traza.registrar(TrazaPlanificacion.Nivel.RESUMEN, "Numero de paquetes: " + paquetes.size());
 
         generarArchivoTabla(tabla, "salida");
         // Iteraremos muchas veces para todos los paquetes. Es decir, para cada
@@ -147,14 +167,19 @@ public class ACO {
                     // tabla.get(vueloEscogido)[1]--; // ¿Qué pasaría si ya no hay vuelos por tomar?
                     // Creo que eso no va a pasar
 
-                    System.out.println("                IMPRIMIENDO TABLA DE OPCIONES PARA EL PAQUETE "
-                            + paq.getIdPaquete() + " " + envios.get(paq.getCodigoEnvio()).getOrigen() + " "
-                            + envios.get(paq.getCodigoEnvio()).getDestino());
-
-                    // generarArchivoTabla(tablaOpcionesVuelos, "salida");
-                    imprimirTabla(tablaOpcionesVuelos, vuelos);
-                    System.out.println("VUELO ESCOGIDO PAQUETE " + paq.getIdPaquete() + ": " + vueloEscogido);
-                    System.out.println("CIUDAD ACTUAL PAQUETE " + vuelos.get(vueloEscogido).getDestino());
+                    boolean trazarPaquete = traza.muestrea(paq, TrazaPlanificacion.Nivel.PASOS);
+                    if (trazarPaquete && traza.activo(TrazaPlanificacion.Nivel.TABLAS)) {
+                        traza.registrar(TrazaPlanificacion.Nivel.TABLAS,
+                                "IMPRIMIENDO TABLA DE OPCIONES PARA EL PAQUETE " + paq.getIdPaquete() + " "
+                                        + envios.get(paq.getCodigoEnvio()).getOrigen() + " "
+                                        + envios.get(paq.getCodigoEnvio()).getDestino() + "\n"
+                                        + imprimirTabla(tablaOpcionesVuelos, vuelos));
+                    }
+                    if (trazarPaquete) {
+                        traza.registrar(TrazaPlanificacion.Nivel.PASOS, "VUELO ESCOGIDO PAQUETE " + paq.getIdPaquete()
+                                + ": " + vueloEscogido + ". CIUDAD ACTUAL PAQUETE "
+                                + vuelos.get(vueloEscogido).getDestino());
+                    }
 
                     // Si ya llegamos al destino, salimos del while || si ya nos quedamos sin tiempo
                     // para seguir buscando (creo que en Costo no hay manera de incluir este param)
@@ -166,11 +191,14 @@ public class ACO {
                         // Si no llegamos al destino por quedarnos sin tiempo (2dias o 1 dia), salimos
 
                         exito++;
-                        System.out.println("El paquete " + paq.getIdPaquete() + " llegó al destino");
+                        if (trazarPaquete) {
+                            traza.registrar(TrazaPlanificacion.Nivel.PASOS,
+                                    "El paquete " + paq.getIdPaquete() + " llegó al destino");
+                        }
                         break;
-                    } else {
-
-                        System.out.println("El paquete " + paq.getIdPaquete() + " aun no llega al destino");
+                    } else if (trazarPaquete) {
+                        traza.registrar(TrazaPlanificacion.Nivel.PASOS,
+                                "El paquete " + paq.getIdPaquete() + " aun no llega al destino");
                     }
 
                     // if(i==5) break; //hasta que se quede sin tiempo para buscar su destino. Por
@@ -187,7 +215,8 @@ public class ACO {
         }
 
         generarArchivoTabla(tabla, "salida");
-        System.out.println("Numero de éxitos / numero paquetes: " + exito + " / " + paquetes.size());
+        traza.registrar(TrazaPlanificacion.Nivel.RESUMEN,
+                "Numero de éxitos / numero paquetes: " + exito + " / " + paquetes.size());
         // for (Paquete p : paquetes) {
         // System.out.println(envios.get(p.getIdEnvío()).getDestino() + " " +
         // p.getIdPaquete());
@@ -198,314 +227,439 @@ public class ACO {
     public ArrayList<Paquete> run_v2(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
             HashMap<String, Envio> envios,
             ArrayList<Paquete> paquetes, int numeroIteraciones) {
+        // Cada ejecución parte de un horizonte vacío: los vuelos programados se generan conforme se necesitan
+        HorizonteVuelos horizonte = new HorizonteVuelos(AirportGeoIndex.construir(aeropuertos));
+        return planificar(aeropuertos, vuelos, envios, paquetes, horizonte, false);
+    }
 
-        // Definir una matriz que defina Vuelo, Costo, Visibilidad() y Fermonas
-        // El costo será dinámico para algunas variables: tiempo de vuelo (entre mismas
-        // ciudades varia el t de vuelo), capacidades,
-        // plazos de entrega,
-
-        HashMap<Integer, Double[]> tabla = new HashMap<>(); // 4 columnas: Costo, Visibilidad, Feromonas
-        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = new HashMap<>();
-        ArrayList<LocalDate> fechasVuelos = new ArrayList<>();
-        // Dado que el costo (y por tanto la visibilidad) se definirá en la iteración,
-        // entonces esta tabla maestra solo guardará las feromonas. (Duda)
-        minYMaxTiempoVuelo = Normalizacion.obtenerMinMaxTiempoVuelo(vuelos);
-        minYMaxDistanciaAeropuertos = Normalizacion.obtenerDistanciaExtrema(aeropuertos); // el mínimo no tiene sentido.
-                                                                                          // Es 0
-        minYMaxDistanciaAeropuertos[0] = 0;
-        minYMaxTiempoVuelo[0] = 0;
-        // System.out.println("Min tiempo de vuelo: " + minYMaxTiempoVuelo[0]); //129
-        // System.out.println("Max tiempo de vuelo: " + minYMaxTiempoVuelo[1]); //890
-        // System.out.println("Min distancia entre aeropuertos: " +
-        // minYMaxDistanciaAeropuertos[0]); //0km
-        // System.out.println("Max distancia entre aeropuertos: " +
-        // minYMaxDistanciaAeropuertos[1]); //13463 km
-
-        System.out.println("Número de paquetes: " + paquetes.size());
-
-        // generarArchivoTabla(tabla, "salida");
-        // Iteraremos muchas veces para todos los paquetes. Es decir, para cada
-        // iteración se tomarán en cuenta todos los paquettes
-        int exito = 0;
-        // Limpiar rutas de los paquetes
+    public ArrayList<Paquete> run_v3(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, int numeroIteraciones,
+            HorizonteVuelos horizonte) {
+        // Igual que run_v2, pero reutiliza los vuelos programados (y sus feromonas) entre ejecuciones. Antes
+        // se descartan los días que ya no puede tomar ningún paquete de esta ejecución
+        ZonedDateTime primeraSalida = null;
         for (Paquete paq : paquetes) {
-            paq.setFechasRuta(new ArrayList<ZonedDateTime>());
-            paq.setRuta(new ArrayList<Integer>());
-            paq.setTiempoRestanteDinamico(paq.getTiempoRestante());
-            paq.setLlegoDestino(false);
+            ZonedDateTime salida = envios.get(paq.getCodigoEnvio()).getFechaHoraSalida();
+            if (primeraSalida == null || salida.isBefore(primeraSalida)) {
+                primeraSalida = salida;
+            }
         }
-        // Limpiar numero de exitos (luego lo cambiaremos porque cada paq guarda una
-        // variable si ha llegado a su destino)
-        exito = 0;
-        // Empezamos
-        int numPaqEjecutados = 0;
-        for (Paquete paq : paquetes) {
-            numPaqEjecutados++;
-            // if(numPaqEjecutados % 50 == 0)
-            // System.out.println("Paquete número: " + numPaqEjecutados + ". Fecha: " +
-            // envios.get(paq.getCodigoEnvio()).getFechaHoraSalida());
-
-            // imprimirTabla_v2(tabla, vuelosProgramados,vuelos);
-
-            String ciudadActualPaquete;
-            ZonedDateTime fechaActualPaquete;
-            while (true) {
-                HashMap<Integer, Double[]> tablaOpcionesVuelos = new HashMap<>();
-                // FIltrar y llenar una tabla con todos los vuelos que salen del origen del
-                // paquete para ver posibles salidas
-                // O su ultima ubicación
-                // validar que no vuelva a una ciudad ya visitada
-                if (paq.getRuta().isEmpty()) {
-                    // de acuerdo a su aeropuerto de origen
-                    // System.out.println("Paquete " + paq.getCodigoEnvio());
-                    ciudadActualPaquete = envios.get(paq.getCodigoEnvio()).getOrigen();
-                    fechaActualPaquete = envios.get(paq.getCodigoEnvio()).getFechaHoraSalida();
-                    // System.out.println("Fecha de salida: " + fechaActualPaquete);
-                } else {
-                    // de acuerdo al aeropuerto destino de su último vuelo
-                    ArrayList<Integer> rutaPaquete = paq.getRuta();
-                    int idUltimoVuelo = rutaPaquete.get(rutaPaquete.size() - 1);
+        if (primeraSalida != null) {
+            horizonte.descartarAntesDe(primeraSalida.toLocalDate().minusDays(HorizonteVuelos.DIAS_ANTES));
+        }
+        return planificar(aeropuertos, vuelos, envios, paquetes, horizonte, true);
+    }
 
-                    fechaActualPaquete = paq.getFechaLlegadaUltimoVuelo();
-                    ciudadActualPaquete = vuelos.get(vuelosProgramados.get(idUltimoVuelo).getIdVuelo())
-                            .getDestino();
+    // Versión paralela de run_v2: en cada iteración numeroHormigas hormigas construyen su solución al mismo
+    // tiempo, cada una con su copia de la carga de los vuelos y de los almacenes. La mejor hormiga de la
+    // iteración actualiza las feromonas y la mejor de todas se aplica a los vuelos, almacenes y paquetes.
+    public ArrayList<Paquete> run_v2Paralelo(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, int numeroIteraciones, int numeroHormigas,
+            long semilla) {
+        HorizonteVuelos horizonte = new HorizonteVuelos(AirportGeoIndex.construir(aeropuertos));
+        prepararPlanificacion(aeropuertos, vuelos, envios, paquetes, horizonte);
+        if (sembrarConCsa) {
+            sembrarFeromonas(horizonte, vuelos, envios, paquetes);
+        }
+        PlanningState estado = horizonte.getEstado();
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        IndiceSalidas indiceSalidas = horizonte.getIndiceSalidas();
+
+        // Al menos una hormiga por iteración; la misma cantidad numera las hormigas (y sus semillas)
+        int hormigas = Math.max(1, numeroHormigas);
+        Hormiga mejor = null;
+        for (int iteracion = 0; iteracion < Math.max(1, numeroIteraciones); iteracion++) {
+            ArrayList<ForkJoinTask<Hormiga>> tareas = new ArrayList<>();
+            for (int h = 0; h < hormigas; h++) {
+                int numero = iteracion * hormigas + h;
+                tareas.add(poolHormigas.submit(() -> {
+                    Hormiga hormiga = new Hormiga(numero, estado.snapshot(), Hormiga.copiarAeropuertos(aeropuertos),
+                            new SelectorRuleta(semilla + numero), paquetes.size());
+                    construirSolucion(hormiga, paquetes, envios, vuelos, vuelosProgramados, indiceSalidas, false);
+                    return hormiga;
+                }));
+            }
+            Hormiga mejorIteracion = null;
+            for (ForkJoinTask<Hormiga> tarea : tareas) {
+                Hormiga hormiga = tarea.join();
+                registrarBusqueda(hormiga);
+                if (mejorIteracion == null || hormiga.esMejorQue(mejorIteracion)) {
+                    mejorIteracion = hormiga;
                 }
+            }
+            actualizarFeromonas(estado, mejorIteracion, TASA_EVAPORACION, APRENDIZAJE);
+            if (mejor == null || mejorIteracion.esMejorQue(mejor)) {
+                mejor = mejorIteracion;
+            }
+        }
 
-                // A partir de la ciudad actual, llenaremos la tabla de los vuelos que puede
-                // tomar
-                agregarVuelosRequeridos(fechaActualPaquete, tabla, vuelosProgramados, vuelos, fechasVuelos,
-                        aeropuertos);
-
-                // ***Imprimieros las fechas de los vuelos que se están generando */
-                // System.out.println("Fechas necesarias para generar los vuelos, donde se
-                // agregan 1600 aprox cada vez");
-                // for (LocalDate ld : fechasVuelos) {
-                // System.out.println("Fecha: " + ld);
-                // }
-                // System.out.println("Numero de vuelos programados creados: " +
-                // vuelosProgramados.size());
-                // System.out.println("Numero de filas en la tabla: " + tabla.size());
-
-                for (int id : tabla.keySet()) {
-                    Vuelo vuelo = vuelos.get(vuelosProgramados.get(id).getIdVuelo());
-                    String ciudadOrigenVuelo = vuelo.getOrigen();
-                    Boolean espacioVuelo = vuelosProgramados.get(id).getCargaActualPlanificacion() + 1 < vuelo
-                            .getCapacidad();
-                    if (ciudadActualPaquete.equals(ciudadOrigenVuelo) && espacioVuelo) { // que el vuelo tenga espacio
-                                                                                         // aún
-                        // Compararemos que la fecha sea posterior
-                        if (fechaActualPaquete.isBefore(vuelosProgramados.get(id).getFechaHoraSalida())) {
-                            // Recordar que en vuelosProgramados ya están los 3 días en los que el vuelo
-                            // puede salir
-
-                            // Verificar que haya espacio en el aeropuerto de destino
-
-                            Aeropuerto aDestino = aeropuertos.get(vuelo.getDestino());
-                            Boolean quedaEspacioAlmacen = aDestino.paquetesAEstaHoraPlanificacion(
-                                    fechaActualPaquete.toLocalDateTime()) + 1 < aDestino.getCapacidadMaxima();
-
-                            if (!quedaEspacioAlmacen) {
-                                // System.out.println("No queda espacio." + aDestino.getCapacidadMaxima() + " "
-                                // + aDestino.paquetesAEstaHoraPlanificacion(
-                                // fechaActualPaquete.toLocalDateTime()));
-                                continue;
-                            } else {
-
-                                // System.out.println("Sí queda espacio");
-                            }
-
-                            // long tHastaSalidaVuelo =
-                            // aco_auxiliares.calcularDiferenciaEnMinutos(fechaActualPaquete,
-                            // vuelosProgramados.get(id).getFechaHoraSalida());
-                            // long tVuelo =
-                            // aco_auxiliares.calcularDiferenciaEnMinutos(vuelosProgramados.get(id).getFechaHoraSalida(),
-                            // vuelosProgramados.get(id).getFechaHoraLlegada());
-                            // Duration tiempoAGastar = Duration.ofMinutes(tHastaSalidaVuelo + tVuelo);
-                            long tiempoAGastar = aco_auxiliares.calcularDiferenciaEnMinutos(fechaActualPaquete,
-                                    vuelosProgramados.get(id).getFechaHoraLlegada());
-                            if ((paq.getTiempoRestanteDinamico().toMinutes() - tiempoAGastar) >= 0) {
-                                // que el tiempo desde que toma un vuelo hasta que llegue al destino sea menor
-                                // que el tiempo que le queda restante
-                                // System.out.println(paq.getTiempoRestanteDinamico().toMinutes() + " " +
-                                // tiempoAGastar);
-                                tablaOpcionesVuelos.put(id, new Double[4]); // guardaremos costo, visibilidad,
-                            }
-
-                            // visibilidad*fermonoas y probabilidad
-                        }
-
-                    }
-                }
-                // Si no hay vuelos disponibles para el paquete, significa que nos quedamos sin
-                // tiempo
-                if (tablaOpcionesVuelos.size() == 0) {
-                    // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
-                    // System.out.println();
-                    // System.out.println("El paquete " + paq.getIdPaquete() + " NO HA LLEGADO A SU
-                    // DESTINO");
-                    // System.out.println();
-                    // }
-                    break;
-                }
+        int exito = reconciliar(mejor, paquetes, envios, aeropuertos, vuelos, vuelosProgramados, estado);
+        if (metricas != null) {
+            metricas.registrarSolucion(mejor);
+        }
+        TrazaPlanificacion.actual().registrar(TrazaPlanificacion.Nivel.RESUMEN, "Numero de éxitos / numero paquetes: "
+                + exito + " / " + paquetes.size() + " (mejor hormiga: " + mejor.getNumero() + ")");
+        return paquetes;
+    }
 
-                // Definir costo de cada vuelo, visibilidad
-                for (int id : tablaOpcionesVuelos.keySet()) {
-                    tablaOpcionesVuelos.get(id)[0] = costo(fechaActualPaquete, vuelosProgramados.get(id),
-                            tabla.get(id), paq,
-                            envios, aeropuertos, vuelos);
-                    tablaOpcionesVuelos.get(id)[1] = 1 / tablaOpcionesVuelos.get(id)[0];
-                    tablaOpcionesVuelos.get(id)[2] = tablaOpcionesVuelos.get(id)[1] * tabla.get(id)[2];
+    // Planificación incremental de la simulación: conserva las rutas y reservas de las ejecuciones anteriores
+    // (en el plan) y solo enruta los paquetes nuevos, los afectados por vuelos cancelados y los que ya no
+    // tienen una ruta válida. Los paquetes vigentes no se tocan, así que el trabajo depende de cuántos
+    // paquetes cambian y no del tamaño de la ventana.
+    //
+    // Con más de una hormiga, los paquetes por planificar se enrutan con la colonia paralela de run_v2Paralelo
+    // (numeroIteraciones iteraciones de numeroHormigas hormigas) y se queda la mejor solución.
+    public ArrayList<Paquete> run_incremental(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, PlanIncremental plan, ZonedDateTime ahora,
+            int numeroIteraciones, int numeroHormigas, long semilla) {
+        synchronized (plan) {
+            prepararNormalizacion(aeropuertos, vuelos);
+            plan.avanzar(ahora);
+            HorizonteVuelos horizonte = plan.getHorizonte();
+            HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+            IndiceSalidas indiceSalidas = horizonte.getIndiceSalidas();
+            long minutoAhora = aco_auxiliares.minutoEpoch(ahora);
+
+            // Paquetes por planificar. Los cortados por una cancelación pueden ser de ventanas anteriores
+            ArrayList<Paquete> porPlanificar = new ArrayList<>();
+            ArrayList<int[]> prefijos = new ArrayList<>();
+            HashMap<String, Envio> enviosPlan = new HashMap<>(envios);
+            ArrayList<PlanIncremental.Compromiso> cortados = plan.cortarEnCancelados();
+            for (PlanIncremental.Compromiso c : cortados) {
+                porPlanificar.add(c.getPaquete());
+                prefijos.add(c.getVuelos());
+                enviosPlan.putIfAbsent(c.getEnvio().getCodigoEnvio(), c.getEnvio());
+            }
+            int nuevos = 0, replanificados = 0, vigentes = 0;
+            for (Paquete paq : paquetes) {
+                PlanIncremental.Compromiso c = plan.compromiso(paq);
+                if (c != null && c.isPendiente()) {
+                    continue;
                 }
-                // Definir la probabilidad
-                double sumaDeProductoVisiXFeromonas = 0.0;
-                for (int id : tablaOpcionesVuelos.keySet()) {
-                    sumaDeProductoVisiXFeromonas += tablaOpcionesVuelos.get(id)[2];
+                if (c != null && plan.vigente(c)) {
+                    vigentes++;
+                    continue;
                 }
-                for (int id : tablaOpcionesVuelos.keySet()) {
-                    tablaOpcionesVuelos.get(id)[3] = tablaOpcionesVuelos.get(id)[2] / sumaDeProductoVisiXFeromonas;
+                if (c == null) {
+                    nuevos++;
+                } else {
+                    plan.liberar(c);
+                    replanificados++;
                 }
+                paq.setFechasRuta(new ArrayList<ZonedDateTime>());
+                paq.setRuta(new ArrayList<Integer>());
+                paq.setTiempoRestanteDinamico(paq.getTiempoRestante());
+                paq.setLlegoDestino(false);
+                porPlanificar.add(paq);
+                prefijos.add(new int[0]);
+            }
 
-                // Escoger un vuelo al azar
-                double[] probabilidades = new double[tablaOpcionesVuelos.size()];
-                int[] vuelosAux = new int[tablaOpcionesVuelos.size()];
-                int index = 0;
-                for (Map.Entry<Integer, Double[]> entry : tablaOpcionesVuelos.entrySet()) {
-                    vuelosAux[index] = entry.getKey(); // Guardar la clave en vuelosAux
-                    probabilidades[index] = entry.getValue()[3];
-                    index++;
+            // Los cortados siguen desde donde quedaron, y no antes de ahora: los vuelos que ya salieron no
+            // se pueden tomar
+            int n = porPlanificar.size();
+            int[] ciudadInicio = new int[n];
+            long[] minutoInicio = new long[n];
+            HashSet<LocalDate> fechas = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                ciudadInicio[i] = -1;
+                minutoInicio[i] = -1;
+                Envio envio = enviosPlan.get(porPlanificar.get(i).getCodigoEnvio());
+                fechas.add(envio.getFechaHoraSalida().toLocalDate());
+            }
+            for (int i = 0; i < cortados.size(); i++) {
+                PlanIncremental.Compromiso c = cortados.get(i);
+                ciudadInicio[i] = indiceSalidas.ordinal(plan.ciudadUbicacion(c));
+                minutoInicio[i] = Math.max(plan.minutoUbicacion(c), minutoAhora);
+            }
+            for (LocalDate fecha : fechas) {
+                horizonte.asegurarDias(fecha.minusDays(1), 5, vuelos);
+            }
+            indiceSalidas.consolidar();
+
+            Hormiga hormiga;
+            if (numeroHormigas > 1) {
+                hormiga = coloniaIncremental(porPlanificar, enviosPlan, vuelos, plan, ciudadInicio, minutoInicio,
+                        numeroIteraciones, numeroHormigas, semilla);
+            } else {
+                hormiga = new Hormiga(0, horizonte.getEstado(), plan.getAlmacenes(), SelectorRuleta.porHilo(), n);
+                construirSolucion(hormiga, porPlanificar, enviosPlan, vuelos, vuelosProgramados, indiceSalidas, false,
+                        ciudadInicio, minutoInicio);
+                registrarBusqueda(hormiga);
+            }
+            if (metricas != null) {
+                metricas.registrarSolucion(hormiga);
+            }
+            aplicarSolucion(hormiga, porPlanificar, enviosPlan, vuelosProgramados, minutoInicio);
+            for (int i = 0; i < n; i++) {
+                Paquete paq = porPlanificar.get(i);
+                int[] prefijo = prefijos.get(i);
+                int[] ruta = Arrays.copyOf(prefijo, prefijo.length + hormiga.finRuta(i) - hormiga.inicioRuta(i));
+                for (int j = hormiga.inicioRuta(i); j < hormiga.finRuta(i); j++) {
+                    ruta[prefijo.length + j - hormiga.inicioRuta(i)] = hormiga.vueloEn(j);
                 }
-                int posVueloEscogido = aco_auxiliares.determinarVueloEscogido(probabilidades);
-                int idVueloEscogido = vuelosAux[posVueloEscogido];
-                Vuelo vueloEscogido = vuelos.get(vuelosProgramados.get(idVueloEscogido).getIdVuelo());
-                // Registrar el vuelo elegido por el paquete
-                paq.getRuta().add(vuelosProgramados.get(idVueloEscogido).getIdVuelo());
-                paq.getFechasRuta().add(vuelosProgramados.get(idVueloEscogido).getFechaHoraLlegada());
-                paq.getcostosRuta().add(tablaOpcionesVuelos.get(idVueloEscogido)[0]);
-
-                // Actualizar capacidad planificación del almacén destino y origen
-                Aeropuerto aDestino = aeropuertos.get(vueloEscogido.getDestino());
-                aDestino.paqueteEntraPlanificacion(
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraLlegada().toLocalDateTime());
-                Aeropuerto aOrigen = aeropuertos.get(vueloEscogido.getOrigen());
-                aOrigen.paqueteSalePlanificacion(
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraSalida().toLocalDateTime());
-
-                // Tiempo usado por el paquete en el vuelo
-                long tHastaSalidaVuelo = aco_auxiliares.calcularDiferenciaEnMinutos(fechaActualPaquete,
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraSalida());
-                long tVuelo = aco_auxiliares.calcularDiferenciaEnMinutos(
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraSalida(),
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraLlegada());
-                Duration tiempoGastado = Duration.ofMinutes(tHastaSalidaVuelo + tVuelo);
-                paq.setTiempoRestanteDinamico(paq.getTiempoRestanteDinamico().minus(tiempoGastado));
-
-                // quitar un slot al vuelo
-                // tabla.get(idVueloEscogido)[1] = tabla.get(idVueloEscogido)[1] - 1; // ¿Qué
-                // pasaría si ya no hay vuelos por tomar?
-
-                // Actualizar capacidad planificación del vuelo
-                vuelosProgramados.get(idVueloEscogido).setCargaActualPlanificacion(
-                        vuelosProgramados.get(idVueloEscogido).getCargaActualPlanificacion() + 1);
-                // Creo que eso no va a pasar
-                // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
-
-                // System.out.println(" IMPRIMIENDO TABLA DE OPCIONES PARA EL PAQUETE "
-                // + paq.getIdPaquete() + " " + envios.get(paq.getCodigoEnvio()).getOrigen() + "
-                // "
-                // + envios.get(paq.getCodigoEnvio()).getDestino() + " Hora actual: " +
-                // fechaActualPaquete);
-
-                // // generarArchivoTabla(tablaOpcionesVuelos, "salida");
-                // imprimirTabla_v2(tablaOpcionesVuelos, vuelosProgramados, vuelos);
-                // System.out.println("VUELO ESCOGIDO PAQUETE " + paq.getIdPaquete() + ": " +
-                // vueloEscogido);
-                // System.out.println("CIUDAD ACTUAL PAQUETE "
-                // +
-                // vuelos.get(vuelosProgramados.get(vueloEscogido.getId()).getIdVuelo()).getDestino());
-
-                // System.out.println(
-                // "FECHA ACTUAL PAQUETE " + paq.getIdPaquete() + ": " +
-                // paq.getFechaLlegadaUltimoVuelo());
-                // }
-
-                // Si ya llegamos al destino, salimos del while || si ya nos quedamos sin tiempo
-                // para seguir buscando (creo que en Costo no hay manera de incluir este param)
-                // Comparar el destino del ultimo vuelo tomado con el destino de su envio
-                String destinoVueloElegido = vuelos.get(vuelosProgramados.get(idVueloEscogido).getIdVuelo())
-                        .getDestino();
-                String destinoFinalPaquete = envios.get(paq.getCodigoEnvio()).getDestino();
-                if (destinoVueloElegido.equals(destinoFinalPaquete)) {
-                    // Estos tiempo se deben calcular para así tener el t que toma todo su viaje
-                    // Si no llegamos al destino por quedarnos sin tiempo (2dias o 1 dia), salimos
-                    // System.out.println("Exito ++");
-                    exito++;
-                    // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
-
-                    // paq.setLlegoDestino(true);
-                    // System.out.println("El paquete " + paq.getIdPaquete() + " llegó al destino");
-                    // System.out.println(
-                    // "Tiempo restante paquete " + paq.getTiempoRestanteDinamico().toMinutes() + "
-                    // minutos");
-                    // }
-                    break;
-                } else {
-                    // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
+                plan.comprometer(paq, enviosPlan.get(paq.getCodigoEnvio()), ruta, hormiga.llego(i));
+            }
 
-                    // System.out.println("El paquete " + paq.getIdPaquete() + " aun no llega al
-                    // destino");
-                    // System.out.println(
-                    // "Tiempo restante paquete " + paq.getTiempoRestanteDinamico().toMinutes() + "
-                    // minutos");
-                    // }
+            TrazaPlanificacion.actual().registrar(TrazaPlanificacion.Nivel.RESUMEN, "Planificación incremental: "
+                    + nuevos + " nuevos, " + replanificados + " sin ruta válida, " + cortados.size()
+                    + " por vuelos cancelados, " + vigentes + " vigentes. Llegan " + hormiga.getEntregados() + " / "
+                    + n + " planificados");
+            return paquetes;
+        }
+    }
 
+    // Colonia paralela sobre el plan incremental: cada hormiga trabaja sobre copias del estado del horizonte y
+    // de los almacenes del plan. Las rutas de la mejor hormiga se vuelven a tomar sobre el estado y los
+    // almacenes reales; entran todas porque se llama con el plan bloqueado y nadie más los cambió.
+    private Hormiga coloniaIncremental(ArrayList<Paquete> porPlanificar, HashMap<String, Envio> enviosPlan,
+            HashMap<Integer, Vuelo> vuelos, PlanIncremental plan, int[] ciudadInicio, long[] minutoInicio,
+            int numeroIteraciones, int numeroHormigas, long semilla) {
+        HorizonteVuelos horizonte = plan.getHorizonte();
+        PlanningState estado = horizonte.getEstado();
+        HashMap<String, Aeropuerto> almacenes = plan.getAlmacenes();
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        IndiceSalidas indiceSalidas = horizonte.getIndiceSalidas();
+
+        Hormiga mejor = null;
+        for (int iteracion = 0; iteracion < Math.max(1, numeroIteraciones); iteracion++) {
+            ArrayList<ForkJoinTask<Hormiga>> tareas = new ArrayList<>();
+            for (int h = 0; h < numeroHormigas; h++) {
+                int numero = iteracion * numeroHormigas + h;
+                tareas.add(poolHormigas.submit(() -> {
+                    Hormiga hormiga = new Hormiga(numero, estado.snapshot(), Hormiga.copiarAeropuertos(almacenes),
+                            new SelectorRuleta(semilla + numero), porPlanificar.size());
+                    construirSolucion(hormiga, porPlanificar, enviosPlan, vuelos, vuelosProgramados, indiceSalidas,
+                            false, ciudadInicio, minutoInicio);
+                    return hormiga;
+                }));
+            }
+            Hormiga mejorIteracion = null;
+            for (ForkJoinTask<Hormiga> tarea : tareas) {
+                Hormiga hormiga = tarea.join();
+                registrarBusqueda(hormiga);
+                if (mejorIteracion == null || hormiga.esMejorQue(mejorIteracion)) {
+                    mejorIteracion = hormiga;
                 }
+            }
+            actualizarFeromonas(estado, mejorIteracion, TASA_EVAPORACION, APRENDIZAJE);
+            if (mejor == null || mejorIteracion.esMejorQue(mejor)) {
+                mejor = mejorIteracion;
+            }
+        }
 
-                // if(i==5) break; //hasta que se quede sin tiempo para buscar su destino. Por
-                // ahora maximo visitará 5 aeropuertos
-                // i++;
+        for (int i = 0; i < porPlanificar.size(); i++) {
+            Paquete paq = porPlanificar.get(i);
+            Envio envio = enviosPlan.get(paq.getCodigoEnvio());
+            for (int j = mejor.inicioRuta(i); j < mejor.finRuta(i); j++) {
+                int id = mejor.vueloEn(j);
+                ProgramacionVuelo programacion = vuelosProgramados.get(id);
+                tomarVuelo(estado, almacenes, id, programacion, vuelos.get(programacion.getIdVuelo()), envio,
+                        paq.minutoLimite(envio));
             }
-            // break;
+        }
+        return mejor;
+    }
 
+    private ArrayList<Paquete> planificar(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, HorizonteVuelos horizonte,
+            boolean mostrarAvance) {
+        prepararPlanificacion(aeropuertos, vuelos, envios, paquetes, horizonte);
+        if (sembrarConCsa) {
+            sembrarFeromonas(horizonte, vuelos, envios, paquetes);
+        }
+        PlanningState estado = horizonte.getEstado();
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        IndiceSalidas indiceSalidas = horizonte.getIndiceSalidas();
+
+        // Una sola hormiga que trabaja directamente sobre el estado y los almacenes reales
+        Hormiga hormiga = new Hormiga(0, estado, aeropuertos, SelectorRuleta.porHilo(), paquetes.size());
+        construirSolucion(hormiga, paquetes, envios, vuelos, vuelosProgramados, indiceSalidas, mostrarAvance);
+        registrarBusqueda(hormiga);
+        if (metricas != null) {
+            metricas.registrarSolucion(hormiga);
         }
-        // System.out.println("TABLAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA
-        // " + iteracionAux);
-        // imprimirTabla_v2(tabla, vuelosProgramados,vuelos);
-        // Actualizar mi tabla (feromonas). Aumentar si ha llegado al destino. Restar o
-        // no hacer nada si no ha llegado
+        aplicarSolucion(hormiga, paquetes, envios, vuelosProgramados);
 
-        // generarArchivoTabla(tabla, "salida");
-        System.out.println("Numero de éxitos / numero paquetes: " + exito + " / " + paquetes.size());
-        
+        TrazaPlanificacion.actual().registrar(TrazaPlanificacion.Nivel.RESUMEN,
+                "Numero de éxitos / numero paquetes: " + hormiga.getEntregados() + " / " + paquetes.size());
         return paquetes;
     }
 
-    public ArrayList<Paquete> run_v3(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
-            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, int numeroIteraciones,
-            HashMap<Integer, Double[]> tabla, HashMap<Integer, ProgramacionVuelo> vuelosProgramados,
-            ArrayList<LocalDate> fechasVuelos) {
-        // Definir una matriz que defina Vuelo, Costo, Visibilidad() y Fermonas
-        // El costo será dinámico para algunas variables: tiempo de vuelo (entre mismas
-        // ciudades varia el t de vuelo), capacidades,
-        // plazos de entrega,
+    // Sin contexto de Spring (p. ej. en los benchmarks) no hay métricas
+    private void registrarBusqueda(Hormiga hormiga) {
+        if (metricas != null) {
+            metricas.registrarBusqueda(hormiga);
+        }
+    }
 
-        // HashMap<Integer, Double[]> tabla = new HashMap<>(); // 4 columnas: Costo,
-        // Visibilidad, Feromonas
-        // HashMap<Integer, ProgramacionVuelo> vuelosProgramados = new HashMap<>();
-        // ArrayList<LocalDate> fechasVuelos = new ArrayList<>();
-        // Dado que el costo (y por tanto la visibilidad) se definirá en la iteración,
-        // entonces esta tabla maestra solo guardará las feromonas. (Duda)
-        minYMaxTiempoVuelo = Normalizacion.obtenerMinMaxTiempoVuelo(vuelos);
-        minYMaxDistanciaAeropuertos = Normalizacion.obtenerDistanciaExtrema(aeropuertos); // el mínimo no tiene sentido.
-                                                                                          // Es 0
-        minYMaxDistanciaAeropuertos[0] = 0;
-        minYMaxTiempoVuelo[0] = 0;
+    // Planificación con el catálogo de rutas precalculado, sin caminatas al azar: cada paquete toma, de los
+    // itinerarios de su par origen-destino, el que llega más temprano dentro de su plazo y con espacio en
+    // todos sus vuelos y almacenes. Solo los paquetes sin itinerario posible se planifican con una hormiga.
+    public ArrayList<Paquete> run_catalogo(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, CatalogoRutas catalogo) {
+        HorizonteVuelos horizonte = new HorizonteVuelos(AirportGeoIndex.construir(aeropuertos));
+        prepararPlanificacion(aeropuertos, vuelos, envios, paquetes, horizonte);
+        PlanningState estado = horizonte.getEstado();
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        IndiceSalidas indiceSalidas = horizonte.getIndiceSalidas();
+        AirportGeoIndex geo = indiceSalidas.getAeropuertos();
+
+        ArrayList<Paquete> restantes = new ArrayList<>();
+        int[] tramos = new int[8];
+        int[] mejoresTramos = new int[8];
+        for (Paquete paq : paquetes) {
+            Envio envio = envios.get(paq.getCodigoEnvio());
+            int origen = catalogo.ordinal(envio.getOrigen());
+            int destino = catalogo.ordinal(envio.getDestino());
+            long minutoSalida = envio.getMinutoSalida();
+            long minutoLimite = paq.minutoLimite(envio);
+
+            int mejor = -1;
+            long mejorLlegada = Long.MAX_VALUE;
+            for (int r = 0; r < catalogo.cantidadItinerarios(origen, destino); r++) {
+                int it = catalogo.itinerario(origen, destino, r);
+                if (catalogo.cantidadTramos(it) > tramos.length) {
+                    continue;
+                }
+                // Si el itinerario no entra en su próxima salida, se prueba el día siguiente
+                for (long inicio = catalogo.siguienteSalida(it, minutoSalida); inicio
+                        + catalogo.getDuracion(it) <= minutoLimite
+                        && inicio + catalogo.getDuracion(it) < mejorLlegada; inicio += CatalogoRutas.MINUTOS_DIA) {
+                    if (resolverItinerario(catalogo, it, inicio, minutoLimite, tramos, estado, aeropuertos,
+                            vuelos, vuelosProgramados, indiceSalidas)) {
+                        mejor = it;
+                        mejorLlegada = inicio + catalogo.getDuracion(it);
+                        System.arraycopy(tramos, 0, mejoresTramos, 0, catalogo.cantidadTramos(it));
+                        break;
+                    }
+                }
+            }
+            if (mejor < 0) {
+                restantes.add(paq);
+                continue;
+            }
+            long minutoActual = minutoSalida;
+            for (int t = 0; t < catalogo.cantidadTramos(mejor); t++) {
+                int id = mejoresTramos[t];
+                ProgramacionVuelo programacion = vuelosProgramados.get(id);
+                double costo = costo(minutoActual, programacion, estado, id, paq, envios, geo, vuelos);
+                tomarVuelo(estado, aeropuertos, id, programacion, vuelos.get(programacion.getIdVuelo()), envio,
+                        minutoLimite);
+                registrarVueloEnPaquete(paq, minutoActual, programacion, costo);
+                minutoActual = programacion.getMinutoLlegada();
+            }
+        }
 
-        System.out.println("Número de paquetes: " + paquetes.size());
+        int asignados = paquetes.size() - restantes.size();
+        int entregadosHormiga = 0;
+        if (!restantes.isEmpty()) {
+            Hormiga hormiga = new Hormiga(0, estado, aeropuertos, SelectorRuleta.porHilo(), restantes.size());
+            construirSolucion(hormiga, restantes, envios, vuelos, vuelosProgramados, indiceSalidas, false);
+            registrarBusqueda(hormiga);
+            aplicarSolucion(hormiga, restantes, envios, vuelosProgramados);
+            entregadosHormiga = hormiga.getEntregados();
+        }
+        TrazaPlanificacion.actual().registrar(TrazaPlanificacion.Nivel.RESUMEN, "Catálogo de rutas: " + asignados
+                + " / " + paquetes.size() + " paquetes con itinerario; " + entregadosHormiga + " / "
+                + restantes.size() + " de los demás llegan con la búsqueda de hormigas");
+        return paquetes;
+    }
+
+    // Busca el vuelo programado de cada tramo del itinerario (con primera salida en el minuto inicio) y
+    // verifica que todos tengan espacio: en el vuelo y en el almacén de destino mientras el paquete esté ahí
+    // (hasta la salida del tramo siguiente o, en el último, hasta el plazo)
+    private static boolean resolverItinerario(CatalogoRutas catalogo, int itinerario, long inicio,
+            long minutoLimite, int[] tramos, PlanningState estado, HashMap<String, Aeropuerto> aeropuertos,
+            HashMap<Integer, Vuelo> vuelos, HashMap<Integer, ProgramacionVuelo> vuelosProgramados,
+            IndiceSalidas indiceSalidas) {
+        for (int t = 0; t < catalogo.cantidadTramos(itinerario); t++) {
+            int idVuelo = catalogo.vueloEn(itinerario, t);
+            Vuelo vuelo = vuelos.get(idVuelo);
+            long salida = inicio + catalogo.salidaEn(itinerario, t);
+            int origen = indiceSalidas.ordinal(vuelo.getOrigen());
+            int id = -1;
+            for (int pos = indiceSalidas.primeraSalidaDespuesDe(origen, salida - 1); pos < indiceSalidas
+                    .cantidadSalidas(origen) && indiceSalidas.minutoSalidaEn(origen, pos) == salida; pos++) {
+                int candidato = indiceSalidas.idEn(origen, pos);
+                if (vuelosProgramados.get(candidato).getIdVuelo() == idVuelo) {
+                    id = candidato;
+                    break;
+                }
+            }
+            // Día fuera del horizonte generado
+            if (id < 0) {
+                return false;
+            }
+            if (estado.getCarga(id) + 1 >= estado.getCapacidad(id)) {
+                return false;
+            }
+            Aeropuerto aDestino = aeropuertos.get(vuelo.getDestino());
+            long llegada = vuelosProgramados.get(id).getMinutoLlegada();
+            long hasta = t + 1 < catalogo.cantidadTramos(itinerario)
+                    ? inicio + catalogo.salidaEn(itinerario, t + 1) - 1
+                    : minutoLimite;
+            if (aDestino.maximoPaquetesPlanificacion(llegada, Math.max(llegada, hasta))
+                    + 1 >= aDestino.getCapacidadMaxima()) {
+                return false;
+            }
+            tramos[t] = id;
+        }
+        return true;
+    }
+
+    // Copia a los paquetes las rutas que construyó una hormiga sobre el estado real
+    private static void aplicarSolucion(Hormiga hormiga, ArrayList<Paquete> paquetes, HashMap<String, Envio> envios,
+            HashMap<Integer, ProgramacionVuelo> vuelosProgramados) {
+        aplicarSolucion(hormiga, paquetes, envios, vuelosProgramados, null);
+    }
+
+    // minutoInicio: desde cuándo está cada paquete donde parte su ruta (null o negativo: salida del envío)
+    private static void aplicarSolucion(Hormiga hormiga, ArrayList<Paquete> paquetes, HashMap<String, Envio> envios,
+            HashMap<Integer, ProgramacionVuelo> vuelosProgramados, long[] minutoInicio) {
+        for (int i = 0; i < paquetes.size(); i++) {
+            Paquete paq = paquetes.get(i);
+            long minutoActual = minutoInicio != null && minutoInicio[i] >= 0 ? minutoInicio[i]
+                    : envios.get(paq.getCodigoEnvio()).getMinutoSalida();
+            for (int j = hormiga.inicioRuta(i); j < hormiga.finRuta(i); j++) {
+                ProgramacionVuelo programacion = vuelosProgramados.get(hormiga.vueloEn(j));
+                registrarVueloEnPaquete(paq, minutoActual, programacion, hormiga.costoEn(j));
+                minutoActual = programacion.getMinutoLlegada();
+            }
+        }
+    }
+
+    // Semilla heurística: los vuelos de la ruta de llegada más temprana de cada envío (Connection Scan sobre
+    // el horizonte) parten con más feromona. Se usa el máximo y no una suma, para que volver a sembrar el
+    // mismo horizonte (run_v3) no acumule
+    private static void sembrarFeromonas(HorizonteVuelos horizonte, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes) {
+        CsaRouter router = CsaRouter.construir(horizonte, vuelos);
+        PlanningState estado = horizonte.getEstado();
+        HashSet<String> sembrados = new HashSet<>();
+        for (Paquete paq : paquetes) {
+            if (!sembrados.add(paq.getCodigoEnvio())) {
+                continue;
+            }
+            Envio envio = envios.get(paq.getCodigoEnvio());
+            CsaRouter.Itinerario itinerario = router.llegadaMasTemprana(router.ordinal(envio.getOrigen()),
+                    envio.getMinutoSalida(), router.ordinal(envio.getDestino()), null);
+            if (itinerario == null || itinerario.getMinutoLlegada() > paq.minutoLimite(envio)) {
+                continue;
+            }
+            for (int t = 0; t < itinerario.getCantidadTramos(); t++) {
+                int id = itinerario.idProgramadoEn(t);
+                estado.setFeromona(id, Math.max(estado.getFeromona(id), FEROMONA_CSA));
+            }
+        }
+    }
+
+    private static void prepararPlanificacion(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<String, Envio> envios, ArrayList<Paquete> paquetes, HorizonteVuelos horizonte) {
+        prepararNormalizacion(aeropuertos, vuelos);
+
+        TrazaPlanificacion.actual().registrar(TrazaPlanificacion.Nivel.RESUMEN,
+                "Número de paquetes: " + paquetes.size());
 
-        // generarArchivoTabla(tabla, "salida");
-        // Iteraremos muchas veces para todos los paquetes. Es decir, para cada
-        // iteración se tomarán en cuenta todos los paquettes
-        int exito = 0;
         // Limpiar rutas de los paquetes
         for (Paquete paq : paquetes) {
             paq.setFechasRuta(new ArrayList<ZonedDateTime>());
@@ -513,357 +667,431 @@ public class ACO {
             paq.setTiempoRestanteDinamico(paq.getTiempoRestante());
             paq.setLlegoDestino(false);
         }
-        // Limpiar numero de exitos (luego lo cambiaremos porque cada paq guarda una
-        // variable si ha llegado a su destino)
-        exito = 0;
-        // Empezamos
-        int numPaqEjecutados = 0;
+
+        // Generamos antes de empezar todos los vuelos que algún paquete podría tomar, para que las hormigas
+        // solo lean los vuelos programados. Un paquete sale como máximo 2 días después de su envío, y la
+        // fecha local de esos vuelos puede estar un día antes o después según el huso horario.
+        HashSet<LocalDate> fechasEnvios = new HashSet<>();
         for (Paquete paq : paquetes) {
-            numPaqEjecutados++;
-            if (numPaqEjecutados % 50 == 0)
-                System.out.println("Paquete número: " + numPaqEjecutados + ". Fecha: "
-                        + envios.get(paq.getCodigoEnvio()).getFechaHoraSalida());
-
-            // imprimirTabla_v2(tabla, vuelosProgramados,vuelos);
-
-            String ciudadActualPaquete;
-            ZonedDateTime fechaActualPaquete;
-            while (true) {
-                HashMap<Integer, Double[]> tablaOpcionesVuelos = new HashMap<>();
-                // FIltrar y llenar una tabla con todos los vuelos que salen del origen del
-                // paquete para ver posibles salidas
-                // O su ultima ubicación
-                // validar que no vuelva a una ciudad ya visitada
-                if (paq.getRuta().isEmpty()) {
-                    // de acuerdo a su aeropuerto de origen
-                    // System.out.println("Paquete " + paq.getCodigoEnvio());
-                    ciudadActualPaquete = envios.get(paq.getCodigoEnvio()).getOrigen();
-                    fechaActualPaquete = envios.get(paq.getCodigoEnvio()).getFechaHoraSalida();
-                    // System.out.println("Fecha de salida: " + fechaActualPaquete);
-                } else {
-                    // de acuerdo al aeropuerto destino de su último vuelo
-                    ArrayList<Integer> rutaPaquete = paq.getRuta();
-                    int idUltimoVuelo = rutaPaquete.get(rutaPaquete.size() - 1);
+            fechasEnvios.add(envios.get(paq.getCodigoEnvio()).getFechaHoraSalida().toLocalDate());
+        }
+        for (LocalDate fecha : fechasEnvios) {
+            horizonte.asegurarDias(fecha.minusDays(1), 5, vuelos);
+        }
+        horizonte.getIndiceSalidas().consolidar();
+    }
 
-                    fechaActualPaquete = paq.getFechaLlegadaUltimoVuelo();
-                    ciudadActualPaquete = vuelos.get(vuelosProgramados.get(idUltimoVuelo).getIdVuelo())
-                            .getDestino();
-                }
+    private static void prepararNormalizacion(HashMap<String, Aeropuerto> aeropuertos,
+            HashMap<Integer, Vuelo> vuelos) {
+        // El costo será dinámico para algunas variables: tiempo de vuelo (entre mismas
+        // ciudades varia el t de vuelo), capacidades, plazos de entrega
+        minYMaxTiempoVuelo = Normalizacion.obtenerMinMaxTiempoVuelo(vuelos);
+        // La distancia máxima ya está calculada en el índice geográfico; el mínimo no tiene sentido, es 0
+        minYMaxDistanciaAeropuertos = new double[] { 0, AirportGeoIndex.construir(aeropuertos).getDistanciaMaxima() };
+        minYMaxTiempoVuelo[0] = 0;
+    }
 
-                // A partir de la ciudad actual, llenaremos la tabla de los vuelos que puede
-                // tomar
-                agregarVuelosRequeridos(fechaActualPaquete, tabla, vuelosProgramados, vuelos, fechasVuelos,
-                        aeropuertos);
-
-                // ***Imprimieros las fechas de los vuelos que se están generando */
-                // System.out.println("Fechas necesarias para generar los vuelos, donde se
-                // agregan 1600 aprox cada vez");
-                // for (LocalDate ld : fechasVuelos) {
-                // System.out.println("Fecha: " + ld);
-                // }
-                // System.out.println("Numero de vuelos programados creados: " +
-                // vuelosProgramados.size());
-                // System.out.println("Numero de filas en la tabla: " + tabla.size());
-
-                for (int id : tabla.keySet()) {
-                    Vuelo vuelo = vuelos.get(vuelosProgramados.get(id).getIdVuelo());
-                    String ciudadOrigenVuelo = vuelo.getOrigen();
-                    Boolean espacioVuelo = vuelosProgramados.get(id).getCargaActualPlanificacion() + 1 < vuelo
-                            .getCapacidad();
-                    if (ciudadActualPaquete.equals(ciudadOrigenVuelo) && espacioVuelo) { // que el vuelo tenga espacio
-                                                                                         // aún
-                        // Compararemos que la fecha sea posterior
-                        if (fechaActualPaquete.isBefore(vuelosProgramados.get(id).getFechaHoraSalida())) {
-                            // Recordar que en vuelosProgramados ya están los 3 días en los que el vuelo
-                            // puede salir
-
-                            // Verificar que haya espacio en el aeropuerto de destino
-
-                            Aeropuerto aDestino = aeropuertos.get(vuelo.getDestino());
-                            Boolean quedaEspacioAlmacen = aDestino.paquetesAEstaHoraPlanificacion(
-                                    fechaActualPaquete.toLocalDateTime()) + 1 < aDestino.getCapacidadMaxima();
-
-                            if (!quedaEspacioAlmacen) {
-                                // System.out.println("No queda espacio." + aDestino.getCapacidadMaxima() + " "
-                                // + aDestino.paquetesAEstaHoraPlanificacion(
-                                // fechaActualPaquete.toLocalDateTime()));
-                                continue;
-                            } else {
-
-                                // System.out.println("Sí queda espacio");
-                            }
+    private static void construirSolucion(Hormiga hormiga, ArrayList<Paquete> paquetes, HashMap<String, Envio> envios,
+            HashMap<Integer, Vuelo> vuelos, HashMap<Integer, ProgramacionVuelo> vuelosProgramados,
+            IndiceSalidas indiceSalidas, boolean mostrarAvance) {
+        construirSolucion(hormiga, paquetes, envios, vuelos, vuelosProgramados, indiceSalidas, mostrarAvance, null,
+                null);
+    }
 
-                            // long tHastaSalidaVuelo =
-                            // aco_auxiliares.calcularDiferenciaEnMinutos(fechaActualPaquete,
-                            // vuelosProgramados.get(id).getFechaHoraSalida());
-                            // long tVuelo =
-                            // aco_auxiliares.calcularDiferenciaEnMinutos(vuelosProgramados.get(id).getFechaHoraSalida(),
-                            // vuelosProgramados.get(id).getFechaHoraLlegada());
-                            // Duration tiempoAGastar = Duration.ofMinutes(tHastaSalidaVuelo + tVuelo);
-                            long tiempoAGastar = aco_auxiliares.calcularDiferenciaEnMinutos(fechaActualPaquete,
-                                    vuelosProgramados.get(id).getFechaHoraLlegada());
-                            if ((paq.getTiempoRestanteDinamico().toMinutes() - tiempoAGastar) >= 0) {
-                                // que el tiempo desde que toma un vuelo hasta que llegue al destino sea menor
-                                // que el tiempo que le queda restante
-                                // System.out.println(paq.getTiempoRestanteDinamico().toMinutes() + " " +
-                                // tiempoAGastar);
-                                tablaOpcionesVuelos.put(id, new Double[4]); // guardaremos costo, visibilidad,
-                            }
+    // Construye la ruta de todos los paquetes para una hormiga. Solo modifica el estado y los almacenes de
+    // la hormiga: las rutas quedan en la hormiga y no en los paquetes.
+    //
+    // Se enruta por envío y no por paquete: todos los paquetes de un envío comparten origen, destino, hora
+    // de salida y plazo, así que en cada paso los candidatos y sus pesos se calculan una sola vez para el
+    // grupo de paquetes que está en el mismo aeropuerto a la misma hora. El vuelo escogido se lleva a
+    // todos los que quepan; si no caben, el resto vuelve a escoger entre los demás candidatos y el grupo
+    // se divide. Cada grupo sigue desde el destino de su vuelo.
+    //
+    // Con ciudadInicio/minutoInicio (ordinal y minuto por paquete, -1 si parte del origen del envío) los
+    // paquetes parten de donde quedaron; solo se agrupan los del mismo envío que están en el mismo lugar.
+    private static void construirSolucion(Hormiga hormiga, ArrayList<Paquete> paquetes, HashMap<String, Envio> envios,
+            HashMap<Integer, Vuelo> vuelos, HashMap<Integer, ProgramacionVuelo> vuelosProgramados,
+            IndiceSalidas indiceSalidas, boolean mostrarAvance, int[] ciudadInicio, long[] minutoInicio) {
+        PlanningState estado = hormiga.getEstado();
+        HashMap<String, Aeropuerto> aeropuertos = hormiga.getAeropuertos();
+        AirportGeoIndex geo = indiceSalidas.getAeropuertos();
+
+        TrazaPlanificacion traza = TrazaPlanificacion.actual();
+        boolean trazarAvance = mostrarAvance && traza.activo(TrazaPlanificacion.Nivel.RESUMEN);
+
+        // orden: posiciones de los paquetes agrupadas por envío (en el orden en que aparece cada envío)
+        int[] orden = new int[paquetes.size()];
+        int[] inicioEnvio = agruparPorEnvio(paquetes, ciudadInicio, minutoInicio, orden);
+        int numEnvios = inicioEnvio.length - 1;
+        int maxGrupo = 1;
+        for (int e = 0; e < numEnvios; e++) {
+            maxGrupo = Math.max(maxGrupo, inicioEnvio[e + 1] - inicioEnvio[e]);
+        }
+        // Grupos pendientes del envío actual: orden[pilaInicio .. pilaFin) están juntos en pilaCiudad desde
+        // pilaMinuto, con el camino que termina en pilaNodo. Los grupos son disjuntos: nunca hay más que
+        // paquetes en el envío
+        int[] pilaInicio = new int[maxGrupo];
+        int[] pilaFin = new int[maxGrupo];
+        int[] pilaCiudad = new int[maxGrupo];
+        long[] pilaMinuto = new long[maxGrupo];
+        int[] pilaNodo = new int[maxGrupo];
+
+        for (int e = 0; e < numEnvios; e++) {
+            Paquete primero = paquetes.get(orden[inicioEnvio[e]]);
+            Envio envio = envios.get(primero.getCodigoEnvio());
+            if (trazarAvance && inicioEnvio[e + 1] / 50 > inicioEnvio[e] / 50)
+                traza.registrar(TrazaPlanificacion.Nivel.RESUMEN,
+                        "Paquete número: " + inicioEnvio[e + 1] + ". Fecha: " + envio.getFechaHoraSalida());
+            int destinoEnvio = geo.ordinal(envio.getDestino());
+            long minutoLimite = Long.MAX_VALUE;
+            for (int p = inicioEnvio[e]; p < inicioEnvio[e + 1]; p++) {
+                minutoLimite = Math.min(minutoLimite, paquetes.get(orden[p]).minutoLimite(envio));
+            }
 
-                            // visibilidad*fermonoas y probabilidad
-                        }
+            // La ubicación de un grupo es el origen del envío o el destino de su último vuelo. Los tiempos
+            // se manejan en minutos epoch (UTC)
+            hormiga.reiniciarNodos();
+            int pendientes = 0;
+            pilaInicio[0] = inicioEnvio[e];
+            pilaFin[0] = inicioEnvio[e + 1];
+            int inicial = orden[inicioEnvio[e]];
+            boolean parteDelOrigen = ciudadInicio == null || ciudadInicio[inicial] < 0;
+            pilaCiudad[0] = parteDelOrigen ? geo.ordinal(envio.getOrigen()) : ciudadInicio[inicial];
+            pilaMinuto[0] = parteDelOrigen ? envio.getMinutoSalida() : minutoInicio[inicial];
+            pilaNodo[0] = -1;
+            pendientes++;
+            while (pendientes > 0) {
+                pendientes--;
+                int desdeGrupo = pilaInicio[pendientes];
+                int hastaGrupo = pilaFin[pendientes];
+                int origenActual = pilaCiudad[pendientes];
+                long minutoActual = pilaMinuto[pendientes];
+                int nodo = pilaNodo[pendientes];
+                if (origenActual == destinoEnvio) {
+                    for (int p = desdeGrupo; p < hastaGrupo; p++) {
+                        hormiga.cerrarPaquete(orden[p], nodo, true);
+                    }
+                    continue;
+                }
 
+                // Solo recorremos las salidas del aeropuerto actual que ocurren después de la hora del grupo
+                // y antes de que se le acabe el tiempo (el resto no podría llegar a tiempo)
+                int desde = indiceSalidas.primeraSalidaDespuesDe(origenActual, minutoActual);
+                int hasta = indiceSalidas.primeraSalidaDespuesDe(origenActual, minutoLimite);
+                int numCandidatos = 0;
+                for (int pos = desde; pos < hasta; pos++) {
+                    int id = indiceSalidas.idEn(origenActual, pos);
+                    // que el vuelo tenga espacio aún, al menos para un paquete
+                    if (estado.getCarga(id) + 1 >= estado.getCapacidad(id)) {
+                        hormiga.rechazoCapacidadVuelo();
+                        continue;
+                    }
+                    // que el vuelo llegue antes de que se le acabe el tiempo al envío (el índice ya
+                    // garantiza que sale después de la hora actual del grupo)
+                    ProgramacionVuelo vueloProgramado = vuelosProgramados.get(id);
+                    if (vueloProgramado.getMinutoLlegada() > minutoLimite) {
+                        continue;
                     }
+                    // Verificar que haya espacio en el aeropuerto de destino desde la llegada hasta el plazo
+                    // (la salida siguiente todavía no se conoce, pero no puede ser después)
+                    Aeropuerto aDestino = aeropuertos.get(vuelos.get(vueloProgramado.getIdVuelo()).getDestino());
+                    if (ocupacionDurante(aDestino, vueloProgramado.getMinutoLlegada(), minutoLimite)
+                            + 1 >= aDestino.getCapacidadMaxima()) {
+                        hormiga.rechazoCapacidadAlmacen();
+                        continue;
+                    }
+                    hormiga.agregarCandidato(numCandidatos++, id);
                 }
-                // Si no hay vuelos disponibles para el paquete, significa que nos quedamos sin
-                // tiempo
-                if (tablaOpcionesVuelos.size() == 0) {
-                    // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
-                    // System.out.println();
-                    // System.out.println("El paquete " + paq.getIdPaquete() + " NO HA LLEGADO A SU
-                    // DESTINO");
-                    // System.out.println();
-                    // }
-                    break;
+                hormiga.registrarPaso(numCandidatos);
+                // Si no hay vuelos disponibles para el grupo, significa que nos quedamos sin tiempo
+                if (numCandidatos == 0) {
+                    for (int p = desdeGrupo; p < hastaGrupo; p++) {
+                        hormiga.cerrarPaquete(orden[p], nodo, false);
+                    }
+                    continue;
                 }
 
-                // Definir costo de cada vuelo, visibilidad
-                for (int id : tablaOpcionesVuelos.keySet()) {
-                    tablaOpcionesVuelos.get(id)[0] = costo(fechaActualPaquete, vuelosProgramados.get(id),
-                            tabla.get(id), paq,
-                            envios, aeropuertos, vuelos);
-                    tablaOpcionesVuelos.get(id)[1] = 1 / tablaOpcionesVuelos.get(id)[0];
-                    tablaOpcionesVuelos.get(id)[2] = tablaOpcionesVuelos.get(id)[1] * tabla.get(id)[2];// usamos las
-                                                                                                       // feromonas de
-                                                                                                       // los vuelos
-                                                                                                       // programados.
-                                                                                                       // Falta update
-                }
-                // Definir la probabilidad
-                double sumaDeProductoVisiXFeromonas = 0.0;
-                for (int id : tablaOpcionesVuelos.keySet()) {
-                    sumaDeProductoVisiXFeromonas += tablaOpcionesVuelos.get(id)[2];
+                // Definir costo de cada vuelo y visibilidad * feromonas (una vez para todo el grupo). La
+                // ruleta normaliza los pesos
+                int[] candidatos = hormiga.candidatos;
+                double[] costos = hormiga.costosCandidatos;
+                double[] pesos = hormiga.probabilidades;
+                for (int i = 0; i < numCandidatos; i++) {
+                    int id = candidatos[i];
+                    costos[i] = costo(minutoActual, vuelosProgramados.get(id), estado, id, primero,
+                            envios, geo, vuelos);
+                    pesos[i] = (1 / costos[i]) * estado.getFeromona(id);
                 }
-                for (int id : tablaOpcionesVuelos.keySet()) {
-                    tablaOpcionesVuelos.get(id)[3] = tablaOpcionesVuelos.get(id)[2] / sumaDeProductoVisiXFeromonas;
+                boolean trazarGrupo = traza.muestrea(paquetes.get(orden[desdeGrupo]), TrazaPlanificacion.Nivel.PASOS);
+
+                // Repartir el grupo: cada vuelo escogido se lleva todos los paquetes que le entran y sale de
+                // la ruleta
+                int siguiente = desdeGrupo;
+                int candidatosLibres = numCandidatos;
+                while (siguiente < hastaGrupo && candidatosLibres > 0) {
+                    int posVueloEscogido = hormiga.getSelector().escogerSinReposicion(pesos, numCandidatos,
+                            hormiga.tablaAlias, numCandidatos - candidatosLibres);
+                    if (pesos[posVueloEscogido] <= 0) {
+                        // Solo puede pasar por redondeo con pesos nulos: tomamos el primero que quede
+                        posVueloEscogido = 0;
+                        while (pesos[posVueloEscogido] <= 0 && posVueloEscogido < numCandidatos - 1) {
+                            posVueloEscogido++;
+                        }
+                    }
+                    int idVueloEscogido = candidatos[posVueloEscogido];
+                    ProgramacionVuelo programacionEscogida = vuelosProgramados.get(idVueloEscogido);
+                    Vuelo vueloEscogido = vuelos.get(programacionEscogida.getIdVuelo());
+                    // Van los que entran en el vuelo y en el almacén de destino (medido como en el filtro de
+                    // candidatos: desde la llegada hasta el plazo)
+                    Aeropuerto aDestino = aeropuertos.get(vueloEscogido.getDestino());
+                    int ocupacionDestino = ocupacionDurante(aDestino, programacionEscogida.getMinutoLlegada(),
+                            minutoLimite);
+                    int cantidad = (int) Math.min(hastaGrupo - siguiente, Math.min(
+                            Math.ceil(estado.getCapacidad(idVueloEscogido) - 1 - estado.getCarga(idVueloEscogido)),
+                            aDestino.getCapacidadMaxima() - 1 - ocupacionDestino));
+                    if (cantidad <= 0) {
+                        pesos[posVueloEscogido] = 0;
+                        candidatosLibres--;
+                        continue;
+                    }
+                    if (trazarGrupo) {
+                        trazarPaso(traza, hormiga, paquetes.get(orden[siguiente]), cantidad, geo.codigo(origenActual),
+                                numCandidatos, posVueloEscogido, vuelosProgramados, vuelos);
+                    }
+                    // Actualizar capacidad planificación del almacén destino y origen, y del vuelo
+                    tomarVuelo(estado, aeropuertos, idVueloEscogido, programacionEscogida, vueloEscogido, cantidad,
+                            envio, minutoLimite);
+
+                    // Los paquetes quedan en el destino del vuelo a la hora de llegada
+                    pilaInicio[pendientes] = siguiente;
+                    pilaFin[pendientes] = siguiente + cantidad;
+                    pilaCiudad[pendientes] = geo.ordinal(vueloEscogido.getDestino());
+                    pilaMinuto[pendientes] = programacionEscogida.getMinutoLlegada();
+                    pilaNodo[pendientes] = hormiga.agregarNodo(nodo, idVueloEscogido, costos[posVueloEscogido]);
+                    pendientes++;
+                    siguiente += cantidad;
+                    pesos[posVueloEscogido] = 0;
+                    candidatosLibres--;
                 }
-
-                // Escoger un vuelo al azar
-                double[] probabilidades = new double[tablaOpcionesVuelos.size()];
-                int[] vuelosAux = new int[tablaOpcionesVuelos.size()];
-                int index = 0;
-                for (Map.Entry<Integer, Double[]> entry : tablaOpcionesVuelos.entrySet()) {
-                    vuelosAux[index] = entry.getKey(); // Guardar la clave en vuelosAux
-                    probabilidades[index] = entry.getValue()[3];
-                    index++;
+                // Los que no entraron en ningún vuelo se quedan donde están
+                for (int p = siguiente; p < hastaGrupo; p++) {
+                    hormiga.cerrarPaquete(orden[p], nodo, false);
                 }
-                int posVueloEscogido = aco_auxiliares.determinarVueloEscogido(probabilidades);
-                int idVueloEscogido = vuelosAux[posVueloEscogido];
-                Vuelo vueloEscogido = vuelos.get(vuelosProgramados.get(idVueloEscogido).getIdVuelo());
-                // Registrar el vuelo elegido por el paquete
-                paq.getRuta().add(vuelosProgramados.get(idVueloEscogido).getIdVuelo());
-                paq.getFechasRuta().add(vuelosProgramados.get(idVueloEscogido).getFechaHoraLlegada());
-                paq.getcostosRuta().add(tablaOpcionesVuelos.get(idVueloEscogido)[0]);
-
-                // Actualizar capacidad planificación del almacén destino y origen
-                Aeropuerto aDestino = aeropuertos.get(vueloEscogido.getDestino());
-                aDestino.paqueteEntraPlanificacion(
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraLlegada().toLocalDateTime());
-                Aeropuerto aOrigen = aeropuertos.get(vueloEscogido.getOrigen());
-                aOrigen.paqueteSalePlanificacion(
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraSalida().toLocalDateTime());
-
-                // Tiempo usado por el paquete en el vuelo
-                long tHastaSalidaVuelo = aco_auxiliares.calcularDiferenciaEnMinutos(fechaActualPaquete,
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraSalida());
-                long tVuelo = aco_auxiliares.calcularDiferenciaEnMinutos(
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraSalida(),
-                        vuelosProgramados.get(idVueloEscogido).getFechaHoraLlegada());
-                Duration tiempoGastado = Duration.ofMinutes(tHastaSalidaVuelo + tVuelo);
-                paq.setTiempoRestanteDinamico(paq.getTiempoRestanteDinamico().minus(tiempoGastado));
-
-                // quitar un slot al vuelo
-                // tabla.get(idVueloEscogido)[1] = tabla.get(idVueloEscogido)[1] - 1; // ¿Qué
-                // pasaría si ya no hay vuelos por tomar?
-
-                // Actualizar capacidad planificación del vuelo
-                vuelosProgramados.get(idVueloEscogido).setCargaActualPlanificacion(
-                        vuelosProgramados.get(idVueloEscogido).getCargaActualPlanificacion() + 1);
-                // Creo que eso no va a pasar
-                // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
-
-                // System.out.println(" IMPRIMIENDO TABLA DE OPCIONES PARA EL PAQUETE "
-                // + paq.getIdPaquete() + " " + envios.get(paq.getCodigoEnvio()).getOrigen() + "
-                // "
-                // + envios.get(paq.getCodigoEnvio()).getDestino() + " Hora actual: " +
-                // fechaActualPaquete);
-
-                // // generarArchivoTabla(tablaOpcionesVuelos, "salida");
-                // imprimirTabla_v2(tablaOpcionesVuelos, vuelosProgramados, vuelos);
-                // System.out.println("VUELO ESCOGIDO PAQUETE " + paq.getIdPaquete() + ": " +
-                // vueloEscogido);
-                // System.out.println("CIUDAD ACTUAL PAQUETE "
-                // +
-                // vuelos.get(vuelosProgramados.get(vueloEscogido.getId()).getIdVuelo()).getDestino());
-
-                // System.out.println(
-                // "FECHA ACTUAL PAQUETE " + paq.getIdPaquete() + ": " +
-                // paq.getFechaLlegadaUltimoVuelo());
-                // }
-
-                // Si ya llegamos al destino, salimos del while || si ya nos quedamos sin tiempo
-                // para seguir buscando (creo que en Costo no hay manera de incluir este param)
-                // Comparar el destino del ultimo vuelo tomado con el destino de su envio
-                String destinoVueloElegido = vuelos.get(vuelosProgramados.get(idVueloEscogido).getIdVuelo())
-                        .getDestino();
-                String destinoFinalPaquete = envios.get(paq.getCodigoEnvio()).getDestino();
-                if (destinoVueloElegido.equals(destinoFinalPaquete)) {
-                    // Estos tiempo se deben calcular para así tener el t que toma todo su viaje
-                    // Si no llegamos al destino por quedarnos sin tiempo (2dias o 1 dia), salimos
-                    // System.out.println("Exito ++");
-                    exito++;
-                    // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
-
-                    // paq.setLlegoDestino(true);
-                    // System.out.println("El paquete " + paq.getIdPaquete() + " llegó al destino");
-                    // System.out.println(
-                    // "Tiempo restante paquete " + paq.getTiempoRestanteDinamico().toMinutes() + "
-                    // minutos");
-                    // }
-                    break;
-                } else {
-                    // if(envios.get(paq.getCodigoEnvio()).getOrigen().equals("VIDP")){
+            }
+        }
+    }
 
-                    // System.out.println("El paquete " + paq.getIdPaquete() + " aun no llega al
-                    // destino");
-                    // System.out.println(
-                    // "Tiempo restante paquete " + paq.getTiempoRestanteDinamico().toMinutes() + "
-                    // minutos");
-                    // }
+    // Llena orden con las posiciones de los paquetes agrupadas por envío (y punto de partida, si se da) y
+    // devuelve dónde empieza cada grupo en orden (con un elemento extra al final)
+    private static int[] agruparPorEnvio(ArrayList<Paquete> paquetes, int[] ciudadInicio, long[] minutoInicio,
+            int[] orden) {
+        HashMap<String, Integer> numeroEnvio = new HashMap<>();
+        int[] envioDe = new int[paquetes.size()];
+        for (int i = 0; i < paquetes.size(); i++) {
+            String clave = paquetes.get(i).getCodigoEnvio();
+            if (ciudadInicio != null && ciudadInicio[i] >= 0) {
+                clave = clave + "@" + ciudadInicio[i] + "@" + minutoInicio[i];
+            }
+            Integer numero = numeroEnvio.putIfAbsent(clave, numeroEnvio.size());
+            envioDe[i] = numero == null ? numeroEnvio.size() - 1 : numero;
+        }
+        int[] inicioEnvio = new int[numeroEnvio.size() + 1];
+        for (int i = 0; i < paquetes.size(); i++) {
+            inicioEnvio[envioDe[i] + 1]++;
+        }
+        for (int e = 0; e < numeroEnvio.size(); e++) {
+            inicioEnvio[e + 1] += inicioEnvio[e];
+        }
+        int[] siguiente = Arrays.copyOf(inicioEnvio, numeroEnvio.size());
+        for (int i = 0; i < paquetes.size(); i++) {
+            orden[siguiente[envioDe[i]]++] = i;
+        }
+        return inicioEnvio;
+    }
 
+    // Aplica la solución de una hormiga que trabajó sobre copias: se vuelven a recorrer sus rutas, en el
+    // orden de los paquetes, contra la capacidad real de los vuelos y almacenes. Si un vuelo ya no
+    // entra, la ruta del paquete se corta ahí (la verificación posterior le buscará otra ruta).
+    private static int reconciliar(Hormiga hormiga, ArrayList<Paquete> paquetes, HashMap<String, Envio> envios,
+            HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            HashMap<Integer, ProgramacionVuelo> vuelosProgramados, PlanningState estado) {
+        int exito = 0;
+        for (int i = 0; i < paquetes.size(); i++) {
+            Paquete paq = paquetes.get(i);
+            Envio envio = envios.get(paq.getCodigoEnvio());
+            long minutoActual = envio.getMinutoSalida();
+            long minutoLimite = paq.minutoLimite(envio);
+            boolean completa = true;
+            for (int j = hormiga.inicioRuta(i); j < hormiga.finRuta(i); j++) {
+                int id = hormiga.vueloEn(j);
+                ProgramacionVuelo programacion = vuelosProgramados.get(id);
+                Vuelo vuelo = vuelos.get(programacion.getIdVuelo());
+                Aeropuerto aDestino = aeropuertos.get(vuelo.getDestino());
+                boolean entra = estado.getCarga(id) + 1 < estado.getCapacidad(id)
+                        && ocupacionDurante(aDestino, programacion.getMinutoLlegada(), minutoLimite)
+                                + 1 < aDestino.getCapacidadMaxima();
+                if (!entra) {
+                    completa = false;
+                    break;
                 }
-
-                // if(i==5) break; //hasta que se quede sin tiempo para buscar su destino. Por
-                // ahora maximo visitará 5 aeropuertos
-                // i++;
+                tomarVuelo(estado, aeropuertos, id, programacion, vuelo, envio, minutoLimite);
+                registrarVueloEnPaquete(paq, minutoActual, programacion, hormiga.costoEn(j));
+                minutoActual = programacion.getMinutoLlegada();
+            }
+            if (completa && hormiga.llego(i)) {
+                exito++;
             }
-            // break;
+        }
+        return exito;
+    }
 
+    // Ocupación máxima del almacén mientras el paquete puede estar en él: desde que llega hasta 'hasta' (el
+    // plazo: en una escala la salida siguiente todavía no se conoce pero no puede ser después, y en el
+    // destino final el paquete se queda hasta su plazo)
+    private static int ocupacionDurante(Aeropuerto almacen, long minutoLlegada, long hasta) {
+        return almacen.maximoPaquetesPlanificacion(minutoLlegada, Math.max(minutoLlegada, hasta));
+    }
+
+    private static void tomarVuelo(PlanningState estado, HashMap<String, Aeropuerto> aeropuertos, int idProgramado,
+            ProgramacionVuelo programacion, Vuelo vuelo, Envio envio, long minutoLimite) {
+        tomarVuelo(estado, aeropuertos, idProgramado, programacion, vuelo, 1, envio, minutoLimite);
+    }
+
+    // Varios paquetes del mismo envío toman juntos el vuelo. En el destino final del envío los paquetes dejan
+    // el almacén al cumplirse su plazo, así la ocupación que dejan no crece con cada planificación
+    private static void tomarVuelo(PlanningState estado, HashMap<String, Aeropuerto> aeropuertos, int idProgramado,
+            ProgramacionVuelo programacion, Vuelo vuelo, int cantidad, Envio envio, long minutoLimite) {
+        Aeropuerto aDestino = aeropuertos.get(vuelo.getDestino());
+        aDestino.paquetesEntranPlanificacion(programacion.getMinutoLlegada(), cantidad);
+        if (vuelo.getDestino().equals(envio.getDestino())) {
+            aDestino.paquetesSalenPlanificacion(Math.max(programacion.getMinutoLlegada(), minutoLimite), cantidad);
         }
-        // System.out.println("TABLAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA
-        // " + iteracionAux);
-        // imprimirTabla_v2(tabla, vuelosProgramados,vuelos);
-        // Actualizar mi tabla (feromonas). Aumentar si ha llegado al destino. Restar o
-        // no hacer nada si no ha llegado
+        Aeropuerto aOrigen = aeropuertos.get(vuelo.getOrigen());
+        aOrigen.paquetesSalenPlanificacion(programacion.getMinutoSalida(), cantidad);
+        estado.incrementarCarga(idProgramado, cantidad);
+    }
 
-        // generarArchivoTabla(tabla, "salida");
-        System.out.println("Numero de éxitos / numero paquetes: " + exito + " / " + paquetes.size());
-        return paquetes;
+    // Minutos desde la hora actual del paquete hasta que llega con el vuelo
+    // (espera hasta la salida + duración del vuelo)
+    private static long tiempoUsado(long minutoActualPaquete, ProgramacionVuelo programacion) {
+        return programacion.getMinutoLlegada() - minutoActualPaquete;
     }
 
-    public static void agregarVuelosRequeridos(ZonedDateTime fechaPaquete, HashMap<Integer, Double[]> tabla,
-            HashMap<Integer, ProgramacionVuelo> vuelosProgramados, HashMap<Integer, Vuelo> vuelos,
-            ArrayList<LocalDate> fechasVuelos, HashMap<String, Aeropuerto> aeropuertos) {
-        // Agregaremos a tabla todos los vuelos para la fecha del paquete. Esto ayudará
-        // que sea dinámico los vuelos que se estarán programanado
-        // conforme aumentan la cantidad de paquetes para la simulación
-        int numeroVuelos = tabla.size();
-        for (int i = 0; i < 3; i++) {
-            LocalDate ld = fechaPaquete.toLocalDate().plusDays(i);
-            if (!fechasVuelos.contains(ld)) {
-                for (int idVuelo : vuelos.keySet()) {
-                    Vuelo vuelo = vuelos.get(idVuelo);
-
-                    ZonedDateTime fechaHoraSalida = vuelo.getFechaHoraSalida().with(ld);
-                    numeroVuelos++;
-                    ZonedDateTime fechaHoraLlegada = vuelo.getFechaHoraLlegada().with(ld);
-                    fechaHoraLlegada = fechaHoraLlegada.plusDays(vuelo.getCambioDeDia()); // la variable "cambio de dia"
-                                                                                          // me causa ruido.
-
-                    ProgramacionVuelo pv = new ProgramacionVuelo(numeroVuelos, idVuelo, fechaHoraSalida,
-                            fechaHoraLlegada);
-                    // tabla: guardará para cada vuelo su información
-                    tabla.put(numeroVuelos, new Double[] { (double) vuelos.get(pv.getIdVuelo()).getCapacidad(),
-                            (double) vuelos.get(pv.getIdVuelo()).getCapacidad(), 0.1 });
-                    vuelosProgramados.put(numeroVuelos, pv);
-                }
+    private static void registrarVueloEnPaquete(Paquete paq, long minutoActualPaquete,
+            ProgramacionVuelo programacion, double costo) {
+        paq.getRuta().add(programacion.getIdVuelo());
+        paq.getFechasRuta().add(programacion.getFechaHoraLlegada());
+        paq.getcostosRuta().add(costo);
+        paq.setTiempoRestanteDinamico(paq.getTiempoRestanteDinamico()
+                .minus(Duration.ofMinutes(tiempoUsado(minutoActualPaquete, programacion))));
+    }
 
-                fechasVuelos.add(ld);
+    // Tabla de candidatos de un paso de una hormiga: vuelo programado, salida, llegada, costo, feromona y
+    // probabilidad de cada candidato
+    private static void trazarPaso(TrazaPlanificacion traza, Hormiga hormiga, Paquete paq, int cantidad,
+            String ciudadActual, int numCandidatos, int posVueloEscogido,
+            HashMap<Integer, ProgramacionVuelo> vuelosProgramados, HashMap<Integer, Vuelo> vuelos) {
+        int idEscogido = hormiga.candidatos[posVueloEscogido];
+        ProgramacionVuelo escogido = vuelosProgramados.get(idEscogido);
+        StringBuilder sb = new StringBuilder();
+        sb.append("Hormiga ").append(hormiga.getNumero()).append(" - paquete ").append(paq.getIdPaquete())
+                .append(" (envío ").append(paq.getCodigoEnvio()).append(", ").append(cantidad)
+                .append(cantidad == 1 ? " paquete" : " paquetes").append(") en ").append(ciudadActual)
+                .append(": ").append(numCandidatos).append(" candidatos, escoge ").append(idEscogido)
+                .append(" hacia ").append(vuelos.get(escogido.getIdVuelo()).getDestino());
+        if (traza.activo(TrazaPlanificacion.Nivel.TABLAS)) {
+            double suma = 0;
+            for (int i = 0; i < numCandidatos; i++) {
+                suma += hormiga.probabilidades[i];
+            }
+            sb.append("\nID\tDestino\tSalida\tLlegada\tCosto\tFeromonas\tProbabilidad");
+            for (int i = 0; i < numCandidatos; i++) {
+                int id = hormiga.candidatos[i];
+                ProgramacionVuelo pv = vuelosProgramados.get(id);
+                sb.append('\n').append(id).append('\t').append(vuelos.get(pv.getIdVuelo()).getDestino())
+                        .append('\t').append(pv.getFechaHoraSalida()).append('\t').append(pv.getFechaHoraLlegada())
+                        .append('\t').append(String.format("%.4f\t%.4f\t%.4f", hormiga.costosCandidatos[i],
+                                hormiga.getEstado().getFeromona(id), hormiga.probabilidades[i] / suma));
             }
         }
-
+        traza.registrar(TrazaPlanificacion.Nivel.PASOS, sb.toString());
     }
 
-    public static void imprimirTabla(HashMap<Integer, Double[]> tabla, HashMap<Integer, Vuelo> vuelos) {
-        System.out.println("ID\tCosto\tVisibilidad\tFeromonas");
+    public static String imprimirTabla(HashMap<Integer, Double[]> tabla, HashMap<Integer, Vuelo> vuelos) {
+        StringBuilder sb = new StringBuilder("ID\tCosto\tVisibilidad\tFeromonas\n");
 
         // Iterar sobre cada vuelo en la tabla
         for (Map.Entry<Integer, Double[]> entry : tabla.entrySet()) {
             Integer id = entry.getKey();
             Double[] datos = entry.getValue();
 
-            // Imprimir datos del vuelo con formato de 4 decimales
-            System.out.print(id + "\t" + vuelos.get(id).getOrigen() + "\t" + vuelos.get(id).getDestino() + "\t");
+            // Datos del vuelo con formato de 4 decimales
+            sb.append(id + "\t" + vuelos.get(id).getOrigen() + "\t" + vuelos.get(id).getDestino() + "\t");
             for (Double dato : datos) {
-                System.out.printf("%.4f\t\t", dato);
+                sb.append(String.format("%.4f\t\t", dato));
             }
-            System.out.println();
+            sb.append('\n');
         }
+        return sb.toString();
     }
 
-    public static void imprimirTabla_v2(HashMap<Integer, Double[]> tablaOpcionesVuelo,
+    public static String imprimirTabla_v2(HashMap<Integer, Double[]> tablaOpcionesVuelo,
             HashMap<Integer, ProgramacionVuelo> vuelosProgramados, HashMap<Integer, Vuelo> vuelos) {
-        System.out.println("ID\tCosto\tVisibilidad\tFeromonas");
+        StringBuilder sb = new StringBuilder("ID\tCosto\tVisibilidad\tFeromonas\n");
 
         // Iterar sobre cada vuelo en la tabla
         for (Map.Entry<Integer, Double[]> entry : tablaOpcionesVuelo.entrySet()) {
             Integer id = entry.getKey();
             Double[] datos = entry.getValue();
 
-            // Imprimir datos del vuelo con formato de 4 decimales
-            System.out.print(id + "\t" + vuelos.get(vuelosProgramados.get(id).getIdVuelo()).getOrigen() +
+            // Datos del vuelo con formato de 4 decimales
+            sb.append(id + "\t" + vuelos.get(vuelosProgramados.get(id).getIdVuelo()).getOrigen() +
                     "\t" + vuelos.get(vuelosProgramados.get(id).getIdVuelo()).getDestino() + "   "
                     + vuelosProgramados.get(id).getFechaHoraSalida() + "  "
                     + vuelosProgramados.get(id).getFechaHoraLlegada()
                     + "\t");
             for (Double dato : datos) {
-                System.out.printf("%.4f\t\t", dato);
+                sb.append(String.format("%.4f\t\t", dato));
             }
-            System.out.println();
+            sb.append('\n');
         }
+        return sb.toString();
     }
 
+    // Solo con la traza en TABLAS. El contenido se arma aquí (la tabla sigue cambiando después) y el archivo
+    // lo escribe el hilo de la traza
     public static void generarArchivoTabla(HashMap<Integer, Double[]> tabla, String nombreArchivo) {
-        try (FileWriter writer = new FileWriter(nombreArchivo)) {
-            // Escribir encabezado de la tabla en el archivo
-            writer.write("ID\tCosto\tVisibilidad\tFeromonas\n");
-            int suma = 0;
-            // Iterar sobre cada vuelo en la tabla y escribir los datos en el archivo
-            for (Map.Entry<Integer, Double[]> entry : tabla.entrySet()) {
-                Integer id = entry.getKey();
-                Double[] datos = entry.getValue();
-
-                // Escribir datos del vuelo con formato de 4 decimales en el archivo
-                writer.write(id + "\t\t\t");
-                for (Double dato : datos) {
-                    writer.write(String.format("%.4f\t\t", dato));
-                }
-                writer.write(String.format("%.4f\t\t", datos[0] - datos[1]));
-                suma += datos[0] - datos[1];
-                writer.write("\n");
-            }
+        TrazaPlanificacion traza = TrazaPlanificacion.actual();
+        if (!traza.activo(TrazaPlanificacion.Nivel.TABLAS)) {
+            return;
+        }
+        // Encabezado de la tabla
+        StringBuilder contenido = new StringBuilder("ID\tCosto\tVisibilidad\tFeromonas\n");
+        int suma = 0;
+        // Datos de cada vuelo de la tabla
+        for (Map.Entry<Integer, Double[]> entry : tabla.entrySet()) {
+            Integer id = entry.getKey();
+            Double[] datos = entry.getValue();
 
-            System.out.println("Archivo generado correctamente: " + nombreArchivo);
-            System.out.println("Archivo generado correctamente - suma de asientos ocupados en vuelos: " + suma);
-        } catch (IOException e) {
-            System.err.println("Error al generar el archivo: " + e.getMessage());
+            // Datos del vuelo con formato de 4 decimales
+            contenido.append(id + "\t\t\t");
+            for (Double dato : datos) {
+                contenido.append(String.format("%.4f\t\t", dato));
+            }
+            contenido.append(String.format("%.4f\t\t", datos[0] - datos[1]));
+            suma += datos[0] - datos[1];
+            contenido.append("\n");
         }
+
+        traza.escribirArchivo(TrazaPlanificacion.Nivel.TABLAS, nombreArchivo, contenido);
+        traza.registrar(TrazaPlanificacion.Nivel.TABLAS,
+                "Archivo " + nombreArchivo + " - suma de asientos ocupados en vuelos: " + suma);
     }
 
-    public static double costo(ZonedDateTime fechaActualPaquete, ProgramacionVuelo vueloProgramado,
-            Double[] tablaValores, Paquete paquete, HashMap<String, Envio> envios,
-            HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos) {
-        // Tabla de valores: capacidad actual en [1]
+    public static double costo(long minutoActualPaquete, ProgramacionVuelo vueloProgramado,
+            PlanningState estado, int idVueloProgramado, Paquete paquete, HashMap<String, Envio> envios,
+            AirportGeoIndex geo, HashMap<Integer, Vuelo> vuelos) {
+        // Estado: capacidad, capacidad dinámica y feromonas del vuelo programado
 
         // Inicialmente será el tiempo que le toma en ir a una próxima ciudad + la
         // distancia que le queda para llegar a la ciudad destino
@@ -876,16 +1104,13 @@ public class ACO {
         // esperando en el aero-
         // puerto (creo que esto es insignificante, no se debería tomar en cuenta)
 
-        double tiempoVuelo = aco_auxiliares.calcularDiferenciaEnMinutos(fechaActualPaquete,
-                vueloProgramado.getFechaHoraSalida()) +
-                aco_auxiliares.calcularDiferenciaEnMinutos(vueloProgramado.getFechaHoraSalida(),
-                        vueloProgramado.getFechaHoraLlegada());
+        // Espera hasta la salida + duración del vuelo, en minutos epoch
+        double tiempoVuelo = vueloProgramado.getMinutoLlegada() - minutoActualPaquete;
         // hallar la distancia del destino del vuelo al destino del paquete
         String destinoVueloTomado = vuelos.get(vueloProgramado.getIdVuelo()).getDestino();
         String destinoFinalPaquete = envios.get(paquete.getCodigoEnvio()).getDestino();
         // hallaremos la distancia entre estos aeropuertos
-        double distanciaAlDestinoFinal = Normalizacion.obtenerDistanciaEntreAeropuertos(aeropuertos, destinoVueloTomado,
-                destinoFinalPaquete);
+        double distanciaAlDestinoFinal = geo.distancia(destinoVueloTomado, destinoFinalPaquete);
 
         double tiempoVueloNormalizado = Normalizacion.normalizarTiempoVuelo(tiempoVuelo, minYMaxTiempoVuelo[0],
                 minYMaxTiempoVuelo[1]);
@@ -901,40 +1126,26 @@ public class ACO {
         // *
         // (1 - (paquete.getTiempoRestanteDinamico().toMinutes() - tiempoVuelo)
         // / paquete.getTiempoRestante().toMinutes());
-        return 1 + 100000 * (tiempoVueloNormalizado * distanciaDestinoFinalNormalizado) * tablaValores[2]
-                * (100 + ((tablaValores[0] - tablaValores[1]) / tablaValores[0])) / 100;
+        double capacidad = estado.getCapacidad(idVueloProgramado);
+        return 1 + 100000 * (tiempoVueloNormalizado * distanciaDestinoFinalNormalizado)
+                * estado.getFeromona(idVueloProgramado)
+                * (100 + ((capacidad - estado.getCapacidadRestante(idVueloProgramado)) / capacidad)) / 100;
         // mientras más tiempo tenga, los caminos más largos
     }
 
-    public static void actualizarFeromonas(HashMap<Integer, Double[]> tabla, ArrayList<Paquete> paquetes,
-            double tasaEvaporacion, double aprendizaje) {
-        // Actualizamos primero segun la tasa de evaporacion
-        for (int idVuelo : tabla.keySet()) {
-            tabla.get(idVuelo)[2] = tabla.get(idVuelo)[2] * (1 - tasaEvaporacion);
-        }
-        // Actualizamos segun si el paquete tomó el vuelo
-        for (Paquete paq : paquetes) {
-            if (paq.getLlegoDestino()) {
-                for (int vueloTomado : paq.getRuta()) {
-                    // Me parece que tengo que acumular el costo en cada decisión para así
-                    // System.out.println(paq.costoTotalRuta());
-                    tabla.get(vueloTomado)[2] = tabla.get(vueloTomado)[2] + aprendizaje / (paq.costoTotalRuta());
+    // Evapora las feromonas y refuerza los vuelos de los paquetes que la hormiga llevó a su destino
+    public static void actualizarFeromonas(PlanningState estado, Hormiga hormiga, double tasaEvaporacion,
+            double aprendizaje) {
+        estado.evaporar(tasaEvaporacion);
+        int numeroPaquetes = hormiga.getNumeroPaquetes();
+        for (int i = 0; i < numeroPaquetes; i++) {
+            if (hormiga.llego(i)) {
+                double costoRuta = hormiga.costoRuta(i);
+                for (int j = hormiga.inicioRuta(i); j < hormiga.finRuta(i); j++) {
+                    int vueloTomado = hormiga.vueloEn(j);
+                    estado.setFeromona(vueloTomado, estado.getFeromona(vueloTomado) + aprendizaje / costoRuta);
                 }
             }
         }
-        // ¿Haremos algo con la ruta si el paquete no llegó al destino? Fátima
-        // Invertimos la cantidad de feromonas
-        // double suma = 0;
-        // for(int id : tabla.keySet()){
-        // suma = suma + 1 / tabla.get(id)[2];
-        // }
-
-        // for(int id : tabla.keySet()){
-        // tabla.get(id)[2] = (1 / tabla.get(id)[2]) / suma;
-        // }
-        // for(int id : tabla.keySet()){
-        // tabla.get(id)[2] = 1 / tabla.get(id)[2];
-        // }
-
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,91 @@
+package com.dp1.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dp1.backend.models.Aeropuerto;
+
+/*
+ * Índice geográfico inmutable de los aeropuertos: asigna a cada código OACI un ordinal denso (en orden
+ * alfabético) y guarda la distancia entre cada par de aeropuertos en una matriz plana de n*n, junto con
+ * la distancia mínima y máxima entre aeropuertos distintos. Así, la distancia que usa el costo del ACO es
+ * una lectura de arreglo en lugar de una búsqueda lineal + haversine.
+ */
+public final class AirportGeoIndex {
+    private final String[] codigos;
+    private final HashMap<String, Integer> ordinales;
+    private final double[] distancias;
+    private final double distanciaMinima;
+    private final double distanciaMaxima;
+
+    private AirportGeoIndex(Map<String, Aeropuerto> aeropuertos) {
+        ArrayList<String> lista = new ArrayList<>(aeropuertos.keySet());
+        Collections.sort(lista);
+        int n = lista.size();
+        this.codigos = lista.toArray(new String[n]);
+        this.ordinales = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            ordinales.put(codigos[i], i);
+        }
+
+        this.distancias = new double[n * n];
+        double minimo = Double.MAX_VALUE;
+        double maximo = 0;
+        for (int i = 0; i < n; i++) {
+            Aeropuerto a = aeropuertos.get(codigos[i]);
+            for (int j = i + 1; j < n; j++) {
+                Aeropuerto b = aeropuertos.get(codigos[j]);
+                double distancia = Normalizacion.distanciaEntreAeropuertos(a.getLatitud(), a.getLongitud(),
+                        b.getLatitud(), b.getLongitud());
+                distancias[i * n + j] = distancia;
+                distancias[j * n + i] = distancia;
+                minimo = Math.min(minimo, distancia);
+                maximo = Math.max(maximo, distancia);
+            }
+        }
+        this.distanciaMinima = n > 1 ? minimo : 0;
+        this.distanciaMaxima = maximo;
+    }
+
+    // Las coordenadas se leen al construir: si cambian los aeropuertos hay que construir otro índice
+    public static AirportGeoIndex construir(Map<String, Aeropuerto> aeropuertos) {
+        return new AirportGeoIndex(aeropuertos);
+    }
+
+    public int getCantidadAeropuertos() {
+        return codigos.length;
+    }
+
+    public int ordinal(String codigoOACI) {
+        Integer ordinal = ordinales.get(codigoOACI);
+        return ordinal == null ? -1 : ordinal;
+    }
+
+    public String codigo(int ordinal) {
+        return codigos[ordinal];
+    }
+
+    public double distancia(int ordinal1, int ordinal2) {
+        return distancias[ordinal1 * codigos.length + ordinal2];
+    }
+
+    // Distancia por código OACI; -1 si alguno no existe (igual que Normalizacion)
+    public double distancia(String codigoOACI1, String codigoOACI2) {
+        int o1 = ordinal(codigoOACI1);
+        int o2 = ordinal(codigoOACI2);
+        if (o1 < 0 || o2 < 0) {
+            return -1;
+        }
+        return distancia(o1, o2);
+    }
+
+    public double getDistanciaMinima() {
+        return distanciaMinima;
+    }
+
+    public double getDistanciaMaxima() {
+        return distanciaMaxima;
+    }
+}
@@ -9,16 +9,14 @@ import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 import com.dp1.backend.models.Aeropuerto;
 import com.dp1.backend.models.ColeccionRuta;
 import com.dp1.backend.models.Envio;
-import com.dp1.backend.models.ItemRutaPosible;
 import com.dp1.backend.models.Paquete;
 import com.dp1.backend.models.RutaPosible;
 import com.dp1.backend.models.Vuelo;
@@ -81,7 +79,7 @@ public class Auxiliares {
             vuelos.get(i).setCargaPorDia(new HashMap<>());
         }
         for (String i : aeropuertos.keySet()) {
-            aeropuertos.get(i).setCantPaqParaPlanificacion(new TreeMap<>());
+            aeropuertos.get(i).reiniciarPlanificacion();
         }
 
         for (int i = 0; i < solucion.length; i += n) {
@@ -173,7 +171,7 @@ public class Auxiliares {
 
             // Verificamos que haya espacio en el almacén a esa hora de llegada
             int cargaAuxiliarAeropuerto = destinoDeEsteVuelo
-                    .paquetesAEstaHoraPlanificacion(fechaHoraSiguienteLlegada.toLocalDateTime());
+                    .paquetesAEstaHoraPlanificacion(aco_auxiliares.minutoEpoch(fechaHoraSiguienteLlegada));
 
             Boolean espacioEnVuelo = (vuelo.getCapacidad() > cargaAuxiliarVuelo + 1);
             Boolean espacioEnAlmacen = (destinoDeEsteVuelo.getCapacidadMaxima() > cargaAuxiliarAeropuerto + 1);
@@ -191,9 +189,9 @@ public class Auxiliares {
                 vuelo.getCargaPorDia().put(fechaAuxiliar, cargaAuxiliarVuelo + 1);
 
                 // Actualizar carga del aeropuerto luego de salir
-                actual.paqueteSalePlanificacion(fechaHoraSiguienteSalida.toLocalDateTime());
+                actual.paqueteSalePlanificacion(aco_auxiliares.minutoEpoch(fechaHoraSiguienteSalida));
                 // Actualizar carga del aeropuerto luego de llegar
-                destinoDeEsteVuelo.paqueteEntraPlanificacion(fechaHoraSiguienteLlegada.toLocalDateTime());
+                destinoDeEsteVuelo.paqueteEntraPlanificacion(aco_auxiliares.minutoEpoch(fechaHoraSiguienteLlegada));
             } else {
                 // Penalización por no ser una ruta válida
                 fitness -= (!ubicacionValida ? 14 : 0);
@@ -269,6 +267,7 @@ public class Auxiliares {
         return Math.sqrt(x * x + y * y);
     }
 
+    // Versión con mensajes, para revisar una ruta a mano. La verificación de la planificación usa ValidadorRutas
     public static Boolean solucionValidav2(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
             HashMap<String, Envio> envios, Paquete paquete, Boolean verbose) {
         Envio envio = envios.get(paquete.getCodigoEnvio());
@@ -348,7 +347,7 @@ public class Auxiliares {
             // Controlar la carga del aeropuerto
             aeropuertoDestinoVuelo = aeropuertos.get(vuelo.getDestino());
             int cargaAuxiliarAeropuerto = aeropuertoDestinoVuelo
-                    .paquetesAEstaHoraPlanificacion(fechaHoraLlegada.toLocalDateTime());
+                    .paquetesAEstaHoraPlanificacion(aco_auxiliares.minutoEpoch(fechaHoraLlegada));
             if (aeropuertoDestinoVuelo.getCapacidadMaxima() <= cargaAuxiliarAeropuerto + 1) {
                 if (verbose)
                     System.out.println("El aeropuerto " + vuelo.getDestino() + " no tiene capacidad suficiente.");
@@ -360,9 +359,9 @@ public class Auxiliares {
             vuelo.getCargaPorDia().put(fechaHoraVuelo.toLocalDate(), cargaAuxiliarVuelo + 1);
 
             // Actualizar carga del aeropuerto luego de salir
-            aeropuertoActual.paqueteSalePlanificacion(fechaHoraVuelo.toLocalDateTime());
+            aeropuertoActual.paqueteSalePlanificacion(aco_auxiliares.minutoEpoch(fechaHoraVuelo));
             // Actualizar carga del aeropuerto luego de llegar
-            aeropuertoDestinoVuelo.paqueteEntraPlanificacion(fechaHoraLlegada.toLocalDateTime());
+            aeropuertoDestinoVuelo.paqueteEntraPlanificacion(aco_auxiliares.minutoEpoch(fechaHoraLlegada));
 
             // Actualizar ciudad y fecha/hora actual
             ciudadActual = vuelo.getDestino();
@@ -422,22 +421,15 @@ public class Auxiliares {
         return true;
     }
 
-    public static int verificacionTotal(int[] solucion, HashMap<String, Aeropuerto> aeropuertos,
-            HashMap<Integer, Vuelo> vuelos, HashMap<String, Envio> envios, ArrayList<Paquete> paquetes,
-            int solutionSize) {
+    // El validador (armado sobre los aeropuertos y vuelos de la solución) se reutiliza entre llamadas
+    public static int verificacionTotal(int[] solucion, ValidadorRutas validador, HashMap<String, Envio> envios,
+            ArrayList<Paquete> paquetes, int solutionSize) {
         int n = paquetes.size();
         Boolean esSolucionValida;
         int paquetesEntregados = 0;
 
-        // Limpiar carga por día
-        for (int i : vuelos.keySet()) {
-            vuelos.get(i).setCargaPorDia(new HashMap<>());
-        }
-
-        // Limpiar carga por día de los aeropuertos
-        for (String i : aeropuertos.keySet()) {
-            aeropuertos.get(i).setCantPaqParaPlanificacion(new TreeMap<>());
-        }
+        // Limpiar carga por día de los vuelos y de los aeropuertos
+        validador.reiniciar(envios);
 
         // Verifico todos los paquetes
         for (int j = 0; j < n; j++) {
@@ -450,20 +442,14 @@ public class Auxiliares {
             Paquete paquete = paquetes.get(j);
             paquete.setRuta(solucionPaquete);
 
-            esSolucionValida = solucionValidav2(aeropuertos, vuelos, envios, paquete, false);
+            esSolucionValida = validador.validar(paquete, ValidadorRutas.Modo.COMPROMETER);
             if (esSolucionValida) {
                 paquetesEntregados++;
             }
         }
 
-        // Limpiar carga por día de los aeropuertos
-        for (String i : aeropuertos.keySet()) {
-            aeropuertos.get(i).setCantPaqParaPlanificacion(new TreeMap<>());
-        }
-        // Limpiar carga por día
-        for (int i : vuelos.keySet()) {
-            vuelos.get(i).setCargaPorDia(new HashMap<>());
-        }
+        // Limpiar carga por día de los vuelos y de los aeropuertos
+        validador.reiniciar();
 
         return paquetesEntregados;
     }
@@ -471,64 +457,59 @@ public class Auxiliares {
     public static int verificacionTotalPaquetes(HashMap<String, Aeropuerto> aeropuertos,
             HashMap<Integer, Vuelo> vuelos, HashMap<String, Envio> envios, ArrayList<Paquete> paquetes,
             DatosEnMemoriaService datosEnMemoriaService) {
+        return verificacionTotalPaquetes(aeropuertos, vuelos, envios, paquetes, datosEnMemoriaService, 1, -1);
+    }
+
+    // Con más de un hilo, las rutas de los paquetes se validan primero en paralelo (ValidadorRutas.validarTodos;
+    // con semilla >= 0 el resultado es reproducible) y después se procesan en orden. El validador es el de
+    // datosEnMemoriaService; la verificación lo tiene para sí mientras corre
+    public static int verificacionTotalPaquetes(HashMap<String, Aeropuerto> aeropuertos,
+            HashMap<Integer, Vuelo> vuelos, HashMap<String, Envio> envios, ArrayList<Paquete> paquetes,
+            DatosEnMemoriaService datosEnMemoriaService, int hilos, long semilla) {
+        ValidadorRutas validador = datosEnMemoriaService.getValidadorRutas(aeropuertos, vuelos);
+        synchronized (validador) {
+            return verificacionTotalPaquetes(validador, envios, paquetes, datosEnMemoriaService, hilos, semilla);
+        }
+    }
+
+    private static int verificacionTotalPaquetes(ValidadorRutas validador, HashMap<String, Envio> envios,
+            ArrayList<Paquete> paquetes, DatosEnMemoriaService datosEnMemoriaService, int hilos, long semilla) {
         int n = paquetes.size();
         int rutasNuevas = 0;
         Boolean esSolucionValida;
         int paquetesEntregados = 0;
         int paquetesRutasSalvadas = 0;
 
-        // Limpiar carga por día
-        for (int i : vuelos.keySet()) {
-            vuelos.get(i).setCargaPorDia(new HashMap<>());
-        }
-
-        // Limpiar carga por día de los aeropuertos
-        for (String i : aeropuertos.keySet()) {
-            aeropuertos.get(i).setCantPaqParaPlanificacion(new TreeMap<>());
-        }
+        // Limpiar carga por día de los vuelos y de los aeropuertos
+        validador.reiniciar(envios);
+        boolean[] validos = hilos > 1 || semilla >= 0 ? validador.validarTodos(paquetes, hilos, semilla) : null;
 
         // Verifico todos los paquetes
         for (int j = 0; j < n; j++) {
             // Asignar solución a paquete
             Paquete paquete = paquetes.get(j);
-            esSolucionValida = solucionValidav2(aeropuertos, vuelos, envios, paquete, false);
+            esSolucionValida = validos != null ? validos[j]
+                    : validador.validar(paquete, ValidadorRutas.Modo.COMPROMETER);
             if (esSolucionValida) {
                 Envio envio = envios.get(paquete.getCodigoEnvio());
                 String origen = envio.getOrigen();
                 String destino = envio.getDestino();
-                String cadenaABuscar = envio.getOrigen() + envio.getDestino();
-                for (int i : paquete.getRuta()) {
-                    cadenaABuscar += ("-" + i);
-                }
-                if (!datosEnMemoriaService.seTieneruta(cadenaABuscar)) {
+                CacheRutas<RutaPosible> cacheRutas = datosEnMemoriaService.getCacheRutas();
+                int entrada = cacheRutas.entrada(origen, destino, paquete.getRuta());
+                if (entrada < 0) {
                     // Por ahora no se inserta en la base de datos
                     datosEnMemoriaService.insertarRuta(envio, paquete);
                     rutasNuevas++;
+                } else if (cacheRutas.valorEn(entrada) != null) {
+                    paquete.setRutaPosible(cacheRutas.valorEn(entrada));
                 } else {
                     ColeccionRuta rutasDisponibles = datosEnMemoriaService.getRutasPosibles().get(origen + destino);
-                    for (RutaPosible rp : rutasDisponibles.getRutasPosibles()) {
-                        ArrayList<Integer> rutaPaquete = paquete.getRuta();
-                        List<ItemRutaPosible> rutaPosibleStruct = rp.getFlights();
-                        Collections.sort(rutaPosibleStruct, new Comparator<ItemRutaPosible>() {
-                            @Override
-                            public int compare(ItemRutaPosible irp1, ItemRutaPosible irp2) {
-                                return Integer.compare(irp1.getDiaRelativo(), irp2.getDiaRelativo());
-                            }
-                        });
-                        // Crear un ArrayList de idVuelo ordenado por diaRelativo
-                        ArrayList<Integer> idVuelosOrdenados = new ArrayList<>();
-                        for (ItemRutaPosible irp : rutaPosibleStruct) {
-                            idVuelosOrdenados.add(irp.getIdVuelo());
-                        }
-
-                        if (rutaPaquete.equals(idVuelosOrdenados)) {
-                            paquete.setRutaPosible(rp);
-                            break;
-                        } else {
-                            //siguiente, no deberia haber caso que no encuentre la ruta buscada
-                        }
-
+                    rutasDisponibles.compactar(validador.getVuelos());
+                    int indice = rutasDisponibles.indiceDe(paquete.getRuta());
+                    if (indice >= 0) {
+                        paquete.setRutaPosible(rutasDisponibles.getRutasPosibles().get(indice));
                     }
+                    //no deberia haber caso que no encuentre la ruta buscada
                 }
                 paquete.setLlegoDestino(true);
                 paquetesEntregados++;
@@ -537,12 +518,12 @@ public class Auxiliares {
                 Envio envio = envios.get(paquete.getCodigoEnvio());
                 String cadenaABuscar = envio.getOrigen() + envio.getDestino();
                 try {
-                    List<RutaPosible> rutasPosibles = datosEnMemoriaService.getRutasPosibles().get(cadenaABuscar)
-                            .getRutasPosibles();
+                    ColeccionRuta coleccion = datosEnMemoriaService.getRutasPosibles().get(cadenaABuscar);
                     // int random = (int) (Math.random() * rutasPosibles.size());
                     ArrayList<Integer> ruta = new ArrayList<Integer>();
                     ArrayList<ZonedDateTime> fechas = new ArrayList<ZonedDateTime>();
-                    RutaPosible rutaPosible = rutasPosibles.get(buscarRutaPosibleApta(aeropuertos, vuelos, envios, paquete, rutasPosibles));
+                    RutaPosible rutaPosible = coleccion.getRutasPosibles()
+                            .get(buscarRutaPosibleApta(validador, envios, paquete, coleccion));
                     // System.out.println("Funcion verificar ruta. rp inf: " + rutaPosible.getId() + " "
                             // + rutaPosible.getFlights());
                     for (int i = 0; i < rutaPosible.getFlights().size(); i++) {
@@ -567,31 +548,38 @@ public class Auxiliares {
         System.out.println("Rutas salvadas: " + paquetesRutasSalvadas);
         System.out.println("Paquetes no entregados: " + (n - paquetesEntregados - paquetesRutasSalvadas));
 
-        // Limpiar carga por día de los aeropuertos
-        for (String i : aeropuertos.keySet()) {
-            aeropuertos.get(i).setCantPaqParaPlanificacion(new TreeMap<>());
-        }
-        // Limpiar carga por día
-        for (int i : vuelos.keySet()) {
-            vuelos.get(i).setCargaPorDia(new HashMap<>());
-        }
+        // Limpiar carga por día de los vuelos y de los aeropuertos
+        validador.reiniciar();
 
         return paquetesEntregados + paquetesRutasSalvadas;
     }
 
-    public static int buscarRutaPosibleApta(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
-    HashMap<String, Envio> envios, Paquete paquete,  List<RutaPosible> rutasPosibles) {
-        Collections.shuffle(rutasPosibles);
-       
-        for (int i = 0; i < rutasPosibles.size(); i++) {
-            RutaPosible rutaPosible = rutasPosibles.get(i);
-            ArrayList<Integer> ruta = new ArrayList<Integer>();
-            for (int j = 0; j < rutaPosible.getFlights().size(); j++) {
-                ruta.add(rutaPosible.getFlights().get(j).getIdVuelo());
+    // Índice de la primera ruta de la colección que el paquete puede tomar, revisándolas desde una posición al
+    // azar (0 si ninguna sirve). Antes de validar una ruta se descartan las que seguro no sirven: por el
+    // cuello de botella o porque, con los horarios de este envío, algún vuelo ya va lleno o no llega a tiempo
+    public static int buscarRutaPosibleApta(ValidadorRutas validador, HashMap<String, Envio> envios,
+            Paquete paquete, ColeccionRuta coleccion) {
+        coleccion.compactar(validador.getVuelos());
+        int m = coleccion.getCantidadCompactas();
+        if (m == 0) {
+            return 0;
+        }
+        Envio envio = envios.get(paquete.getCodigoEnvio());
+        int inicio = ThreadLocalRandom.current().nextInt(m);
+        for (int k = 0; k < m; k++) {
+            int r = (inicio + k) % m;
+            int[] idVuelos = coleccion.vuelosDe(r);
+            if (idVuelos.length == 0 || coleccion.capacidadCuelloDe(r) <= 1
+                    || !validador.podriaServir(envio, idVuelos)) {
+                continue;
             }
-            paquete.setRuta(ruta);
-            if (solucionValidav2(aeropuertos, vuelos, envios, paquete, false)) {
-                return i;
+            if (validador.validar(envio, idVuelos, idVuelos.length, ValidadorRutas.Modo.COMPROMETER)) {
+                ArrayList<Integer> ruta = new ArrayList<Integer>(idVuelos.length);
+                for (int idVuelo : idVuelos) {
+                    ruta.add(idVuelo);
+                }
+                paquete.setRuta(ruta);
+                return r;
             }
         }
         return 0;
@@ -600,35 +588,43 @@ public class Auxiliares {
     public static int verificacionTotalPaquetesSimulacion(HashMap<String, Aeropuerto> aeropuertos,
             HashMap<Integer, Vuelo> vuelos, HashMap<String, Envio> envios, ArrayList<Paquete> paquetes,
             DatosEnMemoriaService datosEnMemoriaService) {
-        
-                int n = paquetes.size();
+        return verificacionTotalPaquetesSimulacion(aeropuertos, vuelos, envios, paquetes, datosEnMemoriaService, 1, -1);
+    }
+
+    // Con más de un hilo, las rutas de los paquetes se validan primero en paralelo (ValidadorRutas.validarTodos;
+    // con semilla >= 0 el resultado es reproducible) y después se procesan en orden. El validador es el de
+    // datosEnMemoriaService; la verificación lo tiene para sí mientras corre
+    public static int verificacionTotalPaquetesSimulacion(HashMap<String, Aeropuerto> aeropuertos,
+            HashMap<Integer, Vuelo> vuelos, HashMap<String, Envio> envios, ArrayList<Paquete> paquetes,
+            DatosEnMemoriaService datosEnMemoriaService, int hilos, long semilla) {
+        ValidadorRutas validador = datosEnMemoriaService.getValidadorRutas(aeropuertos, vuelos);
+        synchronized (validador) {
+            return verificacionTotalPaquetesSimulacion(validador, envios, paquetes, datosEnMemoriaService, hilos,
+                    semilla);
+        }
+    }
+
+    private static int verificacionTotalPaquetesSimulacion(ValidadorRutas validador, HashMap<String, Envio> envios,
+            ArrayList<Paquete> paquetes, DatosEnMemoriaService datosEnMemoriaService, int hilos, long semilla) {
+        int n = paquetes.size();
         int rutasNuevas = 0;
         Boolean esSolucionValida;
         int paquetesEntregados = 0;
         int paquetesRutasSalvadas = 0;
 
-        // Limpiar carga por día
-        for (int i : vuelos.keySet()) {
-            vuelos.get(i).setCargaPorDia(new HashMap<>());
-        }
-
-        // Limpiar carga por día de los aeropuertos
-        for (String i : aeropuertos.keySet()) {
-            aeropuertos.get(i).setCantPaqParaPlanificacion(new TreeMap<>());
-        }
+        // Limpiar carga por día de los vuelos y de los aeropuertos
+        validador.reiniciar(envios);
+        boolean[] validos = hilos > 1 || semilla >= 0 ? validador.validarTodos(paquetes, hilos, semilla) : null;
 
         // Verifico todos los paquetes
         for (int j = 0; j < n; j++) {
             // Asignar solución a paquete
             Paquete paquete = paquetes.get(j);
-            esSolucionValida = solucionValidav2(aeropuertos, vuelos, envios, paquete, false);
+            esSolucionValida = validos != null ? validos[j]
+                    : validador.validar(paquete, ValidadorRutas.Modo.COMPROMETER);
             if (esSolucionValida) {
                 Envio envio = envios.get(paquete.getCodigoEnvio());
-                String cadenaABuscar = envio.getOrigen() + envio.getDestino();
-                for (int i : paquete.getRuta()) {
-                    cadenaABuscar += ("-" + i);
-                }
-                if (!datosEnMemoriaService.seTieneruta(cadenaABuscar)) {
+                if (!datosEnMemoriaService.seTieneRuta(envio, paquete)) {
                     // Por ahora no se inserta en la base de datos
                     // datosEnMemoriaService.insertarRuta(envio, paquete);
                     // rutasNuevas++;
@@ -668,14 +664,8 @@ public class Auxiliares {
 
 
 
-        // Limpiar carga por día de los aeropuertos
-        for (String i : aeropuertos.keySet()) {
-            aeropuertos.get(i).setCantPaqParaPlanificacion(new TreeMap<>());
-        }
-        // Limpiar carga por día
-        for (int i : vuelos.keySet()) {
-            vuelos.get(i).setCargaPorDia(new HashMap<>());
-        }
+        // Limpiar carga por día de los vuelos y de los aeropuertos
+        validador.reiniciar();
 
         return paquetesEntregados + paquetesRutasSalvadas;
     }
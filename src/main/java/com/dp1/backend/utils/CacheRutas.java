@@ -0,0 +1,178 @@
+package com.dp1.backend.utils;
+
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Conjunto de rutas conocidas (origen, destino y sucesión de vuelos), con un valor asociado a cada ruta
+ * (p. ej. su RutaPosible). Reemplaza al HashSet<String> de llaves "SKBOSEQM-12-345": consultar o insertar
+ * una ruta no arma ningún String.
+ *
+ * - El par origen-destino se empaqueta en un long con los ordinales de AirportGeoIndex.
+ * - La llave completa se reduce a un hash de 64 bits (par y vuelos) y se guarda en una tabla de
+ *   direccionamiento abierto con sondeo lineal sobre un int[] (posición de la entrada + 1; 0 = libre).
+ * - Las entradas están en arreglos planos: hash, par, inicio y largo de sus vuelos en un int[] común.
+ *
+ * No es seguro para varios hilos; no se eliminan rutas.
+ */
+public class CacheRutas<V> {
+    private static final int CAPACIDAD_INICIAL = 1024;
+
+    private final AirportGeoIndex aeropuertos;
+
+    private int[] tabla = new int[CAPACIDAD_INICIAL];
+    private int mascara = CAPACIDAD_INICIAL - 1;
+
+    private int cantidad = 0;
+    private long[] hashEntrada = new long[CAPACIDAD_INICIAL / 2];
+    private long[] parEntrada = new long[CAPACIDAD_INICIAL / 2];
+    private int[] inicioVuelos = new int[CAPACIDAD_INICIAL / 2];
+    private int[] largoVuelos = new int[CAPACIDAD_INICIAL / 2];
+    private Object[] valores = new Object[CAPACIDAD_INICIAL / 2];
+    private int[] vuelos = new int[CAPACIDAD_INICIAL * 2];
+    private int totalVuelos = 0;
+
+    public CacheRutas(AirportGeoIndex aeropuertos) {
+        this.aeropuertos = aeropuertos;
+    }
+
+    public int size() {
+        return this.cantidad;
+    }
+
+    // Par origen-destino empaquetado (los ordinales son no negativos; -1 si el aeropuerto no existe)
+    public long par(String origen, String destino) {
+        int o = aeropuertos.ordinal(origen);
+        int d = aeropuertos.ordinal(destino);
+        if (o < 0 || d < 0) {
+            return -1;
+        }
+        return ((long) o << 32) | d;
+    }
+
+    public boolean contiene(String origen, String destino, List<Integer> idVuelos) {
+        return buscarEntrada(par(origen, destino), idVuelos) >= 0;
+    }
+
+    // Posición de la ruta (para leer su valor con valorEn), o -1 si no está. Sirve para saber con una sola
+    // búsqueda si la ruta está y si tiene valor
+    public int entrada(String origen, String destino, List<Integer> idVuelos) {
+        return buscarEntrada(par(origen, destino), idVuelos);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V valorEn(int entrada) {
+        return (V) valores[entrada];
+    }
+
+    // Valor de la ruta, o null si no está (o si se guardó sin valor)
+    @SuppressWarnings("unchecked")
+    public V buscar(String origen, String destino, List<Integer> idVuelos) {
+        int entrada = buscarEntrada(par(origen, destino), idVuelos);
+        return entrada < 0 ? null : (V) valores[entrada];
+    }
+
+    // Agrega la ruta si no estaba. Si ya estaba, solo completa el valor cuando no tenía uno. Devuelve si la
+    // ruta es nueva
+    public boolean agregar(String origen, String destino, List<Integer> idVuelos, V valor) {
+        long par = par(origen, destino);
+        if (par < 0) {
+            return false;
+        }
+        long h = hash(par, idVuelos);
+        int slot = (int) h & mascara;
+        while (tabla[slot] != 0) {
+            int entrada = tabla[slot] - 1;
+            if (coincide(entrada, h, par, idVuelos)) {
+                if (valores[entrada] == null) {
+                    valores[entrada] = valor;
+                }
+                return false;
+            }
+            slot = (slot + 1) & mascara;
+        }
+        int entrada = nuevaEntrada(h, par, idVuelos, valor);
+        tabla[slot] = entrada + 1;
+        // Factor de carga de 1/2: con sondeo lineal las búsquedas siguen siendo cortas
+        if (cantidad * 2 > tabla.length) {
+            redimensionar(tabla.length * 2);
+        }
+        return true;
+    }
+
+    private int buscarEntrada(long par, List<Integer> idVuelos) {
+        if (par < 0) {
+            return -1;
+        }
+        long h = hash(par, idVuelos);
+        for (int slot = (int) h & mascara; tabla[slot] != 0; slot = (slot + 1) & mascara) {
+            int entrada = tabla[slot] - 1;
+            if (coincide(entrada, h, par, idVuelos)) {
+                return entrada;
+            }
+        }
+        return -1;
+    }
+
+    private boolean coincide(int entrada, long h, long par, List<Integer> idVuelos) {
+        if (hashEntrada[entrada] != h || parEntrada[entrada] != par || largoVuelos[entrada] != idVuelos.size()) {
+            return false;
+        }
+        int inicio = inicioVuelos[entrada];
+        for (int i = 0; i < idVuelos.size(); i++) {
+            if (vuelos[inicio + i] != idVuelos.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int nuevaEntrada(long h, long par, List<Integer> idVuelos, V valor) {
+        if (cantidad == hashEntrada.length) {
+            int tamanio = cantidad * 2;
+            hashEntrada = Arrays.copyOf(hashEntrada, tamanio);
+            parEntrada = Arrays.copyOf(parEntrada, tamanio);
+            inicioVuelos = Arrays.copyOf(inicioVuelos, tamanio);
+            largoVuelos = Arrays.copyOf(largoVuelos, tamanio);
+            valores = Arrays.copyOf(valores, tamanio);
+        }
+        if (totalVuelos + idVuelos.size() > vuelos.length) {
+            vuelos = Arrays.copyOf(vuelos, Math.max(vuelos.length * 2, totalVuelos + idVuelos.size()));
+        }
+        int entrada = cantidad++;
+        hashEntrada[entrada] = h;
+        parEntrada[entrada] = par;
+        inicioVuelos[entrada] = totalVuelos;
+        largoVuelos[entrada] = idVuelos.size();
+        valores[entrada] = valor;
+        for (int i = 0; i < idVuelos.size(); i++) {
+            vuelos[totalVuelos++] = idVuelos.get(i);
+        }
+        return entrada;
+    }
+
+    // Las entradas no se mueven: solo se vuelven a repartir sus posiciones en la tabla nueva
+    private void redimensionar(int tamanio) {
+        tabla = new int[tamanio];
+        mascara = tamanio - 1;
+        for (int entrada = 0; entrada < cantidad; entrada++) {
+            int slot = (int) hashEntrada[entrada] & mascara;
+            while (tabla[slot] != 0) {
+                slot = (slot + 1) & mascara;
+            }
+            tabla[slot] = entrada + 1;
+        }
+    }
+
+    // Mezcla de SplitMix64 sobre el par y cada vuelo, en orden
+    private static long hash(long par, List<Integer> idVuelos) {
+        long h = par * 0x9E3779B97F4A7C15L + idVuelos.size();
+        for (int i = 0; i < idVuelos.size(); i++) {
+            h = (h ^ idVuelos.get(i)) * 0xBF58476D1CE4E5B9L;
+            h ^= h >>> 31;
+        }
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+}
@@ -0,0 +1,308 @@
+package com.dp1.backend.utils;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Vuelo;
+
+/*
+ * Catálogo de rutas precalculado a partir del plan de vuelos. Los vuelos se repiten todos los días a la
+ * misma hora UTC (los husos de los aeropuertos son fijos), así que un itinerario se describe con la hora
+ * UTC de su primera salida y el desfase de cada tramo respecto a ella, y vale para cualquier día.
+ *
+ * Para cada vuelo que sale de un aeropuerto se corre un Dijkstra dependiente del tiempo (llegada más
+ * temprana, esperando en cada escala al siguiente vuelo que sale después de la llegada) hacia todos los
+ * demás aeropuertos. Cada destino alcanzado dentro del plazo (1 día en el mismo continente y 2 días entre
+ * continentes, como en EnvioService.createEnvio) da un itinerario para el par origen-destino. De cada par
+ * se guardan los k itinerarios más cortos, ordenados por duración.
+ *
+ * Todo se guarda en arreglos planos: los itinerarios del par (o, d) ocupan [inicioPar[o*n+d],
+ * inicioPar[o*n+d+1]) y los tramos del itinerario i ocupan [inicioTramos[i], inicioTramos[i+1]).
+ */
+public class CatalogoRutas {
+    private static final Logger logger = LogManager.getLogger(CatalogoRutas.class);
+
+    public static final int MINUTOS_DIA = 24 * 60;
+    public static final int K_POR_DEFECTO = 16;
+    private static final long SIN_LLEGADA = Long.MAX_VALUE;
+
+    private final AirportGeoIndex aeropuertos;
+    private final int n;
+    private final int k;
+    private final int[] inicioPar;
+    private final int[] primeraSalida; // minuto del día (UTC) en que sale el primer vuelo
+    private final int[] duracion; // minutos desde la primera salida hasta la llegada al destino
+    private final int[] inicioTramos;
+    private final int[] vueloTramo; // id del Vuelo de cada tramo
+    private final int[] salidaTramo; // minutos desde la primera salida hasta la salida del tramo
+    private final int[] llegadaTramo; // minutos desde la primera salida hasta la llegada del tramo
+
+    private CatalogoRutas(AirportGeoIndex aeropuertos, int k, int[] inicioPar, int[] primeraSalida,
+            int[] duracion, int[] inicioTramos, int[] vueloTramo, int[] salidaTramo, int[] llegadaTramo) {
+        this.aeropuertos = aeropuertos;
+        this.n = aeropuertos.getCantidadAeropuertos();
+        this.k = k;
+        this.inicioPar = inicioPar;
+        this.primeraSalida = primeraSalida;
+        this.duracion = duracion;
+        this.inicioTramos = inicioTramos;
+        this.vueloTramo = vueloTramo;
+        this.salidaTramo = salidaTramo;
+        this.llegadaTramo = llegadaTramo;
+    }
+
+    public static CatalogoRutas construir(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos) {
+        return construir(aeropuertos, vuelos, K_POR_DEFECTO);
+    }
+
+    public static CatalogoRutas construir(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            int k) {
+        long inicio = System.currentTimeMillis();
+        AirportGeoIndex geo = AirportGeoIndex.construir(aeropuertos);
+        int n = geo.getCantidadAeropuertos();
+
+        // Vuelos diarios como conexiones periódicas, agrupados por origen y ordenados por hora de salida
+        int m = 0;
+        int[] id = new int[vuelos.size()], origen = new int[vuelos.size()], destino = new int[vuelos.size()];
+        int[] salida = new int[vuelos.size()], duracionVuelo = new int[vuelos.size()];
+        for (Map.Entry<Integer, Vuelo> entrada : vuelos.entrySet()) {
+            Vuelo vuelo = entrada.getValue();
+            int o = geo.ordinal(vuelo.getOrigen());
+            int d = geo.ordinal(vuelo.getDestino());
+            // Igual que al generar los vuelos programados: la llegada es del mismo día local que la salida,
+            // más el cambio de día
+            ZonedDateTime fechaHoraSalida = vuelo.getFechaHoraSalida();
+            LocalDate ld = fechaHoraSalida.toLocalDate();
+            ZonedDateTime fechaHoraLlegada = vuelo.getFechaHoraLlegada().with(ld).plusDays(vuelo.getCambioDeDia());
+            long minutoSalida = aco_auxiliares.minutoEpoch(fechaHoraSalida);
+            long minutos = aco_auxiliares.minutoEpoch(fechaHoraLlegada) - minutoSalida;
+            if (o < 0 || d < 0 || o == d || minutos <= 0) {
+                continue;
+            }
+            id[m] = entrada.getKey();
+            origen[m] = o;
+            destino[m] = d;
+            salida[m] = (int) Math.floorMod(minutoSalida, (long) MINUTOS_DIA);
+            duracionVuelo[m] = (int) minutos;
+            m++;
+        }
+        Integer[] orden = new Integer[m];
+        for (int i = 0; i < m; i++) {
+            orden[i] = i;
+        }
+        Arrays.sort(orden, (a, b) -> origen[a] != origen[b] ? Integer.compare(origen[a], origen[b])
+                : Integer.compare(salida[a], salida[b]));
+        int[] inicioOrigen = new int[n + 1];
+        int[] porOrigen = new int[m];
+        for (int i = 0; i < m; i++) {
+            porOrigen[i] = orden[i];
+            inicioOrigen[origen[orden[i]] + 1]++;
+        }
+        for (int o = 0; o < n; o++) {
+            inicioOrigen[o + 1] += inicioOrigen[o];
+        }
+
+        // Plazo de cada par según continentes
+        int[] plazo = new int[n * n];
+        for (int o = 0; o < n; o++) {
+            Aeropuerto a = aeropuertos.get(geo.codigo(o));
+            for (int d = 0; d < n; d++) {
+                Aeropuerto b = aeropuertos.get(geo.codigo(d));
+                boolean mismoContinente = a.getContinente() != null && a.getContinente().equals(b.getContinente());
+                plazo[o * n + d] = (mismoContinente ? 1 : 2) * MINUTOS_DIA;
+            }
+        }
+
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        ArrayList<int[]>[] porPar = new ArrayList[n * n];
+        long[] llegada = new long[n];
+        int[] vueloPadre = new int[n];
+        long[] salidaPadre = new long[n];
+        boolean[] cerrado = new boolean[n];
+        int[] camino = new int[n];
+        for (int primero = 0; primero < m; primero++) {
+            int f = porOrigen[primero];
+            int o = origen[f];
+            int salidaInicial = salida[f];
+            Arrays.fill(llegada, SIN_LLEGADA);
+            Arrays.fill(cerrado, false);
+            cerrado[o] = true;
+            llegada[destino[f]] = duracionVuelo[f];
+            vueloPadre[destino[f]] = f;
+            salidaPadre[destino[f]] = 0;
+
+            // Dijkstra sobre los aeropuertos (son pocos: se escoge el mínimo recorriéndolos)
+            while (true) {
+                int u = -1;
+                for (int v = 0; v < n; v++) {
+                    if (!cerrado[v] && llegada[v] != SIN_LLEGADA && (u < 0 || llegada[v] < llegada[u])) {
+                        u = v;
+                    }
+                }
+                if (u < 0 || llegada[u] > 2 * MINUTOS_DIA) {
+                    break;
+                }
+                cerrado[u] = true;
+                int horaLlegada = (int) ((salidaInicial + llegada[u]) % MINUTOS_DIA);
+                for (int p = inicioOrigen[u]; p < inicioOrigen[u + 1]; p++) {
+                    int g = porOrigen[p];
+                    int v = destino[g];
+                    if (cerrado[v]) {
+                        continue;
+                    }
+                    // Se toma la siguiente salida estrictamente posterior a la llegada (como IndiceSalidas)
+                    int espera = Math.floorMod(salida[g] - horaLlegada, MINUTOS_DIA);
+                    if (espera == 0) {
+                        espera = MINUTOS_DIA;
+                    }
+                    long salidaG = llegada[u] + espera;
+                    long llegadaG = salidaG + duracionVuelo[g];
+                    if (llegadaG < llegada[v]) {
+                        llegada[v] = llegadaG;
+                        vueloPadre[v] = g;
+                        salidaPadre[v] = salidaG;
+                    }
+                }
+            }
+
+            for (int d = 0; d < n; d++) {
+                if (d == o || llegada[d] == SIN_LLEGADA || llegada[d] > plazo[o * n + d]) {
+                    continue;
+                }
+                // El camino se arma del destino hacia atrás
+                int tramos = 0;
+                for (int v = d; v != o; v = origen[vueloPadre[v]]) {
+                    camino[tramos++] = v;
+                }
+                // itinerario: [primeraSalida, duracion, (vuelo, salida, llegada) por tramo]
+                int[] itinerario = new int[2 + 3 * tramos];
+                itinerario[0] = salidaInicial;
+                itinerario[1] = (int) llegada[d];
+                for (int t = 0; t < tramos; t++) {
+                    int v = camino[tramos - 1 - t];
+                    int g = vueloPadre[v];
+                    itinerario[2 + 3 * t] = id[g];
+                    itinerario[3 + 3 * t] = (int) salidaPadre[v];
+                    itinerario[4 + 3 * t] = (int) llegada[v];
+                }
+                if (porPar[o * n + d] == null) {
+                    porPar[o * n + d] = new ArrayList<>();
+                }
+                porPar[o * n + d].add(itinerario);
+            }
+        }
+
+        // Nos quedamos con los k más cortos de cada par y pasamos todo a arreglos planos
+        int[] inicioPar = new int[n * n + 1];
+        int totalItinerarios = 0, totalTramos = 0;
+        for (int par = 0; par < n * n; par++) {
+            ArrayList<int[]> lista = porPar[par];
+            if (lista != null) {
+                lista.sort((a, b) -> a[1] != b[1] ? Integer.compare(a[1], b[1]) : Integer.compare(a[0], b[0]));
+                while (lista.size() > k) {
+                    lista.remove(lista.size() - 1);
+                }
+                totalItinerarios += lista.size();
+                for (int[] itinerario : lista) {
+                    totalTramos += (itinerario.length - 2) / 3;
+                }
+            }
+            inicioPar[par + 1] = totalItinerarios;
+        }
+        int[] primeraSalida = new int[totalItinerarios], duracion = new int[totalItinerarios];
+        int[] inicioTramos = new int[totalItinerarios + 1];
+        int[] vueloTramo = new int[totalTramos];
+        int[] salidaTramo = new int[totalTramos];
+        int[] llegadaTramo = new int[totalTramos];
+        int i = 0, t = 0;
+        for (int par = 0; par < n * n; par++) {
+            if (porPar[par] == null) {
+                continue;
+            }
+            for (int[] itinerario : porPar[par]) {
+                primeraSalida[i] = itinerario[0];
+                duracion[i] = itinerario[1];
+                inicioTramos[i] = t;
+                for (int j = 2; j < itinerario.length; j += 3) {
+                    vueloTramo[t] = itinerario[j];
+                    salidaTramo[t] = itinerario[j + 1];
+                    llegadaTramo[t] = itinerario[j + 2];
+                    t++;
+                }
+                i++;
+                inicioTramos[i] = t;
+            }
+        }
+        logger.info("Catálogo de rutas: " + totalItinerarios + " itinerarios (" + totalTramos + " tramos) para "
+                + n + " aeropuertos en " + (System.currentTimeMillis() - inicio) + " ms");
+        return new CatalogoRutas(geo, k, inicioPar, primeraSalida, duracion, inicioTramos, vueloTramo, salidaTramo,
+                llegadaTramo);
+    }
+
+    public AirportGeoIndex getAeropuertos() {
+        return this.aeropuertos;
+    }
+
+    public int getK() {
+        return this.k;
+    }
+
+    public int getTotalItinerarios() {
+        return this.duracion.length;
+    }
+
+    public int ordinal(String codigoOACI) {
+        return aeropuertos.ordinal(codigoOACI);
+    }
+
+    public int cantidadItinerarios(int origen, int destino) {
+        if (origen < 0 || destino < 0) {
+            return 0;
+        }
+        int par = origen * n + destino;
+        return inicioPar[par + 1] - inicioPar[par];
+    }
+
+    // Índice del itinerario en la posición dada (0 = el más corto) del par origen-destino
+    public int itinerario(int origen, int destino, int posicion) {
+        return inicioPar[origen * n + destino] + posicion;
+    }
+
+    public int getPrimeraSalida(int itinerario) {
+        return primeraSalida[itinerario];
+    }
+
+    public int getDuracion(int itinerario) {
+        return duracion[itinerario];
+    }
+
+    public int cantidadTramos(int itinerario) {
+        return inicioTramos[itinerario + 1] - inicioTramos[itinerario];
+    }
+
+    public int vueloEn(int itinerario, int tramo) {
+        return vueloTramo[inicioTramos[itinerario] + tramo];
+    }
+
+    public int salidaEn(int itinerario, int tramo) {
+        return salidaTramo[inicioTramos[itinerario] + tramo];
+    }
+
+    public int llegadaEn(int itinerario, int tramo) {
+        return llegadaTramo[inicioTramos[itinerario] + tramo];
+    }
+
+    // Minuto epoch de la primera salida del itinerario estrictamente posterior al minuto dado
+    public long siguienteSalida(int itinerario, long minuto) {
+        long espera = Math.floorMod(primeraSalida[itinerario] - minuto, (long) MINUTOS_DIA);
+        return minuto + (espera == 0 ? MINUTOS_DIA : espera);
+    }
+}
@@ -0,0 +1,292 @@
+package com.dp1.backend.utils;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.ProgramacionVuelo;
+import com.dp1.backend.models.Vuelo;
+
+/*
+ * Connection Scan Algorithm sobre los vuelos programados de un horizonte. Cada vuelo programado es una
+ * conexión (origen, destino, minuto de salida, minuto de llegada) y todas se guardan en arreglos planos
+ * ordenados por salida (y una permutación ordenada por llegada para las consultas hacia atrás):
+ * - llegadaMasTemprana: sale del origen después de un minuto dado y llega lo antes posible al destino.
+ * - salidaMasTardia: llega al destino a más tardar en un minuto dado y sale del origen lo más tarde posible.
+ * Cada consulta es un único recorrido del arreglo desde la primera conexión útil, sin colas de prioridad.
+ *
+ * Las variantes con capacidad reciben el PlanningState del horizonte y saltan los vuelos llenos. Como en el
+ * ACO, en una escala solo se pueden tomar los vuelos que salen estrictamente después de la llegada.
+ *
+ * El router es inmutable y las consultas solo usan arreglos locales, así que se puede compartir entre hilos
+ * mientras no cambie el horizonte del que salió (ver HorizonteVuelos.getVersion).
+ */
+public class CsaRouter {
+    private static final long SIN_TIEMPO = Long.MAX_VALUE;
+
+    private final AirportGeoIndex aeropuertos;
+    private final int n;
+    private final long version;
+    private final int[] origen;
+    private final int[] destino;
+    private final long[] salida;
+    private final long[] llegada;
+    private final int[] idProgramado;
+    private final int[] idVuelo;
+    // Conexiones ordenadas por llegada (índices sobre los arreglos anteriores)
+    private final int[] porLlegada;
+
+    private CsaRouter(AirportGeoIndex aeropuertos, long version, int[] origen, int[] destino, long[] salida,
+            long[] llegada, int[] idProgramado, int[] idVuelo) {
+        this.aeropuertos = aeropuertos;
+        this.n = aeropuertos.getCantidadAeropuertos();
+        this.version = version;
+        this.origen = origen;
+        this.destino = destino;
+        this.salida = salida;
+        this.llegada = llegada;
+        this.idProgramado = idProgramado;
+        this.idVuelo = idVuelo;
+        // (llegada << 32) | índice: ordenar los long ordena por llegada sin comparadores ni objetos
+        long[] llaves = new long[llegada.length];
+        for (int i = 0; i < llaves.length; i++) {
+            llaves[i] = (llegada[i] << 32) | i;
+        }
+        Arrays.sort(llaves);
+        this.porLlegada = new int[llaves.length];
+        for (int i = 0; i < llaves.length; i++) {
+            porLlegada[i] = (int) llaves[i];
+        }
+    }
+
+    // Router sobre los vuelos programados que tiene el horizonte en este momento
+    public static CsaRouter construir(HorizonteVuelos horizonte, HashMap<Integer, Vuelo> vuelos) {
+        AirportGeoIndex geo = horizonte.getIndiceSalidas().getAeropuertos();
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        int m = vuelosProgramados.size();
+        long[] llaves = new long[m];
+        int k = 0;
+        for (Map.Entry<Integer, ProgramacionVuelo> entrada : vuelosProgramados.entrySet()) {
+            // Mismo empaquetado que IndiceSalidas: ordenar los long ordena por salida
+            llaves[k++] = (entrada.getValue().getMinutoSalida() << 32) | (entrada.getKey() & 0xFFFFFFFFL);
+        }
+        Arrays.sort(llaves);
+        int[] origen = new int[m], destino = new int[m], idProgramado = new int[m], idVuelo = new int[m];
+        long[] salida = new long[m], llegada = new long[m];
+        for (int i = 0; i < m; i++) {
+            int id = (int) llaves[i];
+            ProgramacionVuelo pv = vuelosProgramados.get(id);
+            Vuelo vuelo = vuelos.get(pv.getIdVuelo());
+            origen[i] = geo.ordinal(vuelo.getOrigen());
+            destino[i] = geo.ordinal(vuelo.getDestino());
+            salida[i] = pv.getMinutoSalida();
+            llegada[i] = pv.getMinutoLlegada();
+            idProgramado[i] = id;
+            idVuelo[i] = pv.getIdVuelo();
+        }
+        return new CsaRouter(geo, horizonte.getVersion(), origen, destino, salida, llegada, idProgramado, idVuelo);
+    }
+
+    // Router sobre los vuelos de los días [fechaInicio, fechaInicio + dias), sin estado de capacidad
+    public static CsaRouter paraDias(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            LocalDate fechaInicio, int dias) {
+        HorizonteVuelos horizonte = new HorizonteVuelos(AirportGeoIndex.construir(aeropuertos));
+        horizonte.asegurarDias(fechaInicio, dias, vuelos);
+        return construir(horizonte, vuelos);
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public int getCantidadConexiones() {
+        return this.salida.length;
+    }
+
+    public long getPrimerMinuto() {
+        return salida.length == 0 ? aco_auxiliares.SIN_MINUTO : salida[0];
+    }
+
+    public long getUltimoMinuto() {
+        return porLlegada.length == 0 ? aco_auxiliares.SIN_MINUTO : llegada[porLlegada[porLlegada.length - 1]];
+    }
+
+    public int ordinal(String codigoOACI) {
+        return aeropuertos.ordinal(codigoOACI);
+    }
+
+    public Itinerario llegadaMasTemprana(String origen, long minutoSalida, String destino) {
+        return llegadaMasTemprana(ordinal(origen), minutoSalida, ordinal(destino), null);
+    }
+
+    // Llegada más temprana saliendo del origen estrictamente después de minutoSalida. Con estado, salta los
+    // vuelos sin capacidad. Devuelve null si no se llega dentro del horizonte
+    public Itinerario llegadaMasTemprana(int o, long minutoSalida, int d, PlanningState estado) {
+        if (o < 0 || d < 0 || o == d) {
+            return null;
+        }
+        long[] masTemprana = new long[n];
+        int[] conexionEntrada = new int[n];
+        Arrays.fill(masTemprana, SIN_TIEMPO);
+        masTemprana[o] = minutoSalida;
+        for (int c = primeraSalidaDespuesDe(minutoSalida); c < salida.length; c++) {
+            // Ninguna conexión posterior puede mejorar la llegada al destino
+            if (salida[c] >= masTemprana[d]) {
+                break;
+            }
+            int desde = origen[c];
+            if (masTemprana[desde] >= salida[c] || llegada[c] >= masTemprana[destino[c]]) {
+                continue;
+            }
+            if (estado != null && !tieneEspacio(estado, c)) {
+                continue;
+            }
+            masTemprana[destino[c]] = llegada[c];
+            conexionEntrada[destino[c]] = c;
+        }
+        if (masTemprana[d] == SIN_TIEMPO) {
+            return null;
+        }
+        // Del destino hacia atrás por las conexiones de entrada
+        int tramos = 0;
+        int[] camino = new int[n];
+        for (int parada = d; parada != o; parada = origen[camino[tramos - 1]]) {
+            camino[tramos++] = conexionEntrada[parada];
+        }
+        int[] conexiones = new int[tramos];
+        for (int i = 0; i < tramos; i++) {
+            conexiones[i] = camino[tramos - 1 - i];
+        }
+        return new Itinerario(conexiones);
+    }
+
+    public Itinerario salidaMasTardia(String origen, String destino, long minutoLlegadaLimite) {
+        return salidaMasTardia(ordinal(origen), ordinal(destino), aco_auxiliares.SIN_MINUTO, minutoLlegadaLimite,
+                null);
+    }
+
+    // Salida más tardía del origen (estrictamente después de minutoSalidaMinimo) para llegar al destino a
+    // más tardar en minutoLlegadaLimite. Con estado, salta los vuelos sin capacidad
+    public Itinerario salidaMasTardia(int o, int d, long minutoSalidaMinimo, long minutoLlegadaLimite,
+            PlanningState estado) {
+        if (o < 0 || d < 0 || o == d) {
+            return null;
+        }
+        // masTardia[x]: hora más tardía a la que se puede estar en x y todavía llegar a tiempo al destino
+        long[] masTardia = new long[n];
+        int[] conexionSalida = new int[n];
+        Arrays.fill(masTardia, Long.MIN_VALUE);
+        masTardia[d] = minutoLlegadaLimite;
+        for (int p = ultimaLlegadaHasta(minutoLlegadaLimite); p >= 0; p--) {
+            int c = porLlegada[p];
+            // Las conexiones restantes llegan antes de poder salir del origen
+            if (llegada[c] <= minutoSalidaMinimo) {
+                break;
+            }
+            if (llegada[c] > masTardia[destino[c]] || salida[c] <= minutoSalidaMinimo) {
+                continue;
+            }
+            int desde = origen[c];
+            // Para tomar la conexión hay que estar en el origen antes de su salida
+            if (salida[c] - 1 <= masTardia[desde] || desde == d) {
+                continue;
+            }
+            if (estado != null && !tieneEspacio(estado, c)) {
+                continue;
+            }
+            masTardia[desde] = salida[c] - 1;
+            conexionSalida[desde] = c;
+        }
+        if (masTardia[o] == Long.MIN_VALUE) {
+            return null;
+        }
+        // Del origen hacia adelante por las conexiones de salida
+        int tramos = 0;
+        int[] camino = new int[n];
+        for (int parada = o; parada != d && tramos < n; parada = destino[camino[tramos - 1]]) {
+            camino[tramos++] = conexionSalida[parada];
+        }
+        return new Itinerario(Arrays.copyOf(camino, tramos));
+    }
+
+    private boolean tieneEspacio(PlanningState estado, int conexion) {
+        int id = idProgramado[conexion];
+        return estado.getCarga(id) + 1 < estado.getCapacidad(id);
+    }
+
+    private int primeraSalidaDespuesDe(long minuto) {
+        int bajo = 0, alto = salida.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (salida[medio] <= minuto) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    // Posición en porLlegada de la última conexión que llega a más tardar en el minuto dado
+    private int ultimaLlegadaHasta(long minuto) {
+        int bajo = 0, alto = porLlegada.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (llegada[porLlegada[medio]] <= minuto) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo - 1;
+    }
+
+    /*
+     * Resultado de una consulta: las conexiones del itinerario, en orden de viaje.
+     */
+    public class Itinerario {
+        private final int[] conexiones;
+
+        private Itinerario(int[] conexiones) {
+            this.conexiones = conexiones;
+        }
+
+        public int getCantidadTramos() {
+            return conexiones.length;
+        }
+
+        public long getMinutoSalida() {
+            return salida[conexiones[0]];
+        }
+
+        public long getMinutoLlegada() {
+            return llegada[conexiones[conexiones.length - 1]];
+        }
+
+        public int idProgramadoEn(int tramo) {
+            return idProgramado[conexiones[tramo]];
+        }
+
+        public int idVueloEn(int tramo) {
+            return idVuelo[conexiones[tramo]];
+        }
+
+        public String origenEn(int tramo) {
+            return aeropuertos.codigo(origen[conexiones[tramo]]);
+        }
+
+        public String destinoEn(int tramo) {
+            return aeropuertos.codigo(destino[conexiones[tramo]]);
+        }
+
+        public long salidaEn(int tramo) {
+            return salida[conexiones[tramo]];
+        }
+
+        public long llegadaEn(int tramo) {
+            return llegada[conexiones[tramo]];
+        }
+    }
+}
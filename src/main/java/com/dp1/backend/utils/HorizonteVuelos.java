@@ -0,0 +1,202 @@
+package com.dp1.backend.utils;
+
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.dp1.backend.models.ProgramacionVuelo;
+import com.dp1.backend.models.Vuelo;
+
+/*
+ * Horizonte de vuelos programados: genera los ProgramacionVuelo de un día solo cuando algún paquete los
+ * puede necesitar y descarta los días que ya quedaron atrás. Reemplaza a la lista fechasVuelos que solo
+ * crecía: en una simulación de horas, los vuelos programados (y su fila en el PlanningState y en el índice
+ * de salidas) se acumulaban sin límite.
+ *
+ * Al descartar un día, sus ordinales quedan libres y se reutilizan para los días nuevos, así que el
+ * PlanningState no crece más allá de lo que ocupa la ventana.
+ */
+public class HorizonteVuelos {
+    private static final Logger logger = LogManager.getLogger(HorizonteVuelos.class);
+
+    // Ventana por defecto alrededor de la hora actual de la simulación
+    public static final int DIAS_ANTES = 1;
+    public static final int DIAS_DESPUES = 3;
+    private static final double FEROMONA_INICIAL = 0.1;
+
+    private final PlanningState estado;
+    private final HashMap<Integer, ProgramacionVuelo> vuelosProgramados;
+    private final IndiceSalidas indiceSalidas;
+    // Ordinales de los vuelos programados de cada día (fecha local de salida), en orden de fecha
+    private final TreeMap<LocalDate, int[]> dias = new TreeMap<>();
+    private int[] libres = new int[0];
+    private int numLibres = 0;
+    private long vuelosDescartados = 0;
+    // Cambia cada vez que se generan o descartan días (para saber si algo calculado sobre el horizonte sigue
+    // vigente)
+    private long version = 0;
+
+    public HorizonteVuelos(AirportGeoIndex aeropuertos) {
+        this(new PlanningState(), new HashMap<>(), new IndiceSalidas(aeropuertos));
+    }
+
+    public HorizonteVuelos(PlanningState estado, HashMap<Integer, ProgramacionVuelo> vuelosProgramados,
+            IndiceSalidas indiceSalidas) {
+        this.estado = estado;
+        this.vuelosProgramados = vuelosProgramados;
+        this.indiceSalidas = indiceSalidas;
+    }
+
+    public PlanningState getEstado() {
+        return this.estado;
+    }
+
+    public HashMap<Integer, ProgramacionVuelo> getVuelosProgramados() {
+        return this.vuelosProgramados;
+    }
+
+    public IndiceSalidas getIndiceSalidas() {
+        return this.indiceSalidas;
+    }
+
+    public ArrayList<LocalDate> getFechas() {
+        return new ArrayList<>(dias.keySet());
+    }
+
+    public boolean contiene(LocalDate fecha) {
+        return dias.containsKey(fecha);
+    }
+
+    public long getVersion() {
+        return this.version;
+    }
+
+    public long getVuelosDescartados() {
+        return this.vuelosDescartados;
+    }
+
+    // Mueve la ventana a la hora dada: descarta los días anteriores a (ahora - DIAS_ANTES) y genera los que
+    // falten hasta (ahora + DIAS_DESPUES)
+    public void avanzar(ZonedDateTime ahora, HashMap<Integer, Vuelo> vuelos) {
+        LocalDate hoy = ahora.toLocalDate();
+        descartarAntesDe(hoy.minusDays(DIAS_ANTES));
+        asegurarDias(hoy.minusDays(DIAS_ANTES), DIAS_ANTES + DIAS_DESPUES + 1, vuelos);
+    }
+
+    // Genera los vuelos de los días [fechaInicio, fechaInicio + numeroDias) que aún no estén generados
+    public void asegurarDias(LocalDate fechaInicio, int numeroDias, HashMap<Integer, Vuelo> vuelos) {
+        for (int i = 0; i < numeroDias; i++) {
+            LocalDate ld = fechaInicio.plusDays(i);
+            if (!dias.containsKey(ld)) {
+                generarDia(ld, vuelos);
+            }
+        }
+    }
+
+    private void generarDia(LocalDate ld, HashMap<Integer, Vuelo> vuelos) {
+        int[] ordinales = new int[vuelos.size()];
+        int k = 0;
+        for (Map.Entry<Integer, Vuelo> entrada : vuelos.entrySet()) {
+            int idVuelo = entrada.getKey();
+            Vuelo vuelo = entrada.getValue();
+
+            ZonedDateTime fechaHoraSalida = vuelo.getFechaHoraSalida().with(ld);
+            ZonedDateTime fechaHoraLlegada = vuelo.getFechaHoraLlegada().with(ld);
+            fechaHoraLlegada = fechaHoraLlegada.plusDays(vuelo.getCambioDeDia()); // la variable "cambio de dia"
+                                                                                  // me causa ruido.
+
+            // El estado guardará para cada vuelo su información: capacidad, capacidad dinámica y feromonas
+            int idProgramado;
+            if (numLibres > 0) {
+                idProgramado = libres[--numLibres];
+                estado.reutilizarVuelo(idProgramado, vuelo.getCapacidad(), FEROMONA_INICIAL);
+            } else {
+                idProgramado = estado.registrarVuelo(vuelo.getCapacidad(), FEROMONA_INICIAL);
+            }
+            ProgramacionVuelo pv = new ProgramacionVuelo(idProgramado, idVuelo, fechaHoraSalida, fechaHoraLlegada);
+            vuelosProgramados.put(idProgramado, pv);
+            indiceSalidas.registrar(vuelo.getOrigen(), fechaHoraSalida, idProgramado);
+            ordinales[k++] = idProgramado;
+        }
+        dias.put(ld, ordinales);
+        version++;
+    }
+
+    // Vuelo programado del vuelo dado que sale en esa fecha local, o -1 si ese día no está generado
+    public int buscarProgramado(int idVuelo, LocalDate fechaSalida) {
+        int[] ordinales = dias.get(fechaSalida);
+        if (ordinales == null) {
+            return -1;
+        }
+        for (int id : ordinales) {
+            if (vuelosProgramados.get(id).getIdVuelo() == idVuelo) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    // Snapshot del estado de otro horizonte con la carga y la capacidad (p. ej. vuelos cancelados) que tienen
+    // aquí los mismos vuelos en los días que están en ambos; los demás días quedan como en el otro
+    public PlanningState estadoSobre(HorizonteVuelos otro) {
+        PlanningState copia = otro.estado.snapshot();
+        for (Map.Entry<LocalDate, int[]> dia : otro.dias.entrySet()) {
+            int[] propios = dias.get(dia.getKey());
+            if (propios == null) {
+                continue;
+            }
+            HashMap<Integer, Integer> porVuelo = new HashMap<>();
+            for (int id : propios) {
+                porVuelo.put(vuelosProgramados.get(id).getIdVuelo(), id);
+            }
+            for (int idOtro : dia.getValue()) {
+                Integer id = porVuelo.get(otro.vuelosProgramados.get(idOtro).getIdVuelo());
+                if (id != null) {
+                    copia.setCarga(idOtro, estado.getCarga(id));
+                    copia.setCapacidad(idOtro, estado.getCapacidad(id));
+                }
+            }
+        }
+        return copia;
+    }
+
+    // Descarta los vuelos programados de los días anteriores a la fecha dada. Devuelve qué ordinales se
+    // descartaron (indexado por ordinal) o null si no había nada que descartar
+    public boolean[] descartarAntesDe(LocalDate fecha) {
+        Map<LocalDate, int[]> viejos = dias.headMap(fecha, false);
+        if (viejos.isEmpty()) {
+            return null;
+        }
+        boolean[] descartado = new boolean[estado.getTamanio()];
+        int cantidad = 0;
+        for (int[] ordinales : viejos.values()) {
+            for (int id : ordinales) {
+                descartado[id] = true;
+                vuelosProgramados.remove(id);
+                liberar(id);
+            }
+            cantidad += ordinales.length;
+        }
+        indiceSalidas.eliminar(id -> id < descartado.length && descartado[id]);
+        logger.info("Horizonte de vuelos: se descartan " + viejos.size() + " días (" + cantidad
+                + " vuelos programados) anteriores a " + fecha);
+        vuelosDescartados += cantidad;
+        viejos.clear();
+        version++;
+        return descartado;
+    }
+
+    private void liberar(int id) {
+        if (numLibres == libres.length) {
+            libres = Arrays.copyOf(libres, Math.max(1024, numLibres * 2));
+        }
+        libres[numLibres++] = id;
+    }
+}
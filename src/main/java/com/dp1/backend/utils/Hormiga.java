@@ -0,0 +1,235 @@
+package com.dp1.backend.utils;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+import com.dp1.backend.models.Aeropuerto;
+
+/*
+ * Una hormiga de la colonia: recorre todos los paquetes con su propio estado (carga de los vuelos
+ * programados y ocupación de los almacenes) y su propio selector de ruleta, de modo que
+ * varias hormigas puedan construir soluciones en paralelo sin compartir nada mutable.
+ *
+ * La solución se guarda de forma plana: para el paquete i, sus vuelos programados están en
+ * vuelos[inicioRuta[i] .. finRuta[i]) y los costos de cada decisión en las mismas posiciones.
+ *
+ * Los paquetes de un envío se enrutan juntos: mientras se construye el envío, sus saltos forman un árbol
+ * (nodos) en el que los paquetes que viajan en los mismos vuelos comparten el camino. Al terminar el
+ * envío, cada paquete copia a su ruta el camino desde la raíz hasta su nodo.
+ */
+public class Hormiga {
+    private final int numero;
+    private final PlanningState estado;
+    private final HashMap<String, Aeropuerto> aeropuertos;
+    private final SelectorRuleta selector;
+
+    private final int[] inicioRuta;
+    private final int[] finRuta;
+    private final boolean[] llego;
+    private int[] vuelos = new int[256];
+    private double[] costos = new double[256];
+    private int totalSaltos = 0;
+
+    private int entregados = 0;
+    private double costoTotal = 0;
+
+    // Estadísticas de la búsqueda, para las métricas: cuántos pasos tuvieron k candidatos y cuántos vuelos
+    // se descartaron por falta de capacidad del vuelo o del almacén de destino
+    private int[] pasosPorCandidatos = new int[64];
+    private long rechazosCapacidadVuelo = 0;
+    private long rechazosCapacidadAlmacen = 0;
+
+    // Arreglos de trabajo para los vuelos candidatos de cada paso
+    int[] candidatos = new int[64];
+    double[] costosCandidatos = new double[64];
+    double[] probabilidades = new double[64];
+    final SelectorRuleta.TablaAlias tablaAlias = new SelectorRuleta.TablaAlias();
+
+    // Árbol de saltos del envío que se está construyendo (se reinicia con cada envío)
+    private int[] nodoVuelo = new int[64];
+    private double[] nodoCosto = new double[64];
+    private int[] nodoPadre = new int[64];
+    private int totalNodos = 0;
+
+    public Hormiga(int numero, PlanningState estado, HashMap<String, Aeropuerto> aeropuertos, SelectorRuleta selector,
+            int numeroPaquetes) {
+        this.numero = numero;
+        this.estado = estado;
+        this.aeropuertos = aeropuertos;
+        this.selector = selector;
+        this.inicioRuta = new int[numeroPaquetes];
+        this.finRuta = new int[numeroPaquetes];
+        this.llego = new boolean[numeroPaquetes];
+    }
+
+    // Copia los aeropuertos para que la hormiga pueda registrar la ocupación de sus almacenes
+    public static HashMap<String, Aeropuerto> copiarAeropuertos(HashMap<String, Aeropuerto> aeropuertos) {
+        HashMap<String, Aeropuerto> copia = new HashMap<>();
+        for (Aeropuerto a : aeropuertos.values()) {
+            copia.put(a.getCodigoOACI(), a.copiaParaPlanificacion());
+        }
+        return copia;
+    }
+
+    void agregarCandidato(int posicion, int idVueloProgramado) {
+        if (posicion == candidatos.length) {
+            candidatos = Arrays.copyOf(candidatos, posicion * 2);
+            costosCandidatos = Arrays.copyOf(costosCandidatos, posicion * 2);
+            probabilidades = Arrays.copyOf(probabilidades, posicion * 2);
+        }
+        candidatos[posicion] = idVueloProgramado;
+    }
+
+    void registrarPaso(int numCandidatos) {
+        if (numCandidatos >= pasosPorCandidatos.length) {
+            pasosPorCandidatos = Arrays.copyOf(pasosPorCandidatos,
+                    Math.max(numCandidatos + 1, pasosPorCandidatos.length * 2));
+        }
+        pasosPorCandidatos[numCandidatos]++;
+    }
+
+    void rechazoCapacidadVuelo() {
+        rechazosCapacidadVuelo++;
+    }
+
+    void rechazoCapacidadAlmacen() {
+        rechazosCapacidadAlmacen++;
+    }
+
+    void reiniciarNodos() {
+        totalNodos = 0;
+    }
+
+    // Salto del envío a continuación del nodo padre (-1 si sale del origen). Devuelve el nodo nuevo
+    int agregarNodo(int padre, int idVueloProgramado, double costo) {
+        if (totalNodos == nodoVuelo.length) {
+            nodoVuelo = Arrays.copyOf(nodoVuelo, totalNodos * 2);
+            nodoCosto = Arrays.copyOf(nodoCosto, totalNodos * 2);
+            nodoPadre = Arrays.copyOf(nodoPadre, totalNodos * 2);
+        }
+        nodoVuelo[totalNodos] = idVueloProgramado;
+        nodoCosto[totalNodos] = costo;
+        nodoPadre[totalNodos] = padre;
+        return totalNodos++;
+    }
+
+    // Cierra la ruta del paquete con los saltos desde el origen hasta el nodo (-1: no tomó ningún vuelo).
+    // Los paquetes se pueden cerrar en cualquier orden
+    void cerrarPaquete(int paquete, int nodo, boolean llegoDestino) {
+        int saltos = 0;
+        for (int x = nodo; x >= 0; x = nodoPadre[x]) {
+            saltos++;
+        }
+        if (totalSaltos + saltos > vuelos.length) {
+            int tamanio = Math.max(totalSaltos + saltos, vuelos.length * 2);
+            vuelos = Arrays.copyOf(vuelos, tamanio);
+            costos = Arrays.copyOf(costos, tamanio);
+        }
+        inicioRuta[paquete] = totalSaltos;
+        totalSaltos += saltos;
+        finRuta[paquete] = totalSaltos;
+        // El árbol se recorre de la hoja a la raíz: la ruta se llena de atrás hacia adelante
+        int j = totalSaltos;
+        for (int x = nodo; x >= 0; x = nodoPadre[x]) {
+            j--;
+            vuelos[j] = nodoVuelo[x];
+            costos[j] = nodoCosto[x];
+        }
+        llego[paquete] = llegoDestino;
+        if (llegoDestino) {
+            entregados++;
+            for (j = inicioRuta[paquete]; j < totalSaltos; j++) {
+                costoTotal += costos[j];
+            }
+        }
+    }
+
+    // Más paquetes entregados es mejor; a igualdad, menor costo; a igualdad, la hormiga de menor número
+    public boolean esMejorQue(Hormiga otra) {
+        if (entregados != otra.entregados) {
+            return entregados > otra.entregados;
+        }
+        if (costoTotal != otra.costoTotal) {
+            return costoTotal < otra.costoTotal;
+        }
+        return numero < otra.numero;
+    }
+
+    public int getNumero() {
+        return this.numero;
+    }
+
+    public PlanningState getEstado() {
+        return this.estado;
+    }
+
+    public HashMap<String, Aeropuerto> getAeropuertos() {
+        return this.aeropuertos;
+    }
+
+    public SelectorRuleta getSelector() {
+        return this.selector;
+    }
+
+    public int getEntregados() {
+        return this.entregados;
+    }
+
+    public double getCostoTotal() {
+        return this.costoTotal;
+    }
+
+    public long getRechazosCapacidadVuelo() {
+        return this.rechazosCapacidadVuelo;
+    }
+
+    public long getRechazosCapacidadAlmacen() {
+        return this.rechazosCapacidadAlmacen;
+    }
+
+    // Cantidad de pasos de la búsqueda que tuvieron exactamente numCandidatos vuelos candidatos
+    public int pasosConCandidatos(int numCandidatos) {
+        return numCandidatos < pasosPorCandidatos.length ? pasosPorCandidatos[numCandidatos] : 0;
+    }
+
+    public int getMaximoCandidatos() {
+        for (int k = pasosPorCandidatos.length - 1; k > 0; k--) {
+            if (pasosPorCandidatos[k] > 0) {
+                return k;
+            }
+        }
+        return 0;
+    }
+
+    public int getNumeroPaquetes() {
+        return this.llego.length;
+    }
+
+    public int inicioRuta(int paquete) {
+        return inicioRuta[paquete];
+    }
+
+    public int finRuta(int paquete) {
+        return finRuta[paquete];
+    }
+
+    public int vueloEn(int posicion) {
+        return vuelos[posicion];
+    }
+
+    public double costoEn(int posicion) {
+        return costos[posicion];
+    }
+
+    public boolean llego(int paquete) {
+        return llego[paquete];
+    }
+
+    public double costoRuta(int paquete) {
+        double suma = 0;
+        for (int j = inicioRuta[paquete]; j < finRuta[paquete]; j++) {
+            suma += costos[j];
+        }
+        return suma;
+    }
+}
@@ -0,0 +1,213 @@
+package com.dp1.backend.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/*
+ * Índice disperso de un archivo de envíos: para cada día (la fecha yyyyMMdd tal como está escrita en las
+ * líneas, en hora local del origen) la posición en bytes de su primera línea. Lo usa LectorEnvios para mapear
+ * solo el tramo del archivo que puede caer en el rango pedido, en lugar de leer el archivo desde el principio.
+ *
+ * Se arma la primera vez que se lee el archivo y se guarda al lado, como <archivo>.idx:
+ *   int MAGICO, int VERSION, long tamaño del archivo, long última modificación (ms), boolean ordenado,
+ *   int cantidad de días y luego, por cada día, int día desde epoch y long posición.
+ * Si el tamaño o la fecha de modificación del archivo ya no coinciden, el índice se vuelve a armar.
+ *
+ * Si las fechas del archivo no están en orden, el índice queda marcado como no ordenado y el rango es el
+ * archivo completo.
+ */
+public final class IndiceDiarioEnvios {
+    public static final String EXTENSION = ".idx";
+
+    private static final int MAGICO = 0x49445845; // "IDXE"
+    private static final int VERSION = 1;
+    private static final long SEGUNDOS_DIA = 86400;
+
+    private final long tamanio;
+    private final long modificado;
+    private final boolean ordenado;
+    private final int[] dias;
+    private final long[] posiciones;
+
+    private IndiceDiarioEnvios(long tamanio, long modificado, boolean ordenado, int[] dias, long[] posiciones) {
+        this.tamanio = tamanio;
+        this.modificado = modificado;
+        this.ordenado = ordenado;
+        this.dias = dias;
+        this.posiciones = posiciones;
+    }
+
+    public static Path rutaIndice(Path archivo) {
+        return archivo.resolveSibling(archivo.getFileName().toString() + EXTENSION);
+    }
+
+    // Índice guardado del archivo, o null si no existe, está dañado o es de otra versión del archivo
+    public static IndiceDiarioEnvios leer(Path archivo, long tamanio, long modificado) {
+        Path ruta = rutaIndice(archivo);
+        if (!Files.isRegularFile(ruta)) {
+            return null;
+        }
+        try (DataInputStream entrada = new DataInputStream(new BufferedInputStream(Files.newInputStream(ruta)))) {
+            if (entrada.readInt() != MAGICO || entrada.readInt() != VERSION || entrada.readLong() != tamanio
+                    || entrada.readLong() != modificado) {
+                return null;
+            }
+            boolean ordenado = entrada.readBoolean();
+            int n = entrada.readInt();
+            if (n < 0) {
+                return null;
+            }
+            int[] dias = new int[n];
+            long[] posiciones = new long[n];
+            for (int i = 0; i < n; i++) {
+                dias[i] = entrada.readInt();
+                posiciones[i] = entrada.readLong();
+                if (posiciones[i] < 0 || posiciones[i] > tamanio) {
+                    return null;
+                }
+            }
+            return new IndiceDiarioEnvios(tamanio, modificado, ordenado, dias, posiciones);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /*
+     * Recorre las líneas ORIG-id-yyyyMMdd-... del archivo mapeado completo y anota dónde empieza cada día.
+     * Solo mira la fecha de cada línea; las líneas sin fecha legible no cuentan.
+     */
+    public static IndiceDiarioEnvios construir(MappedByteBuffer datos, long modificado) {
+        int fin = datos.limit();
+        int[] dias = new int[64];
+        long[] posiciones = new long[64];
+        int n = 0;
+        boolean ordenado = true;
+        int p = 0;
+        while (p < fin) {
+            int finLinea = p;
+            while (finLinea < fin && datos.get(finLinea) != '\n') {
+                finLinea++;
+            }
+            int dia = diaDeLinea(datos, p, finLinea);
+            if (dia != Integer.MIN_VALUE) {
+                if (n > 0 && dia < dias[n - 1]) {
+                    ordenado = false;
+                } else if (n == 0 || dia > dias[n - 1]) {
+                    if (n == dias.length) {
+                        dias = Arrays.copyOf(dias, n * 2);
+                        posiciones = Arrays.copyOf(posiciones, n * 2);
+                    }
+                    dias[n] = dia;
+                    posiciones[n] = p;
+                    n++;
+                }
+            }
+            p = finLinea + 1;
+        }
+        return new IndiceDiarioEnvios(fin, modificado, ordenado, Arrays.copyOf(dias, n),
+                Arrays.copyOf(posiciones, n));
+    }
+
+    // Se escribe a un temporal y se mueve, para que otra lectura nunca vea un índice a medias
+    public void guardar(Path archivo) throws IOException {
+        Path ruta = rutaIndice(archivo);
+        Path temporal = ruta.resolveSibling("." + ruta.getFileName().toString() + ".tmp");
+        try (DataOutputStream salida = new DataOutputStream(
+                new BufferedOutputStream(Files.newOutputStream(temporal)))) {
+            salida.writeInt(MAGICO);
+            salida.writeInt(VERSION);
+            salida.writeLong(tamanio);
+            salida.writeLong(modificado);
+            salida.writeBoolean(ordenado);
+            salida.writeInt(dias.length);
+            for (int i = 0; i < dias.length; i++) {
+                salida.writeInt(dias[i]);
+                salida.writeLong(posiciones[i]);
+            }
+        }
+        try {
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, ruta, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /*
+     * Tramo [desde, hasta) del archivo con todas las líneas que pueden salir en [inicio, fin] (segundos epoch).
+     * La hora de la línea es local del origen y los desfases van de -12 a +14 horas, así que basta con un día
+     * de margen a cada lado: las líneas de dos días antes salen antes del inicio y las de dos días después,
+     * después del fin.
+     */
+    public long[] rango(long inicio, long fin) {
+        if (!ordenado || dias.length == 0) {
+            return new long[] { 0, tamanio };
+        }
+        long diaDesde = Math.floorDiv(inicio, SEGUNDOS_DIA) - 1;
+        long diaHasta = Math.floorDiv(fin, SEGUNDOS_DIA) + 2;
+        // Si el rango empieza antes del primer día se lee desde el principio, con lo que haya antes
+        long desde = diaDesde <= dias[0] ? 0 : posicionDelPrimerDiaDesde(diaDesde);
+        long hasta = posicionDelPrimerDiaDesde(diaHasta);
+        return new long[] { desde, Math.max(desde, hasta) };
+    }
+
+    public int getCantidadDias() {
+        return this.dias.length;
+    }
+
+    public boolean isOrdenado() {
+        return this.ordenado;
+    }
+
+    private long posicionDelPrimerDiaDesde(long dia) {
+        int bajo = 0, alto = dias.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (dias[medio] < dia) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo < dias.length ? posiciones[bajo] : tamanio;
+    }
+
+    // Día desde epoch de la fecha de la línea ORIG-id-yyyyMMdd-..., o Integer.MIN_VALUE si no se puede leer
+    private static int diaDeLinea(MappedByteBuffer datos, int p, int finLinea) {
+        while (p < finLinea && datos.get(p) == ' ') {
+            p++;
+        }
+        if (finLinea - p < 15 || datos.get(p + 4) != '-') {
+            return Integer.MIN_VALUE;
+        }
+        int q = p + 5;
+        while (q < finLinea && datos.get(q) >= '0' && datos.get(q) <= '9') {
+            q++;
+        }
+        if (q == p + 5 || finLinea - q < 10 || datos.get(q) != '-' || datos.get(q + 9) != '-') {
+            return Integer.MIN_VALUE;
+        }
+        int fecha = 0;
+        for (int i = q + 1; i < q + 9; i++) {
+            byte b = datos.get(i);
+            if (b < '0' || b > '9') {
+                return Integer.MIN_VALUE;
+            }
+            fecha = fecha * 10 + (b - '0');
+        }
+        int mes = fecha / 100 % 100;
+        int dia = fecha % 100;
+        if (mes < 1 || mes > 12 || dia < 1 || dia > 31) {
+            return Integer.MIN_VALUE;
+        }
+        return (int) LectorEnvios.diasDesdeEpoch(fecha / 10000, mes, dia);
+    }
+}
@@ -0,0 +1,125 @@
+package com.dp1.backend.utils;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.dp1.backend.models.Envio;
+
+/*
+ * Índice inmutable de los envíos en memoria por hora de salida, para DatosEnMemoriaService
+ * .devolverEnviosDesdeHasta: antes cada ventana de 3 horas recorría el HashMap de toda la semana.
+ *
+ * Los envíos están en un arreglo ordenado por segundo epoch de salida; una ventana es una búsqueda binaria
+ * por cada extremo, O(log n + k). Además, para cada origen, las posiciones de sus envíos en ese mismo
+ * orden, para pedir la ventana de un solo origen.
+ */
+public final class IndiceEnvios {
+    private final Envio[] envios;
+    private final long[] salida;
+    private final HashMap<String, int[]> porOrigen;
+
+    private IndiceEnvios(Envio[] envios, long[] salida, HashMap<String, int[]> porOrigen) {
+        this.envios = envios;
+        this.salida = salida;
+        this.porOrigen = porOrigen;
+    }
+
+    public static IndiceEnvios de(Collection<Envio> envios) {
+        Envio[] ordenados = envios.toArray(new Envio[0]);
+        long[] llaves = new long[ordenados.length];
+        for (int i = 0; i < ordenados.length; i++) {
+            llaves[i] = ordenados[i].getFechaHoraSalida().toEpochSecond();
+        }
+        // (salida relativa << 31) | posición: ordenar los long ordena por salida sin comparar ZonedDateTime
+        long minimo = Long.MAX_VALUE;
+        for (long llave : llaves) {
+            minimo = Math.min(minimo, llave);
+        }
+        long[] orden = new long[ordenados.length];
+        for (int i = 0; i < orden.length; i++) {
+            orden[i] = ((llaves[i] - minimo) << 31) | i;
+        }
+        Arrays.sort(orden);
+        Envio[] arreglo = new Envio[ordenados.length];
+        long[] salida = new long[ordenados.length];
+        HashMap<String, Integer> cantidadPorOrigen = new HashMap<>();
+        for (int i = 0; i < orden.length; i++) {
+            int posicion = (int) (orden[i] & Integer.MAX_VALUE);
+            arreglo[i] = ordenados[posicion];
+            salida[i] = llaves[posicion];
+            cantidadPorOrigen.merge(arreglo[i].getOrigen(), 1, Integer::sum);
+        }
+        HashMap<String, int[]> porOrigen = new HashMap<>();
+        HashMap<String, Integer> llenos = new HashMap<>();
+        for (Map.Entry<String, Integer> entrada : cantidadPorOrigen.entrySet()) {
+            porOrigen.put(entrada.getKey(), new int[entrada.getValue()]);
+            llenos.put(entrada.getKey(), 0);
+        }
+        for (int i = 0; i < arreglo.length; i++) {
+            String origen = arreglo[i].getOrigen();
+            int k = llenos.merge(origen, 1, Integer::sum) - 1;
+            porOrigen.get(origen)[k] = i;
+        }
+        return new IndiceEnvios(arreglo, salida, porOrigen);
+    }
+
+    public int size() {
+        return this.envios.length;
+    }
+
+    // Envíos que salen estrictamente después de inicio y estrictamente antes de fin, por código
+    public HashMap<String, Envio> desdeHasta(ZonedDateTime inicio, ZonedDateTime fin) {
+        int desde = primeraDespuesDe(inicio);
+        int hasta = primeraDesde(fin);
+        HashMap<String, Envio> ventana = new HashMap<>(Math.max(16, (hasta - desde) * 4 / 3 + 1));
+        for (int i = desde; i < hasta; i++) {
+            ventana.put(envios[i].getCodigoEnvio(), envios[i]);
+        }
+        return ventana;
+    }
+
+    // Lo mismo, solo con los envíos que salen de ese origen
+    public HashMap<String, Envio> desdeHasta(String origen, ZonedDateTime inicio, ZonedDateTime fin) {
+        HashMap<String, Envio> ventana = new HashMap<>();
+        int[] posiciones = porOrigen.get(origen);
+        if (posiciones == null) {
+            return ventana;
+        }
+        int desde = primeraDespuesDe(inicio);
+        int hasta = primeraDesde(fin);
+        // Las posiciones del origen están ordenadas: se busca la primera que cae en [desde, hasta)
+        int k = Arrays.binarySearch(posiciones, desde);
+        for (k = k >= 0 ? k : -k - 1; k < posiciones.length && posiciones[k] < hasta; k++) {
+            ventana.put(envios[posiciones[k]].getCodigoEnvio(), envios[posiciones[k]]);
+        }
+        return ventana;
+    }
+
+    // Primer envío que sale estrictamente después del instante. Las salidas no tienen fracción de segundo:
+    // salir después de s + fracción es salir después de s
+    private int primeraDespuesDe(ZonedDateTime instante) {
+        return primeraMayorQue(instante.toEpochSecond());
+    }
+
+    // Primer envío que no sale estrictamente antes del instante
+    private int primeraDesde(ZonedDateTime instante) {
+        long s = instante.toEpochSecond();
+        return instante.getNano() > 0 ? primeraMayorQue(s) : primeraMayorQue(s - 1);
+    }
+
+    private int primeraMayorQue(long segundo) {
+        int bajo = 0, alto = salida.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (salida[medio] <= segundo) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+}
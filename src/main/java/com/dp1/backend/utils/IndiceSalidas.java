@@ -0,0 +1,142 @@
+package com.dp1.backend.utils;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/*
+ * Índice de salidas en el tiempo (grafo expandido en el tiempo): para cada aeropuerto de origen guarda
+ * las salidas de los vuelos programados ordenadas por minuto de salida. Así, encontrar los vuelos que
+ * puede tomar un paquete es una búsqueda binaria + un recorrido sobre las salidas de un solo aeropuerto,
+ * en lugar de recorrer todos los vuelos programados.
+ *
+ * Cada salida se empaqueta en un long: (minuto epoch de salida << 32) | id del vuelo programado. Ordenar
+ * los long ordena por salida (y por id en empates) sin crear objetos.
+ */
+public class IndiceSalidas {
+    private static final int CAPACIDAD_INICIAL = 256;
+
+    private final AirportGeoIndex aeropuertos;
+    private final long[][] salidas;
+    private final int[] tamanios;
+    private final boolean[] desordenado;
+    private int totalSalidas = 0;
+
+    // Los aeropuertos de origen se identifican con el ordinal del índice geográfico
+    public IndiceSalidas(AirportGeoIndex aeropuertos) {
+        this.aeropuertos = aeropuertos;
+        int n = aeropuertos.getCantidadAeropuertos();
+        salidas = new long[n][CAPACIDAD_INICIAL];
+        tamanios = new int[n];
+        desordenado = new boolean[n];
+    }
+
+    public int ordinal(String codigoAeropuerto) {
+        return aeropuertos.ordinal(codigoAeropuerto);
+    }
+
+    public AirportGeoIndex getAeropuertos() {
+        return aeropuertos;
+    }
+
+    public int getCantidadAeropuertos() {
+        return tamanios.length;
+    }
+
+    public int getTotalSalidas() {
+        return totalSalidas;
+    }
+
+    public void registrar(String origen, ZonedDateTime fechaHoraSalida, int idVueloProgramado) {
+        registrar(ordinal(origen), aco_auxiliares.minutoEpoch(fechaHoraSalida), idVueloProgramado);
+    }
+
+    public void registrar(int origen, long minutoSalida, int idVueloProgramado) {
+        if (origen < 0) {
+            return;
+        }
+        int n = tamanios[origen];
+        long[] arreglo = salidas[origen];
+        if (n == arreglo.length) {
+            arreglo = Arrays.copyOf(arreglo, n * 2);
+            salidas[origen] = arreglo;
+        }
+        long salida = empaquetar(minutoSalida, idVueloProgramado);
+        // Si los días se agregan en orden (lo usual) el arreglo sigue ordenado y no hay que reordenar
+        if (n > 0 && arreglo[n - 1] > salida) {
+            desordenado[origen] = true;
+        }
+        arreglo[n] = salida;
+        tamanios[origen] = n + 1;
+        totalSalidas++;
+    }
+
+    // Ordena las salidas pendientes. Se llama solo en las consultas, pero conviene llamarlo antes de
+    // compartir el índice entre hilos.
+    public void consolidar() {
+        for (int i = 0; i < tamanios.length; i++) {
+            consolidar(i);
+        }
+    }
+
+    private void consolidar(int origen) {
+        if (desordenado[origen]) {
+            Arrays.sort(salidas[origen], 0, tamanios[origen]);
+            desordenado[origen] = false;
+        }
+    }
+
+    // Quita las salidas de los vuelos programados que cumplan la condición (p. ej. los de días ya
+    // descartados), conservando el orden de las demás
+    public void eliminar(IntPredicate eliminado) {
+        for (int origen = 0; origen < tamanios.length; origen++) {
+            long[] arreglo = salidas[origen];
+            int n = tamanios[origen];
+            int quedan = 0;
+            for (int i = 0; i < n; i++) {
+                if (!eliminado.test((int) arreglo[i])) {
+                    arreglo[quedan++] = arreglo[i];
+                }
+            }
+            totalSalidas -= n - quedan;
+            tamanios[origen] = quedan;
+        }
+    }
+
+    // Posición de la primera salida del origen que ocurre estrictamente después del minuto dado
+    public int primeraSalidaDespuesDe(int origen, long minuto) {
+        if (origen < 0) {
+            return 0;
+        }
+        consolidar(origen);
+        // Buscamos la primera llave mayor o igual que (minuto + 1, id 0)
+        long llave = empaquetar(minuto + 1, 0);
+        long[] arreglo = salidas[origen];
+        int bajo = 0, alto = tamanios[origen];
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (arreglo[medio] < llave) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    public int idEn(int origen, int posicion) {
+        return (int) salidas[origen][posicion];
+    }
+
+    public long minutoSalidaEn(int origen, int posicion) {
+        return salidas[origen][posicion] >>> 32;
+    }
+
+    public int cantidadSalidas(int origen) {
+        return origen < 0 ? 0 : tamanios[origen];
+    }
+
+    private static long empaquetar(long minutoSalida, int idVueloProgramado) {
+        return (minutoSalida << 32) | (idVueloProgramado & 0xFFFFFFFFL);
+    }
+}
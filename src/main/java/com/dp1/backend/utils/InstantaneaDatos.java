@@ -0,0 +1,498 @@
+package com.dp1.backend.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Vuelo;
+
+/*
+ * Instantánea binaria del modelo ya leído de data/: aeropuertos, plan de vuelos y envíos. Al arrancar,
+ * DatosEnMemoriaService la usa en lugar de volver a leer el archivo UTF-16 de aeropuertos y el plan de vuelos,
+ * y al cargar una simulación saca de ella los envíos de la ventana sin leer los archivos de texto.
+ *
+ * Formato (big endian), por columnas para pasar cada una a un arreglo primitivo de una sola lectura:
+ *   cabecera: int MAGICO, int VERSION, long CRC32 del contenido, long largo del contenido,
+ *             long huella de aeropuertos, long huella de vuelos, long huella de envíos
+ *   aeropuertos (en orden alfabético de código: el ordinal es el de AirportGeoIndex):
+ *             int n; n veces código, ciudad, país, país corto y continente; columnas id, gmt, capacidad,
+ *             latitud y longitud
+ *   vuelos:   int n; columnas id, ordinal de origen, ordinal de destino, segundo del día de salida y de
+ *             llegada (hora local), capacidad y distancia
+ *   envíos:   int códigos extra (orígenes o destinos que no son aeropuertos conocidos) y sus textos; int n;
+ *             columnas salida (segundo epoch), origen, destino, id y cantidad de paquetes. Ordenados por salida
+ * Los textos van como int largo + bytes UTF-8.
+ *
+ * Las huellas (nombre, tamaño y fecha de modificación de los archivos de origen) dicen si la instantánea sigue
+ * vigente; si los archivos cambiaron se ignora y se leen los archivos de texto como antes. Se regenera con
+ * POST /datos/instantanea o desde la línea de comandos con el main de esta clase.
+ */
+public final class InstantaneaDatos {
+    private static final Logger logger = LogManager.getLogger(InstantaneaDatos.class);
+
+    public static final String ARCHIVO_AEROPUERTOS = "Aeropuerto.husos.v1.20250818.txt";
+    public static final String ARCHIVO_VUELOS = "planes_vuelo.v4.20250818.txt";
+    public static final String CARPETA_ENVIOS = "envios";
+    public static final String ARCHIVO_INSTANTANEA = "modelo.snap";
+
+    private static final int MAGICO = 0x4D50534E; // "MPSN"
+    private static final int VERSION = 1;
+    private static final int LARGO_CABECERA = 4 + 4 + 8 * 5;
+
+    private final long huellaAeropuertos;
+    private final long huellaVuelos;
+    private final long huellaEnvios;
+    private final int tamanio;
+
+    // Aeropuertos
+    private final String[][] textosAeropuerto;
+    private final int[] idAeropuerto;
+    private final int[] gmt;
+    private final int[] capacidadAeropuerto;
+    private final double[] latitud;
+    private final double[] longitud;
+
+    // Vuelos
+    private final int[] idVuelo;
+    private final int[] origenVuelo;
+    private final int[] destinoVuelo;
+    private final int[] salidaVuelo;
+    private final int[] llegadaVuelo;
+    private final int[] capacidadVuelo;
+    private final double[] distanciaVuelo;
+
+    // Envíos; los códigos son los de los aeropuertos y luego los extra
+    private final String[] codigos;
+    private final long[] salidaEnvio;
+    private final int[] origenEnvio;
+    private final int[] destinoEnvio;
+    private final int[] idEnvio;
+    private final int[] cantidadEnvio;
+
+    private InstantaneaDatos(ByteBuffer datos, int tamanio) throws IOException {
+        this.tamanio = tamanio;
+        if (datos.remaining() < LARGO_CABECERA || datos.getInt() != MAGICO) {
+            throw new IOException("no es una instantánea de datos");
+        }
+        int version = datos.getInt();
+        if (version != VERSION) {
+            throw new IOException("versión " + version + " (se esperaba " + VERSION + ")");
+        }
+        long crc = datos.getLong();
+        long largo = datos.getLong();
+        huellaAeropuertos = datos.getLong();
+        huellaVuelos = datos.getLong();
+        huellaEnvios = datos.getLong();
+        if (largo != datos.remaining()) {
+            throw new IOException("largo " + datos.remaining() + " (se esperaba " + largo + ")");
+        }
+        CRC32 verificacion = new CRC32();
+        verificacion.update(datos.duplicate());
+        if (verificacion.getValue() != crc) {
+            throw new IOException("CRC32 no coincide");
+        }
+
+        int n = cantidad(datos);
+        textosAeropuerto = new String[n][];
+        for (int i = 0; i < n; i++) {
+            textosAeropuerto[i] = new String[] { texto(datos), texto(datos), texto(datos), texto(datos),
+                    texto(datos) };
+        }
+        idAeropuerto = enteros(datos, n);
+        gmt = enteros(datos, n);
+        capacidadAeropuerto = enteros(datos, n);
+        latitud = reales(datos, n);
+        longitud = reales(datos, n);
+
+        n = cantidad(datos);
+        idVuelo = enteros(datos, n);
+        origenVuelo = enteros(datos, n);
+        destinoVuelo = enteros(datos, n);
+        salidaVuelo = enteros(datos, n);
+        llegadaVuelo = enteros(datos, n);
+        capacidadVuelo = enteros(datos, n);
+        distanciaVuelo = reales(datos, n);
+
+        int extra = cantidad(datos);
+        codigos = new String[textosAeropuerto.length + extra];
+        for (int i = 0; i < textosAeropuerto.length; i++) {
+            codigos[i] = textosAeropuerto[i][0];
+        }
+        for (int i = textosAeropuerto.length; i < codigos.length; i++) {
+            codigos[i] = texto(datos);
+        }
+        n = cantidad(datos);
+        salidaEnvio = largos(datos, n);
+        origenEnvio = enteros(datos, n);
+        destinoEnvio = enteros(datos, n);
+        idEnvio = enteros(datos, n);
+        cantidadEnvio = enteros(datos, n);
+        if (datos.hasRemaining()) {
+            throw new IOException("sobran " + datos.remaining() + " bytes");
+        }
+    }
+
+    // Mapea y valida la instantánea
+    public static InstantaneaDatos leer(Path archivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio > Integer.MAX_VALUE) {
+                throw new IOException("instantánea demasiado grande: " + tamanio + " bytes");
+            }
+            MappedByteBuffer datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio);
+            return new InstantaneaDatos(datos, (int) tamanio);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("instantánea truncada");
+        }
+    }
+
+    // La instantánea de la carpeta de datos si existe, es válida y sus aeropuertos y vuelos siguen vigentes;
+    // si no, null (y el motivo en el log)
+    public static InstantaneaDatos leerSiVigente(Path directorioDatos) {
+        Path archivo = directorioDatos.resolve(ARCHIVO_INSTANTANEA);
+        if (!Files.isRegularFile(archivo)) {
+            logger.info("No hay instantánea de datos en " + archivo + "; se leen los archivos de texto");
+            return null;
+        }
+        try {
+            InstantaneaDatos instantanea = leer(archivo);
+            if (instantanea.huellaAeropuertos != huella(List.of(directorioDatos.resolve(ARCHIVO_AEROPUERTOS)))
+                    || instantanea.huellaVuelos != huella(List.of(directorioDatos.resolve(ARCHIVO_VUELOS)))) {
+                logger.warn("La instantánea " + archivo + " es de otros archivos de aeropuertos o vuelos; se ignora");
+                return null;
+            }
+            return instantanea;
+        } catch (IOException e) {
+            logger.warn("Instantánea " + archivo + " inválida (" + e.getLocalizedMessage() + "); se ignora");
+            return null;
+        }
+    }
+
+    /*
+     * Lee los archivos de texto de la carpeta de datos (aeropuertos, vuelos y todos los envíos) y escribe la
+     * instantánea en destino.
+     */
+    public static InstantaneaDatos generar(Path directorioDatos, Path destino) throws IOException {
+        Path archivoAeropuertos = directorioDatos.resolve(ARCHIVO_AEROPUERTOS);
+        Path archivoVuelos = directorioDatos.resolve(ARCHIVO_VUELOS);
+        HashMap<String, Aeropuerto> aeropuertos = FuncionesLectura.leerAeropuertos(archivoAeropuertos.toString());
+        HashMap<Integer, Vuelo> vuelos = FuncionesLectura.leerVuelos(archivoVuelos.toString(), aeropuertos);
+        List<Path> archivosEnvios = listarEnvios(directorioDatos);
+        HashMap<String, Envio> envios = new LectorEnvios(aeropuertos).leerEnviosDesdeHasta(archivosEnvios,
+                ZonedDateTime.of(1900, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC),
+                ZonedDateTime.of(2200, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC));
+        escribir(destino, aeropuertos, vuelos, envios.values(), huella(List.of(archivoAeropuertos)),
+                huella(List.of(archivoVuelos)), huella(archivosEnvios));
+        return leer(destino);
+    }
+
+    public static void escribir(Path destino, HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos,
+            Collection<Envio> envios, long huellaAeropuertos, long huellaVuelos, long huellaEnvios)
+            throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1 << 20);
+        DataOutputStream salida = new DataOutputStream(bytes);
+
+        String[] ordenAeropuertos = aeropuertos.keySet().toArray(new String[0]);
+        Arrays.sort(ordenAeropuertos);
+        HashMap<String, Integer> ordinales = new HashMap<>();
+        salida.writeInt(ordenAeropuertos.length);
+        for (int i = 0; i < ordenAeropuertos.length; i++) {
+            Aeropuerto a = aeropuertos.get(ordenAeropuertos[i]);
+            ordinales.put(ordenAeropuertos[i], i);
+            escribirTexto(salida, ordenAeropuertos[i]);
+            escribirTexto(salida, a.getCiudad());
+            escribirTexto(salida, a.getPais());
+            escribirTexto(salida, a.getPaisCorto());
+            escribirTexto(salida, a.getContinente());
+        }
+        for (String codigo : ordenAeropuertos) {
+            salida.writeInt(aeropuertos.get(codigo).getIdAeropuerto());
+        }
+        for (String codigo : ordenAeropuertos) {
+            salida.writeInt(aeropuertos.get(codigo).getGmt());
+        }
+        for (String codigo : ordenAeropuertos) {
+            salida.writeInt(aeropuertos.get(codigo).getCapacidadMaxima());
+        }
+        for (String codigo : ordenAeropuertos) {
+            salida.writeDouble(aeropuertos.get(codigo).getLatitud());
+        }
+        for (String codigo : ordenAeropuertos) {
+            salida.writeDouble(aeropuertos.get(codigo).getLongitud());
+        }
+
+        Vuelo[] ordenVuelos = vuelos.values().toArray(new Vuelo[0]);
+        Arrays.sort(ordenVuelos, (a, b) -> Integer.compare(a.getIdVuelo(), b.getIdVuelo()));
+        salida.writeInt(ordenVuelos.length);
+        for (Vuelo v : ordenVuelos) {
+            salida.writeInt(v.getIdVuelo());
+        }
+        for (Vuelo v : ordenVuelos) {
+            salida.writeInt(ordinales.get(v.getOrigen()));
+        }
+        for (Vuelo v : ordenVuelos) {
+            salida.writeInt(ordinales.get(v.getDestino()));
+        }
+        for (Vuelo v : ordenVuelos) {
+            salida.writeInt(v.getFechaHoraSalida().toLocalTime().toSecondOfDay());
+        }
+        for (Vuelo v : ordenVuelos) {
+            salida.writeInt(v.getFechaHoraLlegada().toLocalTime().toSecondOfDay());
+        }
+        for (Vuelo v : ordenVuelos) {
+            salida.writeInt(v.getCapacidad());
+        }
+        for (Vuelo v : ordenVuelos) {
+            salida.writeDouble(v.getDistanciaVuelo());
+        }
+
+        Envio[] ordenEnvios = envios.toArray(new Envio[0]);
+        Arrays.sort(ordenEnvios, (a, b) -> Long.compare(a.getFechaHoraSalida().toEpochSecond(),
+                b.getFechaHoraSalida().toEpochSecond()));
+        ArrayList<String> extra = new ArrayList<>();
+        for (Envio e : ordenEnvios) {
+            for (String codigo : new String[] { e.getOrigen(), e.getDestino() }) {
+                if (!ordinales.containsKey(codigo)) {
+                    ordinales.put(codigo, ordenAeropuertos.length + extra.size());
+                    extra.add(codigo);
+                }
+            }
+        }
+        salida.writeInt(extra.size());
+        for (String codigo : extra) {
+            escribirTexto(salida, codigo);
+        }
+        salida.writeInt(ordenEnvios.length);
+        for (Envio e : ordenEnvios) {
+            salida.writeLong(e.getFechaHoraSalida().toEpochSecond());
+        }
+        for (Envio e : ordenEnvios) {
+            salida.writeInt(ordinales.get(e.getOrigen()));
+        }
+        for (Envio e : ordenEnvios) {
+            salida.writeInt(ordinales.get(e.getDestino()));
+        }
+        for (Envio e : ordenEnvios) {
+            salida.writeInt(e.getIdEnvio());
+        }
+        for (Envio e : ordenEnvios) {
+            salida.writeInt(e.getCantidadPaquetes());
+        }
+        salida.flush();
+
+        byte[] contenido = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(contenido);
+        ByteBuffer cabecera = ByteBuffer.allocate(LARGO_CABECERA);
+        cabecera.putInt(MAGICO).putInt(VERSION).putLong(crc.getValue()).putLong(contenido.length)
+                .putLong(huellaAeropuertos).putLong(huellaVuelos).putLong(huellaEnvios).flip();
+
+        // Se escribe a un temporal y se mueve, para no dejar una instantánea a medias
+        Path temporal = destino.resolveSibling("." + destino.getFileName().toString() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer cuerpo = ByteBuffer.wrap(contenido);
+            while (cabecera.hasRemaining() || cuerpo.hasRemaining()) {
+                canal.write(new ByteBuffer[] { cabecera, cuerpo });
+            }
+        }
+        try {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporal, destino, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    // Archivos de envíos de la carpeta de datos, en el mismo orden en que los lee DatosEnMemoriaService
+    public static List<Path> listarEnvios(Path directorioDatos) throws IOException {
+        return LectorEnvios.listarArchivos(directorioDatos.resolve(CARPETA_ENVIOS));
+    }
+
+    // Huella de un conjunto de archivos: nombre, tamaño y fecha de modificación de cada uno, en orden
+    public static long huella(List<Path> archivos) throws IOException {
+        CRC32 crc = new CRC32();
+        long huella = archivos.size();
+        for (Path archivo : archivos) {
+            crc.reset();
+            crc.update(archivo.getFileName().toString().getBytes(StandardCharsets.UTF_8));
+            long tamanio = Files.isRegularFile(archivo) ? Files.size(archivo) : -1;
+            long modificado = tamanio >= 0 ? Files.getLastModifiedTime(archivo).toMillis() : -1;
+            huella = huella * 31 + crc.getValue();
+            huella = huella * 31 + tamanio;
+            huella = huella * 31 + modificado;
+        }
+        return huella;
+    }
+
+    public HashMap<String, Aeropuerto> aeropuertos() {
+        HashMap<String, Aeropuerto> aeropuertos = new HashMap<>();
+        for (int i = 0; i < idAeropuerto.length; i++) {
+            String[] textos = textosAeropuerto[i];
+            Aeropuerto aeropuerto = new Aeropuerto(idAeropuerto[i], textos[0], textos[1], textos[2], textos[3], gmt[i],
+                    capacidadAeropuerto[i]);
+            aeropuerto.setLatitud(latitud[i]);
+            aeropuerto.setLongitud(longitud[i]);
+            aeropuerto.setContinente(textos[4]);
+            aeropuertos.put(textos[0], aeropuerto);
+        }
+        return aeropuertos;
+    }
+
+    // Mismos vuelos que FuncionesLectura.leerVuelos: horas locales sobre la fecha de hoy
+    public HashMap<Integer, Vuelo> vuelos(HashMap<String, Aeropuerto> aeropuertos) {
+        HashMap<Integer, Vuelo> vuelos = new HashMap<>();
+        LocalDate hoy = LocalDate.now();
+        for (int i = 0; i < idVuelo.length; i++) {
+            Aeropuerto origen = aeropuertos.get(codigos[origenVuelo[i]]);
+            Aeropuerto destino = aeropuertos.get(codigos[destinoVuelo[i]]);
+            Vuelo vuelo = new Vuelo(origen.getCodigoOACI(), destino.getCodigoOACI(),
+                    ZonedDateTime.of(hoy, LocalTime.ofSecondOfDay(salidaVuelo[i]), origen.getZoneId()),
+                    ZonedDateTime.of(hoy, LocalTime.ofSecondOfDay(llegadaVuelo[i]), destino.getZoneId()),
+                    capacidadVuelo[i], distanciaVuelo[i]);
+            vuelo.setIdVuelo(idVuelo[i]);
+            vuelos.put(idVuelo[i], vuelo);
+        }
+        return vuelos;
+    }
+
+    // Si los envíos de la instantánea son los de estos archivos
+    public boolean enviosVigentes(List<Path> archivos) throws IOException {
+        return huellaEnvios == huella(archivos);
+    }
+
+    // Envíos que salen en [fechaInicio, fechaFin]. LectorEnvios corta cada archivo en la primera línea que sale
+    // después del fin y, como las líneas están ordenadas por hora local de orígenes con distinto huso, puede
+    // dejar fuera algunos envíos de las últimas horas del rango; aquí salen todos
+    public HashMap<String, Envio> enviosDesdeHasta(HashMap<String, Aeropuerto> aeropuertos, ZonedDateTime fechaInicio,
+            ZonedDateTime fechaFin) {
+        long inicio = fechaInicio.toEpochSecond();
+        long fin = fechaFin.toEpochSecond();
+        int desde = primeraDesde(inicio);
+        int hasta = primeraDesde(fin + 1);
+        Aeropuerto porDefecto = aeropuertos.get("EKCH");
+        HashMap<String, Envio> envios = new HashMap<>(Math.max(16, (hasta - desde) * 4 / 3 + 1));
+        for (int i = desde; i < hasta; i++) {
+            String codigoOrigen = codigos[origenEnvio[i]];
+            String codigoDestino = codigos[destinoEnvio[i]];
+            Aeropuerto origen = aeropuertos.getOrDefault(codigoOrigen, porDefecto);
+            Aeropuerto destino = aeropuertos.getOrDefault(codigoDestino, porDefecto);
+            ZonedDateTime salida = Instant.ofEpochSecond(salidaEnvio[i]).atZone(origen.getZoneId());
+            Envio envio = LectorEnvios.crearEnvio(codigoOrigen, idEnvio[i], salida, codigoDestino, cantidadEnvio[i],
+                    origen, destino);
+            envios.put(envio.getCodigoEnvio(), envio);
+        }
+        return envios;
+    }
+
+    public int getCantidadAeropuertos() {
+        return this.idAeropuerto.length;
+    }
+
+    public int getCantidadVuelos() {
+        return this.idVuelo.length;
+    }
+
+    public int getCantidadEnvios() {
+        return this.salidaEnvio.length;
+    }
+
+    public int getTamanio() {
+        return this.tamanio;
+    }
+
+    private int primeraDesde(long segundo) {
+        int bajo = 0, alto = salidaEnvio.length;
+        while (bajo < alto) {
+            int medio = (bajo + alto) >>> 1;
+            if (salidaEnvio[medio] < segundo) {
+                bajo = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return bajo;
+    }
+
+    private static int cantidad(ByteBuffer datos) throws IOException {
+        int n = datos.getInt();
+        if (n < 0 || n > datos.remaining()) {
+            throw new IOException("cantidad inválida: " + n);
+        }
+        return n;
+    }
+
+    private static int[] enteros(ByteBuffer datos, int n) {
+        int[] columna = new int[n];
+        datos.asIntBuffer().get(columna);
+        datos.position(datos.position() + n * 4);
+        return columna;
+    }
+
+    private static long[] largos(ByteBuffer datos, int n) {
+        long[] columna = new long[n];
+        datos.asLongBuffer().get(columna);
+        datos.position(datos.position() + n * 8);
+        return columna;
+    }
+
+    private static double[] reales(ByteBuffer datos, int n) {
+        double[] columna = new double[n];
+        datos.asDoubleBuffer().get(columna);
+        datos.position(datos.position() + n * 8);
+        return columna;
+    }
+
+    private static String texto(ByteBuffer datos) throws IOException {
+        byte[] bytes = new byte[cantidad(datos)];
+        datos.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void escribirTexto(DataOutputStream salida, String texto) throws IOException {
+        byte[] bytes = (texto == null ? "" : texto).getBytes(StandardCharsets.UTF_8);
+        salida.writeInt(bytes.length);
+        salida.write(bytes);
+    }
+
+    /*
+     * Regenera la instantánea sin levantar la aplicación, p. ej. en el despliegue:
+     *   java -cp <clases y dependencias> com.dp1.backend.utils.InstantaneaDatos [carpeta de datos] [destino]
+     * Por defecto lee ./data y escribe ./data/modelo.snap.
+     */
+    public static void main(String[] args) throws IOException {
+        Path directorioDatos = Paths.get(args.length > 0 ? args[0] : "data");
+        Path destino = args.length > 1 ? Paths.get(args[1]) : directorioDatos.resolve(ARCHIVO_INSTANTANEA);
+        long inicio = System.nanoTime();
+        InstantaneaDatos instantanea = generar(directorioDatos, destino);
+        logger.info("Instantánea " + destino + " generada en " + (System.nanoTime() - inicio) / 1000000 + " ms: "
+                + instantanea.getCantidadAeropuertos() + " aeropuertos, " + instantanea.getCantidadVuelos()
+                + " vuelos, " + instantanea.getCantidadEnvios() + " envíos, " + instantanea.getTamanio() + " bytes");
+    }
+}
@@ -0,0 +1,381 @@
+package com.dp1.backend.utils;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+
+/*
+ * Lectura de los archivos pack_enviado_* (líneas ORIG-id-yyyyMMdd-HH:mm:ss-DEST:n) para
+ * DatosEnMemoriaService.cargarEnviosDesdeHasta. Reemplaza al bucle de FuncionesLectura.leerEnviosDesdeHasta
+ * (split, LocalDate.parse con un DateTimeFormatter por línea y LocalTime.parse):
+ * - Cada archivo se mapea en memoria y se parte en bloques de TAMANIO_BLOQUE bytes que terminan en un
+ *   salto de línea. Los bloques de todos los archivos se procesan en paralelo.
+ * - Cada línea se lee byte a byte. Los códigos OACI se comparan empaquetados en un int, sin crear Strings, y
+ *   la hora de salida se pasa a segundos epoch antes de crear el envío, así que las líneas fuera del rango
+ *   no crean ningún objeto.
+ *
+ * - Con el índice por días de cada archivo (IndiceDiarioEnvios, <archivo>.idx) solo se mapea el tramo que
+ *   puede caer en el rango pedido. El índice se arma y se guarda la primera vez que se lee el archivo.
+ *
+ * Mismo resultado que FuncionesLectura.leerEnviosDesdeHasta: se saltan las líneas que salen antes del
+ * inicio y cada archivo se deja de leer en la primera línea que sale después del fin (los archivos están
+ * ordenados por hora de salida). Los bloques de un archivo posteriores a esa línea se descartan. Las líneas
+ * mal formadas o con fechas que no existen se saltan (antes cortaban la lectura con una excepción).
+ */
+public class LectorEnvios {
+    private static final Logger logger = LogManager.getLogger(LectorEnvios.class);
+
+    private static final int TAMANIO_BLOQUE = 1 << 20;
+    private static final long SEGUNDOS_DIA = 86400;
+    // Resultado de leer una línea
+    private static final int LINEA_LEIDA = 0;
+    private static final int LINEA_INVALIDA = 1;
+    private static final int LINEA_DESPUES_DEL_FIN = 2;
+
+    private final Aeropuerto aeropuertoPorDefecto;
+    // Aeropuertos por código empaquetado (4 bytes ASCII en un int)
+    private final int[] codigoEmpaquetado;
+    private final String[] codigo;
+    private final Aeropuerto[] aeropuerto;
+    // Desfase fijo de la zona de cada aeropuerto en segundos, o null si la zona no es de desfase fijo
+    private final Integer[] desfase;
+
+    public LectorEnvios(HashMap<String, Aeropuerto> aeropuertos) {
+        this.aeropuertoPorDefecto = aeropuertos.get("EKCH");
+        int n = aeropuertos.size();
+        codigoEmpaquetado = new int[n];
+        codigo = new String[n];
+        aeropuerto = new Aeropuerto[n];
+        desfase = new Integer[n];
+        int i = 0;
+        for (Map.Entry<String, Aeropuerto> entrada : aeropuertos.entrySet()) {
+            byte[] bytes = entrada.getKey().getBytes(StandardCharsets.US_ASCII);
+            codigoEmpaquetado[i] = bytes.length == 4 ? empaquetar(bytes[0], bytes[1], bytes[2], bytes[3]) : 0;
+            codigo[i] = entrada.getKey();
+            aeropuerto[i] = entrada.getValue();
+            ZoneId zona = entrada.getValue().getZoneId();
+            desfase[i] = zona instanceof ZoneOffset ? ((ZoneOffset) zona).getTotalSeconds() : null;
+            i++;
+        }
+    }
+
+    // Archivos pack_enviado_* de la carpeta ordenados por ruta (sin los índices .idx)
+    public static List<Path> listarArchivos(Path directorio) throws IOException {
+        try (Stream<Path> rutas = Files.walk(directorio)) {
+            return rutas
+                    .filter(Files::isRegularFile)
+                    .filter(p -> p.getFileName().toString().matches("pack_enviado_[A-Z]+_.*"))
+                    .filter(p -> !p.getFileName().toString().endsWith(IndiceDiarioEnvios.EXTENSION))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    /*
+     * Envíos de los archivos que salen en [fechaInicio, fechaFin]. Si un código se repite entre archivos,
+     * queda el del último archivo de la lista (como con putAll archivo por archivo).
+     */
+    public HashMap<String, Envio> leerEnviosDesdeHasta(List<Path> archivos, ZonedDateTime fechaInicio,
+            ZonedDateTime fechaFin) {
+        long inicio = fechaInicio.toEpochSecond();
+        long fin = fechaFin.toEpochSecond();
+
+        ArrayList<Bloque> bloques = new ArrayList<>();
+        for (int a = 0; a < archivos.size(); a++) {
+            try {
+                agregarBloques(a, archivos.get(a), inicio, fin, bloques);
+            } catch (IOException e) {
+                logger.error("Error al mapear " + archivos.get(a) + ": " + e.getLocalizedMessage());
+            }
+        }
+        IntStream.range(0, bloques.size()).parallel().forEach(b -> leerBloque(bloques.get(b), inicio, fin));
+
+        // Se juntan en orden de archivo y de bloque, hasta el bloque donde se cortó cada archivo
+        HashMap<String, Envio> envios = new HashMap<>();
+        int lineasInvalidas = 0;
+        int archivoCortado = -1;
+        for (Bloque bloque : bloques) {
+            if (bloque.archivo == archivoCortado) {
+                continue;
+            }
+            for (Envio envio : bloque.envios) {
+                envios.put(envio.getCodigoEnvio(), envio);
+            }
+            lineasInvalidas += bloque.lineasInvalidas;
+            if (bloque.cortado) {
+                archivoCortado = bloque.archivo;
+            }
+        }
+        if (lineasInvalidas > 0) {
+            logger.warn("Se saltaron " + lineasInvalidas + " líneas de envíos mal formadas");
+        }
+        logger.info("Envíos leídos de " + archivos.size() + " archivos (" + bloques.size() + " bloques): "
+                + envios.size());
+        return envios;
+    }
+
+    // Mapea el tramo del archivo que puede caer en [inicio, fin] y lo parte en bloques que terminan en un
+    // salto de línea
+    private void agregarBloques(int indiceArchivo, Path archivo, long inicio, long fin, ArrayList<Bloque> bloques)
+            throws IOException {
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            long tamanio = canal.size();
+            if (tamanio > Integer.MAX_VALUE) {
+                throw new IOException("Archivo demasiado grande para mapearlo: " + tamanio + " bytes");
+            }
+            long modificado = Files.getLastModifiedTime(archivo).toMillis();
+            IndiceDiarioEnvios indice = IndiceDiarioEnvios.leer(archivo, tamanio, modificado);
+            // El mapeo sigue válido después de cerrar el canal
+            MappedByteBuffer datos;
+            long base;
+            long[] rango;
+            if (indice == null) {
+                // Primera lectura (o el archivo cambió): se mapea completo para armar el índice
+                datos = canal.map(FileChannel.MapMode.READ_ONLY, 0, tamanio);
+                indice = IndiceDiarioEnvios.construir(datos, modificado);
+                try {
+                    indice.guardar(archivo);
+                    logger.info("Índice de " + archivo.getFileName() + " guardado: " + indice.getCantidadDias()
+                            + " días" + (indice.isOrdenado() ? "" : " (archivo no ordenado por fecha)"));
+                } catch (IOException e) {
+                    logger.warn("No se pudo guardar el índice de " + archivo + ": " + e.getLocalizedMessage());
+                }
+                base = 0;
+                rango = indice.rango(inicio, fin);
+            } else {
+                rango = indice.rango(inicio, fin);
+                base = rango[0];
+                datos = canal.map(FileChannel.MapMode.READ_ONLY, rango[0], rango[1] - rango[0]);
+            }
+            // Posiciones dentro del mapeo
+            int desde = (int) (rango[0] - base);
+            int finTramo = (int) (rango[1] - base);
+            while (desde < finTramo) {
+                int hasta = (int) Math.min(finTramo, (long) desde + TAMANIO_BLOQUE);
+                while (hasta < finTramo && datos.get(hasta - 1) != '\n') {
+                    hasta++;
+                }
+                bloques.add(new Bloque(indiceArchivo, datos, desde, hasta));
+                desde = hasta;
+            }
+        }
+    }
+
+    private void leerBloque(Bloque bloque, long inicio, long fin) {
+        MappedByteBuffer datos = bloque.datos;
+        int p = bloque.desde;
+        while (p < bloque.hasta) {
+            int finLinea = p;
+            while (finLinea < bloque.hasta && datos.get(finLinea) != '\n') {
+                finLinea++;
+            }
+            int resultado;
+            try {
+                resultado = leerLinea(datos, p, finLinea, inicio, fin, bloque.envios);
+            } catch (DateTimeException e) {
+                // Fecha que pasa los rangos de leerLinea pero no existe (p. ej. 20240231)
+                resultado = LINEA_INVALIDA;
+            }
+            if (resultado == LINEA_INVALIDA) {
+                bloque.lineasInvalidas++;
+            } else if (resultado == LINEA_DESPUES_DEL_FIN) {
+                bloque.cortado = true;
+                return;
+            }
+            p = finLinea + 1;
+        }
+    }
+
+    // ORIG-id-yyyyMMdd-HH:mm:ss-DEST:n en [p, finLinea). Las líneas en blanco y las que salen antes del
+    // inicio cuentan como leídas
+    private int leerLinea(MappedByteBuffer datos, int p, int finLinea, long inicio, long fin,
+            ArrayList<Envio> envios) {
+        while (finLinea > p && (datos.get(finLinea - 1) == '\r' || datos.get(finLinea - 1) == ' ')) {
+            finLinea--;
+        }
+        while (p < finLinea && datos.get(p) == ' ') {
+            p++;
+        }
+        if (p == finLinea) {
+            return LINEA_LEIDA;
+        }
+        // Largo mínimo: 4 + 1 + 1 + 1 + 8 + 1 + 8 + 1 + 4 + 1 + 1
+        if (finLinea - p < 31 || datos.get(p + 4) != '-') {
+            return LINEA_INVALIDA;
+        }
+        int origen = buscarAeropuerto(datos, p);
+        int q = p + 5;
+        int idEnvio = 0;
+        int digitos = 0;
+        while (q < finLinea && esDigito(datos.get(q))) {
+            idEnvio = idEnvio * 10 + (datos.get(q++) - '0');
+            digitos++;
+        }
+        // -yyyyMMdd-HH:mm:ss-DEST:n
+        if (digitos == 0 || finLinea - q < 25 || datos.get(q) != '-' || datos.get(q + 9) != '-'
+                || datos.get(q + 12) != ':' || datos.get(q + 15) != ':' || datos.get(q + 18) != '-'
+                || datos.get(q + 23) != ':') {
+            return LINEA_INVALIDA;
+        }
+        int anio = numero(datos, q + 1, 4);
+        int mes = numero(datos, q + 5, 2);
+        int dia = numero(datos, q + 7, 2);
+        int hora = numero(datos, q + 10, 2);
+        int minuto = numero(datos, q + 13, 2);
+        int segundo = numero(datos, q + 16, 2);
+        int destino = buscarAeropuerto(datos, q + 19);
+        int cantidad = numero(datos, q + 24, finLinea - (q + 24));
+        if (anio < 0 || mes < 1 || mes > 12 || dia < 1 || dia > 31 || hora < 0 || hora > 23 || minuto < 0
+                || minuto > 59 || segundo < 0 || segundo > 59 || cantidad < 0
+                || dia > YearMonth.of(anio, mes).lengthOfMonth()) {
+            return LINEA_INVALIDA;
+        }
+
+        Aeropuerto aeropuertoOrigen = origen >= 0 ? aeropuerto[origen] : aeropuertoPorDefecto;
+        Aeropuerto aeropuertoDestino = destino >= 0 ? aeropuerto[destino] : aeropuertoPorDefecto;
+        ZonedDateTime horaOrigenZoned = null;
+        long segundoSalida;
+        if (origen >= 0 && desfase[origen] != null) {
+            segundoSalida = diasDesdeEpoch(anio, mes, dia) * SEGUNDOS_DIA + hora * 3600L + minuto * 60L + segundo
+                    - desfase[origen];
+        } else {
+            horaOrigenZoned = ZonedDateTime.of(anio, mes, dia, hora, minuto, segundo, 0,
+                    aeropuertoOrigen.getZoneId());
+            segundoSalida = horaOrigenZoned.toEpochSecond();
+        }
+        if (segundoSalida < inicio) {
+            return LINEA_LEIDA;
+        }
+        if (segundoSalida > fin) {
+            return LINEA_DESPUES_DEL_FIN;
+        }
+        if (horaOrigenZoned == null) {
+            horaOrigenZoned = ZonedDateTime.of(anio, mes, dia, hora, minuto, segundo, 0,
+                    aeropuertoOrigen.getZoneId());
+        }
+        String codigoOrigen = origen >= 0 ? codigo[origen] : texto(datos, p, 4);
+        String codigoDestino = destino >= 0 ? codigo[destino] : texto(datos, q + 19, 4);
+        envios.add(crearEnvio(codigoOrigen, idEnvio, horaOrigenZoned, codigoDestino, cantidad, aeropuertoOrigen,
+                aeropuertoDestino));
+        return LINEA_LEIDA;
+    }
+
+    // Mismo envío que arma FuncionesLectura.leerEnviosDesdeHasta
+    static Envio crearEnvio(String ciudadOrigenEnvio, int envioId, ZonedDateTime horaOrigenZoned,
+            String ciudadDestino, int cantidadPaquetes, Aeropuerto origen, Aeropuerto destino) {
+        // El tiempo para enviar será de dos días si es continente distinto y de un día si es el mismo continente
+        int diasPlazo = origen.getContinente().equals(destino.getContinente()) ? 1 : 2;
+        ZonedDateTime horaDestinoZoned = horaOrigenZoned.plusDays(diasPlazo).withZoneSameInstant(destino.getZoneId());
+        Duration plazo = Duration.ofDays(diasPlazo);
+        String codigo = ciudadOrigenEnvio + envioId;
+        ArrayList<Paquete> paquetes = new ArrayList<>(cantidadPaquetes);
+        for (int i = 0; i < cantidadPaquetes; i++) {
+            Paquete paquete = new Paquete();
+            paquete.setCodigoEnvio(codigo);
+            // un envío no tiene más de 99 paquetes en principio
+            paquete.setIdPaquete(1000000 * origen.getIdAeropuerto() + 100 * envioId + (i + 1));
+            paquete.setTiempoRestanteDinamico(plazo);
+            paquete.setTiempoRestante(plazo);
+            paquetes.add(paquete);
+        }
+        Envio nuevoEnvio = new Envio(ciudadOrigenEnvio, ciudadDestino, horaOrigenZoned, cantidadPaquetes, paquetes);
+        nuevoEnvio.setIdEnvio(envioId);
+        nuevoEnvio.setFechaHoraLlegadaPrevista(horaDestinoZoned);
+        nuevoEnvio.setCodigoEnvio(codigo);
+        return nuevoEnvio;
+    }
+
+    // Índice del aeropuerto cuyo código son los 4 bytes desde p, o -1
+    private int buscarAeropuerto(MappedByteBuffer datos, int p) {
+        int buscado = empaquetar(datos.get(p), datos.get(p + 1), datos.get(p + 2), datos.get(p + 3));
+        for (int i = 0; i < codigoEmpaquetado.length; i++) {
+            if (codigoEmpaquetado[i] == buscado) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int empaquetar(byte a, byte b, byte c, byte d) {
+        return (a & 0xFF) << 24 | (b & 0xFF) << 16 | (c & 0xFF) << 8 | (d & 0xFF);
+    }
+
+    private static boolean esDigito(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    // Número de 'largo' dígitos desde p, o -1 si hay algo que no es dígito
+    private static int numero(MappedByteBuffer datos, int p, int largo) {
+        if (largo <= 0 || largo > 9) {
+            return -1;
+        }
+        int valor = 0;
+        for (int i = p; i < p + largo; i++) {
+            byte b = datos.get(i);
+            if (!esDigito(b)) {
+                return -1;
+            }
+            valor = valor * 10 + (b - '0');
+        }
+        return valor;
+    }
+
+    private static String texto(MappedByteBuffer datos, int p, int largo) {
+        byte[] bytes = new byte[largo];
+        for (int i = 0; i < largo; i++) {
+            bytes[i] = datos.get(p + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    // Días desde 1970-01-01 de una fecha del calendario gregoriano
+    static long diasDesdeEpoch(int anio, int mes, int dia) {
+        long y = mes <= 2 ? anio - 1 : anio;
+        long era = Math.floorDiv(y, 400);
+        long anioDeEra = y - era * 400;
+        long diaDelAnio = (153L * (mes + (mes > 2 ? -3 : 9)) + 2) / 5 + dia - 1;
+        long diaDeEra = anioDeEra * 365 + anioDeEra / 4 - anioDeEra / 100 + diaDelAnio;
+        return era * 146097 + diaDeEra - 719468;
+    }
+
+    // Bloque de un archivo mapeado y lo que se leyó de él
+    private static class Bloque {
+        private final int archivo;
+        private final MappedByteBuffer datos;
+        private final int desde;
+        private final int hasta;
+        private final ArrayList<Envio> envios = new ArrayList<>();
+        private int lineasInvalidas = 0;
+        private boolean cortado = false;
+
+        Bloque(int archivo, MappedByteBuffer datos, int desde, int hasta) {
+            this.archivo = archivo;
+            this.datos = datos;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.dp1.backend.utils;
+
+import java.util.Arrays;
+
+/*
+ * Línea de tiempo de la ocupación de un almacén, en buckets de un minuto epoch (UTC). Reemplaza al
+ * TreeMap<LocalDateTime, Integer> de Aeropuerto, donde registrar una entrada o salida reescribía todas las
+ * entradas posteriores del mapa.
+ *
+ * Es un árbol de segmentos con suma perezosa: sumar en un rango, consultar un minuto y consultar el máximo
+ * de un rango cuestan O(log n). Una entrada o salida de paquete es una suma sobre [minuto, infinito).
+ *
+ * El horizonte (los minutos que cubre el árbol) crece según se necesite y descartarAntesDe() lo recorta por
+ * delante. Los minutos anteriores al horizonte valen 0 y los posteriores valen lo acumulado por las sumas
+ * hasta infinito.
+ *
+ * reiniciar() es O(1): cada nodo guarda la época en que se escribió y un nodo de una época anterior vale 0.
+ */
+public class LineaTiempoOcupacion {
+    private static final int TAMANIO_INICIAL = 2048; // minutos (algo más de un día)
+
+    private long inicio; // minuto epoch del primer bucket
+    private int n; // cantidad de buckets (potencia de 2)
+    // maximo[nodo]: máximo del rango del nodo contando su propia suma pendiente, pero no la de sus ancestros
+    private int[] maximo;
+    private int[] pendiente;
+    private int[] epocaNodo;
+    private int epoca = 0;
+    private int acumuladoFinal = 0;
+    private boolean vacia = true;
+
+    public LineaTiempoOcupacion() {
+        this.n = TAMANIO_INICIAL;
+        this.maximo = new int[2 * n];
+        this.pendiente = new int[2 * n];
+        this.epocaNodo = new int[2 * n];
+    }
+
+    public LineaTiempoOcupacion copia() {
+        LineaTiempoOcupacion copia = new LineaTiempoOcupacion();
+        copia.inicio = this.inicio;
+        copia.n = this.n;
+        copia.maximo = Arrays.copyOf(this.maximo, this.maximo.length);
+        copia.pendiente = Arrays.copyOf(this.pendiente, this.pendiente.length);
+        copia.epocaNodo = Arrays.copyOf(this.epocaNodo, this.epocaNodo.length);
+        copia.epoca = this.epoca;
+        copia.acumuladoFinal = this.acumuladoFinal;
+        copia.vacia = this.vacia;
+        return copia;
+    }
+
+    // Deja la línea sin ocupación, conservando los arreglos ya reservados
+    public void reiniciar() {
+        epoca++;
+        acumuladoFinal = 0;
+        vacia = true;
+    }
+
+    // Olvida los minutos anteriores al dado (pasan a valer 0) y encoge el horizonte a lo que queda, para que
+    // una línea que vive toda la simulación no crezca con el tiempo simulado
+    public void descartarAntesDe(long minuto) {
+        if (vacia || minuto <= inicio) {
+            return;
+        }
+        long fin = Math.max(inicio + n, minuto + 1);
+        int nuevoN = Math.max(TAMANIO_INICIAL, Integer.highestOneBit((int) (fin - minuto - 1)) << 1);
+        reconstruir(minuto, nuevoN);
+    }
+
+    // Suma delta a todos los minutos desde el minuto dado en adelante (entrada: +1, salida: -1)
+    public void sumarDesde(long minuto, int delta) {
+        asegurarHorizonte(minuto, minuto);
+        sumar(1, 0, n - 1, (int) (minuto - inicio), n - 1, delta);
+        acumuladoFinal += delta;
+    }
+
+    // Suma delta a los minutos de [desde, hasta]
+    public void sumarEnRango(long desde, long hasta, int delta) {
+        if (hasta < desde) {
+            return;
+        }
+        asegurarHorizonte(desde, hasta);
+        sumar(1, 0, n - 1, (int) (desde - inicio), (int) (hasta - inicio), delta);
+    }
+
+    public int valorEn(long minuto) {
+        if (vacia || minuto < inicio) {
+            return 0;
+        }
+        if (minuto >= inicio + n) {
+            return acumuladoFinal;
+        }
+        // Recorremos del nodo raíz a la hoja acumulando las sumas pendientes
+        int posicion = (int) (minuto - inicio);
+        int nodo = 1, bajo = 0, alto = n - 1, suma = 0;
+        while (bajo != alto) {
+            vigente(nodo);
+            suma += pendiente[nodo];
+            int medio = (bajo + alto) >>> 1;
+            if (posicion <= medio) {
+                nodo = 2 * nodo;
+                alto = medio;
+            } else {
+                nodo = 2 * nodo + 1;
+                bajo = medio + 1;
+            }
+        }
+        vigente(nodo);
+        return suma + maximo[nodo];
+    }
+
+    // Máxima ocupación en los minutos de [desde, hasta]
+    public int maximoEnRango(long desde, long hasta) {
+        if (vacia) {
+            return 0;
+        }
+        int resultado = Integer.MIN_VALUE;
+        if (desde < inicio) {
+            resultado = 0;
+        }
+        if (hasta >= inicio + n) {
+            resultado = Math.max(resultado, acumuladoFinal);
+        }
+        long a = Math.max(desde, inicio);
+        long b = Math.min(hasta, inicio + n - 1);
+        if (a <= b) {
+            resultado = Math.max(resultado, maximo(1, 0, n - 1, (int) (a - inicio), (int) (b - inicio)));
+        }
+        return resultado == Integer.MIN_VALUE ? 0 : resultado;
+    }
+
+    public long getInicioHorizonte() {
+        return this.inicio;
+    }
+
+    public int getTamanioHorizonte() {
+        return this.n;
+    }
+
+    private void sumar(int nodo, int bajo, int alto, int l, int r, int delta) {
+        vigente(nodo);
+        if (l <= bajo && alto <= r) {
+            maximo[nodo] += delta;
+            pendiente[nodo] += delta;
+            return;
+        }
+        int medio = (bajo + alto) >>> 1;
+        if (l <= medio) {
+            sumar(2 * nodo, bajo, medio, l, r, delta);
+        }
+        if (r > medio) {
+            sumar(2 * nodo + 1, medio + 1, alto, l, r, delta);
+        }
+        vigente(2 * nodo);
+        vigente(2 * nodo + 1);
+        maximo[nodo] = Math.max(maximo[2 * nodo], maximo[2 * nodo + 1]) + pendiente[nodo];
+    }
+
+    private int maximo(int nodo, int bajo, int alto, int l, int r) {
+        vigente(nodo);
+        if (l <= bajo && alto <= r) {
+            return maximo[nodo];
+        }
+        int medio = (bajo + alto) >>> 1;
+        int resultado = Integer.MIN_VALUE;
+        if (l <= medio) {
+            resultado = maximo(2 * nodo, bajo, medio, l, r);
+        }
+        if (r > medio) {
+            resultado = Math.max(resultado, maximo(2 * nodo + 1, medio + 1, alto, l, r));
+        }
+        return resultado + pendiente[nodo];
+    }
+
+    // Escribe el valor de cada minuto del nodo en valores, bajando las sumas pendientes de los ancestros
+    private void recolectar(int nodo, int bajo, int alto, int acumulado, int[] valores) {
+        vigente(nodo);
+        if (bajo == alto) {
+            valores[bajo] = acumulado + maximo[nodo];
+            return;
+        }
+        int medio = (bajo + alto) >>> 1;
+        recolectar(2 * nodo, bajo, medio, acumulado + pendiente[nodo], valores);
+        recolectar(2 * nodo + 1, medio + 1, alto, acumulado + pendiente[nodo], valores);
+    }
+
+    // Un nodo escrito antes del último reinicio vale 0
+    private void vigente(int nodo) {
+        if (epocaNodo[nodo] != epoca) {
+            epocaNodo[nodo] = epoca;
+            maximo[nodo] = 0;
+            pendiente[nodo] = 0;
+        }
+    }
+
+    // Amplía el horizonte (al menos al doble) para que cubra [desde, hasta]
+    private void asegurarHorizonte(long desde, long hasta) {
+        if (vacia) {
+            // Dejamos algo de margen hacia atrás: los vuelos de un paquete no siempre se registran en orden
+            inicio = desde - n / 4;
+            vacia = false;
+        }
+        if (desde >= inicio && hasta < inicio + n) {
+            return;
+        }
+        long nuevoInicio = inicio;
+        long nuevoFin = inicio + n;
+        if (desde < inicio) {
+            nuevoInicio = Math.min(desde, inicio - n);
+        }
+        if (hasta >= inicio + n) {
+            nuevoFin = Math.max(hasta + 1, inicio + 2L * n);
+        }
+        long necesario = nuevoFin - nuevoInicio;
+        if (necesario > (1 << 30)) {
+            throw new IllegalArgumentException("Horizonte de ocupación demasiado grande: " + necesario + " minutos");
+        }
+        reconstruir(nuevoInicio, Integer.highestOneBit((int) necesario - 1) << 1);
+    }
+
+    // Vuelve a armar el árbol para que cubra nuevoN minutos desde nuevoInicio, conservando el valor de cada
+    // minuto que cubría el anterior
+    private void reconstruir(long nuevoInicio, int nuevoN) {
+        int[] actuales = new int[n];
+        recolectar(1, 0, n - 1, 0, actuales);
+        // Los minutos de la izquierda del horizonte anterior valen 0 y los de la derecha el acumulado final
+        int[] valores = new int[nuevoN];
+        for (int i = 0; i < nuevoN; i++) {
+            long posicion = nuevoInicio + i - inicio;
+            if (posicion >= n) {
+                valores[i] = acumuladoFinal;
+            } else if (posicion >= 0) {
+                valores[i] = actuales[(int) posicion];
+            }
+        }
+
+        inicio = nuevoInicio;
+        n = nuevoN;
+        maximo = new int[2 * n];
+        pendiente = new int[2 * n];
+        epocaNodo = new int[2 * n];
+        Arrays.fill(epocaNodo, epoca);
+        // Las hojas del árbol (nodos n .. 2n-1) guardan su valor como suma pendiente propia
+        for (int i = 0; i < n; i++) {
+            maximo[n + i] = valores[i];
+            pendiente[n + i] = valores[i];
+        }
+        for (int nodo = n - 1; nodo >= 1; nodo--) {
+            maximo[nodo] = Math.max(maximo[2 * nodo], maximo[2 * nodo + 1]);
+        }
+    }
+}
@@ -64,68 +64,24 @@ public class Normalizacion {
     // }
 
     public static double[] obtenerDistanciaExtrema(HashMap<String, Aeropuerto> aeropuertos) {
-        double minDistancia = Double.MAX_VALUE;
-        double maxDistancia = Double.MIN_VALUE;
-        Aeropuerto aeropuertoMin1 = null;
-        Aeropuerto aeropuertoMin2 = null;
-        Aeropuerto aeropuertoMax1 = null;
-        Aeropuerto aeropuertoMax2 = null;
-
-        for (Aeropuerto aeropuerto1 : aeropuertos.values()) {
-            for (Aeropuerto aeropuerto2 : aeropuertos.values()) {
-                if (!aeropuerto1.equals(aeropuerto2)) {
-                    double distancia = distanciaEntreAeropuertos(aeropuerto1.getLatitud(), aeropuerto1.getLongitud(),
-                            aeropuerto2.getLatitud(), aeropuerto2.getLongitud());
-                    if (distancia < minDistancia) {
-                        minDistancia = distancia;
-                        aeropuertoMin1 = aeropuerto1;
-                        aeropuertoMin2 = aeropuerto2;
-                    }
-                    if (distancia > maxDistancia) {
-                        maxDistancia = distancia;
-                        aeropuertoMax1 = aeropuerto1;
-                        aeropuertoMax2 = aeropuerto2;
-                    }
-                }
-            }
-        }
-        System.out.println("Distancia minima: " + aeropuertoMin1.getCiudad() + " - " + aeropuertoMin2.getCiudad());
-        System.out.println("Distancia maxima: " + aeropuertoMax1.getCiudad() + " - " + aeropuertoMax2.getCiudad());
-
-        return new double[] { minDistancia, maxDistancia };
+        // El índice geográfico ya tiene calculadas la distancia mínima y máxima entre aeropuertos
+        AirportGeoIndex indice = AirportGeoIndex.construir(aeropuertos);
+        return new double[] { indice.getDistanciaMinima(), indice.getDistanciaMaxima() };
     }
 
     public static double obtenerDistanciaEntreAeropuertos(HashMap<String, Aeropuerto> aeropuertos, String codigoOACI1,
             String codigoOACI2) {
-        Aeropuerto aeropuerto1 = null;
-        Aeropuerto aeropuerto2 = null;
-
         if(codigoOACI1.equals(codigoOACI2)) return 0.0;
 
-        // Buscar el primer aeropuerto con el código OACI1
-        for (Aeropuerto aeropuerto : aeropuertos.values()) {
-            if (aeropuerto.getCodigoOACI().equals(codigoOACI1)) {
-                aeropuerto1 = aeropuerto;
-                break; // Salir del bucle una vez que se encuentra el aeropuerto
-            }
-        }
-
-        // Buscar el segundo aeropuerto con el código OACI2
-        for (Aeropuerto aeropuerto : aeropuertos.values()) {
-            if (aeropuerto.getCodigoOACI().equals(codigoOACI2)) {
-                aeropuerto2 = aeropuerto;
-                break; // Salir del bucle una vez que se encuentra el aeropuerto
-            }
-        }
-
-        // Verificar si se encontraron ambos aeropuertos
-        if (aeropuerto1 != null && aeropuerto2 != null) {
-            return distanciaEntreAeropuertos(aeropuerto1.getLatitud(), aeropuerto1.getLongitud(),
-                    aeropuerto2.getLatitud(), aeropuerto2.getLongitud());
-        } else {
+        // Para una sola distancia no vale la pena armar el índice geográfico: basta con buscar por código
+        Aeropuerto aeropuerto1 = aeropuertos.get(codigoOACI1);
+        Aeropuerto aeropuerto2 = aeropuertos.get(codigoOACI2);
+        if (aeropuerto1 == null || aeropuerto2 == null) {
             // Manejo de errores si no se encuentran los aeropuertos
             System.out.println("Error: No se encontraron los aeropuertos con los códigos OACI proporcionados." + "-"+codigoOACI1+"-"+codigoOACI2);
-            return -1; // Valor de distancia inválido
+            return -1;
         }
+        return distanciaEntreAeropuertos(aeropuerto1.getLatitud(), aeropuerto1.getLongitud(),
+                aeropuerto2.getLatitud(), aeropuerto2.getLongitud());
     }
 }
@@ -0,0 +1,313 @@
+package com.dp1.backend.utils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.models.ProgramacionVuelo;
+import com.dp1.backend.models.Vuelo;
+
+/*
+ * Estado de la planificación incremental de la simulación (ver ACO.run_incremental). Entre ejecuciones se
+ * conservan los vuelos programados con la carga ya reservada, la ocupación planificada de los almacenes y
+ * la ruta comprometida de cada paquete. Así cada ejecución solo planifica:
+ * - los paquetes nuevos, que no tienen ruta comprometida,
+ * - los paquetes cuya ruta pasa por un vuelo cancelado: conservan los vuelos anteriores al cancelado y se
+ *   replanifican desde ahí,
+ * - los paquetes que ya no caben: no llegaban a destino o la verificación les cambió la ruta.
+ * El resto conserva su ruta y su reserva sin volver a recorrerse.
+ *
+ * Cuando el horizonte descarta días, de cada ruta comprometida solo se dejan de seguir los vuelos de esos
+ * días; la reserva de los vuelos que siguen en el horizonte se mantiene mientras el paquete viaja.
+ *
+ * Los almacenes son copias para planificación (la verificación reinicia la ocupación planificada de los
+ * aeropuertos reales en cada ejecución). No es seguro para varios hilos: quien lo use debe sincronizar.
+ */
+public class PlanIncremental {
+    private static final Logger logger = LogManager.getLogger(PlanIncremental.class);
+
+    private final HorizonteVuelos horizonte;
+    private final HashMap<String, Aeropuerto> almacenes;
+    private final HashMap<Integer, Vuelo> vuelos;
+    // Ruta comprometida de cada paquete. Por identidad: el idPaquete de los archivos se repite entre envíos
+    // (1000000 * aeropuerto + 100 * envío + i). Los paquetes son los mismos objetos entre ejecuciones
+    private final IdentityHashMap<Paquete, Compromiso> compromisos = new IdentityHashMap<>();
+    // Orden en que se comprometió cada ruta, para recorrer los compromisos siempre en el mismo orden
+    private long siguienteOrden = 0;
+    // Vuelos programados cancelados cuyos paquetes aún no se replanifican
+    private final HashSet<Integer> cancelacionesPendientes = new HashSet<>();
+
+    public PlanIncremental(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos) {
+        this.horizonte = new HorizonteVuelos(AirportGeoIndex.construir(aeropuertos));
+        this.almacenes = Hormiga.copiarAeropuertos(aeropuertos);
+        this.vuelos = vuelos;
+    }
+
+    public HorizonteVuelos getHorizonte() {
+        return this.horizonte;
+    }
+
+    public HashMap<String, Aeropuerto> getAlmacenes() {
+        return this.almacenes;
+    }
+
+    public int getCantidadCompromisos() {
+        return this.compromisos.size();
+    }
+
+    public Compromiso compromiso(Paquete paq) {
+        return compromisos.get(paq);
+    }
+
+    // Mueve el horizonte a la hora dada. De cada ruta comprometida se deja de seguir lo que va hasta el último
+    // vuelo de un día descartado (ya se voló); los vuelos siguientes conservan su reserva. Solo se olvidan las
+    // rutas que quedan enteras en los días descartados; si una de ellas no llegaba a destino, el paquete deja
+    // de contar en el almacén donde quedó. La ocupación planificada de los almacenes anterior al horizonte
+    // también se descarta
+    public void avanzar(ZonedDateTime ahora) {
+        LocalDate primerDia = ahora.toLocalDate().minusDays(HorizonteVuelos.DIAS_ANTES);
+        // Ningún vuelo del horizonte sale antes de que el primer día empiece en algún huso horario
+        long minutoCorte = aco_auxiliares.minutoEpoch(primerDia.atStartOfDay(ZoneOffset.MAX));
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        int olvidados = 0, recortados = 0;
+        Iterator<Compromiso> it = compromisos.values().iterator();
+        while (it.hasNext()) {
+            Compromiso c = it.next();
+            // Los vuelos se comparan por su fecha local de salida, que es la del día al que pertenecen
+            int hasta = 0;
+            for (int t = 0; t < c.vuelos.length; t++) {
+                if (vuelosProgramados.get(c.vuelos[t]).getFechaHoraSalida().toLocalDate().isBefore(primerDia)) {
+                    hasta = t + 1;
+                }
+            }
+            if (hasta == 0) {
+                continue;
+            }
+            if (hasta == c.vuelos.length) {
+                // En el destino final el paquete ya sale del almacén en su plazo (ver tomarVuelo en ACO)
+                ProgramacionVuelo ultimo = vuelosProgramados.get(c.vuelos[hasta - 1]);
+                String ciudad = vuelos.get(ultimo.getIdVuelo()).getDestino();
+                if (!ciudad.equals(c.envio.getDestino())) {
+                    almacenes.get(ciudad).paquetesSalenPlanificacion(
+                            Math.max(ultimo.getMinutoLlegada(), minutoCorte), 1);
+                }
+                it.remove();
+                olvidados++;
+                continue;
+            }
+            ProgramacionVuelo ultimo = vuelosProgramados.get(c.vuelos[hasta - 1]);
+            c.ciudadDescartados = vuelos.get(ultimo.getIdVuelo()).getDestino();
+            c.minutoDescartados = ultimo.getMinutoLlegada();
+            c.descartados += hasta;
+            c.vuelos = Arrays.copyOfRange(c.vuelos, hasta, c.vuelos.length);
+            recortados++;
+        }
+
+        boolean[] descartado = horizonte.descartarAntesDe(primerDia);
+        if (descartado == null) {
+            return;
+        }
+        cancelacionesPendientes.removeIf(id -> id < descartado.length && descartado[id]);
+        for (Aeropuerto almacen : almacenes.values()) {
+            almacen.descartarPlanificacionAntesDe(minutoCorte);
+        }
+        logger.info("Planificación incremental: " + olvidados + " rutas comprometidas salen del horizonte y "
+                + recortados + " dejan de seguir sus vuelos ya descartados");
+    }
+
+    // Cancela el vuelo que sale en esa fecha (local del origen). Sus paquetes se replanifican en la siguiente
+    // ejecución. Devuelve el vuelo programado cancelado, o -1 si ese día no está en el horizonte
+    public int cancelarVuelo(int idVuelo, LocalDate fechaSalida) {
+        int id = horizonte.buscarProgramado(idVuelo, fechaSalida);
+        if (id < 0) {
+            return -1;
+        }
+        horizonte.getEstado().setCapacidad(id, 0);
+        cancelacionesPendientes.add(id);
+        return id;
+    }
+
+    // Corta en el primer vuelo cancelado las rutas que pasan por uno y libera la reserva desde ahí. Devuelve
+    // los compromisos cortados, que quedan pendientes hasta que se vuelvan a comprometer
+    public ArrayList<Compromiso> cortarEnCancelados() {
+        ArrayList<Compromiso> cortados = new ArrayList<>();
+        if (cancelacionesPendientes.isEmpty()) {
+            return cortados;
+        }
+        ArrayList<Compromiso> enOrden = new ArrayList<>(compromisos.values());
+        enOrden.sort(Comparator.comparingLong(c -> c.orden));
+        for (Compromiso c : enOrden) {
+            int corte = -1;
+            for (int t = 0; t < c.vuelos.length && corte < 0; t++) {
+                if (cancelacionesPendientes.contains(c.vuelos[t])) {
+                    corte = t;
+                }
+            }
+            if (corte >= 0) {
+                cortar(c, corte);
+                cortados.add(c);
+            }
+        }
+        cancelacionesPendientes.clear();
+        return cortados;
+    }
+
+    // La ruta comprometida sigue siendo la del paquete: llega a destino y nadie se la cambió
+    public boolean vigente(Compromiso c) {
+        Paquete paq = c.paquete;
+        if (!c.llega || paq.getRuta() == null || paq.getRuta().size() != c.descartados + c.vuelos.length) {
+            return false;
+        }
+        HashMap<Integer, ProgramacionVuelo> vuelosProgramados = horizonte.getVuelosProgramados();
+        for (int t = 0; t < c.vuelos.length; t++) {
+            if (paq.getRuta().get(c.descartados + t) != vuelosProgramados.get(c.vuelos[t]).getIdVuelo()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Libera toda la reserva del paquete y lo deja sin ruta, para planificarlo desde su origen
+    public void liberar(Compromiso c) {
+        cortar(c, 0);
+        compromisos.remove(c.paquete);
+    }
+
+    public void comprometer(Paquete paq, Envio envio, int[] vuelosProgramados, boolean llega) {
+        Compromiso c = compromisos.get(paq);
+        if (c == null) {
+            c = new Compromiso(paq, envio, siguienteOrden++);
+            compromisos.put(paq, c);
+        }
+        c.vuelos = vuelosProgramados;
+        c.llega = llega;
+        c.pendiente = false;
+    }
+
+    // Deja en la ruta del compromiso (y del paquete) solo los vuelos anteriores a 'desde' y libera el resto.
+    // En el paquete se conservan además los vuelos ya descartados del horizonte
+    private void cortar(Compromiso c, int desde) {
+        for (int t = desde; t < c.vuelos.length; t++) {
+            liberarVuelo(c, c.vuelos[t]);
+        }
+        c.vuelos = Arrays.copyOf(c.vuelos, desde);
+        c.llega = false;
+        c.pendiente = true;
+
+        Paquete paq = c.paquete;
+        ArrayList<Integer> ruta = new ArrayList<>();
+        ArrayList<ZonedDateTime> fechasRuta = new ArrayList<>();
+        ArrayList<Double> costosRuta = new ArrayList<>();
+        for (int t = 0; t < c.descartados + desde; t++) {
+            if (t < c.descartados) {
+                ruta.add(paq.getRuta().get(t));
+                fechasRuta.add(paq.getFechasRuta().get(t));
+            } else {
+                ProgramacionVuelo pv = horizonte.getVuelosProgramados().get(c.vuelos[t - c.descartados]);
+                ruta.add(pv.getIdVuelo());
+                fechasRuta.add(pv.getFechaHoraLlegada());
+            }
+            costosRuta.add(paq.getcostosRuta() != null && t < paq.getcostosRuta().size()
+                    ? paq.getcostosRuta().get(t)
+                    : 0.0);
+        }
+        paq.setRuta(ruta);
+        paq.setFechasRuta(fechasRuta);
+        paq.setCostosRuta(costosRuta);
+        paq.setTiempoRestanteDinamico(
+                paq.getTiempoRestante().minus(Duration.ofMinutes(minutoUbicacion(c) - c.envio.getMinutoSalida())));
+        paq.setLlegoDestino(false);
+    }
+
+    // Deshace lo que hizo tomar el vuelo: carga del vuelo y ocupación de los almacenes de origen y destino
+    // (en el destino final, también la salida del paquete en su plazo)
+    private void liberarVuelo(Compromiso c, int id) {
+        ProgramacionVuelo pv = horizonte.getVuelosProgramados().get(id);
+        Vuelo vuelo = vuelos.get(pv.getIdVuelo());
+        Aeropuerto destino = almacenes.get(vuelo.getDestino());
+        destino.paquetesEntranPlanificacion(pv.getMinutoLlegada(), -1);
+        if (vuelo.getDestino().equals(c.envio.getDestino())) {
+            destino.paquetesSalenPlanificacion(Math.max(pv.getMinutoLlegada(), c.paquete.minutoLimite(c.envio)), -1);
+        }
+        almacenes.get(vuelo.getOrigen()).paquetesSalenPlanificacion(pv.getMinutoSalida(), -1);
+        horizonte.getEstado().incrementarCarga(id, -1);
+    }
+
+    // Dónde y desde cuándo está el paquete con su ruta comprometida actual
+    public String ciudadUbicacion(Compromiso c) {
+        if (c.vuelos.length == 0) {
+            return c.descartados > 0 ? c.ciudadDescartados : c.envio.getOrigen();
+        }
+        ProgramacionVuelo pv = horizonte.getVuelosProgramados().get(c.vuelos[c.vuelos.length - 1]);
+        return vuelos.get(pv.getIdVuelo()).getDestino();
+    }
+
+    public long minutoUbicacion(Compromiso c) {
+        if (c.vuelos.length == 0) {
+            return c.descartados > 0 ? c.minutoDescartados : c.envio.getMinutoSalida();
+        }
+        return horizonte.getVuelosProgramados().get(c.vuelos[c.vuelos.length - 1]).getMinutoLlegada();
+    }
+
+    /*
+     * Ruta comprometida de un paquete: vuelos programados (ordinales del horizonte) en orden de viaje.
+     * Los primeros 'descartados' vuelos de la ruta del paquete eran de días que el horizonte ya descartó y
+     * no se siguen; tras ellos el paquete queda en ciudadDescartados desde minutoDescartados.
+     * Pendiente: la ruta se cortó por una cancelación y falta planificar el resto.
+     */
+    public static class Compromiso {
+        private final Paquete paquete;
+        private final Envio envio;
+        private final long orden;
+        private int[] vuelos = new int[0];
+        private int descartados;
+        private String ciudadDescartados;
+        private long minutoDescartados;
+        private boolean llega;
+        private boolean pendiente;
+
+        Compromiso(Paquete paquete, Envio envio, long orden) {
+            this.paquete = paquete;
+            this.envio = envio;
+            this.orden = orden;
+        }
+
+        public Paquete getPaquete() {
+            return this.paquete;
+        }
+
+        public Envio getEnvio() {
+            return this.envio;
+        }
+
+        public int[] getVuelos() {
+            return this.vuelos;
+        }
+
+        public int getDescartados() {
+            return this.descartados;
+        }
+
+        public boolean isLlega() {
+            return this.llega;
+        }
+
+        public boolean isPendiente() {
+            return this.pendiente;
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.dp1.backend.utils;
+
+import java.util.Arrays;
+
+/*
+ * Estado de la planificación por vuelo programado. Reemplaza a la "tabla" HashMap<Integer, Double[]>
+ * (capacidad, capacidad dinámica, feromonas) por columnas densas de primitivos indexadas por el
+ * ordinal del vuelo programado, que es el mismo id con el que se guarda en vuelosProgramados.
+ *
+ * Columnas:
+ * - capacidad: capacidad máxima del vuelo
+ * - feromona: feromonas del vuelo (la antigua columna [2] de la tabla)
+ * - carga: paquetes asignados al vuelo durante la planificación
+ * La capacidad dinámica (la antigua columna [1] de la tabla) es capacidad - carga.
+ */
+public class PlanningState {
+    private static final int CAPACIDAD_INICIAL = 4096;
+
+    private int tamanio = 0;
+    private double[] capacidad;
+    private double[] feromona;
+    private int[] carga;
+
+    public PlanningState() {
+        this(CAPACIDAD_INICIAL);
+    }
+
+    public PlanningState(int capacidadInicial) {
+        int n = Math.max(1, capacidadInicial);
+        capacidad = new double[n];
+        feromona = new double[n];
+        carga = new int[n];
+    }
+
+    // Agrega un vuelo programado y devuelve su ordinal
+    public int registrarVuelo(double capacidadVuelo, double feromonaInicial) {
+        if (tamanio == capacidad.length) {
+            crecer(tamanio * 2);
+        }
+        int ordinal = tamanio++;
+        capacidad[ordinal] = capacidadVuelo;
+        feromona[ordinal] = feromonaInicial;
+        carga[ordinal] = 0;
+        return ordinal;
+    }
+
+    // Reutiliza el ordinal de un vuelo programado que ya se descartó para otro vuelo
+    public void reutilizarVuelo(int ordinal, double capacidadVuelo, double feromonaInicial) {
+        capacidad[ordinal] = capacidadVuelo;
+        feromona[ordinal] = feromonaInicial;
+        carga[ordinal] = 0;
+    }
+
+    private void crecer(int nuevaCapacidad) {
+        capacidad = Arrays.copyOf(capacidad, nuevaCapacidad);
+        feromona = Arrays.copyOf(feromona, nuevaCapacidad);
+        carga = Arrays.copyOf(carga, nuevaCapacidad);
+    }
+
+    public int getTamanio() {
+        return this.tamanio;
+    }
+
+    public double getCapacidad(int ordinal) {
+        return capacidad[ordinal];
+    }
+
+    public void setCapacidad(int ordinal, double valor) {
+        capacidad[ordinal] = valor;
+    }
+
+    public double getCapacidadRestante(int ordinal) {
+        return capacidad[ordinal] - carga[ordinal];
+    }
+
+    public double getFeromona(int ordinal) {
+        return feromona[ordinal];
+    }
+
+    public void setFeromona(int ordinal, double valor) {
+        feromona[ordinal] = valor;
+    }
+
+    public int getCarga(int ordinal) {
+        return carga[ordinal];
+    }
+
+    public void setCarga(int ordinal, int valor) {
+        carga[ordinal] = valor;
+    }
+
+    public void incrementarCarga(int ordinal) {
+        carga[ordinal]++;
+    }
+
+    public void incrementarCarga(int ordinal, int cantidad) {
+        carga[ordinal] += cantidad;
+    }
+
+    // Multiplica todas las feromonas por (1 - tasaEvaporacion)
+    public void evaporar(double tasaEvaporacion) {
+        double factor = 1 - tasaEvaporacion;
+        for (int i = 0; i < tamanio; i++) {
+            feromona[i] *= factor;
+        }
+    }
+
+    // Copia independiente de las columnas (para guardar el estado antes de una planificación)
+    public PlanningState snapshot() {
+        PlanningState copia = new PlanningState(Math.max(tamanio, 1));
+        System.arraycopy(capacidad, 0, copia.capacidad, 0, tamanio);
+        System.arraycopy(feromona, 0, copia.feromona, 0, tamanio);
+        System.arraycopy(carga, 0, copia.carga, 0, tamanio);
+        copia.tamanio = tamanio;
+        return copia;
+    }
+}
@@ -0,0 +1,213 @@
+package com.dp1.backend.utils;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/*
+ * Selección por ruleta de los vuelos candidatos del ACO. No crea objetos por selección: usa un
+ * SplittableRandom propio (uno por hormiga, o uno por hilo con porHilo()) y los arreglos de trabajo de
+ * quien llama.
+ *
+ * Hay dos formas de escoger:
+ * - escoger(pesos, n): recorrido lineal acumulando los pesos. Es lo mejor para una sola selección o
+ *   para pocos candidatos.
+ * - TablaAlias (método de alias de Vose): se prepara en O(n) y luego cada selección es O(1). Solo conviene
+ *   cuando se escoge varias veces de la misma distribución con muchos candidatos.
+ * escogerSinReposicion(pesos, n, tabla, sorteo) reparte así los sorteos sucesivos de un grupo (p. ej. los
+ * vuelos entre los que se divide un envío): el primero es lineal y la tabla se prepara una sola vez, para
+ * el segundo y los siguientes.
+ *
+ * Los pesos no tienen que estar normalizados; solo deben ser no negativos.
+ */
+public class SelectorRuleta {
+    // A partir de esta cantidad de candidatos se usa la tabla de alias
+    public static final int UMBRAL_ALIAS = 32;
+    // Sorteos descartados seguidos de la tabla de alias antes de volver al recorrido lineal
+    private static final int MAX_DESCARTES = 8;
+
+    // Generador raíz del que se derivan los selectores de cada hilo
+    private static SplittableRandom raiz = new SplittableRandom();
+    private static int generacion = 0;
+    private static final ThreadLocal<SelectorRuleta> selectorHilo = new ThreadLocal<>();
+
+    private final SplittableRandom random;
+    private int generacionSelector;
+
+    public SelectorRuleta() {
+        this.random = new SplittableRandom();
+    }
+
+    // Con semilla, para poder repetir una ejecución
+    public SelectorRuleta(long semilla) {
+        this.random = new SplittableRandom(semilla);
+    }
+
+    private SelectorRuleta(SplittableRandom random, int generacion) {
+        this.random = random;
+        this.generacionSelector = generacion;
+    }
+
+    // Selector del hilo actual. Se crea una vez por hilo a partir del generador raíz
+    public static SelectorRuleta porHilo() {
+        SelectorRuleta selector = selectorHilo.get();
+        if (selector == null || selector.generacionSelector != generacion) {
+            synchronized (SelectorRuleta.class) {
+                selector = new SelectorRuleta(raiz.split(), generacion);
+            }
+            selectorHilo.set(selector);
+        }
+        return selector;
+    }
+
+    // Vuelve a sembrar el generador raíz: los selectores por hilo que se pidan después serán reproducibles
+    // (si cada hilo hace siempre las mismas selecciones en el mismo orden)
+    public static synchronized void sembrar(long semilla) {
+        raiz = new SplittableRandom(semilla);
+        generacion++;
+    }
+
+    public double siguienteDouble() {
+        return random.nextDouble();
+    }
+
+    public int siguienteEntero(int limite) {
+        return random.nextInt(limite);
+    }
+
+    // Recorrido lineal sobre los primeros n pesos
+    public int escoger(double[] pesos, int n) {
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += pesos[i];
+        }
+        double objetivo = random.nextDouble() * total;
+        double acumulador = 0;
+        int ultimoPositivo = 0;
+        for (int i = 0; i < n; i++) {
+            if (pesos[i] > 0) {
+                acumulador += pesos[i];
+                ultimoPositivo = i;
+                if (objetivo < acumulador) {
+                    return i;
+                }
+            }
+        }
+        // Por redondeo el objetivo puede quedar justo en el total
+        return ultimoPositivo;
+    }
+
+    /*
+     * Sorteo número 'sorteo' (desde 0) de una serie sin reposición: entre sorteos quien llama pone en 0 el peso
+     * de lo que ya salió. El primero es lineal, porque casi siempre es el único. Con muchos candidatos, en el
+     * segundo se prepara la tabla con los pesos que quedan y desde ahí se sortea de ella, descartando lo que ya
+     * salió (eso no cambia las proporciones entre los que quedan). Si se descartan muchos seguidos es que queda
+     * poco peso en la tabla y se vuelve al recorrido lineal.
+     */
+    public int escogerSinReposicion(double[] pesos, int n, TablaAlias tabla, int sorteo) {
+        if (sorteo == 0 || n < UMBRAL_ALIAS) {
+            return escoger(pesos, n);
+        }
+        if (sorteo == 1) {
+            tabla.preparar(pesos, n);
+        }
+        for (int intento = 0; intento < MAX_DESCARTES; intento++) {
+            int escogido = escoger(tabla);
+            if (pesos[escogido] > 0) {
+                return escogido;
+            }
+        }
+        return escoger(pesos, n);
+    }
+
+    // Selección O(1) de una tabla ya preparada
+    public int escoger(TablaAlias tabla) {
+        int columna = random.nextInt(tabla.n);
+        return random.nextDouble() < tabla.probabilidad[columna] ? columna : tabla.alias[columna];
+    }
+
+    /*
+     * Tabla de alias de Vose. Sus arreglos se reutilizan entre preparaciones y solo crecen, así que quien
+     * la tenga (una hormiga, un hilo) no vuelve a reservar memoria para cada distribución.
+     */
+    public static class TablaAlias {
+        private double[] probabilidad;
+        private int[] alias;
+        private double[] escalado;
+        private int[] pequenios;
+        private int[] grandes;
+        private int n;
+
+        public TablaAlias() {
+            this(64);
+        }
+
+        public TablaAlias(int capacidadInicial) {
+            reservar(Math.max(1, capacidadInicial));
+        }
+
+        private void reservar(int capacidad) {
+            probabilidad = new double[capacidad];
+            alias = new int[capacidad];
+            escalado = new double[capacidad];
+            pequenios = new int[capacidad];
+            grandes = new int[capacidad];
+        }
+
+        public int getTamanio() {
+            return this.n;
+        }
+
+        // Prepara la tabla con los primeros n pesos
+        public void preparar(double[] pesos, int n) {
+            if (n > probabilidad.length) {
+                reservar(Math.max(n, probabilidad.length * 2));
+            }
+            this.n = n;
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                total += pesos[i];
+            }
+            if (total <= 0) {
+                // Sin pesos válidos: todos los candidatos valen lo mismo
+                Arrays.fill(probabilidad, 0, n, 1.0);
+                for (int i = 0; i < n; i++) {
+                    alias[i] = i;
+                }
+                return;
+            }
+
+            int numPequenios = 0, numGrandes = 0;
+            for (int i = 0; i < n; i++) {
+                escalado[i] = pesos[i] * n / total;
+                if (escalado[i] < 1.0) {
+                    pequenios[numPequenios++] = i;
+                } else {
+                    grandes[numGrandes++] = i;
+                }
+            }
+            while (numPequenios > 0 && numGrandes > 0) {
+                int pequenio = pequenios[--numPequenios];
+                int grande = grandes[--numGrandes];
+                probabilidad[pequenio] = escalado[pequenio];
+                alias[pequenio] = grande;
+                escalado[grande] = (escalado[grande] + escalado[pequenio]) - 1.0;
+                if (escalado[grande] < 1.0) {
+                    pequenios[numPequenios++] = grande;
+                } else {
+                    grandes[numGrandes++] = grande;
+                }
+            }
+            // Lo que queda (por redondeo) se queda con toda su columna
+            while (numGrandes > 0) {
+                int i = grandes[--numGrandes];
+                probabilidad[i] = 1.0;
+                alias[i] = i;
+            }
+            while (numPequenios > 0) {
+                int i = pequenios[--numPequenios];
+                probabilidad[i] = 1.0;
+                alias[i] = i;
+            }
+        }
+    }
+}
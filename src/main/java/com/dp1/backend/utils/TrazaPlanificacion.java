@@ -0,0 +1,230 @@
+package com.dp1.backend.utils;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.dp1.backend.models.Paquete;
+
+/*
+ * Traza del planificador. Reemplaza a los System.out del ACO: la consola sincronizada frenaba a las
+ * hormigas aunque nadie leyera la salida.
+ *
+ * - Niveles: NINGUNO, RESUMEN (inicio/fin de cada ejecución y avance), PASOS (vuelo escogido en cada paso)
+ *   y TABLAS (además, la tabla de candidatos de cada paso).
+ * - Muestreo por paquete: PASOS y TABLAS solo se escriben para los paquetes de los envíos elegidos o para
+ *   una fracción de los paquetes. La decisión depende solo del paquete, así que un paquete muestreado se
+ *   traza completo en todas las hormigas.
+ * - Escritura asíncrona: los mensajes van a un buffer circular de tamaño fijo y un hilo aparte los pasa al
+ *   log (logger "traza.planificacion") o escribe los archivos. Si el buffer se llena, los mensajes nuevos
+ *   se descartan y se cuentan; el planificador nunca espera al escritor. Es la cola acotada de Vyukov: cada
+ *   casilla tiene un número de secuencia que dice si está libre para la posición que le toca a un productor
+ *   o ya tiene el mensaje de la que lee el escritor, así que un productor nunca escribe sobre una casilla
+ *   que el escritor todavía no vació.
+ *
+ * Sin configurar (p. ej. fuera de Spring), la traza está en NINGUNO y cada consulta es una comparación.
+ */
+public class TrazaPlanificacion {
+    public enum Nivel {
+        NINGUNO, RESUMEN, PASOS, TABLAS
+    }
+
+    private static final Logger logger = LogManager.getLogger("traza.planificacion");
+    private static volatile TrazaPlanificacion actual = new TrazaPlanificacion(Nivel.NINGUNO, 0, null, 1024);
+
+    private final Nivel nivel;
+    private final long umbralMuestreo;
+    private final Set<String> enviosTrazados;
+
+    // Buffer circular con varios productores (las hormigas) y un consumidor (el hilo escritor). La casilla de
+    // la posición p está libre para escribirla si su secuencia es p, y tiene el mensaje de p si es p + 1
+    private final AtomicReferenceArray<Object> buffer;
+    private final AtomicLongArray secuencias;
+    private final int mascara;
+    private final AtomicLong siguienteEscritura = new AtomicLong();
+    private long siguienteLectura = 0;
+    private final AtomicLong descartados = new AtomicLong();
+    private volatile boolean activa = true;
+    private Thread escritor;
+
+    public TrazaPlanificacion(Nivel nivel, double muestreo, Collection<String> envios, int capacidad) {
+        this.nivel = nivel;
+        // Se comparan los 53 bits altos del hash del paquete contra muestreo * 2^53
+        this.umbralMuestreo = (long) (Math.max(0, Math.min(1, muestreo)) * (1L << 53));
+        this.enviosTrazados = envios == null ? new HashSet<>() : new HashSet<>(envios);
+        int tamanio = Integer.highestOneBit(Math.max(16, capacidad) - 1) << 1;
+        this.buffer = new AtomicReferenceArray<>(tamanio);
+        this.secuencias = new AtomicLongArray(tamanio);
+        for (int i = 0; i < tamanio; i++) {
+            secuencias.set(i, i);
+        }
+        this.mascara = tamanio - 1;
+    }
+
+    public static TrazaPlanificacion actual() {
+        return actual;
+    }
+
+    // Reemplaza la traza actual: la anterior termina de escribir lo pendiente y se detiene
+    public static synchronized void instalar(TrazaPlanificacion traza) {
+        TrazaPlanificacion anterior = actual;
+        traza.iniciar();
+        actual = traza;
+        anterior.detener();
+    }
+
+    public Nivel getNivel() {
+        return this.nivel;
+    }
+
+    public long getDescartados() {
+        return this.descartados.get();
+    }
+
+    public boolean activo(Nivel nivelMensaje) {
+        return nivel.compareTo(nivelMensaje) >= 0 && nivelMensaje != Nivel.NINGUNO;
+    }
+
+    // Si se trazan los pasos de este paquete al nivel dado
+    public boolean muestrea(Paquete paq, Nivel nivelMensaje) {
+        if (!activo(nivelMensaje)) {
+            return false;
+        }
+        if (enviosTrazados.contains(paq.getCodigoEnvio())) {
+            return true;
+        }
+        if (umbralMuestreo == 0) {
+            return false;
+        }
+        long h = (paq.getCodigoEnvio() == null ? 0 : paq.getCodigoEnvio().hashCode()) * 0x9E3779B97F4A7C15L
+                + paq.getIdPaquete();
+        // Mezcla de SplitMix64 para repartir bien los hashes de códigos parecidos
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        h = h ^ (h >>> 31);
+        return (h >>> 11) < umbralMuestreo;
+    }
+
+    public void registrar(Nivel nivelMensaje, String mensaje) {
+        if (activo(nivelMensaje)) {
+            encolar(mensaje);
+        }
+    }
+
+    // Escribe un archivo desde el hilo escritor. El contenido ya debe estar armado: quien llama no debe
+    // seguir modificando lo que se escribe
+    public void escribirArchivo(Nivel nivelMensaje, String nombreArchivo, CharSequence contenido) {
+        if (activo(nivelMensaje)) {
+            encolar(new Archivo(nombreArchivo, contenido));
+        }
+    }
+
+    private void encolar(Object mensaje) {
+        while (true) {
+            long posicion = siguienteEscritura.get();
+            int casilla = (int) posicion & mascara;
+            long diferencia = secuencias.get(casilla) - posicion;
+            if (diferencia < 0) {
+                // El escritor aún no libera la casilla de la vuelta anterior: buffer lleno
+                descartados.incrementAndGet();
+                return;
+            }
+            // Con diferencia > 0 otro productor ya tomó esta posición: se vuelve a leer la siguiente
+            if (diferencia == 0 && siguienteEscritura.compareAndSet(posicion, posicion + 1)) {
+                buffer.set(casilla, mensaje);
+                secuencias.set(casilla, posicion + 1);
+                return;
+            }
+        }
+    }
+
+    // Siguiente mensaje en orden, o null si todavía no está escrito. Solo lo llama el escritor
+    Object tomar() {
+        int casilla = (int) siguienteLectura & mascara;
+        if (secuencias.get(casilla) != siguienteLectura + 1) {
+            return null;
+        }
+        Object mensaje = buffer.get(casilla);
+        buffer.set(casilla, null);
+        // Libre para la posición de la vuelta siguiente
+        secuencias.set(casilla, siguienteLectura + mascara + 1);
+        siguienteLectura++;
+        return mensaje;
+    }
+
+    private synchronized void iniciar() {
+        if (nivel == Nivel.NINGUNO || escritor != null) {
+            return;
+        }
+        escritor = new Thread(this::escribir, "traza-planificacion");
+        escritor.setDaemon(true);
+        escritor.start();
+    }
+
+    public synchronized void detener() {
+        activa = false;
+        if (escritor != null) {
+            LockSupport.unpark(escritor);
+            try {
+                escritor.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            escritor = null;
+        }
+    }
+
+    private void escribir() {
+        while (true) {
+            Object mensaje = tomar();
+            if (mensaje == null) {
+                // Puede que un productor haya tomado la posición pero aún no escriba en ella
+                if (!activa && siguienteLectura >= siguienteEscritura.get()) {
+                    break;
+                }
+                LockSupport.parkNanos(1_000_000);
+                continue;
+            }
+            if (mensaje instanceof Archivo) {
+                ((Archivo) mensaje).escribir();
+            } else {
+                logger.info(mensaje);
+            }
+        }
+        long perdidos = descartados.get();
+        if (perdidos > 0) {
+            logger.warn("Traza del planificador: " + perdidos + " mensajes descartados por buffer lleno");
+        }
+    }
+
+    private static class Archivo {
+        private final String nombre;
+        private final CharSequence contenido;
+
+        Archivo(String nombre, CharSequence contenido) {
+            this.nombre = nombre;
+            this.contenido = contenido;
+        }
+
+        void escribir() {
+            try (BufferedWriter writer = Files.newBufferedWriter(Paths.get(nombre), StandardCharsets.UTF_8)) {
+                writer.append(contenido);
+                logger.info("Archivo generado correctamente: " + nombre);
+            } catch (IOException e) {
+                logger.error("Error al generar el archivo " + nombre + ": " + e.getMessage());
+            }
+        }
+    }
+}
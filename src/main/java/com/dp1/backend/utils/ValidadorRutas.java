@@ -0,0 +1,529 @@
+package com.dp1.backend.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.IntConsumer;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.models.Vuelo;
+
+/*
+ * Validación de rutas para la verificación de la planificación. Reemplaza a Auxiliares.solucionValidav2,
+ * que por cada tramo armaba ZonedDateTime, leía y escribía el HashMap<LocalDate, Integer> cargaPorDia del
+ * vuelo y armaba mensajes aunque no se mostraran.
+ *
+ * - Los horarios de los vuelos se pasan una vez a minutos (hora local del día y desfase de su zona) y los
+ *   tramos se recorren en minutos epoch, igual que en el ACO.
+ * - La carga de cada vuelo por día (fecha local de salida) está en un arreglo plano de atómicos: fila por
+ *   día, columna por vuelo. Los días cubiertos van desde la salida del primer envío hasta la fecha límite
+ *   del último; un tramo fuera de ese rango no llega a tiempo. La ocupación de los almacenes sigue en su
+ *   LineaTiempoOcupacion.
+ * - Se arma una vez por conjunto de aeropuertos y vuelos y se reutiliza entre verificaciones:
+ *   reiniciar(envios) fija los envíos y los días de la siguiente pasada y solo vuelve a reservar la tabla
+ *   de cargas si no alcanza.
+ * - VERIFICAR solo dice si la ruta cabe; COMPROMETER además deja reservada la carga si cabe. Si la ruta no
+ *   cabe no queda nada reservado (solucionValidav2 dejaba reservados los tramos anteriores al que fallaba).
+ *
+ * Mismas reglas que solucionValidav2: un vuelo sale el día local en que el paquete está en su origen, o el
+ * siguiente si a esa hora ya salió; la ruta termina al llegar al destino, y debe llegar a tiempo. La llegada
+ * que se revisa en el almacén de destino ahora sí considera el cambio de día del vuelo.
+ *
+ * Se puede validar desde varios hilos a la vez (validarTodos): cada tramo se reserva de forma optimista (la
+ * carga del vuelo con compareAndSet, el almacén bajo su candado) y si un tramo posterior falla se deshacen
+ * las reservas anteriores. La carga guarda en los 32 bits altos la época en que se escribió, así que
+ * reiniciar() solo cambia de época. reiniciar() y las validaciones no deben correr a la vez, y una pasada
+ * de verificación debe tener el validador para sí (quien lo comparta sincroniza sobre él).
+ */
+public class ValidadorRutas {
+    public enum Modo {
+        VERIFICAR, COMPROMETER
+    }
+
+    private static final int MINUTOS_DIA = 1440;
+    // Paquetes de un mismo origen que valida seguidos un hilo
+    private static final int TAMANIO_PARTICION = 256;
+
+    private final AirportGeoIndex geo;
+    private final HashMap<String, Aeropuerto> aeropuertos;
+    private final HashMap<Integer, Vuelo> vuelos;
+    private HashMap<String, Envio> envios = new HashMap<>();
+    private final Aeropuerto[] almacenes;
+    // Un candado por almacén: revisar la ocupación y registrar la entrada o salida es una sola operación
+    private final Object[] candados;
+
+    // Columna de cada vuelo en la tabla de cargas (por idVuelo; -1 si no existe)
+    private final int[] columna;
+    // Por columna: origen y destino (ordinales), hora local de salida y llegada (minuto del día), desfase de
+    // la zona de origen y destino (minutos), días que agrega la llegada y capacidad
+    private final int[] origen;
+    private final int[] destino;
+    private final int[] salidaLocal;
+    private final int[] llegadaLocal;
+    private final int[] desfaseOrigen;
+    private final int[] desfaseDestino;
+    private final int[] cambioDeDia;
+    private final int[] capacidad;
+    private final int numVuelos;
+
+    // carga[(dia - primerDia) * numVuelos + columna] = (época << 32) | paquetes
+    private AtomicLongArray carga = new AtomicLongArray(0);
+    private long primerDia;
+    private int numDias;
+    private volatile int epoca = 0;
+
+    // Ruta en curso de cada hilo y sus tramos reservados, para deshacerlos
+    private final ThreadLocal<Recorrido> recorridos = ThreadLocal.withInitial(Recorrido::new);
+
+    public ValidadorRutas(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos) {
+        this.geo = AirportGeoIndex.construir(aeropuertos);
+        this.aeropuertos = aeropuertos;
+        this.vuelos = vuelos;
+        this.almacenes = new Aeropuerto[geo.getCantidadAeropuertos()];
+        this.candados = new Object[almacenes.length];
+        for (int i = 0; i < almacenes.length; i++) {
+            almacenes[i] = aeropuertos.get(geo.codigo(i));
+            candados[i] = new Object();
+        }
+
+        int maximoId = 0;
+        for (int id : vuelos.keySet()) {
+            maximoId = Math.max(maximoId, id);
+        }
+        columna = new int[maximoId + 1];
+        Arrays.fill(columna, -1);
+        numVuelos = vuelos.size();
+        origen = new int[numVuelos];
+        destino = new int[numVuelos];
+        salidaLocal = new int[numVuelos];
+        llegadaLocal = new int[numVuelos];
+        desfaseOrigen = new int[numVuelos];
+        desfaseDestino = new int[numVuelos];
+        cambioDeDia = new int[numVuelos];
+        capacidad = new int[numVuelos];
+        int c = 0;
+        for (Map.Entry<Integer, Vuelo> entrada : vuelos.entrySet()) {
+            Vuelo vuelo = entrada.getValue();
+            if (entrada.getKey() < 0) {
+                continue;
+            }
+            columna[entrada.getKey()] = c;
+            origen[c] = geo.ordinal(vuelo.getOrigen());
+            destino[c] = geo.ordinal(vuelo.getDestino());
+            salidaLocal[c] = vuelo.getFechaHoraSalida().toLocalTime().toSecondOfDay() / 60;
+            llegadaLocal[c] = vuelo.getFechaHoraLlegada().toLocalTime().toSecondOfDay() / 60;
+            desfaseOrigen[c] = vuelo.getFechaHoraSalida().getOffset().getTotalSeconds() / 60;
+            desfaseDestino[c] = vuelo.getFechaHoraLlegada().getOffset().getTotalSeconds() / 60;
+            cambioDeDia[c] = vuelo.getCambioDeDia();
+            capacidad[c] = vuelo.getCapacidad();
+            c++;
+        }
+    }
+
+    public HashMap<Integer, Vuelo> getVuelos() {
+        return this.vuelos;
+    }
+
+    // Se armó sobre estos mapas y desde entonces no cambió cuántos aeropuertos y vuelos tienen
+    public boolean construidoSobre(HashMap<String, Aeropuerto> aeropuertos, HashMap<Integer, Vuelo> vuelos) {
+        return this.aeropuertos == aeropuertos && this.vuelos == vuelos
+                && aeropuertos.size() == almacenes.length && vuelos.size() == numVuelos;
+    }
+
+    // Prepara una pasada sobre estos envíos: cubre los días locales que puede tocar una ruta a tiempo (con
+    // margen por los desfases de zona) y deja sin carga los vuelos y los almacenes. La tabla de cargas se
+    // reutiliza si alcanza para esos días
+    public void reiniciar(HashMap<String, Envio> envios) {
+        long desde = Long.MAX_VALUE, hasta = Long.MIN_VALUE;
+        for (Envio envio : envios.values()) {
+            desde = Math.min(desde, Math.floorDiv(envio.getMinutoSalida(), MINUTOS_DIA) - 1);
+            hasta = Math.max(hasta, Math.floorDiv(envio.getMinutoLlegadaPrevista(), MINUTOS_DIA) + 1);
+        }
+        this.envios = envios;
+        primerDia = envios.isEmpty() ? 0 : desde;
+        numDias = envios.isEmpty() ? 0 : (int) (hasta - desde + 1);
+        if (carga.length() < numDias * numVuelos) {
+            carga = new AtomicLongArray(numDias * numVuelos);
+        }
+        reiniciar();
+    }
+
+    // Deja sin carga los vuelos y los almacenes (la ocupación planificada). Es O(1) por vuelo y almacén
+    public void reiniciar() {
+        epoca++;
+        for (Aeropuerto almacen : almacenes) {
+            if (almacen != null) {
+                almacen.reiniciarPlanificacion();
+            }
+        }
+    }
+
+    // Paquetes reservados en el vuelo que sale en ese día local (epoch day)
+    public int getCarga(int idVuelo, long dia) {
+        int c = columnaDe(idVuelo);
+        if (c < 0 || dia < primerDia || dia >= primerDia + numDias) {
+            return 0;
+        }
+        return paquetes(carga.get(posicionCarga(c, dia)));
+    }
+
+    // El vuelo de ese día ya no admite otro paquete
+    public boolean lleno(int idVuelo, long dia) {
+        int c = columnaDe(idVuelo);
+        return c < 0 || capacidad[c] <= getCarga(idVuelo, dia) + 1;
+    }
+
+    public boolean validar(Paquete paquete, Modo modo) {
+        List<Integer> idVuelos = paquete.getRuta();
+        int largo = idVuelos == null ? 0 : idVuelos.size();
+        Recorrido recorrido = recorridos.get();
+        recorrido.asegurar(largo);
+        for (int i = 0; i < largo; i++) {
+            recorrido.ruta[i] = idVuelos.get(i);
+        }
+        return validar(envios.get(paquete.getCodigoEnvio()), recorrido.ruta, largo, modo);
+    }
+
+    /*
+     * Valida y compromete las rutas de todos los paquetes. Devuelve, en el orden de la lista, si cada uno
+     * quedó con su ruta reservada. Los paquetes se ordenan por origen y salida y se parten en tramos de un
+     * mismo origen que los hilos toman por turnos.
+     * Con semilla (>= 0) el resultado es reproducible aunque se use más de un hilo: los hilos solo calculan
+     * los tramos de cada ruta (horarios y días, que no dependen de la carga) y después las reservas se hacen
+     * en un solo hilo, partición por partición en un orden fijado por la semilla. Sin semilla cada hilo
+     * reserva de forma optimista, y qué paquete se queda con el último espacio de un vuelo depende de qué
+     * hilo llegue primero.
+     */
+    public boolean[] validarTodos(List<Paquete> paquetes, int hilos, long semilla) {
+        int total = paquetes.size();
+        boolean[] validos = new boolean[total];
+        int[] origenPaquete = new int[total];
+        long[] salidaPaquete = new long[total];
+        ArrayList<Integer> orden = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            Envio envio = envios.get(paquetes.get(i).getCodigoEnvio());
+            origenPaquete[i] = geo.ordinal(envio.getOrigen());
+            salidaPaquete[i] = envio.getMinutoSalida();
+            orden.add(i);
+        }
+        orden.sort(Comparator.<Integer>comparingInt(i -> origenPaquete[i])
+                .thenComparingLong(i -> salidaPaquete[i])
+                .thenComparingInt(i -> paquetes.get(i).getIdPaquete()));
+
+        // Inicio de cada partición en 'orden' (y el total al final)
+        ArrayList<Integer> cortes = new ArrayList<>();
+        for (int k = 0; k < total; k++) {
+            int inicio = cortes.isEmpty() ? -1 : cortes.get(cortes.size() - 1);
+            if (inicio < 0 || origenPaquete[orden.get(k)] != origenPaquete[orden.get(inicio)]
+                    || k - inicio >= TAMANIO_PARTICION) {
+                cortes.add(k);
+            }
+        }
+        int particiones = cortes.size();
+        cortes.add(total);
+
+        ArrayList<Integer> turnos = new ArrayList<>(particiones);
+        for (int p = 0; p < particiones; p++) {
+            turnos.add(p);
+        }
+        if (semilla < 0) {
+            enParalelo(hilos, particiones, turnos, cortes, k -> {
+                int i = orden.get(k);
+                validos[i] = validar(paquetes.get(i), Modo.COMPROMETER);
+            });
+            return validos;
+        }
+
+        Collections.shuffle(turnos, new Random(semilla));
+        Recorrido[] trazados = new Recorrido[total];
+        enParalelo(hilos, particiones, turnos, cortes, k -> {
+            int i = orden.get(k);
+            trazados[i] = trazar(paquetes.get(i));
+        });
+        for (int p : turnos) {
+            for (int k = cortes.get(p); k < cortes.get(p + 1); k++) {
+                int i = orden.get(k);
+                if (trazados[i] != null) {
+                    validos[i] = reservar(trazados[i], trazados[i].tramos);
+                }
+            }
+        }
+        return validos;
+    }
+
+    // Procesa las posiciones de 'orden' de cada partición con hasta 'hilos' hilos, que toman las particiones
+    // en el orden de 'turnos'
+    private static void enParalelo(int hilos, int particiones, List<Integer> turnos, List<Integer> cortes,
+            IntConsumer paso) {
+        AtomicInteger siguiente = new AtomicInteger();
+        Runnable trabajador = () -> {
+            for (int t = siguiente.getAndIncrement(); t < particiones; t = siguiente.getAndIncrement()) {
+                int p = turnos.get(t);
+                for (int k = cortes.get(p); k < cortes.get(p + 1); k++) {
+                    paso.accept(k);
+                }
+            }
+        };
+        if (hilos <= 1 || particiones <= 1) {
+            trabajador.run();
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(hilos);
+        try {
+            ArrayList<ForkJoinTask<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < Math.min(hilos, particiones); h++) {
+                tareas.add(pool.submit(trabajador));
+            }
+            for (ForkJoinTask<?> tarea : tareas) {
+                tarea.join();
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Recorre los primeros 'largo' vuelos de la ruta reservando cada tramo; al final (o al fallar) deshace
+    // las reservas salvo que se pida COMPROMETER y la ruta sea válida
+    public boolean validar(Envio envio, int[] idVuelos, int largo, Modo modo) {
+        Recorrido recorrido = recorridos.get();
+        recorrido.asegurar(largo);
+        if (!trazar(envio, idVuelos, largo, recorrido)) {
+            return false;
+        }
+        int tramos = recorrido.tramos;
+        boolean valida = reservar(recorrido, tramos);
+        if (valida && modo == Modo.VERIFICAR) {
+            deshacer(recorrido, tramos);
+        }
+        return valida;
+    }
+
+    // Tramos de la ruta del paquete en un recorrido propio, o null si la ruta no sirve aunque haya espacio
+    private Recorrido trazar(Paquete paquete) {
+        List<Integer> idVuelos = paquete.getRuta();
+        int largo = idVuelos == null ? 0 : idVuelos.size();
+        Recorrido buffer = recorridos.get();
+        buffer.asegurar(largo);
+        for (int i = 0; i < largo; i++) {
+            buffer.ruta[i] = idVuelos.get(i);
+        }
+        Recorrido trazado = new Recorrido();
+        trazado.asegurar(largo);
+        return trazar(envios.get(paquete.getCodigoEnvio()), buffer.ruta, largo, trazado) ? trazado : null;
+    }
+
+    // Calcula en el recorrido el vuelo, día, salida y llegada de cada tramo hasta llegar al destino. No mira
+    // la carga: devuelve false si los vuelos no encadenan desde el origen, un día queda fuera de la tabla o
+    // no se llega al destino a tiempo
+    private boolean trazar(Envio envio, int[] idVuelos, int largo, Recorrido recorrido) {
+        int ciudadDestino = geo.ordinal(envio.getDestino());
+        int ciudadActual = geo.ordinal(envio.getOrigen());
+        long minutoActual = envio.getMinutoSalida();
+        int tramos = 0;
+        for (int t = 0; t < largo && ciudadActual != ciudadDestino; t++) {
+            int c = columnaDe(idVuelos[t]);
+            if (c < 0 || origen[c] != ciudadActual) {
+                return false;
+            }
+            long salida = salidaDespuesDe(c, minutoActual);
+            long dia = diaDeSalida(c, salida);
+            if (dia < primerDia || dia >= primerDia + numDias) {
+                return false;
+            }
+            long llegada = llegadaDe(c, dia);
+            recorrido.tramoColumna[tramos] = c;
+            recorrido.tramoDia[tramos] = dia;
+            recorrido.tramoSalida[tramos] = salida;
+            recorrido.tramoLlegada[tramos] = llegada;
+            tramos++;
+
+            ciudadActual = destino[c];
+            minutoActual = llegada;
+        }
+        recorrido.tramos = tramos;
+        recorrido.ciudadDestino = ciudadDestino;
+        recorrido.minutoLimite = envio.getMinutoLlegadaPrevista();
+        return ciudadActual == ciudadDestino && minutoActual <= envio.getMinutoLlegadaPrevista();
+    }
+
+    // Reserva los tramos ya calculados: el vuelo de cada día y el almacén de llegada. Si alguno no tiene
+    // espacio deshace lo reservado y devuelve false
+    private boolean reservar(Recorrido recorrido, int tramos) {
+        for (int t = 0; t < tramos; t++) {
+            int c = recorrido.tramoColumna[t];
+            long dia = recorrido.tramoDia[t];
+            if (!reservarVuelo(c, dia)) {
+                deshacer(recorrido, t);
+                return false;
+            }
+            if (!entrarAlmacen(destino[c], recorrido.tramoLlegada[t], recorrido.minutoLimite,
+                    destino[c] == recorrido.ciudadDestino)) {
+                sumarCarga(c, dia, -1);
+                deshacer(recorrido, t);
+                return false;
+            }
+            synchronized (candados[origen[c]]) {
+                almacenes[origen[c]].paqueteSalePlanificacion(recorrido.tramoSalida[t]);
+            }
+        }
+        return true;
+    }
+
+    // Revisa la ruta sin reservar nada: los vuelos encadenan desde el origen, el de cada tramo (en el día en
+    // que validar lo tomaría) todavía tiene espacio y se llega al destino a tiempo. Si devuelve false, validar
+    // también fallaría; no revisa los almacenes
+    public boolean podriaServir(Envio envio, int[] idVuelos) {
+        int ciudadDestino = geo.ordinal(envio.getDestino());
+        int ciudadActual = geo.ordinal(envio.getOrigen());
+        long minutoActual = envio.getMinutoSalida();
+        for (int t = 0; t < idVuelos.length && ciudadActual != ciudadDestino; t++) {
+            int c = columnaDe(idVuelos[t]);
+            if (c < 0 || origen[c] != ciudadActual) {
+                return false;
+            }
+            long dia = diaDeSalida(c, salidaDespuesDe(c, minutoActual));
+            if (dia < primerDia || dia >= primerDia + numDias
+                    || capacidad[c] <= paquetes(carga.get(posicionCarga(c, dia))) + 1) {
+                return false;
+            }
+            ciudadActual = destino[c];
+            minutoActual = llegadaDe(c, dia);
+        }
+        return ciudadActual == ciudadDestino && minutoActual <= envio.getMinutoLlegadaPrevista();
+    }
+
+    // Minuto de la primera salida del vuelo estrictamente después del minuto dado: la de ese día local en el
+    // origen o, si a esa hora ya salió, la del día siguiente
+    private long salidaDespuesDe(int c, long minuto) {
+        long dia = Math.floorDiv(minuto + desfaseOrigen[c], MINUTOS_DIA);
+        long salida = dia * MINUTOS_DIA + salidaLocal[c] - desfaseOrigen[c];
+        return salida <= minuto ? salida + MINUTOS_DIA : salida;
+    }
+
+    // Día local de salida en el origen (el día con el que se cuenta la carga del vuelo)
+    private long diaDeSalida(int c, long salida) {
+        return Math.floorDiv(salida + desfaseOrigen[c], MINUTOS_DIA);
+    }
+
+    private long llegadaDe(int c, long dia) {
+        return (dia + cambioDeDia[c]) * MINUTOS_DIA + llegadaLocal[c] - desfaseDestino[c];
+    }
+
+    private void deshacer(Recorrido recorrido, int tramos) {
+        for (int t = tramos - 1; t >= 0; t--) {
+            int c = recorrido.tramoColumna[t];
+            sumarCarga(c, recorrido.tramoDia[t], -1);
+            synchronized (candados[origen[c]]) {
+                almacenes[origen[c]].paquetesSalenPlanificacion(recorrido.tramoSalida[t], -1);
+            }
+            synchronized (candados[destino[c]]) {
+                almacenes[destino[c]].paquetesEntranPlanificacion(recorrido.tramoLlegada[t], -1);
+                if (destino[c] == recorrido.ciudadDestino) {
+                    almacenes[destino[c]].paquetesSalenPlanificacion(
+                            Math.max(recorrido.tramoLlegada[t], recorrido.minutoLimite), -1);
+                }
+            }
+        }
+    }
+
+    // Suma un paquete al vuelo de ese día si todavía le entra
+    private boolean reservarVuelo(int c, long dia) {
+        int posicion = posicionCarga(c, dia);
+        int epocaActual = epoca;
+        while (true) {
+            long valor = carga.get(posicion);
+            int actual = epocaDe(valor) == epocaActual ? paquetes(valor) : 0;
+            if (capacidad[c] <= actual + 1) {
+                return false;
+            }
+            if (carga.compareAndSet(posicion, valor, empaquetar(epocaActual, actual + 1))) {
+                return true;
+            }
+        }
+    }
+
+    private void sumarCarga(int c, long dia, int delta) {
+        int posicion = posicionCarga(c, dia);
+        int epocaActual = epoca;
+        while (true) {
+            long valor = carga.get(posicion);
+            int actual = epocaDe(valor) == epocaActual ? paquetes(valor) : 0;
+            if (carga.compareAndSet(posicion, valor, empaquetar(epocaActual, actual + delta))) {
+                return;
+            }
+        }
+    }
+
+    // Registra la llegada al almacén si tiene espacio mientras el paquete esté ahí, hasta el plazo del envío: en
+    // una escala sale antes, pero la salida siguiente se calcula recién en el próximo tramo; en el destino final
+    // se queda hasta el plazo, y ahí se registra también su salida
+    private boolean entrarAlmacen(int a, long minuto, long hasta, boolean destinoFinal) {
+        Aeropuerto almacen = almacenes[a];
+        long fin = Math.max(minuto, hasta);
+        synchronized (candados[a]) {
+            if (almacen.getCapacidadMaxima() <= almacen.maximoPaquetesPlanificacion(minuto, fin) + 1) {
+                return false;
+            }
+            almacen.paqueteEntraPlanificacion(minuto);
+            if (destinoFinal) {
+                almacen.paqueteSalePlanificacion(fin);
+            }
+            return true;
+        }
+    }
+
+    private int paquetes(long valor) {
+        return epocaDe(valor) == epoca ? (int) valor : 0;
+    }
+
+    private static int epocaDe(long valor) {
+        return (int) (valor >>> 32);
+    }
+
+    private static long empaquetar(int epoca, int paquetes) {
+        return ((long) epoca << 32) | (paquetes & 0xFFFFFFFFL);
+    }
+
+    private int columnaDe(int idVuelo) {
+        return idVuelo < 0 || idVuelo >= columna.length ? -1 : columna[idVuelo];
+    }
+
+    private int posicionCarga(int c, long dia) {
+        return (int) (dia - primerDia) * numVuelos + c;
+    }
+
+    // Buffers de la ruta que valida un hilo: los vuelos y sus primeros 'tramos' tramos calculados
+    private static class Recorrido {
+        private int tramos;
+        private int ciudadDestino;
+        private long minutoLimite;
+        private int[] ruta = new int[8];
+        private int[] tramoColumna = new int[8];
+        private long[] tramoDia = new long[8];
+        private long[] tramoSalida = new long[8];
+        private long[] tramoLlegada = new long[8];
+
+        void asegurar(int largo) {
+            if (ruta.length >= largo) {
+                return;
+            }
+            int tamanio = Math.max(largo, ruta.length * 2);
+            ruta = Arrays.copyOf(ruta, tamanio);
+            tramoColumna = Arrays.copyOf(tramoColumna, tamanio);
+            tramoDia = Arrays.copyOf(tramoDia, tamanio);
+            tramoSalida = Arrays.copyOf(tramoSalida, tamanio);
+            tramoLlegada = Arrays.copyOf(tramoLlegada, tamanio);
+        }
+    }
+}
@@ -1,41 +1,39 @@
 package com.dp1.backend.utils;
 
-import java.time.Duration;
+import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Random;
 
 public class aco_auxiliares {
 
     public static int determinarVueloEscogido(double[] probabilidades) {
-        Random random = new Random();
-        double numeroAleatorio = random.nextDouble();
-
-        // Escoger un camino basado en el número aleatorio generado
-        double acumulador = 0.0;
-        int caminoSeleccionado = 0;
-        for (int i = 0; i < probabilidades.length; i++) {
-            acumulador += probabilidades[i];
-            if (numeroAleatorio < acumulador) {
-                caminoSeleccionado = i;
-                break;
-            }
-        }
-        return caminoSeleccionado;
+        return determinarVueloEscogido(probabilidades, probabilidades.length);
+    }
+
+    // Solo considera las primeras n probabilidades (el arreglo puede ser uno de trabajo reutilizado)
+    public static int determinarVueloEscogido(double[] probabilidades, int n) {
+        return SelectorRuleta.porHilo().escoger(probabilidades, n);
     }
-    
+
     public static long calcularDiferenciaEnMinutos(ZonedDateTime zonedDateTime1, ZonedDateTime zonedDateTime2) {
-        // Convertir ambos ZonedDateTime a UTC
-        ZonedDateTime utcDateTime1 = zonedDateTime1.withZoneSameInstant(ZoneId.of("UTC"));
-        ZonedDateTime utcDateTime2 = zonedDateTime2.withZoneSameInstant(ZoneId.of("UTC"));
+        // El segundo epoch ya es UTC: no hace falta cambiar de zona ni crear una Duration
+        return (zonedDateTime2.toEpochSecond() - zonedDateTime1.toEpochSecond()) / 60;
+    }
 
-        // Calcular la diferencia de tiempo en minutos
-        Duration duration = Duration.between(utcDateTime1, utcDateTime2);
+    // Valor para los minutos epoch que aún no se han calculado
+    public static final long SIN_MINUTO = Long.MIN_VALUE;
 
-        // Obtener la diferencia en minutos
-        long minutos = duration.toMinutes();
+    // Minuto epoch (UTC) de una fecha; SIN_MINUTO si la fecha es nula
+    public static long minutoEpoch(ZonedDateTime fecha) {
+        if (fecha == null) {
+            return SIN_MINUTO;
+        }
+        return Math.floorDiv(fecha.toEpochSecond(), 60);
+    }
 
-        return minutos;
+    // Fecha en la zona dada de un minuto epoch
+    public static ZonedDateTime fechaDeMinuto(long minuto, ZoneId zona) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(minuto * 60), zona);
     }
 
 }
@@ -0,0 +1,113 @@
+package com.dp1.backend.models;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ColeccionRutaTest {
+    private static final LocalDate DIA = LocalDate.of(2025, 1, 6);
+
+    private HashMap<Integer, Vuelo> vuelos;
+    private ColeccionRuta coleccion;
+
+    @BeforeEach
+    void preparar() {
+        vuelos = new HashMap<>();
+        agregarVuelo(1, 300);
+        agregarVuelo(2, 150);
+        agregarVuelo(3, 250);
+        coleccion = new ColeccionRuta();
+        coleccion.setRutasPosibles(new ArrayList<>());
+    }
+
+    private void agregarVuelo(int id, int capacidad) {
+        Vuelo vuelo = new Vuelo("AAAA", "BBBB", DIA.atTime(8, 0).atZone(ZoneOffset.UTC),
+                DIA.atTime(10, 0).atZone(ZoneOffset.UTC), capacidad, 1000.0);
+        vuelo.setIdVuelo(id);
+        vuelos.put(id, vuelo);
+    }
+
+    // Ruta con sus vuelos en el orden dado: pares (idVuelo, díaRelativo)
+    private void agregarRuta(int... vueloYDia) {
+        ArrayList<ItemRutaPosible> items = new ArrayList<>();
+        for (int i = 0; i < vueloYDia.length; i += 2) {
+            ItemRutaPosible item = new ItemRutaPosible();
+            item.setIdVuelo(vueloYDia[i]);
+            item.setDiaRelativo(vueloYDia[i + 1]);
+            items.add(item);
+        }
+        RutaPosible ruta = new RutaPosible();
+        ruta.setFlights(items);
+        ruta.setColeccionRuta(coleccion);
+        coleccion.getRutasPosibles().add(ruta);
+    }
+
+    @Test
+    void ordenaLosVuelosPorDiaSinPerderElOrdenDeViaje() {
+        // Guardados desordenados; el 3 y el 1 son del mismo día y se quedan en el orden en que están
+        agregarRuta(2, 2, 3, 0, 1, 0);
+        coleccion.compactar(vuelos);
+
+        assertEquals(1, coleccion.getCantidadCompactas());
+        assertArrayEquals(new int[] { 3, 1, 2 }, coleccion.vuelosDe(0));
+    }
+
+    @Test
+    void elCuelloDeBotellaEsLaMenorCapacidad() {
+        agregarRuta(1, 0, 2, 1, 3, 1);
+        agregarRuta(1, 0);
+        // Un vuelo que ya no está en el plan no deja pasar nada; una ruta sin vuelos tampoco
+        agregarRuta(1, 0, 99, 1);
+        agregarRuta();
+        coleccion.compactar(vuelos);
+
+        assertEquals(150, coleccion.capacidadCuelloDe(0));
+        assertEquals(300, coleccion.capacidadCuelloDe(1));
+        assertEquals(0, coleccion.capacidadCuelloDe(2));
+        assertEquals(0, coleccion.capacidadCuelloDe(3));
+    }
+
+    @Test
+    void compactarSoloProcesaLasRutasNuevas() {
+        agregarRuta(1, 0);
+        coleccion.compactar(vuelos);
+        int[] primera = coleccion.vuelosDe(0);
+
+        agregarRuta(2, 0, 3, 1);
+        coleccion.compactar(vuelos);
+
+        assertEquals(2, coleccion.getCantidadCompactas());
+        assertEquals(primera, coleccion.vuelosDe(0));
+        assertArrayEquals(new int[] { 2, 3 }, coleccion.vuelosDe(1));
+    }
+
+    @Test
+    void indiceDeBuscaPorLosVuelosEnOrdenDeViaje() {
+        agregarRuta(1, 0);
+        agregarRuta(2, 1, 1, 0);
+        agregarRuta(1, 0, 2, 1, 3, 2);
+        coleccion.compactar(vuelos);
+
+        assertEquals(0, coleccion.indiceDe(List.of(1)));
+        assertEquals(1, coleccion.indiceDe(List.of(1, 2)));
+        assertEquals(2, coleccion.indiceDe(List.of(1, 2, 3)));
+        // En el orden en que se guardaron no es el de viaje
+        assertEquals(-1, coleccion.indiceDe(List.of(2, 1)));
+        assertEquals(-1, coleccion.indiceDe(List.of(1, 3)));
+        assertEquals(-1, coleccion.indiceDe(List.of()));
+
+        // Las rutas sin compactar todavía no se encuentran
+        agregarRuta(3, 0);
+        assertEquals(-1, coleccion.indiceDe(List.of(3)));
+        coleccion.compactar(vuelos);
+        assertEquals(3, coleccion.indiceDe(List.of(3)));
+    }
+}
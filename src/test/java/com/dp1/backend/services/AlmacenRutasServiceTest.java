@@ -0,0 +1,146 @@
+package com.dp1.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.dp1.backend.models.ColeccionRuta;
+import com.dp1.backend.models.ItemRutaPosible;
+import com.dp1.backend.models.RutaPosible;
+
+class AlmacenRutasServiceTest {
+    private JdbcTemplate jdbcTemplate;
+    private AlmacenRutasService servicio;
+    // Fila contadora de cada tabla (tabla secuencia)
+    private final HashMap<String, Integer> secuencia = new HashMap<>();
+    // Tabla de cada batchUpdate, en el orden en que se hicieron, y sus filas
+    private final List<String> lotes = new ArrayList<>();
+    private final List<Object[]> filas = new ArrayList<>();
+    private int fallosPendientes = 0;
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        PlatformTransactionManager transacciones = mock(PlatformTransactionManager.class);
+        when(transacciones.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        secuencia.put("coleccion_rutas", 50);
+        secuencia.put("ruta_posible", 700);
+        when(jdbcTemplate.queryForList(startsWith("SELECT siguiente FROM secuencia"), eq(Integer.class),
+                any(Object[].class))).thenAnswer(invocacion -> List.of(secuencia.get(invocacion.getArgument(2))));
+        when(jdbcTemplate.update(startsWith("UPDATE secuencia"), any(Object[].class))).thenAnswer(invocacion -> {
+            secuencia.merge(invocacion.getArgument(2), invocacion.<Integer>getArgument(1), Integer::sum);
+            return 1;
+        });
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocacion -> {
+            if (fallosPendientes > 0) {
+                fallosPendientes--;
+                throw new DataAccessResourceFailureException("sin conexión");
+            }
+            String sql = invocacion.getArgument(0);
+            List<Object[]> lote = invocacion.getArgument(1);
+            lotes.add(sql.substring("INSERT INTO ".length(), sql.indexOf(' ', "INSERT INTO ".length())));
+            filas.addAll(lote);
+            return new int[lote.size()];
+        });
+
+        servicio = new AlmacenRutasService();
+        ReflectionTestUtils.setField(servicio, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(servicio, "transactionManager", transacciones);
+        ReflectionTestUtils.setField(servicio, "tamanioLote", 500);
+        ReflectionTestUtils.setField(servicio, "intervaloMs", 10L);
+        ReflectionTestUtils.setField(servicio, "tamanioBloqueIds", 2);
+        servicio.iniciar();
+    }
+
+    @AfterEach
+    void detener() {
+        servicio.detener();
+    }
+
+    @Test
+    void losIdsSalenDeBloquesDeLaFilaContadora() {
+        assertEquals(50, servicio.guardarColeccion(new ColeccionRuta()).getId());
+        assertEquals(52, (int) secuencia.get("coleccion_rutas"));
+        // Otra instancia toma un bloque: el siguiente de esta empieza después
+        secuencia.merge("coleccion_rutas", 10, Integer::sum);
+        assertEquals(51, servicio.guardarColeccion(new ColeccionRuta()).getId());
+        assertEquals(62, servicio.guardarColeccion(new ColeccionRuta()).getId());
+        assertEquals(64, (int) secuencia.get("coleccion_rutas"));
+        // Cada tabla tiene su propia fila
+        assertEquals(700, servicio.guardarRuta(ruta(null, 5)).getId());
+    }
+
+    @Test
+    void escribeColeccionesRutasYVuelosEnEseOrden() {
+        ColeccionRuta coleccion = servicio.guardarColeccion(new ColeccionRuta());
+        RutaPosible ruta = servicio.guardarRuta(ruta(coleccion, 5, 8));
+
+        servicio.escribirPendientes();
+
+        assertEquals(List.of("coleccion_rutas", "ruta_posible", "ruta_vuelos"), lotes);
+        assertEquals(coleccion.getId(), filas.get(0)[0]);
+        assertEquals(ruta.getId(), filas.get(1)[0]);
+        assertEquals(coleccion.getId(), filas.get(1)[4]);
+        assertArrayEquals(new Object[] { ruta.getId(), 0, 5, 0 }, filas.get(2));
+        assertArrayEquals(new Object[] { ruta.getId(), 1, 8, 1 }, filas.get(3));
+        assertEquals(0, servicio.getPendientes());
+        assertEquals(4, servicio.getFilasEscritas());
+    }
+
+    @Test
+    void unLoteQueFallaSeReintenta() {
+        fallosPendientes = 2;
+        servicio.guardarRuta(ruta(servicio.guardarColeccion(new ColeccionRuta()), 5));
+
+        servicio.escribirPendientes();
+
+        assertEquals(List.of("coleccion_rutas", "ruta_posible", "ruta_vuelos"), lotes);
+        assertEquals(3, servicio.getFilasEscritas());
+        assertEquals(0, servicio.getFilasFallidas());
+    }
+
+    @Test
+    void trasVariosFallosSeguidosElLoteSeDescarta() {
+        fallosPendientes = Integer.MAX_VALUE;
+        servicio.guardarRuta(ruta(servicio.guardarColeccion(new ColeccionRuta()), 5));
+
+        servicio.escribirPendientes();
+
+        assertEquals(0, servicio.getFilasEscritas());
+        assertEquals(3, servicio.getFilasFallidas());
+    }
+
+    // Ruta de la colección con un vuelo por día relativo
+    private static RutaPosible ruta(ColeccionRuta coleccion, int... idVuelos) {
+        ArrayList<ItemRutaPosible> items = new ArrayList<>();
+        for (int i = 0; i < idVuelos.length; i++) {
+            ItemRutaPosible item = new ItemRutaPosible();
+            item.setIdVuelo(idVuelos[i]);
+            item.setDiaRelativo(i);
+            items.add(item);
+        }
+        RutaPosible ruta = new RutaPosible();
+        ruta.setFlights(items);
+        ruta.setColeccionRuta(coleccion);
+        return ruta;
+    }
+}
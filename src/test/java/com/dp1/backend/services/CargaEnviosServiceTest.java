@@ -0,0 +1,138 @@
+package com.dp1.backend.services;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.dp1.backend.models.Aeropuerto;
+
+class CargaEnviosServiceTest {
+    @TempDir
+    Path carpeta;
+
+    private JdbcTemplate jdbcTemplate;
+    private CargaEnviosService servicio;
+    private HashMap<String, Aeropuerto> aeropuertos;
+    // Filas de cada batchUpdate, por tabla
+    private final List<Object[]> filasEnvio = new ArrayList<>();
+    private final List<Object[]> filasPaquete = new ArrayList<>();
+
+    @BeforeEach
+    void preparar() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        PlatformTransactionManager transacciones = mock(PlatformTransactionManager.class);
+        when(transacciones.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        // La base ya tiene envíos hasta el id 10 y paquetes hasta el 100
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COALESCE(MAX(id), 0) FROM envio"), eq(Integer.class)))
+                .thenAnswer(invocacion -> 10 + filasEnvio.size());
+        when(jdbcTemplate.queryForObject(startsWith("SELECT COALESCE(MAX(id), 0) FROM paquete"), eq(Integer.class)))
+                .thenAnswer(invocacion -> 100 + filasPaquete.size());
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("SKBO2"));
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocacion -> {
+            List<Object[]> filas = invocacion.getArgument(1);
+            String sql = invocacion.getArgument(0);
+            (sql.startsWith("INSERT INTO envio") ? filasEnvio : filasPaquete).addAll(filas);
+            return new int[filas.size()];
+        });
+
+        servicio = new CargaEnviosService();
+        ReflectionTestUtils.setField(servicio, "jdbcTemplate", jdbcTemplate);
+        ReflectionTestUtils.setField(servicio, "transactionManager", transacciones);
+        ReflectionTestUtils.setField(servicio, "tamanioTramo", 2);
+        servicio.iniciar();
+
+        aeropuertos = new HashMap<>();
+        agregarAeropuerto("SKBO", -5, "America del Sur");
+        agregarAeropuerto("SPIM", -5, "America del Sur");
+        agregarAeropuerto("EKCH", 2, "Europa");
+    }
+
+    private void agregarAeropuerto(String codigo, int gmt, String continente) {
+        Aeropuerto aeropuerto = new Aeropuerto(aeropuertos.size() + 1, codigo, codigo, codigo, codigo, gmt, 500);
+        aeropuerto.setContinente(continente);
+        aeropuertos.put(codigo, aeropuerto);
+    }
+
+    @Test
+    void cargaLosEnviosNuevosConSusPaquetes() throws IOException {
+        Path archivo = Files.write(carpeta.resolve("pack_enviado_SKBO.txt"), List.of(
+                "SKBO-000000001-20250102-10:00-SPIM:2",
+                "SKBO-000000002-20250102-11:00-SPIM:5",
+                "",
+                "SKBO-000000003-20250102-12:00-EKCH:1"), StandardCharsets.UTF_8);
+
+        String ids = servicio.cargarArchivo(archivo, aeropuertos, 10);
+
+        // SKBO2 ya existe; cada tramo reserva ids después del máximo que ve la base
+        assertEquals("101 102 103 ", ids);
+        assertEquals(2, filasEnvio.size());
+        assertEquals("SKBO11", filasEnvio.get(0)[4]);
+        assertEquals("SKBO12", filasEnvio.get(1)[4]);
+        assertEquals(2, filasEnvio.get(0)[9]);
+        assertEquals(1, filasEnvio.get(1)[9]);
+        assertEquals(3, filasPaquete.size());
+        // Plazo de un día en el mismo continente y de dos entre continentes, en nanosegundos
+        assertEquals(BigDecimal.valueOf(Duration.ofDays(1).toNanos()), filasPaquete.get(0)[6]);
+        assertEquals(BigDecimal.valueOf(Duration.ofDays(2).toNanos()), filasPaquete.get(2)[6]);
+        assertEquals(2, servicio.getProgreso().get("insertados"));
+    }
+
+    @Test
+    void losPaquetesQuedanConLasListasDeRutaVacias() throws Exception {
+        Path archivo = Files.write(carpeta.resolve("pack_enviado_SKBO.txt"),
+                List.of("SKBO-000000001-20250102-10:00-SPIM:1"), StandardCharsets.UTF_8);
+
+        servicio.cargarArchivo(archivo, aeropuertos, 10);
+
+        Object[] fila = filasPaquete.get(0);
+        assertEquals(10, fila.length);
+        assertEquals(new ArrayList<>(), deserializar((byte[]) fila[8]));
+        assertEquals(new ArrayList<>(), deserializar((byte[]) fila[9]));
+        assertArrayEquals((byte[]) fila[8], (byte[]) fila[9]);
+    }
+
+    @Test
+    void respetaElMaximoDeEnvios() throws IOException {
+        Path archivo = Files.write(carpeta.resolve("pack_enviado_SKBO.txt"), List.of(
+                "SKBO-000000001-20250102-10:00-SPIM:1",
+                "SKBO-000000003-20250102-11:00-SPIM:1",
+                "SKBO-000000004-20250102-12:00-SPIM:1"), StandardCharsets.UTF_8);
+
+        servicio.cargarArchivo(archivo, aeropuertos, 2);
+
+        assertEquals(2, filasEnvio.size());
+    }
+
+    private static Object deserializar(byte[] bytes) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return entrada.readObject();
+        }
+    }
+}
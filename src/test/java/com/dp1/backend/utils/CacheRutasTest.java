@@ -0,0 +1,92 @@
+package com.dp1.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dp1.backend.models.Aeropuerto;
+
+class CacheRutasTest {
+    private static final String[] CODIGOS = { "SKBO", "SEQM", "SPIM", "SBBR", "EDDI", "LOWW" };
+
+    private CacheRutas<String> cache;
+
+    @BeforeEach
+    void preparar() {
+        HashMap<String, Aeropuerto> aeropuertos = new HashMap<>();
+        for (String codigo : CODIGOS) {
+            aeropuertos.put(codigo, new Aeropuerto(aeropuertos.size() + 1, codigo, codigo, codigo, codigo, 0, 500));
+        }
+        cache = new CacheRutas<>(AirportGeoIndex.construir(aeropuertos));
+    }
+
+    @Test
+    void distingueParOrdenYLargoDeLosVuelos() {
+        assertTrue(cache.agregar("SKBO", "SEQM", Arrays.asList(1, 2), "a"));
+
+        assertTrue(cache.contiene("SKBO", "SEQM", Arrays.asList(1, 2)));
+        assertFalse(cache.contiene("SKBO", "SEQM", Arrays.asList(2, 1)));
+        assertFalse(cache.contiene("SKBO", "SEQM", Arrays.asList(1)));
+        assertFalse(cache.contiene("SKBO", "SEQM", Arrays.asList(1, 2, 3)));
+        assertFalse(cache.contiene("SEQM", "SKBO", Arrays.asList(1, 2)));
+        assertFalse(cache.contiene("SKBO", "SPIM", Arrays.asList(1, 2)));
+        assertEquals("a", cache.buscar("SKBO", "SEQM", Arrays.asList(1, 2)));
+        assertNull(cache.buscar("SKBO", "SEQM", Arrays.asList(2, 1)));
+    }
+
+    @Test
+    void agregarDosVecesSoloCompletaElValor() {
+        assertTrue(cache.agregar("SKBO", "SEQM", Arrays.asList(7), null));
+        assertFalse(cache.agregar("SKBO", "SEQM", Arrays.asList(7), "primero"));
+        assertFalse(cache.agregar("SKBO", "SEQM", Arrays.asList(7), "segundo"));
+
+        assertEquals(1, cache.size());
+        assertEquals("primero", cache.buscar("SKBO", "SEQM", Arrays.asList(7)));
+    }
+
+    @Test
+    void aeropuertoDesconocidoNoSeGuarda() {
+        assertFalse(cache.agregar("XXXX", "SEQM", Arrays.asList(1), "a"));
+        assertFalse(cache.contiene("XXXX", "SEQM", Arrays.asList(1)));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void conservaTodasLasRutasAlRedimensionar() {
+        // Muchas más rutas que la capacidad inicial: varias redimensiones y colisiones en la tabla
+        Random random = new Random(11);
+        HashMap<List<Object>, String> esperado = new HashMap<>();
+        for (int i = 0; i < 20000; i++) {
+            String origen = CODIGOS[random.nextInt(CODIGOS.length)];
+            String destino = CODIGOS[random.nextInt(CODIGOS.length)];
+            ArrayList<Integer> vuelos = new ArrayList<>();
+            int largo = 1 + random.nextInt(3);
+            for (int t = 0; t < largo; t++) {
+                vuelos.add(random.nextInt(400));
+            }
+            String valor = "r" + i;
+            boolean nueva = esperado.putIfAbsent(Arrays.asList(origen, destino, vuelos), valor) == null;
+            assertEquals(nueva, cache.agregar(origen, destino, vuelos, valor));
+        }
+
+        assertEquals(esperado.size(), cache.size());
+        for (Map.Entry<List<Object>, String> entrada : esperado.entrySet()) {
+            List<Object> llave = entrada.getKey();
+            @SuppressWarnings("unchecked")
+            List<Integer> vuelos = (List<Integer>) llave.get(2);
+            assertEquals(entrada.getValue(), cache.buscar((String) llave.get(0), (String) llave.get(1), vuelos));
+        }
+        assertFalse(cache.contiene("SKBO", "SEQM", Arrays.asList(400, 401)));
+    }
+}
@@ -0,0 +1,95 @@
+package com.dp1.backend.utils;
+
+import static com.dp1.backend.utils.EscenarioPrueba.DIA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Vuelo;
+
+class CatalogoRutasTest {
+    private HashMap<String, Aeropuerto> aeropuertos;
+    private HashMap<Integer, Vuelo> vuelos;
+
+    @BeforeEach
+    void preparar() {
+        aeropuertos = EscenarioPrueba.aeropuertos(500, "AAAA", "BBBB", "CCCC");
+        vuelos = new HashMap<>();
+        // Cinco directos AAAA-BBBB de distinta duración
+        EscenarioPrueba.agregarVuelo(vuelos, 1, "AAAA", "BBBB", 8, 0, 10, 0);
+        EscenarioPrueba.agregarVuelo(vuelos, 2, "AAAA", "BBBB", 9, 0, 12, 0);
+        EscenarioPrueba.agregarVuelo(vuelos, 3, "AAAA", "BBBB", 10, 0, 10, 30);
+        EscenarioPrueba.agregarVuelo(vuelos, 4, "AAAA", "BBBB", 11, 0, 15, 0);
+        EscenarioPrueba.agregarVuelo(vuelos, 5, "AAAA", "BBBB", 12, 0, 13, 0);
+        // Sale antes de que llegue cualquiera de los anteriores: la conexión es al día siguiente
+        EscenarioPrueba.agregarVuelo(vuelos, 6, "BBBB", "CCCC", 9, 0, 20, 0);
+    }
+
+    @Test
+    void guardaLosKMasCortosOrdenadosPorDuracion() {
+        CatalogoRutas catalogo = CatalogoRutas.construir(aeropuertos, vuelos, 3);
+        int a = catalogo.ordinal("AAAA"), b = catalogo.ordinal("BBBB");
+
+        assertEquals(3, catalogo.cantidadItinerarios(a, b));
+        int[] esperados = { 3, 5, 1 };
+        int[] duraciones = { 30, 60, 120 };
+        for (int p = 0; p < 3; p++) {
+            int itinerario = catalogo.itinerario(a, b, p);
+            assertEquals(1, catalogo.cantidadTramos(itinerario));
+            assertEquals(esperados[p], catalogo.vueloEn(itinerario, 0));
+            assertEquals(duraciones[p], catalogo.getDuracion(itinerario));
+        }
+        assertEquals(10 * 60, catalogo.getPrimeraSalida(catalogo.itinerario(a, b, 0)));
+
+        assertEquals(5, CatalogoRutas.construir(aeropuertos, vuelos).cantidadItinerarios(a, b));
+    }
+
+    @Test
+    void descartaLosItinerariosFueraDelPlazo() {
+        // Mismo continente: un día de plazo, y toda conexión por BBBB llega más de 30 horas después
+        CatalogoRutas catalogo = CatalogoRutas.construir(aeropuertos, vuelos);
+
+        assertEquals(0, catalogo.cantidadItinerarios(catalogo.ordinal("AAAA"), catalogo.ordinal("CCCC")));
+        assertEquals(1, catalogo.cantidadItinerarios(catalogo.ordinal("BBBB"), catalogo.ordinal("CCCC")));
+    }
+
+    @Test
+    void entreContinentesElPlazoEsDeDosDias() {
+        aeropuertos.get("CCCC").setContinente("Asia");
+        CatalogoRutas catalogo = CatalogoRutas.construir(aeropuertos, vuelos, 3);
+        int a = catalogo.ordinal("AAAA"), c = catalogo.ordinal("CCCC");
+
+        assertEquals(3, catalogo.cantidadItinerarios(a, c));
+        int anterior = 0;
+        for (int p = 0; p < 3; p++) {
+            int itinerario = catalogo.itinerario(a, c, p);
+            assertTrue(catalogo.getDuracion(itinerario) >= anterior);
+            assertTrue(catalogo.getDuracion(itinerario) <= 2 * CatalogoRutas.MINUTOS_DIA);
+            anterior = catalogo.getDuracion(itinerario);
+        }
+        // El más corto sale a las 12:00 y espera en BBBB hasta las 9:00 del día siguiente
+        int corto = catalogo.itinerario(a, c, 0);
+        assertEquals(2, catalogo.cantidadTramos(corto));
+        assertEquals(5, catalogo.vueloEn(corto, 0));
+        assertEquals(6, catalogo.vueloEn(corto, 1));
+        assertEquals(21 * 60, catalogo.salidaEn(corto, 1));
+        assertEquals(32 * 60, catalogo.llegadaEn(corto, 1));
+        assertEquals(32 * 60, catalogo.getDuracion(corto));
+    }
+
+    @Test
+    void siguienteSalidaEsEstrictamentePosterior() {
+        CatalogoRutas catalogo = CatalogoRutas.construir(aeropuertos, vuelos);
+        int itinerario = catalogo.itinerario(catalogo.ordinal("AAAA"), catalogo.ordinal("BBBB"), 0);
+
+        assertEquals(EscenarioPrueba.minuto(DIA, 10, 0),
+                catalogo.siguienteSalida(itinerario, EscenarioPrueba.minuto(DIA, 9, 59)));
+        assertEquals(EscenarioPrueba.minuto(DIA.plusDays(1), 10, 0),
+                catalogo.siguienteSalida(itinerario, EscenarioPrueba.minuto(DIA, 10, 0)));
+    }
+}
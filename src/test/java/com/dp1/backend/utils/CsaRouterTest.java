@@ -0,0 +1,124 @@
+package com.dp1.backend.utils;
+
+import static com.dp1.backend.utils.EscenarioPrueba.DIA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.HashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Vuelo;
+
+class CsaRouterTest {
+    private HashMap<String, Aeropuerto> aeropuertos;
+    private HashMap<Integer, Vuelo> vuelos;
+    private HorizonteVuelos horizonte;
+    private CsaRouter router;
+
+    @BeforeEach
+    void preparar() {
+        aeropuertos = EscenarioPrueba.aeropuertos(500, "AAAA", "BBBB", "CCCC", "DDDD");
+        vuelos = new HashMap<>();
+        EscenarioPrueba.agregarVuelo(vuelos, 1, "AAAA", "BBBB", 8, 0, 10, 0);
+        // Sale justo cuando llega el 1: no se puede tomar en la escala
+        EscenarioPrueba.agregarVuelo(vuelos, 2, "BBBB", "CCCC", 10, 0, 12, 0);
+        EscenarioPrueba.agregarVuelo(vuelos, 3, "BBBB", "CCCC", 10, 1, 13, 0);
+        EscenarioPrueba.agregarVuelo(vuelos, 4, "AAAA", "CCCC", 9, 0, 14, 0);
+        EscenarioPrueba.agregarVuelo(vuelos, 5, "CCCC", "DDDD", 13, 30, 15, 0);
+
+        horizonte = new HorizonteVuelos(AirportGeoIndex.construir(aeropuertos));
+        horizonte.asegurarDias(DIA, 1, vuelos);
+        router = CsaRouter.construir(horizonte, vuelos);
+    }
+
+    @Test
+    void llegadaMasTempranaConEscalaEstrictamentePosterior() {
+        CsaRouter.Itinerario itinerario = router.llegadaMasTemprana("AAAA", minuto(7, 0), "CCCC");
+
+        assertEquals(2, itinerario.getCantidadTramos());
+        assertEquals(1, itinerario.idVueloEn(0));
+        assertEquals(3, itinerario.idVueloEn(1));
+        assertEquals("BBBB", itinerario.destinoEn(0));
+        assertEquals(minuto(8, 0), itinerario.getMinutoSalida());
+        assertEquals(minuto(13, 0), itinerario.getMinutoLlegada());
+    }
+
+    @Test
+    void llegadaMasTempranaSaleEstrictamenteDespuesDelMinuto() {
+        // El vuelo 1 sale a las 8:00 y no se puede tomar: queda el directo
+        CsaRouter.Itinerario itinerario = router.llegadaMasTemprana("AAAA", minuto(8, 0), "CCCC");
+
+        assertEquals(1, itinerario.getCantidadTramos());
+        assertEquals(4, itinerario.idVueloEn(0));
+        assertEquals(minuto(14, 0), itinerario.getMinutoLlegada());
+    }
+
+    @Test
+    void llegadaMasTempranaConVariosTramos() {
+        CsaRouter.Itinerario itinerario = router.llegadaMasTemprana("AAAA", minuto(0, 0), "DDDD");
+
+        assertEquals(3, itinerario.getCantidadTramos());
+        assertEquals(5, itinerario.idVueloEn(2));
+        assertEquals(minuto(15, 0), itinerario.getMinutoLlegada());
+    }
+
+    @Test
+    void conCapacidadSaltaLosVuelosLlenos() {
+        PlanningState estado = horizonte.getEstado();
+        int lleno = horizonte.buscarProgramado(3, DIA);
+        estado.setCarga(lleno, (int) estado.getCapacidad(lleno) - 1);
+
+        CsaRouter.Itinerario itinerario = router.llegadaMasTemprana(router.ordinal("AAAA"), minuto(7, 0),
+                router.ordinal("CCCC"), estado);
+        assertEquals(1, itinerario.getCantidadTramos());
+        assertEquals(4, itinerario.idVueloEn(0));
+        // Sin estado el vuelo lleno se sigue usando
+        assertEquals(2, router.llegadaMasTemprana("AAAA", minuto(7, 0), "CCCC").getCantidadTramos());
+    }
+
+    @Test
+    void salidaMasTardiaSegunElLimiteDeLlegada() {
+        CsaRouter.Itinerario directo = router.salidaMasTardia("AAAA", "CCCC", minuto(14, 0));
+        assertEquals(1, directo.getCantidadTramos());
+        assertEquals(4, directo.idVueloEn(0));
+        assertEquals(minuto(9, 0), directo.getMinutoSalida());
+
+        CsaRouter.Itinerario conEscala = router.salidaMasTardia("AAAA", "CCCC", minuto(13, 30));
+        assertEquals(2, conEscala.getCantidadTramos());
+        assertEquals(1, conEscala.idVueloEn(0));
+        assertEquals(3, conEscala.idVueloEn(1));
+
+        assertNull(router.salidaMasTardia("AAAA", "CCCC", minuto(12, 59)));
+    }
+
+    @Test
+    void sinItinerario() {
+        assertNull(router.llegadaMasTemprana("AAAA", minuto(9, 30), "DDDD"));
+        assertNull(router.llegadaMasTemprana("DDDD", minuto(0, 0), "AAAA"));
+        assertNull(router.llegadaMasTemprana("AAAA", minuto(0, 0), "AAAA"));
+        assertNull(router.llegadaMasTemprana("XXXX", minuto(0, 0), "AAAA"));
+    }
+
+    @Test
+    void cotizarConLasReservasDeOtroHorizonte() {
+        // Un horizonte de cotización con los mismos vuelos ve la carga del horizonte de la planificación
+        HorizonteVuelos cotizacion = new HorizonteVuelos(AirportGeoIndex.construir(aeropuertos));
+        cotizacion.asegurarDias(DIA.minusDays(1), 3, vuelos);
+        CsaRouter routerCotizacion = CsaRouter.construir(cotizacion, vuelos);
+        int lleno = horizonte.buscarProgramado(3, DIA);
+        horizonte.getEstado().setCarga(lleno, (int) horizonte.getEstado().getCapacidad(lleno));
+
+        PlanningState estado = horizonte.estadoSobre(cotizacion);
+        CsaRouter.Itinerario itinerario = routerCotizacion.llegadaMasTemprana(routerCotizacion.ordinal("AAAA"),
+                minuto(7, 0), routerCotizacion.ordinal("CCCC"), estado);
+        assertEquals(4, itinerario.idVueloEn(0));
+        assertEquals(0, cotizacion.getEstado().getCarga(cotizacion.buscarProgramado(3, DIA)));
+    }
+
+    private static long minuto(int hora, int minuto) {
+        return EscenarioPrueba.minuto(DIA, hora, minuto);
+    }
+}
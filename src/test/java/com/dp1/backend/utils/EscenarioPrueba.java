@@ -0,0 +1,55 @@
+package com.dp1.backend.utils;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Vuelo;
+
+/*
+ * Datos de prueba que comparten los tests de la planificación: aeropuertos en UTC de un mismo continente
+ * (los envíos entre ellos tienen un día de plazo) y vuelos diarios definidos por su hora de salida y llegada
+ * en DIA.
+ */
+final class EscenarioPrueba {
+    static final LocalDate DIA = LocalDate.of(2025, 1, 6);
+    static final int CAPACIDAD_VUELO = 300;
+
+    private EscenarioPrueba() {
+    }
+
+    static HashMap<String, Aeropuerto> aeropuertos(int capacidad, String... codigos) {
+        HashMap<String, Aeropuerto> aeropuertos = new HashMap<>();
+        for (String codigo : codigos) {
+            Aeropuerto aeropuerto = new Aeropuerto(aeropuertos.size() + 1, codigo, codigo, codigo, codigo, 0,
+                    capacidad);
+            aeropuerto.setContinente("Europa");
+            aeropuertos.put(codigo, aeropuerto);
+        }
+        return aeropuertos;
+    }
+
+    // Vuelo de DIA con capacidad CAPACIDAD_VUELO
+    static void agregarVuelo(HashMap<Integer, Vuelo> vuelos, int id, String origen, String destino, int horaSalida,
+            int minutoSalida, int horaLlegada, int minutoLlegada) {
+        vuelos.put(id, vuelo(id, origen, destino, fecha(DIA, horaSalida, minutoSalida),
+                fecha(DIA, horaLlegada, minutoLlegada), CAPACIDAD_VUELO));
+    }
+
+    static Vuelo vuelo(int id, String origen, String destino, ZonedDateTime salida, ZonedDateTime llegada,
+            int capacidad) {
+        Vuelo vuelo = new Vuelo(origen, destino, salida, llegada, capacidad, 1000.0 * id);
+        vuelo.setIdVuelo(id);
+        return vuelo;
+    }
+
+    static ZonedDateTime fecha(LocalDate dia, int hora, int minuto) {
+        return dia.atTime(hora, minuto).atZone(ZoneOffset.UTC);
+    }
+
+    static long minuto(LocalDate dia, int hora, int minuto) {
+        return aco_auxiliares.minutoEpoch(fecha(dia, hora, minuto));
+    }
+}
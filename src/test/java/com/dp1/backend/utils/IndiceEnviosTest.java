@@ -0,0 +1,88 @@
+package com.dp1.backend.utils;
+
+import static com.dp1.backend.utils.EscenarioPrueba.DIA;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+
+class IndiceEnviosTest {
+    private HashMap<String, Aeropuerto> aeropuertos;
+    private IndiceEnvios indice;
+
+    @BeforeEach
+    void preparar() {
+        aeropuertos = EscenarioPrueba.aeropuertos(500, "AAAA", "BBBB", "CCCC");
+        ArrayList<Envio> envios = new ArrayList<>();
+        // Desordenados a propósito; dos salen en el mismo segundo
+        envios.add(envio("AAAA", 3, 12, 0));
+        envios.add(envio("AAAA", 1, 10, 0));
+        envios.add(envio("BBBB", 2, 10, 0));
+        envios.add(envio("AAAA", 4, 11, 0));
+        indice = IndiceEnvios.de(envios);
+    }
+
+    private Envio envio(String origen, int id, int hora, int minuto) {
+        return LectorEnvios.crearEnvio(origen, id, EscenarioPrueba.fecha(DIA, hora, minuto), "CCCC", 1,
+                aeropuertos.get(origen), aeropuertos.get("CCCC"));
+    }
+
+    @Test
+    void losExtremosDeLaVentanaQuedanFuera() {
+        assertEquals(Set.of("AAAA4"), indice.desdeHasta(hora(10, 0, 0), hora(12, 0, 0)).keySet());
+        assertEquals(Set.of("AAAA1", "BBBB2", "AAAA4"), indice.desdeHasta(hora(9, 59, 59), hora(12, 0, 0)).keySet());
+        assertEquals(Set.of("AAAA4", "AAAA3"), indice.desdeHasta(hora(10, 0, 0), hora(12, 0, 1)).keySet());
+        assertTrue(indice.desdeHasta(hora(12, 0, 0), hora(13, 0, 0)).isEmpty());
+        assertTrue(indice.desdeHasta(hora(11, 0, 0), hora(10, 0, 0)).isEmpty());
+    }
+
+    @Test
+    void lasFraccionesDeSegundoSeRespetan() {
+        // Salir después de 10:00:00.5 ya no incluye las 10:00:00; antes de 12:00:00.5 incluye las 12:00:00
+        assertEquals(Set.of("AAAA4", "AAAA3"),
+                indice.desdeHasta(hora(10, 0, 0).plusNanos(500_000_000), hora(12, 0, 0).plusNanos(500_000_000))
+                        .keySet());
+        assertEquals(Set.of("AAAA1", "BBBB2"),
+                indice.desdeHasta(hora(9, 59, 59).plusNanos(500_000_000), hora(10, 0, 0).plusNanos(1)).keySet());
+    }
+
+    @Test
+    void laVentanaNoDependeDeLaZonaDeLosExtremos() {
+        ZoneOffset lima = ZoneOffset.ofHours(-5);
+        assertEquals(indice.desdeHasta(hora(9, 0, 0), hora(11, 30, 0)),
+                indice.desdeHasta(hora(9, 0, 0).withZoneSameInstant(lima),
+                        hora(11, 30, 0).withZoneSameInstant(lima)));
+    }
+
+    @Test
+    void ventanaDeUnSoloOrigen() {
+        assertEquals(Set.of("AAAA1", "AAAA4", "AAAA3"),
+                indice.desdeHasta("AAAA", hora(9, 0, 0), hora(13, 0, 0)).keySet());
+        assertEquals(Set.of("AAAA4"), indice.desdeHasta("AAAA", hora(10, 0, 0), hora(12, 0, 0)).keySet());
+        assertEquals(Set.of("BBBB2"), indice.desdeHasta("BBBB", hora(9, 0, 0), hora(13, 0, 0)).keySet());
+        assertTrue(indice.desdeHasta("BBBB", hora(10, 0, 0), hora(13, 0, 0)).isEmpty());
+        assertTrue(indice.desdeHasta("CCCC", hora(9, 0, 0), hora(13, 0, 0)).isEmpty());
+    }
+
+    @Test
+    void indiceVacio() {
+        IndiceEnvios vacio = IndiceEnvios.de(new ArrayList<>());
+        assertEquals(0, vacio.size());
+        assertTrue(vacio.desdeHasta(hora(0, 0, 0), hora(23, 0, 0)).isEmpty());
+        assertTrue(vacio.desdeHasta("AAAA", hora(0, 0, 0), hora(23, 0, 0)).isEmpty());
+    }
+
+    private static ZonedDateTime hora(int hora, int minuto, int segundo) {
+        return DIA.atTime(hora, minuto, segundo).atZone(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,99 @@
+package com.dp1.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.HashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dp1.backend.models.Aeropuerto;
+
+class IndiceSalidasTest {
+    private IndiceSalidas indice;
+    private int spim;
+    private int sbbr;
+
+    @BeforeEach
+    void preparar() {
+        HashMap<String, Aeropuerto> aeropuertos = new HashMap<>();
+        aeropuertos.put("SPIM", new Aeropuerto(1, "SPIM", "Lima", "Peru", "lima", -5, 440));
+        aeropuertos.put("SBBR", new Aeropuerto(2, "SBBR", "Brasilia", "Brasil", "bras", -3, 480));
+        aeropuertos.put("SKBO", new Aeropuerto(3, "SKBO", "Bogota", "Colombia", "bogo", -5, 430));
+        indice = new IndiceSalidas(AirportGeoIndex.construir(aeropuertos));
+        spim = indice.ordinal("SPIM");
+        sbbr = indice.ordinal("SBBR");
+    }
+
+    @Test
+    void ordenaLasSalidasRegistradasFueraDeOrden() {
+        indice.registrar(spim, 300, 7);
+        indice.registrar(spim, 100, 5);
+        indice.registrar(spim, 200, 6);
+        indice.registrar(spim, 100, 4);
+
+        assertEquals(4, indice.cantidadSalidas(spim));
+        assertEquals(0, indice.primeraSalidaDespuesDe(spim, 0));
+        // En empates de minuto el orden es por id
+        assertEquals(4, indice.idEn(spim, 0));
+        assertEquals(5, indice.idEn(spim, 1));
+        assertEquals(6, indice.idEn(spim, 2));
+        assertEquals(7, indice.idEn(spim, 3));
+        assertEquals(300, indice.minutoSalidaEn(spim, 3));
+    }
+
+    @Test
+    void primeraSalidaEsEstrictamenteDespuesDelMinuto() {
+        indice.registrar(spim, 100, 1);
+        indice.registrar(spim, 200, 2);
+        indice.registrar(spim, 200, 3);
+        indice.registrar(spim, 300, 4);
+
+        assertEquals(0, indice.primeraSalidaDespuesDe(spim, 99));
+        assertEquals(1, indice.primeraSalidaDespuesDe(spim, 100));
+        assertEquals(1, indice.primeraSalidaDespuesDe(spim, 199));
+        assertEquals(3, indice.primeraSalidaDespuesDe(spim, 200));
+        assertEquals(4, indice.primeraSalidaDespuesDe(spim, 300));
+        // Los otros aeropuertos no se ven afectados
+        assertEquals(0, indice.cantidadSalidas(sbbr));
+        assertEquals(0, indice.primeraSalidaDespuesDe(sbbr, 0));
+    }
+
+    @Test
+    void creceMasAllaDeLaCapacidadInicial() {
+        for (int i = 999; i >= 0; i--) {
+            indice.registrar(sbbr, i, i);
+        }
+        assertEquals(1000, indice.cantidadSalidas(sbbr));
+        assertEquals(1000, indice.getTotalSalidas());
+        assertEquals(500, indice.primeraSalidaDespuesDe(sbbr, 499));
+        assertEquals(500, indice.idEn(sbbr, 500));
+    }
+
+    @Test
+    void eliminarConservaElOrdenDeLasDemas() {
+        for (int id = 0; id < 10; id++) {
+            indice.registrar(spim, 10 * id, id);
+        }
+        indice.registrar(sbbr, 5, 100);
+        indice.eliminar(id -> id % 2 == 0 || id == 100);
+
+        assertEquals(5, indice.cantidadSalidas(spim));
+        assertEquals(0, indice.cantidadSalidas(sbbr));
+        assertEquals(5, indice.getTotalSalidas());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(2 * i + 1, indice.idEn(spim, i));
+        }
+        assertEquals(2, indice.primeraSalidaDespuesDe(spim, 30));
+    }
+
+    @Test
+    void aeropuertoDesconocidoNoTieneSalidas() {
+        int desconocido = indice.ordinal("XXXX");
+        assertEquals(-1, desconocido);
+        indice.registrar(desconocido, 100, 1);
+        assertEquals(0, indice.getTotalSalidas());
+        assertEquals(0, indice.cantidadSalidas(desconocido));
+        assertEquals(0, indice.primeraSalidaDespuesDe(desconocido, 0));
+    }
+}
@@ -0,0 +1,178 @@
+package com.dp1.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Vuelo;
+
+class InstantaneaDatosTest {
+    @TempDir
+    Path carpeta;
+
+    private HashMap<String, Aeropuerto> aeropuertos;
+    private HashMap<Integer, Vuelo> vuelos;
+    private ArrayList<Envio> envios;
+    private Path archivo;
+
+    @BeforeEach
+    void preparar() throws IOException {
+        aeropuertos = new HashMap<>();
+        agregarAeropuerto(7, "SKBO", "Bogota", -5, "America del Sur", 4.70, -74.15);
+        agregarAeropuerto(3, "EDDI", "Berlin", 2, "Europa", 52.47, 13.40);
+        agregarAeropuerto(12, "VIDP", "Delhi", 5, "Asia", 28.57, 77.10);
+
+        vuelos = new HashMap<>();
+        LocalDate hoy = LocalDate.now();
+        agregarVuelo(1, "SKBO", "EDDI", hoy, 8, 30, 23, 5, 300);
+        agregarVuelo(2, "EDDI", "VIDP", hoy, 22, 0, 6, 45, 250);
+        agregarVuelo(3, "VIDP", "SKBO", hoy, 1, 15, 14, 0, 400);
+
+        envios = new ArrayList<>();
+        agregarEnvio("SKBO", 1, ZonedDateTime.of(2024, 1, 3, 10, 0, 0, 0, ZoneOffset.ofHours(-5)), "EDDI", 3);
+        agregarEnvio("EDDI", 2, ZonedDateTime.of(2024, 1, 2, 23, 30, 0, 0, ZoneOffset.ofHours(2)), "VIDP", 1);
+        agregarEnvio("VIDP", 3, ZonedDateTime.of(2024, 1, 4, 5, 0, 0, 0, ZoneOffset.ofHours(5)), "SKBO", 12);
+
+        archivo = carpeta.resolve(InstantaneaDatos.ARCHIVO_INSTANTANEA);
+        InstantaneaDatos.escribir(archivo, aeropuertos, vuelos, envios, 11L, 22L, 33L);
+    }
+
+    private void agregarAeropuerto(int id, String codigo, String ciudad, int gmt, String continente, double latitud,
+            double longitud) {
+        Aeropuerto aeropuerto = new Aeropuerto(id, codigo, ciudad, "Pais " + ciudad, codigo.substring(0, 2), gmt,
+                400 + id);
+        aeropuerto.setContinente(continente);
+        aeropuerto.setLatitud(latitud);
+        aeropuerto.setLongitud(longitud);
+        aeropuertos.put(codigo, aeropuerto);
+    }
+
+    private void agregarVuelo(int id, String origen, String destino, LocalDate dia, int horaSalida, int minutoSalida,
+            int horaLlegada, int minutoLlegada, int capacidad) {
+        ZonedDateTime salida = dia.atTime(horaSalida, minutoSalida).atZone(aeropuertos.get(origen).getZoneId());
+        ZonedDateTime llegada = dia.atTime(horaLlegada, minutoLlegada).atZone(aeropuertos.get(destino).getZoneId());
+        vuelos.put(id, EscenarioPrueba.vuelo(id, origen, destino, salida, llegada, capacidad));
+    }
+
+    private void agregarEnvio(String origen, int id, ZonedDateTime salida, String destino, int cantidad) {
+        envios.add(LectorEnvios.crearEnvio(origen, id, salida, destino, cantidad, aeropuertos.get(origen),
+                aeropuertos.get(destino)));
+    }
+
+    @Test
+    void leeLoQueSeEscribio() throws IOException {
+        InstantaneaDatos instantanea = InstantaneaDatos.leer(archivo);
+
+        assertEquals(3, instantanea.getCantidadAeropuertos());
+        assertEquals(3, instantanea.getCantidadVuelos());
+        assertEquals(3, instantanea.getCantidadEnvios());
+        assertEquals(Files.size(archivo), instantanea.getTamanio());
+
+        HashMap<String, Aeropuerto> leidos = instantanea.aeropuertos();
+        assertEquals(aeropuertos.keySet(), leidos.keySet());
+        for (Aeropuerto esperado : aeropuertos.values()) {
+            Aeropuerto leido = leidos.get(esperado.getCodigoOACI());
+            assertEquals(esperado.getIdAeropuerto(), leido.getIdAeropuerto());
+            assertEquals(esperado.getCiudad(), leido.getCiudad());
+            assertEquals(esperado.getPais(), leido.getPais());
+            assertEquals(esperado.getPaisCorto(), leido.getPaisCorto());
+            assertEquals(esperado.getContinente(), leido.getContinente());
+            assertEquals(esperado.getGmt(), leido.getGmt());
+            assertEquals(esperado.getCapacidadMaxima(), leido.getCapacidadMaxima());
+            assertEquals(esperado.getLatitud(), leido.getLatitud());
+            assertEquals(esperado.getLongitud(), leido.getLongitud());
+        }
+
+        HashMap<Integer, Vuelo> vuelosLeidos = instantanea.vuelos(leidos);
+        assertEquals(vuelos.keySet(), vuelosLeidos.keySet());
+        for (Vuelo esperado : vuelos.values()) {
+            Vuelo leido = vuelosLeidos.get(esperado.getIdVuelo());
+            assertEquals(esperado.getOrigen(), leido.getOrigen());
+            assertEquals(esperado.getDestino(), leido.getDestino());
+            assertEquals(esperado.getFechaHoraSalida(), leido.getFechaHoraSalida());
+            assertEquals(esperado.getFechaHoraLlegada(), leido.getFechaHoraLlegada());
+            assertEquals(esperado.getCambioDeDia(), leido.getCambioDeDia());
+            assertEquals(esperado.getCapacidad(), leido.getCapacidad());
+            assertEquals(esperado.getDistanciaVuelo(), leido.getDistanciaVuelo());
+        }
+    }
+
+    @Test
+    void enviosDeLaVentanaSonLosMismos() throws IOException {
+        InstantaneaDatos instantanea = InstantaneaDatos.leer(archivo);
+        ZonedDateTime inicio = ZonedDateTime.of(2024, 1, 3, 0, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime fin = ZonedDateTime.of(2024, 1, 3, 23, 59, 59, 0, ZoneOffset.UTC);
+
+        HashMap<String, Envio> leidos = instantanea.enviosDesdeHasta(aeropuertos, inicio, fin);
+
+        // EDDI2 sale el 2 a las 21:30 UTC; VIDP3 el 4 a las 00:00 UTC
+        assertEquals(List.of("SKBO1"), new ArrayList<>(leidos.keySet()));
+        Envio esperado = envios.get(0);
+        Envio leido = leidos.get("SKBO1");
+        assertEquals(esperado.getFechaHoraSalida(), leido.getFechaHoraSalida());
+        assertEquals(esperado.getFechaHoraLlegadaPrevista(), leido.getFechaHoraLlegadaPrevista());
+        assertEquals(esperado.getCantidadPaquetes(), leido.getCantidadPaquetes());
+        assertEquals(esperado.getPaquetes().get(2).getIdPaquete(), leido.getPaquetes().get(2).getIdPaquete());
+
+        assertEquals(3, instantanea.enviosDesdeHasta(aeropuertos, inicio.minusDays(1), fin.plusDays(1)).size());
+    }
+
+    @Test
+    void rechazaContenidoAlterado() throws IOException {
+        byte[] bytes = Files.readAllBytes(archivo);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(archivo, bytes);
+
+        IOException error = assertThrows(IOException.class, () -> InstantaneaDatos.leer(archivo));
+        assertTrue(error.getMessage().contains("CRC32"));
+        assertNull(InstantaneaDatos.leerSiVigente(carpeta));
+    }
+
+    @Test
+    void rechazaArchivoTruncadoOAjeno() throws IOException {
+        byte[] bytes = Files.readAllBytes(archivo);
+        Files.write(archivo, Arrays.copyOf(bytes, bytes.length - 10));
+        assertThrows(IOException.class, () -> InstantaneaDatos.leer(archivo));
+
+        Files.write(archivo, Arrays.copyOf(bytes, 20));
+        assertThrows(IOException.class, () -> InstantaneaDatos.leer(archivo));
+
+        bytes[0] ^= 1;
+        Files.write(archivo, bytes);
+        assertThrows(IOException.class, () -> InstantaneaDatos.leer(archivo));
+    }
+
+    @Test
+    void enviosVigentesSegunLaHuella() throws IOException {
+        Path envio = Files.writeString(carpeta.resolve("pack_enviado_SKBO_x.txt"), "x");
+        long huella = InstantaneaDatos.huella(List.of(envio));
+        InstantaneaDatos.escribir(archivo, aeropuertos, vuelos, envios, 11L, 22L, huella);
+
+        InstantaneaDatos instantanea = InstantaneaDatos.leer(archivo);
+        assertNotNull(instantanea);
+        assertTrue(instantanea.enviosVigentes(List.of(envio)));
+
+        Files.writeString(envio, "xy");
+        assertFalse(instantanea.enviosVigentes(List.of(envio)));
+    }
+}
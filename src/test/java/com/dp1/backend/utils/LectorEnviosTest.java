@@ -0,0 +1,145 @@
+package com.dp1.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+
+class LectorEnviosTest {
+    @TempDir
+    Path carpeta;
+
+    private HashMap<String, Aeropuerto> aeropuertos;
+    private LectorEnvios lector;
+
+    @BeforeEach
+    void preparar() {
+        aeropuertos = new HashMap<>();
+        agregarAeropuerto("SKBO", -5, "America del Sur");
+        agregarAeropuerto("SPIM", -5, "America del Sur");
+        agregarAeropuerto("EDDI", 2, "Europa");
+        agregarAeropuerto("EKCH", 2, "Europa");
+        agregarAeropuerto("VIDP", 5, "Asia");
+        lector = new LectorEnvios(aeropuertos);
+    }
+
+    private void agregarAeropuerto(String codigo, int gmt, String continente) {
+        Aeropuerto aeropuerto = new Aeropuerto(aeropuertos.size() + 1, codigo, codigo, codigo, codigo, gmt, 500);
+        aeropuerto.setContinente(continente);
+        aeropuertos.put(codigo, aeropuerto);
+    }
+
+    private Path escribir(String nombre, String... lineas) throws IOException {
+        return Files.write(carpeta.resolve(nombre), List.of(lineas), StandardCharsets.US_ASCII);
+    }
+
+    @Test
+    void mismoResultadoQueFuncionesLectura() throws IOException {
+        Path archivo = escribir("pack_enviado_SKBO_test.txt",
+                "SKBO-000000001-20240102-23:10:00-SPIM:3",
+                "SKBO-000000002-20240103-01:00:00-EDDI:1",
+                "",
+                "EDDI-000000003-20240103-08:30:15-VIDP:12",
+                "SPIM-000000004-20240103-12:00:00-XXXX:2",
+                "VIDP-000000005-20240104-00:00:00-SKBO:5",
+                "SKBO-000000006-20240105-10:00:00-SPIM:4",
+                "SKBO-000000007-20240103-02:00:00-SPIM:1");
+        ZonedDateTime inicio = ZonedDateTime.of(2024, 1, 3, 0, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime fin = ZonedDateTime.of(2024, 1, 4, 12, 0, 0, 0, ZoneOffset.UTC);
+
+        HashMap<String, Envio> esperado = FuncionesLectura.leerEnviosDesdeHasta(archivo.toString(), aeropuertos,
+                inicio, fin);
+        HashMap<String, Envio> leido = lector.leerEnviosDesdeHasta(List.of(archivo), inicio, fin);
+
+        // El primero sale el 2 en hora local pero el 3 en UTC; la lectura se corta en el sexto, así que el
+        // séptimo no se lee aunque esté en el rango
+        assertEquals(esperado.keySet(), leido.keySet());
+        assertEquals(5, leido.size());
+        assertFalse(leido.containsKey("SKBO7"));
+        for (Map.Entry<String, Envio> entrada : esperado.entrySet()) {
+            assertMismoEnvio(entrada.getValue(), leido.get(entrada.getKey()));
+        }
+    }
+
+    private static void assertMismoEnvio(Envio esperado, Envio leido) {
+        assertNotNull(leido);
+        assertEquals(esperado.getIdEnvio(), leido.getIdEnvio());
+        assertEquals(esperado.getOrigen(), leido.getOrigen());
+        assertEquals(esperado.getDestino(), leido.getDestino());
+        assertEquals(esperado.getFechaHoraSalida(), leido.getFechaHoraSalida());
+        assertEquals(esperado.getFechaHoraLlegadaPrevista(), leido.getFechaHoraLlegadaPrevista());
+        assertEquals(esperado.getCantidadPaquetes(), leido.getCantidadPaquetes());
+        assertEquals(esperado.getPaquetes().size(), leido.getPaquetes().size());
+        for (int i = 0; i < esperado.getPaquetes().size(); i++) {
+            Paquete p = esperado.getPaquetes().get(i);
+            Paquete q = leido.getPaquetes().get(i);
+            assertEquals(p.getIdPaquete(), q.getIdPaquete());
+            assertEquals(p.getCodigoEnvio(), q.getCodigoEnvio());
+            assertEquals(p.getTiempoRestante(), q.getTiempoRestante());
+        }
+    }
+
+    @Test
+    void saltaLineasMalFormadasYFechasQueNoExisten() throws IOException {
+        Path archivo = escribir("pack_enviado_SKBO_test.txt",
+                "SKBO-000000001-20240201-10:00:00-SPIM:1",
+                "SKBO-000000002-20240231-10:00:00-SPIM:1",
+                "SKBO-000000003-2024021-10:00:00-SPIM:1",
+                "SKBO-000000004-20240202-25:00:00-SPIM:1",
+                "basura",
+                "SKBO-000000005-20240203-10:00:00-EDDI:2");
+        ZonedDateTime inicio = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime fin = ZonedDateTime.of(2024, 12, 31, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        HashMap<String, Envio> leido = lector.leerEnviosDesdeHasta(List.of(archivo), inicio, fin);
+
+        assertEquals(2, leido.size());
+        assertTrue(leido.containsKey("SKBO1"));
+        assertTrue(leido.containsKey("SKBO5"));
+        assertFalse(leido.containsKey("SKBO2"));
+    }
+
+    @Test
+    void unaFechaQueNoExisteNoCortaLaLectura() throws IOException {
+        // El 31 de febrero caería después del fin de la ventana si se contara como 3 de marzo
+        Path archivo = escribir("pack_enviado_SKBO_test.txt",
+                "SKBO-000000001-20250210-10:00:00-SPIM:1",
+                "SKBO-000000002-20250231-10:00:00-SPIM:1",
+                "SKBO-000000003-20250211-10:00:00-SPIM:1");
+        ZonedDateTime inicio = ZonedDateTime.of(2025, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        ZonedDateTime fin = ZonedDateTime.of(2025, 2, 28, 0, 0, 0, 0, ZoneOffset.UTC);
+
+        HashMap<String, Envio> leido = lector.leerEnviosDesdeHasta(List.of(archivo), inicio, fin);
+
+        assertEquals(2, leido.size());
+        assertTrue(leido.containsKey("SKBO3"));
+    }
+
+    @Test
+    void listaSoloArchivosDeEnviosSinIndices() throws IOException {
+        Path archivo = escribir("pack_enviado_SKBO_test.txt", "SKBO-000000001-20240201-10:00:00-SPIM:1");
+        escribir("otro.txt", "x");
+        ZonedDateTime inicio = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        lector.leerEnviosDesdeHasta(List.of(archivo), inicio, inicio.plusYears(1));
+
+        assertEquals(List.of(archivo), LectorEnvios.listarArchivos(carpeta));
+    }
+}
@@ -0,0 +1,155 @@
+package com.dp1.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+
+class LineaTiempoOcupacionTest {
+    private static final long BASE = 29_000_000L; // un minuto epoch de 2025
+
+    @Test
+    void sumarDesdeAcumulaHastaInfinito() {
+        LineaTiempoOcupacion linea = new LineaTiempoOcupacion();
+        linea.sumarDesde(BASE + 10, 3);
+        linea.sumarDesde(BASE + 20, -1);
+
+        assertEquals(0, linea.valorEn(BASE + 9));
+        assertEquals(3, linea.valorEn(BASE + 10));
+        assertEquals(3, linea.valorEn(BASE + 19));
+        assertEquals(2, linea.valorEn(BASE + 20));
+        assertEquals(2, linea.valorEn(BASE + 1_000_000));
+        assertEquals(0, linea.valorEn(BASE - 1_000_000));
+        assertEquals(3, linea.maximoEnRango(BASE, BASE + 100));
+        assertEquals(2, linea.maximoEnRango(BASE + 20, BASE + 1_000_000));
+    }
+
+    @Test
+    void reiniciarDejaLaLineaEnCero() {
+        LineaTiempoOcupacion linea = new LineaTiempoOcupacion();
+        linea.sumarDesde(BASE, 5);
+        linea.sumarEnRango(BASE + 100, BASE + 200, 7);
+        linea.reiniciar();
+
+        assertEquals(0, linea.valorEn(BASE));
+        assertEquals(0, linea.valorEn(BASE + 150));
+        assertEquals(0, linea.maximoEnRango(BASE - 10, BASE + 10_000));
+
+        // Después del reinicio los nodos de la época anterior no cuentan
+        linea.sumarDesde(BASE + 150, 1);
+        assertEquals(0, linea.valorEn(BASE + 149));
+        assertEquals(1, linea.valorEn(BASE + 150));
+        assertEquals(1, linea.valorEn(BASE + 180));
+        assertEquals(1, linea.maximoEnRango(BASE, BASE + 300));
+    }
+
+    @Test
+    void elHorizonteCreceHaciaAmbosLadosConservandoLosValores() {
+        LineaTiempoOcupacion linea = new LineaTiempoOcupacion();
+        linea.sumarDesde(BASE, 2);
+        linea.sumarEnRango(BASE + 10, BASE + 20, 4);
+        int tamanioInicial = linea.getTamanioHorizonte();
+
+        // Hacia adelante: varios días después
+        linea.sumarDesde(BASE + 10 * 1440, 1);
+        assertTrue(linea.getTamanioHorizonte() > tamanioInicial);
+        // Hacia atrás: antes del inicio del horizonte
+        linea.sumarEnRango(BASE - 5 * 1440, BASE - 5 * 1440 + 59, 9);
+        assertTrue(linea.getInicioHorizonte() <= BASE - 5 * 1440);
+
+        assertEquals(9, linea.valorEn(BASE - 5 * 1440 + 30));
+        assertEquals(0, linea.valorEn(BASE - 1));
+        assertEquals(2, linea.valorEn(BASE));
+        assertEquals(6, linea.valorEn(BASE + 15));
+        assertEquals(2, linea.valorEn(BASE + 21));
+        assertEquals(3, linea.valorEn(BASE + 10 * 1440));
+        assertEquals(9, linea.maximoEnRango(BASE - 10 * 1440, BASE + 20 * 1440));
+        assertEquals(6, linea.maximoEnRango(BASE, BASE + 20 * 1440));
+    }
+
+    @Test
+    void descartarAntesDeEncogeElHorizonteConservandoLoQueSigue() {
+        LineaTiempoOcupacion linea = new LineaTiempoOcupacion();
+        linea.sumarDesde(BASE, 2);
+        linea.sumarEnRango(BASE + 10, BASE + 20, 4);
+        linea.sumarDesde(BASE + 10 * 1440, 1);
+        int tamanioAntes = linea.getTamanioHorizonte();
+
+        linea.descartarAntesDe(BASE + 8 * 1440);
+        assertEquals(BASE + 8 * 1440, linea.getInicioHorizonte());
+        assertTrue(linea.getTamanioHorizonte() < tamanioAntes);
+        assertEquals(0, linea.valorEn(BASE + 15));
+        assertEquals(2, linea.valorEn(BASE + 8 * 1440));
+        assertEquals(3, linea.valorEn(BASE + 10 * 1440));
+        assertEquals(3, linea.maximoEnRango(BASE, BASE + 20 * 1440));
+
+        // Más allá de todo lo registrado queda el acumulado final
+        linea.descartarAntesDe(BASE + 30 * 1440);
+        assertEquals(3, linea.valorEn(BASE + 30 * 1440));
+        linea.sumarDesde(BASE + 31 * 1440, -3);
+        assertEquals(0, linea.valorEn(BASE + 31 * 1440));
+        assertEquals(3, linea.maximoEnRango(BASE + 30 * 1440, BASE + 40 * 1440));
+    }
+
+    @Test
+    void laCopiaEsIndependiente() {
+        LineaTiempoOcupacion linea = new LineaTiempoOcupacion();
+        linea.sumarDesde(BASE, 1);
+        LineaTiempoOcupacion copia = linea.copia();
+        copia.sumarDesde(BASE, 1);
+        linea.reiniciar();
+
+        assertEquals(0, linea.valorEn(BASE));
+        assertEquals(2, copia.valorEn(BASE));
+    }
+
+    @Test
+    void coincideConUnConteoDirecto() {
+        Random random = new Random(7);
+        LineaTiempoOcupacion linea = new LineaTiempoOcupacion();
+        // Modelo: delta por minuto, el valor de un minuto es la suma de los deltas hasta él
+        TreeMap<Long, Integer> deltas = new TreeMap<>();
+        for (int operacion = 0; operacion < 2000; operacion++) {
+            long minuto = BASE + random.nextInt(8 * 1440) - 2 * 1440;
+            int delta = random.nextInt(7) - 3;
+            if (random.nextBoolean()) {
+                linea.sumarDesde(minuto, delta);
+                deltas.merge(minuto, delta, Integer::sum);
+            } else {
+                long hasta = minuto + random.nextInt(600);
+                linea.sumarEnRango(minuto, hasta, delta);
+                deltas.merge(minuto, delta, Integer::sum);
+                deltas.merge(hasta + 1, -delta, Integer::sum);
+            }
+            if (operacion % 100 == 0) {
+                for (int consulta = 0; consulta < 50; consulta++) {
+                    long desde = BASE + random.nextInt(10 * 1440) - 3 * 1440;
+                    long hasta = desde + random.nextInt(1440);
+                    assertEquals(valor(deltas, desde), linea.valorEn(desde));
+                    assertEquals(maximo(deltas, desde, hasta), linea.maximoEnRango(desde, hasta));
+                }
+            }
+        }
+    }
+
+    private static int valor(TreeMap<Long, Integer> deltas, long minuto) {
+        int suma = 0;
+        for (int delta : deltas.headMap(minuto, true).values()) {
+            suma += delta;
+        }
+        return suma;
+    }
+
+    private static int maximo(TreeMap<Long, Integer> deltas, long desde, long hasta) {
+        int actual = valor(deltas, desde);
+        int resultado = actual;
+        for (int delta : deltas.subMap(desde, false, hasta, true).values()) {
+            actual += delta;
+            resultado = Math.max(resultado, actual);
+        }
+        return resultado;
+    }
+}
@@ -0,0 +1,179 @@
+package com.dp1.backend.utils;
+
+import static com.dp1.backend.utils.EscenarioPrueba.DIA;
+import static com.dp1.backend.utils.EscenarioPrueba.minuto;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.models.ProgramacionVuelo;
+import com.dp1.backend.models.Vuelo;
+
+class PlanIncrementalTest {
+    private HashMap<String, Aeropuerto> aeropuertos;
+    private HashMap<Integer, Vuelo> vuelos;
+    private PlanIncremental plan;
+    private HorizonteVuelos horizonte;
+
+    @BeforeEach
+    void preparar() {
+        aeropuertos = EscenarioPrueba.aeropuertos(500, "AAAA", "BBBB", "CCCC");
+        vuelos = new HashMap<>();
+        EscenarioPrueba.agregarVuelo(vuelos, 1, "AAAA", "BBBB", 22, 0, 23, 0);
+        EscenarioPrueba.agregarVuelo(vuelos, 2, "BBBB", "CCCC", 10, 0, 12, 0);
+
+        plan = new PlanIncremental(aeropuertos, vuelos);
+        horizonte = plan.getHorizonte();
+        horizonte.asegurarDias(DIA, 2, vuelos);
+    }
+
+    @Test
+    void unaRutaQueCruzaElCorteConservaLaReservaDeLoQueFalta() {
+        int tramo1 = horizonte.buscarProgramado(1, DIA);
+        int tramo2 = horizonte.buscarProgramado(2, DIA.plusDays(1));
+        Envio envio = crearEnvio(1, 1);
+        Paquete paq = envio.getPaquetes().get(0);
+        comprometer(paq, envio, tramo1, tramo2);
+        ProgramacionVuelo pv2 = horizonte.getVuelosProgramados().get(tramo2);
+
+        // Se descarta el día del primer vuelo: el paquete ya lo voló y sigue en el aire hacia CCCC
+        plan.avanzar(DIA.plusDays(2).atStartOfDay(ZoneOffset.UTC));
+
+        assertFalse(horizonte.contiene(DIA));
+        PlanIncremental.Compromiso c = plan.compromiso(paq);
+        assertNotNull(c);
+        assertArrayEquals(new int[] { tramo2 }, c.getVuelos());
+        assertEquals(1, c.getDescartados());
+        assertTrue(plan.vigente(c));
+        assertEquals(1, horizonte.getEstado().getCarga(tramo2));
+        Aeropuerto escala = plan.getAlmacenes().get("BBBB");
+        assertEquals(1, escala.paquetesAEstaHoraPlanificacion(pv2.getMinutoSalida() - 1));
+        assertEquals(0, escala.paquetesAEstaHoraPlanificacion(pv2.getMinutoSalida()));
+        Aeropuerto destino = plan.getAlmacenes().get("CCCC");
+        assertEquals(1, destino.paquetesAEstaHoraPlanificacion(pv2.getMinutoLlegada()));
+        // En el destino final el paquete deja el almacén en su plazo
+        assertEquals(0, destino.paquetesAEstaHoraPlanificacion(paq.minutoLimite(envio)));
+
+        // Si después se cancela el vuelo que le falta, se replanifica desde la escala
+        plan.cancelarVuelo(2, DIA.plusDays(1));
+        List<PlanIncremental.Compromiso> cortados = plan.cortarEnCancelados();
+        assertEquals(1, cortados.size());
+        assertEquals(0, horizonte.getEstado().getCarga(tramo2));
+        assertEquals("BBBB", plan.ciudadUbicacion(c));
+        assertEquals(minuto(DIA, 23, 0), plan.minutoUbicacion(c));
+        assertEquals(List.of(1), paq.getRuta());
+        assertEquals(0, destino.paquetesAEstaHoraPlanificacion(pv2.getMinutoLlegada()));
+        assertEquals(0, destino.paquetesAEstaHoraPlanificacion(paq.minutoLimite(envio)));
+    }
+
+    @Test
+    void seOlvidanLasRutasQueQuedanEnterasEnDiasDescartados() {
+        int tramo1 = horizonte.buscarProgramado(1, DIA);
+        Envio envio = crearEnvio(1, 1);
+        Paquete paq = envio.getPaquetes().get(0);
+        comprometer(paq, envio, tramo1);
+
+        plan.avanzar(DIA.plusDays(2).atStartOfDay(ZoneOffset.UTC));
+
+        assertNull(plan.compromiso(paq));
+        assertEquals(0, plan.getCantidadCompromisos());
+    }
+
+    @Test
+    void avanzarRecortaLaOcupacionDeLosAlmacenes() {
+        int tramo1 = horizonte.buscarProgramado(1, DIA);
+        Envio envio = crearEnvio(1, 1);
+        comprometer(envio.getPaquetes().get(0), envio, tramo1);
+        long inicioAntes = plan.getAlmacenes().get("BBBB").getOcupacionPlanificacion().getInicioHorizonte();
+
+        plan.avanzar(DIA.plusDays(3).atStartOfDay(ZoneOffset.UTC));
+
+        LineaTiempoOcupacion linea = plan.getAlmacenes().get("BBBB").getOcupacionPlanificacion();
+        assertTrue(linea.getInicioHorizonte() > inicioAntes);
+        // La ruta olvidada no llegaba a destino: el paquete deja de contar en la escala
+        assertEquals(0, linea.valorEn(minuto(DIA.plusDays(3), 0, 0)));
+    }
+
+    @Test
+    void laOcupacionEnElDestinoFinalNoCreceConLasPlanificaciones() {
+        Aeropuerto destino = plan.getAlmacenes().get("CCCC");
+        for (int d = 0; d < 5; d++) {
+            LocalDate dia = DIA.plusDays(d);
+            horizonte.asegurarDias(dia, 2, vuelos);
+            Envio envio = LectorEnvios.crearEnvio("AAAA", d, dia.atTime(20, 0).atZone(ZoneOffset.UTC), "CCCC", 1,
+                    aeropuertos.get("AAAA"), aeropuertos.get("CCCC"));
+            comprometer(envio.getPaquetes().get(0), envio, horizonte.buscarProgramado(1, dia),
+                    horizonte.buscarProgramado(2, dia.plusDays(1)));
+            plan.avanzar(dia.plusDays(2).atStartOfDay(ZoneOffset.UTC));
+        }
+        // Cada paquete deja el destino en su plazo: pasado el último, no queda ninguno
+        assertEquals(0, destino.paquetesAEstaHoraPlanificacion(minuto(DIA.plusDays(10), 0, 0)));
+    }
+
+    @Test
+    void paquetesConElMismoIdTienenCompromisosDistintos() {
+        int tramo1 = horizonte.buscarProgramado(1, DIA);
+        int tramo2 = horizonte.buscarProgramado(1, DIA.plusDays(1));
+        // Con envioId >= 10000 el idPaquete de los archivos se repite entre envíos
+        Envio envioA = crearEnvio(10000, 1);
+        Envio envioB = crearEnvio(0, 1);
+        Paquete paqA = envioA.getPaquetes().get(0);
+        Paquete paqB = envioB.getPaquetes().get(0);
+        paqB.setIdPaquete(paqA.getIdPaquete());
+        comprometer(paqA, envioA, tramo1);
+        comprometer(paqB, envioB, tramo2);
+
+        assertEquals(2, plan.getCantidadCompromisos());
+        assertNotSame(plan.compromiso(paqA), plan.compromiso(paqB));
+        plan.liberar(plan.compromiso(paqA));
+        assertEquals(0, horizonte.getEstado().getCarga(tramo1));
+        assertEquals(1, horizonte.getEstado().getCarga(tramo2));
+        assertArrayEquals(new int[] { tramo2 }, plan.compromiso(paqB).getVuelos());
+    }
+
+    // Registra la ruta en el paquete y la reserva como lo hace la planificación, y la compromete
+    private void comprometer(Paquete paq, Envio envio, int... ruta) {
+        ArrayList<Integer> idsVuelo = new ArrayList<>();
+        ArrayList<ZonedDateTime> fechas = new ArrayList<>();
+        ArrayList<Double> costos = new ArrayList<>();
+        for (int id : ruta) {
+            ProgramacionVuelo pv = horizonte.getVuelosProgramados().get(id);
+            Vuelo vuelo = vuelos.get(pv.getIdVuelo());
+            plan.getAlmacenes().get(vuelo.getDestino()).paquetesEntranPlanificacion(pv.getMinutoLlegada(), 1);
+            if (vuelo.getDestino().equals(envio.getDestino())) {
+                plan.getAlmacenes().get(vuelo.getDestino()).paquetesSalenPlanificacion(paq.minutoLimite(envio), 1);
+            }
+            plan.getAlmacenes().get(vuelo.getOrigen()).paquetesSalenPlanificacion(pv.getMinutoSalida(), 1);
+            horizonte.getEstado().incrementarCarga(id, 1);
+            idsVuelo.add(pv.getIdVuelo());
+            fechas.add(pv.getFechaHoraLlegada());
+            costos.add(1.0);
+        }
+        paq.setRuta(idsVuelo);
+        paq.setFechasRuta(fechas);
+        paq.setCostosRuta(costos);
+        plan.comprometer(paq, envio, ruta, true);
+    }
+
+    private Envio crearEnvio(int envioId, int cantidad) {
+        return LectorEnvios.crearEnvio("AAAA", envioId, DIA.atTime(20, 0).atZone(ZoneOffset.UTC), "CCCC", cantidad,
+                aeropuertos.get("AAAA"), aeropuertos.get("CCCC"));
+    }
+}
@@ -0,0 +1,115 @@
+package com.dp1.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SelectorRuletaTest {
+    private static final int SORTEOS = 200_000;
+    // Tolerancia absoluta de las frecuencias (unas 7 desviaciones estándar con SORTEOS sorteos)
+    private static final double TOLERANCIA = 0.008;
+
+    private static final double[] PESOS = { 1, 0, 3, 6, 0, 10 };
+
+    @Test
+    void recorridoLinealRespetaLosPesos() {
+        SelectorRuleta selector = new SelectorRuleta(7);
+        int[] veces = new int[PESOS.length];
+        for (int s = 0; s < SORTEOS; s++) {
+            veces[selector.escoger(PESOS, PESOS.length)]++;
+        }
+        assertFrecuencias(PESOS, veces);
+    }
+
+    @Test
+    void tablaDeAliasRespetaLosPesos() {
+        SelectorRuleta selector = new SelectorRuleta(7);
+        SelectorRuleta.TablaAlias tabla = new SelectorRuleta.TablaAlias(2);
+        tabla.preparar(PESOS, PESOS.length);
+        assertEquals(PESOS.length, tabla.getTamanio());
+        int[] veces = new int[PESOS.length];
+        for (int s = 0; s < SORTEOS; s++) {
+            veces[selector.escoger(tabla)]++;
+        }
+        assertFrecuencias(PESOS, veces);
+    }
+
+    @Test
+    void soloConsideraLosPrimerosNPesos() {
+        SelectorRuleta selector = new SelectorRuleta(7);
+        // El arreglo de trabajo trae basura después de n
+        double[] pesos = { 0, 2, 0, 100 };
+        SelectorRuleta.TablaAlias tabla = new SelectorRuleta.TablaAlias();
+        tabla.preparar(pesos, 3);
+        for (int s = 0; s < 1000; s++) {
+            assertEquals(1, selector.escoger(pesos, 3));
+            assertEquals(1, selector.escoger(tabla));
+        }
+    }
+
+    @Test
+    void todosLosPesosEnCero() {
+        SelectorRuleta selector = new SelectorRuleta(7);
+        double[] ceros = new double[4];
+        // El recorrido lineal se queda con el primero
+        for (int s = 0; s < 1000; s++) {
+            assertEquals(0, selector.escoger(ceros, ceros.length));
+        }
+        // La tabla reparte por igual
+        SelectorRuleta.TablaAlias tabla = new SelectorRuleta.TablaAlias();
+        tabla.preparar(ceros, ceros.length);
+        int[] veces = new int[ceros.length];
+        for (int s = 0; s < SORTEOS; s++) {
+            veces[selector.escoger(tabla)]++;
+        }
+        assertFrecuencias(new double[] { 1, 1, 1, 1 }, veces);
+    }
+
+    @Test
+    void sinReposicionNoRepiteLoQueYaSalio() {
+        SelectorRuleta selector = new SelectorRuleta(7);
+        int n = SelectorRuleta.UMBRAL_ALIAS * 2;
+        SelectorRuleta.TablaAlias tabla = new SelectorRuleta.TablaAlias();
+        for (int serie = 0; serie < 200; serie++) {
+            double[] pesos = new double[n];
+            for (int i = 0; i < n; i++) {
+                pesos[i] = i % 3 == 0 ? 0 : 1 + i;
+            }
+            int positivos = 0;
+            for (double peso : pesos) {
+                positivos += peso > 0 ? 1 : 0;
+            }
+            for (int sorteo = 0; sorteo < positivos; sorteo++) {
+                int escogido = selector.escogerSinReposicion(pesos, n, tabla, sorteo);
+                assertTrue(pesos[escogido] > 0, "salió el candidato " + escogido + " en el sorteo " + sorteo);
+                pesos[escogido] = 0;
+            }
+        }
+    }
+
+    @Test
+    void conLaMismaSemillaSeRepitenLosSorteos() {
+        SelectorRuleta a = new SelectorRuleta(42);
+        SelectorRuleta b = new SelectorRuleta(42);
+        for (int s = 0; s < 1000; s++) {
+            assertEquals(a.escoger(PESOS, PESOS.length), b.escoger(PESOS, PESOS.length));
+        }
+    }
+
+    private static void assertFrecuencias(double[] pesos, int[] veces) {
+        double total = 0;
+        int sorteos = 0;
+        for (int i = 0; i < pesos.length; i++) {
+            total += pesos[i];
+            sorteos += veces[i];
+        }
+        for (int i = 0; i < pesos.length; i++) {
+            if (pesos[i] == 0) {
+                assertEquals(0, veces[i], "el candidato " + i + " tiene peso 0");
+            } else {
+                assertEquals(pesos[i] / total, (double) veces[i] / sorteos, TOLERANCIA, "candidato " + i);
+            }
+        }
+    }
+}
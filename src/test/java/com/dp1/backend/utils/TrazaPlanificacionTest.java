@@ -0,0 +1,81 @@
+package com.dp1.backend.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.jupiter.api.Test;
+
+class TrazaPlanificacionTest {
+    @Test
+    void conElBufferLlenoSeDescartaSinPisarMensajes() {
+        // Sin iniciar: nadie vacía el buffer salvo el test
+        TrazaPlanificacion traza = new TrazaPlanificacion(TrazaPlanificacion.Nivel.RESUMEN, 0, null, 16);
+        for (int i = 0; i < 20; i++) {
+            traza.registrar(TrazaPlanificacion.Nivel.RESUMEN, "m" + i);
+        }
+        assertEquals(4, traza.getDescartados());
+        for (int i = 0; i < 16; i++) {
+            assertEquals("m" + i, traza.tomar());
+        }
+        assertNull(traza.tomar());
+
+        // Las casillas liberadas se vuelven a usar en la vuelta siguiente
+        traza.registrar(TrazaPlanificacion.Nivel.RESUMEN, "otra");
+        assertEquals("otra", traza.tomar());
+    }
+
+    @Test
+    void variosProductoresNoPierdenNiRepitenMensajes() throws InterruptedException {
+        TrazaPlanificacion traza = new TrazaPlanificacion(TrazaPlanificacion.Nivel.RESUMEN, 0, null, 16);
+        int productores = 4, porProductor = 50_000;
+        CountDownLatch inicio = new CountDownLatch(1);
+        List<Thread> hilos = new ArrayList<>();
+        for (int p = 0; p < productores; p++) {
+            int productor = p;
+            Thread hilo = new Thread(() -> {
+                try {
+                    inicio.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < porProductor; i++) {
+                    traza.registrar(TrazaPlanificacion.Nivel.RESUMEN, productor + ":" + i);
+                }
+            });
+            hilo.start();
+            hilos.add(hilo);
+        }
+
+        // Cada productor encola en orden: lo que llega de él debe ir creciendo, sin repetidos
+        int[] ultimo = new int[productores];
+        Arrays.fill(ultimo, -1);
+        int recibidos = 0;
+        inicio.countDown();
+        boolean vivos = true;
+        while (vivos) {
+            vivos = hilos.stream().anyMatch(Thread::isAlive);
+            Object mensaje;
+            while ((mensaje = traza.tomar()) != null) {
+                String[] partes = ((String) mensaje).split(":");
+                int productor = Integer.parseInt(partes[0]);
+                int i = Integer.parseInt(partes[1]);
+                assertTrue(i > ultimo[productor], "mensaje repetido o fuera de orden: " + mensaje);
+                ultimo[productor] = i;
+                recibidos++;
+            }
+        }
+        for (Thread hilo : hilos) {
+            hilo.join();
+        }
+        while (traza.tomar() != null) {
+            recibidos++;
+        }
+        assertEquals((long) productores * porProductor, recibidos + traza.getDescartados());
+    }
+}
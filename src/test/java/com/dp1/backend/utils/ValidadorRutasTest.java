@@ -0,0 +1,87 @@
+package com.dp1.backend.utils;
+
+import static com.dp1.backend.utils.EscenarioPrueba.CAPACIDAD_VUELO;
+import static com.dp1.backend.utils.EscenarioPrueba.DIA;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.dp1.backend.models.Aeropuerto;
+import com.dp1.backend.models.Envio;
+import com.dp1.backend.models.Paquete;
+import com.dp1.backend.models.Vuelo;
+
+class ValidadorRutasTest {
+    private HashMap<String, Aeropuerto> aeropuertos;
+    private HashMap<Integer, Vuelo> vuelos;
+    private HashMap<String, Envio> envios;
+    private ArrayList<Paquete> paquetes;
+
+    @BeforeEach
+    void preparar() {
+        aeropuertos = EscenarioPrueba.aeropuertos(10000, "AAAA", "BBBB");
+        vuelos = new HashMap<>();
+        EscenarioPrueba.agregarVuelo(vuelos, 1, "AAAA", "BBBB", 12, 0, 14, 0);
+
+        // Más paquetes que espacio en el vuelo, en varias particiones de un mismo origen
+        envios = new HashMap<>();
+        paquetes = new ArrayList<>();
+        for (int e = 0; e < 60; e++) {
+            Envio envio = LectorEnvios.crearEnvio("AAAA", e, DIA.atTime(8, e).atZone(ZoneOffset.UTC), "BBBB", 10,
+                    aeropuertos.get("AAAA"), aeropuertos.get("BBBB"));
+            envios.put(envio.getCodigoEnvio(), envio);
+            for (Paquete paq : envio.getPaquetes()) {
+                ArrayList<Integer> ruta = new ArrayList<>();
+                ruta.add(1);
+                paq.setRuta(ruta);
+                paquetes.add(paq);
+            }
+        }
+    }
+
+    @Test
+    void conSemillaElResultadoNoDependeDeLosHilos() {
+        ValidadorRutas validador = new ValidadorRutas(aeropuertos, vuelos);
+        validador.reiniciar(envios);
+        boolean[] unHilo = validador.validarTodos(paquetes, 1, 42);
+
+        validador.reiniciar(envios);
+        boolean[] cuatroHilos = validador.validarTodos(paquetes, 4, 42);
+
+        assertArrayEquals(unHilo, cuatroHilos);
+        assertEquals(CAPACIDAD_VUELO - 1, contar(cuatroHilos));
+        assertEquals(CAPACIDAD_VUELO - 1, validador.getCarga(1, DIA.toEpochDay()));
+    }
+
+    @Test
+    void reiniciarDejaElValidadorListoParaOtraPasada() {
+        ValidadorRutas validador = new ValidadorRutas(aeropuertos, vuelos);
+        validador.reiniciar(envios);
+        assertEquals(CAPACIDAD_VUELO - 1, contar(validador.validarTodos(paquetes, 4, -1)));
+
+        // Otra pasada con menos envíos reutiliza la tabla de cargas, que vuelve a empezar vacía
+        HashMap<String, Envio> uno = new HashMap<>();
+        Envio envio = envios.values().iterator().next();
+        uno.put(envio.getCodigoEnvio(), envio);
+        validador.reiniciar(uno);
+        assertEquals(0, validador.getCarga(1, DIA.toEpochDay()));
+        for (Paquete paq : envio.getPaquetes()) {
+            validador.validar(paq, ValidadorRutas.Modo.COMPROMETER);
+        }
+        assertEquals(envio.getPaquetes().size(), validador.getCarga(1, DIA.toEpochDay()));
+    }
+
+    private static int contar(boolean[] validos) {
+        int cantidad = 0;
+        for (boolean valido : validos) {
+            cantidad += valido ? 1 : 0;
+        }
+        return cantidad;
+    }
+}